@@ -1,6 +1,9 @@
 package cn.navyd.lib.algs.graph;
 
-import cn.navyd.lib.algs.sort.IndexMinPQ;
+import cn.navyd.lib.algs.sort.BucketQueue;
+import cn.navyd.lib.algs.sort.DoubleIndexMinPQ;
+import cn.navyd.lib.algs.sort.DoubleIndexedPQ;
+import cn.navyd.lib.algs.sort.RadixHeap;
 import cn.navyd.lib.algs.util.In;
 import cn.navyd.lib.algs.util.ArrayStack;
 
@@ -11,24 +14,41 @@ import cn.navyd.lib.algs.util.ArrayStack;
  * 顶点v如果在树外，那么树中顶点会仅保持一条与v最小的连接。
  * 而一个顶点w加入树中时，此时树与顶点v就保持了两条连接，需要比较从起点s开始的距离
  * 是s-v还是新的s-w-v的距离<br>
- * 复杂度：计算所需空间与v成正比，时间与elogv成正比
+ * 复杂度：计算所需空间与v成正比，时间与elogv成正比。
+ * 使用配对堆IndexPairingHeap时decreaseKey均摊O(1)，时间接近e+vlogv；
+ * 权值为整数时使用BucketQueue或RadixHeap，时间为e+v*C或e+vlogC
  * @author Navy D
  * @date 20170911204237
  */
 public class DijkstraSP {
+	// 最大权值不超过该值时默认使用桶队列，桶数为最大权值+1
+	private static final int BUCKET_MAX_WEIGHT = 1 << 10;
 	// 最短路径树中的边 如edgeTo[v]表示顶点s到v的最短路径上的一条边
 	private DirectedEdge[] edgeTo;
 	// 到达起点的最短距离 如distTo[v] 表示顶点s到v的最短距离
 	private double[] distTo;
-	// 索引优先队列保存树连接树外的边顶点的最小权值
-	private IndexMinPQ<Double> pq;
+	// 索引优先队列保存树连接树外的边顶点的最小权值，键为double不装箱
+	private DoubleIndexedPQ pq;
 
 	/**
-	 * 在一个加权有向图中计算从起点s开始到任何的顶点的最短路径
+	 * 在一个加权有向图中计算从起点s开始到任何的顶点的最短路径。
+	 * 根据边的权值选择优先队列，见{@link #priorityQueue(EdgeWeightedDigraph)}
 	 * @param g
 	 * @param s
 	 */
 	public DijkstraSP(EdgeWeightedDigraph g, int s) {
+		this(g, s, priorityQueue(g));
+	}
+
+	/**
+	 * 使用指定的索引优先队列计算从起点s开始到任何的顶点的最短路径
+	 * @param g
+	 * @param s
+	 * @param pq 空的队列，需要能保存0..V-1的索引，如new IndexPairingHeap(g.getV())
+	 */
+	public DijkstraSP(EdgeWeightedDigraph g, int s, DoubleIndexedPQ pq) {
+		if (pq == null || !pq.isEmpty())
+			throw new IllegalArgumentException("priority queue is null or not empty");
 		// 判断图是否存在负权值的边
 		for (DirectedEdge e : g.edges()) {
             if (e.weight() < 0)
@@ -40,7 +60,7 @@ public class DijkstraSP {
 
 		validateVertex(s);
 
-		pq = new IndexMinPQ<>(g.getV());
+		this.pq = pq;
 		// 将所有顶点距离权值初始化为正无限大
 		for (int i = 0; i < g.getV(); i++)
 			distTo[i] = Double.POSITIVE_INFINITY;
@@ -56,6 +76,23 @@ public class DijkstraSP {
 		assert check(g, s);
 	}
 
+	/**
+	 * 返回适合图g的空队列：
+	 * <li>权值都是整数且最大权值C不超过BUCKET_MAX_WEIGHT时使用Dial的桶队列</li>
+	 * <li>权值都是整数时使用基数堆</li>
+	 * <li>其他情况下使用4叉堆：放松边时decreaseKey比delMin多，4叉堆的swim更快</li>
+	 * @param g
+	 * @return
+	 */
+	public static DoubleIndexedPQ priorityQueue(EdgeWeightedDigraph g) {
+		int c = g.maxIntegerWeight();
+		if (c < 0)
+			return new DoubleIndexMinPQ(g.getV(), 4);
+		if (c <= BUCKET_MAX_WEIGHT)
+			return new BucketQueue(g.getV(), c);
+		return new RadixHeap(g.getV());
+	}
+
 	/**
 	 * 放松树中顶点v指向的边，更新树到v的所有顶点的最小边权值
 	 * @param g
@@ -78,7 +115,7 @@ public class DijkstraSP {
 				edgeTo[w] = e;
 				// 将w加入即将加入树中的队列，w的权值仍然可能变化，一旦加入树中（删除队列）就不会在变化
 				if (pq.contains(w))
-					pq.changeKey(w, distTo[w]);
+					pq.decreaseKey(w, distTo[w]);
 				else
 					pq.insert(w, distTo[w]);
 //				System.out.println("change edge:" + e);
@@ -159,6 +159,23 @@ public class EdgeWeightedDigraph {
 		return bag;
 	}
 
+	/**
+	 * 如果所有边的权值都是不超过Integer.MAX_VALUE的非负整数，返回最大的权值，否则返回-1，没有边时返回0。
+	 * 权值为整数时可以使用整数键的优先队列
+	 * @return
+	 */
+	public int maxIntegerWeight() {
+		int max = 0;
+		for (int i = 0; i < v; i++)
+			for (DirectedEdge edge : adj[i]) {
+				double w = edge.weight();
+				if (!(w >= 0 && w <= Integer.MAX_VALUE) || w != Math.floor(w))
+					return -1;
+				max = Math.max(max, (int) w);
+			}
+		return max;
+	}
+
 	/**
 	 * 返回图的字符串表示
 	 * @author Navy D
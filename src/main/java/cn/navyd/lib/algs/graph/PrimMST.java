@@ -1,6 +1,8 @@
 package cn.navyd.lib.algs.graph;
 
-import cn.navyd.lib.algs.sort.IndexMinPQ;
+import cn.navyd.lib.algs.sort.BucketQueue;
+import cn.navyd.lib.algs.sort.DoubleIndexMinPQ;
+import cn.navyd.lib.algs.sort.DoubleIndexedPQ;
 import cn.navyd.lib.algs.util.In;
 import cn.navyd.lib.algs.util.Queue;
 import cn.navyd.lib.algs.util.QuickUF;
@@ -17,24 +19,37 @@ import cn.navyd.lib.algs.util.UF;
  * @date 20170910112040
  */
 public class PrimMST implements MinSpanTree{
+	// 最大权值不超过该值时默认使用桶队列，桶数为最大权值+1
+	private static final int BUCKET_MAX_WEIGHT = 1 << 10;
 	// 距离树最近的边即edgeTo[v]=e表示v是下一个加入树中的顶点，e是树连接v的最小边
 	private Edge[] edgeTo;
 	// 树连接顶点v边的权值即树连接顶点v的边可能变化，需要更新保存
 	private double[] distTo;
 	// 如果顶点v在树中就为true
 	private boolean[] marked;
-	// 索引最小优先队列，使用顶点保存最小权值
-	private IndexMinPQ<Double> pq;
+	// 索引最小优先队列，使用顶点保存最小权值，键为double不装箱
+	private DoubleIndexedPQ pq;
 
 	/**
 	 * 计算加权无向图的最小生成树
 	 * @param g
 	 */
 	public PrimMST(EdgeWeightedGraph g) {
+		this(g, priorityQueue(g));
+	}
+
+	/**
+	 * 使用指定的索引优先队列计算加权无向图的最小生成树
+	 * @param g
+	 * @param pq 空的队列，需要能保存0..V-1的索引，如new IndexPairingHeap(g.getV())
+	 */
+	public PrimMST(EdgeWeightedGraph g, DoubleIndexedPQ pq) {
+		if (pq == null || !pq.isEmpty())
+			throw new IllegalArgumentException("priority queue is null or not empty");
 		edgeTo = new Edge[g.getV()];
 		distTo = new double[g.getV()];
 		marked = new boolean[g.getV()];
-		pq = new IndexMinPQ<>(g.getV());
+		this.pq = pq;
 		// 将所有顶点权值初始化最大
 		for (int i = 0; i < g.getV(); i++)
 			distTo[i] = Double.POSITIVE_INFINITY;
@@ -47,6 +62,20 @@ public class PrimMST implements MinSpanTree{
 		assert check(g);
 
 	}
+	/**
+	 * 返回适合图g的空队列：权值都是整数且最大权值C不超过BUCKET_MAX_WEIGHT时使用Dial的桶队列，
+	 * 队列中的键都是边的权值，在[0, C]中；否则使用二叉堆。
+	 * Prim删除的最小键不是单调递增的，不能使用RadixHeap
+	 * @param g
+	 * @return
+	 */
+	public static DoubleIndexedPQ priorityQueue(EdgeWeightedGraph g) {
+		int c = g.maxIntegerWeight();
+		if (c >= 0 && c <= BUCKET_MAX_WEIGHT)
+			return new BucketQueue(g.getV(), c);
+		return new DoubleIndexMinPQ(g.getV());
+	}
+
 	/**
 	 * 用prim算法寻找顶点v在图中的最小生成树
 	 * @param g
@@ -58,7 +87,7 @@ public class PrimMST implements MinSpanTree{
 		// 初始化顶点v，这里的0仅仅只是为了找出0的边，权值不会保存在edgeTo中
 		distTo[v] = .0;
 		// 插入起点v 到达自身的距离为0
-		pq.insert(0, .0);
+		pq.insert(v, .0);
 		while (!pq.isEmpty())
 			// 将最近的顶点添加到树中
 			visit(g, pq.delMin());
@@ -88,7 +117,7 @@ public class PrimMST implements MinSpanTree{
 				distTo[w] = e.weight();
 				// 如果树中之前有边连接到该顶点就更新
 				if (pq.contains(w))
-					pq.changeKey(w, distTo[w]);
+					pq.decreaseKey(w, distTo[w]);
 				// 没有连接就插入
 				else
 					pq.insert(w, distTo[w]);
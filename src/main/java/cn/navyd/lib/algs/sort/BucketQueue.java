@@ -0,0 +1,156 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Dial的循环桶索引优先队列：键为非负整数，队列中最大与最小的键相差不超过C</p>
+ * 键x放在桶x%(C+1)中，相差不超过C的键不会落在同一个桶里却不相等，
+ * 从当前最小键所在的桶开始循环向后找第一个不为空的桶即为最小键：
+ * <li>insert、decreaseKey：放入桶中的双向链表，O(1)</li>
+ * <li>delMin：跳过空桶，均摊O(1)，Dijkstra中总的扫描次数不超过最大距离</li>
+ * <p>Dijkstra中队列里的距离都在[d, d+C]中，d为最后删除的距离，C为最大的边权值；
+ * Prim中队列里的键都是边权值，在[0, C]中。两者都满足该条件，键超出范围时抛出IllegalArgumentException</p>
+ * <p>键使用double传入以实现{@link DoubleIndexedPQ}，必须为小于2^53的非负整数</p>
+ * @author Navy D
+ * @date 20171101152207
+ * @see RadixHeap
+ */
+public class BucketQueue implements DoubleIndexedPQ {
+	private static final int NIL = -1;
+	// prev[k]为ABSENT表示索引k不在队列中
+	private static final int ABSENT = -2;
+	// double可以精确表示的最大整数
+	private static final double MAX_KEY = 1L << 53;
+
+	private final int maxN;
+	private int n;
+	// 最大与最小键允许的差
+	private final int c;
+	// 所有的键都在[lo, hi]中，lo不大于最小的键
+	private long lo;
+	private long hi = Long.MIN_VALUE;
+	private final long[] keys;
+	// 桶中双向链表的前后节点
+	private final int[] next;
+	private final int[] prev;
+	// 每个桶链表的第一个索引
+	private final int[] head;
+
+	/**
+	 * 初始化为一个固定大小maxN的队列，索引为0..maxN-1
+	 * @param maxN
+	 * @param c 队列中最大与最小键的差的上限，如最大的边权值
+	 */
+	public BucketQueue(int maxN, int c) {
+		if (maxN < 0 || c < 0 || c == Integer.MAX_VALUE)
+			throw new IllegalArgumentException();
+		this.maxN = maxN;
+		this.c = c;
+		keys = new long[maxN];
+		next = new int[maxN];
+		prev = new int[maxN];
+		head = new int[c + 1];
+		Arrays.fill(prev, ABSENT);
+		Arrays.fill(head, NIL);
+	}
+
+	@Override
+	public void insert(int k, double key) {
+		if (contains(k))
+			throw new IllegalArgumentException("index is already in the priority queue");
+		keys[k] = checkKey(key);
+		add(k);
+		n++;
+	}
+
+	@Override
+	public void decreaseKey(int k, double key) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		long x = checkKey(key);
+		if (x > keys[k])
+			throw new IllegalArgumentException("key is greater than the current key");
+		remove(k);
+		keys[k] = x;
+		add(k);
+	}
+
+	@Override
+	public boolean contains(int k) {
+		if (k < 0 || k >= maxN)
+			throw new IndexOutOfBoundsException();
+		return prev[k] != ABSENT;
+	}
+
+	@Override
+	public double keyOf(int k) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		return keys[k];
+	}
+
+	@Override
+	public int delMin() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		int b = (int) (lo % (c + 1));
+		while (head[b] == NIL) {
+			lo++;
+			if (++b == head.length)
+				b = 0;
+		}
+		int min = head[b];
+		remove(min);
+		prev[min] = ABSENT;
+		// 队列为空时不再限制下一个键
+		if (--n == 0)
+			hi = Long.MIN_VALUE;
+		return min;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	// 将索引k放到其键所在桶链表的开头
+	private void add(int k) {
+		int b = (int) (keys[k] % (c + 1));
+		prev[k] = NIL;
+		next[k] = head[b];
+		if (head[b] != NIL)
+			prev[head[b]] = k;
+		head[b] = k;
+	}
+
+	// 将索引k从所在桶的链表中删除
+	private void remove(int k) {
+		if (prev[k] != NIL)
+			next[prev[k]] = next[k];
+		else
+			head[(int) (keys[k] % (c + 1))] = next[k];
+		if (next[k] != NIL)
+			prev[next[k]] = prev[k];
+	}
+
+	/**
+	 * 检查键是否为非负整数，加入后所有键的差是否不超过c，并更新[lo, hi]
+	 */
+	private long checkKey(double key) {
+		if (!(key >= 0 && key < MAX_KEY) || key != Math.floor(key))
+			throw new IllegalArgumentException("key is not a non-negative integer: " + key);
+		long x = (long) key;
+		long newLo = isEmpty() ? x : Math.min(lo, x), newHi = Math.max(hi, x);
+		if (newHi - newLo > c)
+			throw new IllegalArgumentException("keys in the queue differ by more than " + c + ": " + key);
+		lo = newLo;
+		hi = newHi;
+		return x;
+	}
+}
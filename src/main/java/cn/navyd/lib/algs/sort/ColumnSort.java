@@ -0,0 +1,224 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>列式排序：按一个或多个基本类型的键列排序，并对任意多个数据列应用相同的排列，
+ * 不需要把每一行装箱为对象</p>
+ * 实现：
+ * <li>键列转换为long排序键(double使用与Double.compare相同顺序的位)，使用MergeTD.indexSort稳定地间接排序</li>
+ * <li>多个键列按字典序：从最后一个键列开始依次稳定排序，每次在上一次的排列上复合，即低位优先</li>
+ * <li>得到排列后每一列复制一次再按排列取回，原地重排</li>
+ * 稳定性：是
+ * <p>
+ * 使用：
+ * <pre>
+ * int[] perm = ColumnSort.by(time).thenBy(price).with(volume).with(symbol).sort();
+ * </pre>
+ * 只需要排列时使用order()，再用permute(perm, src, dst)写入其他数组
+ * </p>
+ * @author Navy D
+ * @date 20171022154207
+ */
+public class ColumnSort {
+	// 键列，按优先级排列，元素为int[], long[] 或 double[]
+	private final List<Object> keys = new ArrayList<>();
+	// 数据列，元素为int[], long[], double[] 或 Object[]
+	private final List<Object> columns = new ArrayList<>();
+	private final int n;
+
+	private ColumnSort(Object key, int n) {
+		this.n = n;
+		keys.add(key);
+	}
+
+	/**
+	 * 以key作为第一关键列
+	 * @param key
+	 * @return
+	 */
+	public static ColumnSort by(long[] key) {
+		checkNull(key);
+		return new ColumnSort(key, key.length);
+	}
+
+	public static ColumnSort by(int[] key) {
+		checkNull(key);
+		return new ColumnSort(key, key.length);
+	}
+
+	public static ColumnSort by(double[] key) {
+		checkNull(key);
+		return new ColumnSort(key, key.length);
+	}
+
+	/**
+	 * 添加下一个关键列，前面的键相等时比较该列
+	 * @param key
+	 * @return
+	 */
+	public ColumnSort thenBy(long[] key) {
+		return addKey(key, key == null ? 0 : key.length);
+	}
+
+	public ColumnSort thenBy(int[] key) {
+		return addKey(key, key == null ? 0 : key.length);
+	}
+
+	public ColumnSort thenBy(double[] key) {
+		return addKey(key, key == null ? 0 : key.length);
+	}
+
+	/**
+	 * 添加一个随键列一起重排的数据列
+	 * @param column
+	 * @return
+	 */
+	public ColumnSort with(long[] column) {
+		return addColumn(column, column == null ? 0 : column.length);
+	}
+
+	public ColumnSort with(int[] column) {
+		return addColumn(column, column == null ? 0 : column.length);
+	}
+
+	public ColumnSort with(double[] column) {
+		return addColumn(column, column == null ? 0 : column.length);
+	}
+
+	public <T> ColumnSort with(T[] column) {
+		return addColumn(column, column == null ? 0 : column.length);
+	}
+
+	/**
+	 * 返回按键列字典序升序的稳定排列perm，即第i行为原来的第perm[i]行，不改变任何列
+	 * @return
+	 */
+	public int[] order() {
+		int[] perm = null;
+		for (int c = keys.size() - 1; c >= 0; c--) {
+			// 按上一次的排列取出该列的键再稳定排序，键相等时保持之前低位键列的顺序
+			int[] p = MergeTD.indexSort(sortKeys(keys.get(c), perm));
+			if (perm != null)
+				for (int i = 0; i < n; i++)
+					p[i] = perm[p[i]];
+			perm = p;
+		}
+		return perm;
+	}
+
+	/**
+	 * 排序：原地重排所有键列与数据列，返回使用的排列。
+	 * 同一个数组多次作为键列或数据列时只重排一次
+	 * @return
+	 */
+	public int[] sort() {
+		int[] perm = order();
+		Set<Object> permuted = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Object key : keys)
+			if (permuted.add(key))
+				permute(perm, key);
+		for (Object column : columns)
+			if (permuted.add(column))
+				permute(perm, column);
+		return perm;
+	}
+
+	/**
+	 * 将src按排列写入dst：dst[i] = src[perm[i]]。src与dst不能是同一个数组
+	 * @param perm
+	 * @param src
+	 * @param dst
+	 */
+	public static void permute(int[] perm, long[] src, long[] dst) {
+		checkPermute(perm, src == null ? -1 : src.length, dst == null ? -1 : dst.length);
+		for (int i = 0; i < perm.length; i++)
+			dst[i] = src[perm[i]];
+	}
+
+	public static void permute(int[] perm, int[] src, int[] dst) {
+		checkPermute(perm, src == null ? -1 : src.length, dst == null ? -1 : dst.length);
+		for (int i = 0; i < perm.length; i++)
+			dst[i] = src[perm[i]];
+	}
+
+	public static void permute(int[] perm, double[] src, double[] dst) {
+		checkPermute(perm, src == null ? -1 : src.length, dst == null ? -1 : dst.length);
+		for (int i = 0; i < perm.length; i++)
+			dst[i] = src[perm[i]];
+	}
+
+	public static <T> void permute(int[] perm, T[] src, T[] dst) {
+		checkPermute(perm, src == null ? -1 : src.length, dst == null ? -1 : dst.length);
+		for (int i = 0; i < perm.length; i++)
+			dst[i] = src[perm[i]];
+	}
+
+	// 原地重排：复制一份后按排列取回
+	private static void permute(int[] perm, Object column) {
+		if (column instanceof long[])
+			permute(perm, ((long[]) column).clone(), (long[]) column);
+		else if (column instanceof int[])
+			permute(perm, ((int[]) column).clone(), (int[]) column);
+		else if (column instanceof double[])
+			permute(perm, ((double[]) column).clone(), (double[]) column);
+		else
+			permute(perm, ((Object[]) column).clone(), (Object[]) column);
+	}
+
+	/**
+	 * 键列按perm取出并转换为long排序键，perm为null时不重排
+	 */
+	private long[] sortKeys(Object key, int[] perm) {
+		long[] k = new long[n];
+		if (key instanceof long[]) {
+			long[] a = (long[]) key;
+			for (int i = 0; i < n; i++)
+				k[i] = a[perm == null ? i : perm[i]];
+		} else if (key instanceof int[]) {
+			int[] a = (int[]) key;
+			for (int i = 0; i < n; i++)
+				k[i] = a[perm == null ? i : perm[i]];
+		} else {
+			double[] a = (double[]) key;
+			for (int i = 0; i < n; i++)
+				k[i] = MergeTD.sortableBits(a[perm == null ? i : perm[i]]);
+		}
+		return k;
+	}
+
+	private ColumnSort addKey(Object key, int length) {
+		checkNull(key);
+		checkLength(length);
+		keys.add(key);
+		return this;
+	}
+
+	private ColumnSort addColumn(Object column, int length) {
+		checkNull(column);
+		checkLength(length);
+		columns.add(column);
+		return this;
+	}
+
+	private void checkLength(int length) {
+		if (length != n)
+			throw new IllegalArgumentException("column length " + length + " does not match " + n);
+	}
+
+	private static void checkNull(Object column) {
+		if (column == null)
+			throw new IllegalArgumentException("argument column is null");
+	}
+
+	private static void checkPermute(int[] perm, int srcLength, int dstLength) {
+		if (perm == null || srcLength < 0 || dstLength < 0)
+			throw new IllegalArgumentException("argument is null");
+		if (srcLength != perm.length || dstLength != perm.length)
+			throw new IllegalArgumentException("array length does not match permutation length " + perm.length);
+	}
+}
@@ -0,0 +1,27 @@
+package cn.navyd.lib.algs.sort;
+
+/**
+ * <p>线程安全的最小优先队列api</p>
+ * 多个线程同时操作时队列的状态随时在变化，delMin在队列为空时返回null而不是抛出异常，
+ * 与java.util.Queue.poll()相同。实现：
+ * <li>{@link MultiQueue}：放松的顺序，delMin返回接近最小的键，吞吐量随线程数增长</li>
+ * <li>{@link SkipListPQ}：严格的顺序，基于无锁的跳表</li>
+ * @author Navy D
+ * @date 20171102094530
+ * @param <Key>
+ */
+public interface ConcurrentMinPQ<Key extends Comparable<? super Key>> {
+	/**
+	 * 插入键key
+	 * @param key
+	 */
+	void insert(Key key);
+
+	/**
+	 * 删除并返回最小(或接近最小)的键，队列为空时返回null
+	 * @return
+	 */
+	Key delMin();
+
+	boolean isEmpty();
+}
@@ -0,0 +1,270 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>键为double的索引优先最小队列</p>
+ * 与IndexMinPQ&lt;Double&gt;的API相同，但键直接保存在double[]中：
+ * <li>insert与changeKey不装箱，比较使用&lt;而不是compareTo的虚调用</li>
+ * <li>所有数组在构造时分配，除iterator外的操作都不会分配对象</li>
+ * <p>键不能为NaN。图算法中的距离与权值通常使用该队列</p>
+ * 时间复杂度：insert, changeKey, delete, delMin为lgN，其他为常数
+ * <p>可以指定堆的叉数d为2、4或8，根节点在pq[d-1]，d个子节点连续存放，见{@link MinPQ}</p>
+ * @author Navy D
+ * @date 20171030101522
+ * @see IndexMinPQ
+ * @see IndexPairingHeap
+ */
+public class DoubleIndexMinPQ implements DoubleIndexedPQ, Iterable<Integer> {
+	// pq堆中元素数量
+	private int n;
+	private final int maxN;
+	// pq[i]为堆中位置i的索引，qp[k]为索引k在堆中的位置，不在堆中时为-1
+	private final int[] pq;
+	private final int[] qp;
+	private final double[] keys;
+	// 堆的叉数
+	private final int d;
+	// log2(d)，父子节点的计算用移位代替除法
+	private final int lgD;
+	// 根节点在pq中的位置d-1
+	private final int root;
+
+	/**
+	 * 初始化为一个固定大小maxN的队列，索引为0..maxN-1
+	 * @param maxN
+	 */
+	public DoubleIndexMinPQ(int maxN) {
+		this(maxN, 2);
+	}
+
+	/**
+	 * 初始化为一个固定大小maxN的d叉堆队列
+	 * @param maxN
+	 * @param d 堆的叉数，只能为2、4或8
+	 */
+	public DoubleIndexMinPQ(int maxN, int d) {
+		if (maxN < 0)
+			throw new IllegalArgumentException();
+		lgD = lgArity(d);
+		this.d = d;
+		root = d - 1;
+		this.maxN = maxN;
+		pq = new int[maxN + root];
+		qp = new int[maxN];
+		keys = new double[maxN];
+		Arrays.fill(qp, -1);
+	}
+
+	/**
+	 * 插入索引k与关联的键key
+	 * @param k
+	 * @param key
+	 */
+	@Override
+	public void insert(int k, double key) {
+		if (contains(k))
+			throw new IllegalArgumentException("index is already in the priority queue");
+		checkKey(key);
+		int i = root + n++;
+		pq[i] = k;
+		qp[k] = i;
+		keys[k] = key;
+		swim(i);
+	}
+
+	/**
+	 * 将索引k关联的键改为key
+	 * @param k
+	 * @param key
+	 */
+	public void changeKey(int k, double key) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		checkKey(key);
+		keys[k] = key;
+		swim(qp[k]);
+		sink(qp[k]);
+	}
+
+	/**
+	 * 将索引k关联的键减小为key，只需要上浮
+	 * @param k
+	 * @param key
+	 */
+	@Override
+	public void decreaseKey(int k, double key) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		checkKey(key);
+		if (key > keys[k])
+			throw new IllegalArgumentException("key is greater than the current key");
+		keys[k] = key;
+		swim(qp[k]);
+	}
+
+	/**
+	 * 返回索引k关联的键
+	 * @param k
+	 * @return
+	 */
+	@Override
+	public double keyOf(int k) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		return keys[k];
+	}
+
+	@Override
+	public boolean contains(int k) {
+		if (k < 0 || k >= maxN)
+			throw new IndexOutOfBoundsException();
+		return qp[k] != -1;
+	}
+
+	/**
+	 * 删除索引k和关联的键
+	 * @param k
+	 */
+	public void delete(int k) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		int index = qp[k];
+		exch(index, root + --n);
+		// k在堆的最后时没有换来元素，否则换来的元素可能比原来的大或小
+		if (index < root + n) {
+			swim(index);
+			sink(index);
+		}
+		qp[k] = -1;
+	}
+
+	public double min() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		return keys[pq[root]];
+	}
+
+	public int minIndex() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		return pq[root];
+	}
+
+	/**
+	 * 删除最小的键并返回其索引
+	 * @return
+	 */
+	@Override
+	public int delMin() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		int min = pq[root];
+		exch(root, root + --n);
+		sink(root);
+		qp[min] = -1;
+		return min;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	private void swim(int k) {
+		while (k > root && greater(parent(k), k)) {
+			exch(parent(k), k);
+			k = parent(k);
+		}
+	}
+
+	private void sink(int k) {
+		int lastParent = parent(root + n - 1);
+		while (k <= lastParent) {
+			int j = child(k), last = Math.min(j + d - 1, root + n - 1);
+			for (int i = j + 1; i <= last; i++)
+				if (greater(j, i))
+					j = i;
+			if (!greater(k, j))
+				break;
+			exch(k, j);
+			k = j;
+		}
+	}
+
+	private boolean greater(int i, int j) {
+		return keys[pq[i]] > keys[pq[j]];
+	}
+
+	private void exch(int i, int j) {
+		int temp = pq[i];
+		pq[i] = pq[j];
+		pq[j] = temp;
+		qp[pq[i]] = i;
+		qp[pq[j]] = j;
+	}
+
+	/**
+	 * 位置k的父节点。位置k为层序中第k-root个节点
+	 * @param k
+	 * @return
+	 */
+	private int parent(int k) {
+		return (k >>> lgD) + d - 2;
+	}
+
+	/**
+	 * 位置k的第一个子节点，d个子节点从d的倍数开始连续存放
+	 * @param k
+	 * @return
+	 */
+	private int child(int k) {
+		return (k - d + 2) << lgD;
+	}
+
+	/**
+	 * 返回叉数d以2为底的对数
+	 * @param d 只能为2、4或8
+	 * @return
+	 */
+	private static int lgArity(int d) {
+		if (d != 2 && d != 4 && d != 8)
+			throw new IllegalArgumentException("arity must be 2, 4 or 8: " + d);
+		return Integer.numberOfTrailingZeros(d);
+	}
+
+	private static void checkKey(double key) {
+		if (Double.isNaN(key))
+			throw new IllegalArgumentException("key is NaN");
+	}
+
+	/**
+	 * 按键从小到大返回索引，不改变队列
+	 */
+	@Override
+	public Iterator<Integer> iterator() {
+		DoubleIndexMinPQ copy = new DoubleIndexMinPQ(maxN, d);
+		for (int i = root; i < root + n; i++)
+			copy.insert(pq[i], keys[pq[i]]);
+		return new Iterator<Integer>() {
+			@Override
+			public boolean hasNext() {
+				return !copy.isEmpty();
+			}
+
+			@Override
+			public Integer next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return copy.delMin();
+			}
+		};
+	}
+}
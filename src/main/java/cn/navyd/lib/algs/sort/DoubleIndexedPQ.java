@@ -0,0 +1,54 @@
+package cn.navyd.lib.algs.sort;
+
+/**
+ * <p>键为double的索引最小优先队列api</p>
+ * DijkstraSP与PrimMST只需要插入、减小键与删除最小键，通过该接口可以替换队列的实现：
+ * <li>{@link DoubleIndexMinPQ}：d叉堆，所有操作lgN，容量固定</li>
+ * <li>{@link IndexPairingHeap}：配对堆，insert与decreaseKey均摊O(1)，容量自动增长</li>
+ * <p>索引k从0开始，键不能为NaN</p>
+ * @author Navy D
+ * @date 20171031092714
+ */
+public interface DoubleIndexedPQ {
+	/**
+	 * 插入索引k与关联的键key
+	 * @param k
+	 * @param key
+	 * @throws IllegalArgumentException 索引k已经在队列中
+	 */
+	void insert(int k, double key);
+
+	/**
+	 * 将索引k关联的键减小为key
+	 * @param k
+	 * @param key
+	 * @throws IllegalArgumentException key大于原来的键
+	 * @throws java.util.NoSuchElementException 索引k不在队列中
+	 */
+	void decreaseKey(int k, double key);
+
+	/**
+	 * 如果索引k在队列中，则返回true
+	 * @param k
+	 * @return
+	 */
+	boolean contains(int k);
+
+	/**
+	 * 返回索引k关联的键
+	 * @param k
+	 * @return
+	 */
+	double keyOf(int k);
+
+	/**
+	 * 删除最小的键并返回其索引
+	 * @return
+	 * @throws java.util.NoSuchElementException 队列为空
+	 */
+	int delMin();
+
+	boolean isEmpty();
+
+	int size();
+}
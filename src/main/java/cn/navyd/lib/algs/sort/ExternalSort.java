@@ -0,0 +1,639 @@
+package cn.navyd.lib.algs.sort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cn.navyd.lib.algs.string.Quick3String;
+import cn.navyd.lib.algs.util.In;
+import cn.navyd.lib.util.Sorts;
+
+/**
+ * <p>外部排序：对无法一次读入堆内存的数据排序</p>
+ * 过程：
+ * <li>分块：按内存预算读入一块数据，使用内存排序算法排序后以二进制写入临时目录，称为有序段(run)</li>
+ * <li>归并：使用IndexMinPQ对最多fanIn个有序段多路归并，段数超过fanIn时先进行多趟中间归并</li>
+ * <p>int, double块使用基本类型数组和Sorts的内省排序，不装箱；String块使用三向字符串快速排序。
+ * 设置threads大于1时，读入下一块的同时由线程池排序并写出已读满的块，内存预算在threads+1个块之间平分</p>
+ * <p>二进制文件为大端序(与DataOutput一致)的int/double，使用NIO通道读入；文本使用In读入，
+ * 字符串每行一个，以UTF-8每行一个输出。double不支持NaN</p>
+ * 使用：
+ * <pre>
+ * ExternalSort.of().memory(256L &lt;&lt; 20).fanIn(32).threads(4).sortInts(in, out);
+ * </pre>
+ * @author Navy D
+ * @date 20171020193512
+ */
+public class ExternalSort {
+	// 默认内存预算64MB
+	private static final long DEFAULT_MEMORY = 64L << 20;
+	// 默认每趟归并的最大段数
+	private static final int DEFAULT_FAN_IN = 64;
+	// 读写缓冲区的最大字节数
+	private static final int BUFFER_SIZE = 1 << 16;
+	// 读写缓冲区的最小字节数
+	private static final int MIN_BUFFER_SIZE = 1 << 12;
+	// 块数组的初始长度，之后按2倍扩容直到块大小，避免小输入一次分配整个预算
+	private static final int INITIAL_CHUNK = 1 << 10;
+	// 估计的每个字符串的对象头、数组头与引用开销字节
+	private static final int STRING_OVERHEAD = 64;
+	// 数组的最大长度
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	private long memory = DEFAULT_MEMORY;
+	private int fanIn = DEFAULT_FAN_IN;
+	private int threads = 1;
+	private Path tempDirectory;
+
+	private ExternalSort() {
+	}
+
+	/**
+	 * 使用默认配置：64MB内存预算，64路归并，单线程分块排序，系统临时目录
+	 * @return
+	 */
+	public static ExternalSort of() {
+		return new ExternalSort();
+	}
+
+	/**
+	 * 设置分块排序使用的内存预算字节数
+	 * @param bytes
+	 * @return
+	 */
+	public ExternalSort memory(long bytes) {
+		if (bytes < MIN_BUFFER_SIZE)
+			throw new IllegalArgumentException("memory must be at least " + MIN_BUFFER_SIZE + " bytes: " + bytes);
+		this.memory = bytes;
+		return this;
+	}
+
+	/**
+	 * 设置每趟归并同时打开的有序段数量
+	 * @param fanIn
+	 * @return
+	 */
+	public ExternalSort fanIn(int fanIn) {
+		if (fanIn < 2)
+			throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+		this.fanIn = fanIn;
+		return this;
+	}
+
+	/**
+	 * 设置并行排序块的线程数，为1时在读入线程中排序
+	 * @param threads
+	 * @return
+	 */
+	public ExternalSort threads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive: " + threads);
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * 设置有序段的临时目录，为null时使用系统临时目录
+	 * @param dir
+	 * @return
+	 */
+	public ExternalSort tempDirectory(Path dir) {
+		this.tempDirectory = dir;
+		return this;
+	}
+
+	/**
+	 * 读入文本中的所有int，排序后以二进制写入out
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void sortInts(In in, Path out) throws IOException {
+		if (in == null || out == null)
+			throw new IllegalArgumentException("argument is null");
+		try (Job<int[]> job = new Job<>(int.class, chunkLength(Integer.BYTES), ExternalSort::writeRun)) {
+			int[] chunk = job.take();
+			int n = 0;
+			while (!in.isEmpty()) {
+				if (n == chunk.length) {
+					if (job.full(chunk)) {
+						job.spill(chunk, n);
+						chunk = job.take();
+						n = 0;
+					} else
+						chunk = job.grow(chunk, n);
+				}
+				chunk[n++] = in.readInt();
+			}
+			job.spill(chunk, n);
+			merge(job, job.runs(), DataInputStream::readInt, DataOutputStream::writeInt, out, DataOutputStream::writeInt);
+		}
+	}
+
+	/**
+	 * 读入二进制文件in中的所有int，排序后以二进制写入out
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void sortInts(Path in, Path out) throws IOException {
+		if (in == null || out == null)
+			throw new IllegalArgumentException("argument is null");
+		try (Job<int[]> job = new Job<>(int.class, chunkLength(Integer.BYTES), ExternalSort::writeRun);
+				FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			int[] chunk = job.take();
+			int n = 0;
+			while (channel.read(buf) >= 0) {
+				buf.flip();
+				// 批量从缓冲区复制到块中
+				while (buf.remaining() >= Integer.BYTES) {
+					if (n == chunk.length) {
+						if (job.full(chunk)) {
+							job.spill(chunk, n);
+							chunk = job.take();
+							n = 0;
+						} else
+							chunk = job.grow(chunk, n);
+					}
+					int m = Math.min(buf.remaining() / Integer.BYTES, chunk.length - n);
+					buf.asIntBuffer().get(chunk, n, m);
+					buf.position(buf.position() + m * Integer.BYTES);
+					n += m;
+				}
+				buf.compact();
+			}
+			if (buf.position() != 0)
+				throw new IOException("file length is not a multiple of " + Integer.BYTES + ": " + in);
+			job.spill(chunk, n);
+			merge(job, job.runs(), DataInputStream::readInt, DataOutputStream::writeInt, out, DataOutputStream::writeInt);
+		}
+	}
+
+	/**
+	 * 读入文本中的所有double，排序后以二进制写入out
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void sortDoubles(In in, Path out) throws IOException {
+		if (in == null || out == null)
+			throw new IllegalArgumentException("argument is null");
+		try (Job<double[]> job = new Job<>(double.class, chunkLength(Double.BYTES), ExternalSort::writeRun)) {
+			double[] chunk = job.take();
+			int n = 0;
+			while (!in.isEmpty()) {
+				if (n == chunk.length) {
+					if (job.full(chunk)) {
+						job.spill(chunk, n);
+						chunk = job.take();
+						n = 0;
+					} else
+						chunk = job.grow(chunk, n);
+				}
+				chunk[n++] = in.readDouble();
+			}
+			job.spill(chunk, n);
+			merge(job, job.runs(), DataInputStream::readDouble, DataOutputStream::writeDouble, out, DataOutputStream::writeDouble);
+		}
+	}
+
+	/**
+	 * 读入二进制文件in中的所有double，排序后以二进制写入out
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void sortDoubles(Path in, Path out) throws IOException {
+		if (in == null || out == null)
+			throw new IllegalArgumentException("argument is null");
+		try (Job<double[]> job = new Job<>(double.class, chunkLength(Double.BYTES), ExternalSort::writeRun);
+				FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			double[] chunk = job.take();
+			int n = 0;
+			while (channel.read(buf) >= 0) {
+				buf.flip();
+				while (buf.remaining() >= Double.BYTES) {
+					if (n == chunk.length) {
+						if (job.full(chunk)) {
+							job.spill(chunk, n);
+							chunk = job.take();
+							n = 0;
+						} else
+							chunk = job.grow(chunk, n);
+					}
+					int m = Math.min(buf.remaining() / Double.BYTES, chunk.length - n);
+					buf.asDoubleBuffer().get(chunk, n, m);
+					buf.position(buf.position() + m * Double.BYTES);
+					n += m;
+				}
+				buf.compact();
+			}
+			if (buf.position() != 0)
+				throw new IOException("file length is not a multiple of " + Double.BYTES + ": " + in);
+			job.spill(chunk, n);
+			merge(job, job.runs(), DataInputStream::readDouble, DataOutputStream::writeDouble, out, DataOutputStream::writeDouble);
+		}
+	}
+
+	/**
+	 * 读入文本中的所有行，排序后以UTF-8每行一个写入out
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void sortStrings(In in, Path out) throws IOException {
+		if (in == null || out == null)
+			throw new IllegalArgumentException("argument is null");
+		long budget = chunkBudget();
+		int length = (int) Math.min(budget / STRING_OVERHEAD, MAX_ARRAY_LENGTH);
+		try (Job<String[]> job = new Job<>(String.class, Math.max(length, 1), ExternalSort::writeRun)) {
+			String[] chunk = job.take();
+			int n = 0;
+			long bytes = 0;
+			while (in.hasNextLine()) {
+				// 字符串大小不固定，同时按估计的字节数写出
+				if (bytes >= budget || n == chunk.length && job.full(chunk)) {
+					job.spill(chunk, n);
+					chunk = job.take();
+					n = 0;
+					bytes = 0;
+				} else if (n == chunk.length)
+					chunk = job.grow(chunk, n);
+				String s = in.readLine();
+				chunk[n++] = s;
+				bytes += STRING_OVERHEAD + 2L * s.length();
+			}
+			job.spill(chunk, n);
+			merge(job, job.runs(), ExternalSort::readString, ExternalSort::writeString, out, ExternalSort::writeLine);
+		}
+	}
+
+	/**
+	 * 读入文本文件in中的所有行，排序后以UTF-8每行一个写入out
+	 * @param in
+	 * @param out
+	 * @throws IOException
+	 */
+	public void sortStrings(Path in, Path out) throws IOException {
+		if (in == null || out == null)
+			throw new IllegalArgumentException("argument is null");
+		In input = new In(in.toFile());
+		try {
+			sortStrings(input, out);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * 多趟归并：段数超过fanIn时每fanIn个段归并为一个新段，直到不超过fanIn时归并到out
+	 * @param job
+	 * @param runs
+	 * @param reader 有序段的读取
+	 * @param runWriter 中间有序段的写入
+	 * @param out
+	 * @param outWriter 最终结果的写入
+	 * @throws IOException
+	 */
+	private <T extends Comparable<? super T>> void merge(Job<?> job, List<Run> runs, RecordReader<T> reader,
+			RecordWriter<T> runWriter, Path out, RecordWriter<T> outWriter) throws IOException {
+		int bufferSize = mergeBufferSize();
+		while (runs.size() > fanIn) {
+			List<Run> next = new ArrayList<>();
+			for (int i = 0; i < runs.size(); i += fanIn) {
+				List<Run> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+				if (group.size() == 1) {
+					next.add(group.get(0));
+					continue;
+				}
+				Path path = job.createTempFile();
+				long size = mergeRuns(group, reader, path, runWriter, bufferSize);
+				for (Run run : group)
+					job.delete(run.path);
+				next.add(new Run(path, size));
+			}
+			runs = next;
+		}
+		mergeRuns(runs, reader, out, outWriter, bufferSize);
+	}
+
+	/**
+	 * 使用IndexMinPQ多路归并：索引i关联第i个有序段的当前最小元素，
+	 * 取出最小元素后用该段的下一个元素替换，段读完时删除
+	 * @return 写出的元素数量
+	 */
+	private static <T extends Comparable<? super T>> long mergeRuns(List<Run> runs, RecordReader<T> reader, Path out,
+			RecordWriter<T> writer, int bufferSize) throws IOException {
+		int k = runs.size();
+		DataInputStream[] ins = new DataInputStream[k];
+		long[] remaining = new long[k];
+		IndexMinPQ<T> pq = new IndexMinPQ<>(k);
+		long count = 0;
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(out), bufferSize))) {
+			for (int i = 0; i < k; i++) {
+				Run run = runs.get(i);
+				ins[i] = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.path), bufferSize));
+				remaining[i] = run.size;
+				if (remaining[i]-- > 0)
+					pq.insert(i, reader.read(ins[i]));
+			}
+			while (!pq.isEmpty()) {
+				int i = pq.minIndex();
+				writer.write(output, pq.min());
+				count++;
+				if (remaining[i]-- > 0)
+					pq.changeKey(i, reader.read(ins[i]));
+				else
+					pq.delMin();
+			}
+		} finally {
+			for (DataInputStream in : ins)
+				if (in != null)
+					in.close();
+		}
+		return count;
+	}
+
+	// 块数组的最大长度
+	private int chunkLength(int bytesPerElement) {
+		return (int) Math.max(1, Math.min(chunkBudget() / bytesPerElement, MAX_ARRAY_LENGTH));
+	}
+
+	// 每个块的内存预算：并行时读入中的块与threads个排序中的块共享预算
+	private long chunkBudget() {
+		return threads == 1 ? memory : memory / (threads + 1);
+	}
+
+	// 归并时每个有序段的缓冲区大小，使fanIn个缓冲区不超过内存预算
+	private int mergeBufferSize() {
+		return (int) Math.max(MIN_BUFFER_SIZE, Math.min(BUFFER_SIZE, memory / (fanIn + 1)));
+	}
+
+	private static long writeRun(int[] chunk, int n, Path path) throws IOException {
+		int[] a = n == chunk.length ? chunk : Arrays.copyOf(chunk, n);
+		Sorts.quick(a);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+			for (int i = 0; i < n; ) {
+				int m = Math.min(buf.remaining() / Integer.BYTES, n - i);
+				buf.asIntBuffer().put(a, i, m);
+				buf.position(buf.position() + m * Integer.BYTES);
+				i += m;
+				flush(channel, buf);
+			}
+		}
+		return n;
+	}
+
+	private static long writeRun(double[] chunk, int n, Path path) throws IOException {
+		double[] a = n == chunk.length ? chunk : Arrays.copyOf(chunk, n);
+		Sorts.quick(a);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+			for (int i = 0; i < n; ) {
+				int m = Math.min(buf.remaining() / Double.BYTES, n - i);
+				buf.asDoubleBuffer().put(a, i, m);
+				buf.position(buf.position() + m * Double.BYTES);
+				i += m;
+				flush(channel, buf);
+			}
+		}
+		return n;
+	}
+
+	private static long writeRun(String[] chunk, int n, Path path) throws IOException {
+		String[] a = n == chunk.length ? chunk : Arrays.copyOf(chunk, n);
+		Quick3String.sort(a);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE))) {
+			for (String s : a)
+				writeString(out, s);
+		}
+		// 释放引用，块会被复用
+		Arrays.fill(chunk, 0, n, null);
+		return n;
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+		buf.flip();
+		while (buf.hasRemaining())
+			channel.write(buf);
+		buf.clear();
+	}
+
+	// 有序段中的字符串：长度前缀的UTF-8字节，不受writeUTF的64KB限制
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeLine(DataOutputStream out, String s) throws IOException {
+		out.write(s.getBytes(StandardCharsets.UTF_8));
+		out.write('\n');
+	}
+
+	@FunctionalInterface
+	private interface RecordReader<T> {
+		T read(DataInputStream in) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface RecordWriter<T> {
+		void write(DataOutputStream out, T value) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface RunWriter<A> {
+		/**
+		 * 排序chunk[0..n)并写入path，返回写入的元素数量
+		 */
+		long write(A chunk, int n, Path path) throws IOException;
+	}
+
+	/**
+	 * 一个有序段文件与其中的元素数量
+	 */
+	private static class Run {
+		private final Path path;
+		private final long size;
+
+		Run(Path path, long size) {
+			this.path = path;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * 一次外部排序的状态：块缓冲池、排序线程池与临时文件。
+	 * 缓冲池中最多有threads+1个块(单线程时为1个)，读入线程在没有空闲块时阻塞，以此限制内存
+	 * @param <A> 块数组的类型
+	 */
+	private final class Job<A> implements Closeable {
+		private final Class<?> componentType;
+		private final int chunkLength;
+		private final RunWriter<A> runWriter;
+		private final BlockingQueue<A> buffers;
+		private final int maxBuffers;
+		private int allocated = 0;
+		private final ExecutorService executor;
+		private final List<Future<Run>> pending = new ArrayList<>();
+		private final Set<Path> temps = ConcurrentHashMap.newKeySet();
+
+		Job(Class<?> componentType, int chunkLength, RunWriter<A> runWriter) {
+			this.componentType = componentType;
+			this.chunkLength = chunkLength;
+			this.runWriter = runWriter;
+			this.maxBuffers = threads == 1 ? 1 : threads + 1;
+			this.buffers = new ArrayBlockingQueue<>(maxBuffers);
+			this.executor = threads == 1 ? null : Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "external-sort");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+
+		/**
+		 * 取得一个空闲块，没有时分配新块或等待排序线程归还
+		 */
+		@SuppressWarnings("unchecked")
+		A take() throws IOException {
+			A buf = buffers.poll();
+			if (buf != null)
+				return buf;
+			if (allocated < maxBuffers) {
+				allocated++;
+				return (A) Array.newInstance(componentType, Math.min(INITIAL_CHUNK, chunkLength));
+			}
+			try {
+				return buffers.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted while waiting for a chunk");
+			}
+		}
+
+		/**
+		 * 块是否已达到块大小，不能再扩容
+		 */
+		boolean full(A buf) {
+			return Array.getLength(buf) >= chunkLength;
+		}
+
+		/**
+		 * 块按2倍扩容，复制前n个元素
+		 */
+		@SuppressWarnings("unchecked")
+		A grow(A buf, int n) {
+			int length = Array.getLength(buf);
+			A grown = (A) Array.newInstance(componentType, (int) Math.min(chunkLength, 2L * length));
+			System.arraycopy(buf, 0, grown, 0, n);
+			return grown;
+		}
+
+		/**
+		 * 排序buf[0..n)并写出为有序段，之后归还buf
+		 */
+		void spill(A buf, int n) throws IOException {
+			if (n == 0) {
+				buffers.add(buf);
+				return;
+			}
+			Path path = createTempFile();
+			if (executor == null) {
+				pending.add(CompletableFuture.completedFuture(writeAndRelease(buf, n, path)));
+				return;
+			}
+			pending.add(executor.submit(() -> writeAndRelease(buf, n, path)));
+		}
+
+		private Run writeAndRelease(A buf, int n, Path path) throws IOException {
+			try {
+				return new Run(path, runWriter.write(buf, n, path));
+			} finally {
+				buffers.add(buf);
+			}
+		}
+
+		/**
+		 * 等待所有块写出，按写出顺序返回有序段
+		 */
+		List<Run> runs() throws IOException {
+			List<Run> runs = new ArrayList<>(pending.size());
+			try {
+				for (Future<Run> f : pending)
+					runs.add(f.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted while sorting chunks");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new IOException(cause);
+			}
+			pending.clear();
+			return runs;
+		}
+
+		Path createTempFile() throws IOException {
+			Path path = tempDirectory == null ? Files.createTempFile("run", ".bin")
+					: Files.createTempFile(tempDirectory, "run", ".bin");
+			temps.add(path);
+			return path;
+		}
+
+		void delete(Path path) throws IOException {
+			temps.remove(path);
+			Files.deleteIfExists(path);
+		}
+
+		/**
+		 * 停止排序线程并删除所有剩余的临时文件
+		 */
+		@Override
+		public void close() throws IOException {
+			if (executor != null)
+				executor.shutdownNow();
+			for (Path path : temps)
+				Files.deleteIfExists(path);
+			temps.clear();
+		}
+	}
+}
@@ -13,6 +13,7 @@ import java.util.NoSuchElementException;
  * 优先队列的实现是将索引数组堆有序化，使用索引通过映射数组找到该索引在堆中的位置
  *<p>
  * 时间复杂度：与logN成正比 ,sink()与swim() 的复杂度是lgN</p>
+ * <p>可以指定堆的叉数d为2、4或8，根节点在pq[d-1]，d个子节点连续存放，见{@link MinPQ}</p>
  * @author Navy D
  * @date 20170814125541
  * @param <Key>
@@ -33,16 +34,34 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 	private int[] qp;
 	// 从0开始的优先队列数组，存储键的数组
 	private Key[] keys;
+	// 堆的叉数
+	private final int d;
+	// log2(d)，父子节点的计算用移位代替除法
+	private final int lgD;
+	// 根节点在pq中的位置d-1
+	private final int root;
 
 	/**
 	 * 初始化一个大小固定为maxN的最大优先列
 	 * @param maxN
 	 */
-	@SuppressWarnings("unchecked")
 	public IndexMaxPQ(int maxN) {
+		this(maxN, 2);
+	}
+
+	/**
+	 * 初始化一个大小固定为maxN的d叉堆最大优先列
+	 * @param maxN
+	 * @param d 堆的叉数，只能为2、4或8
+	 */
+	@SuppressWarnings("unchecked")
+	public IndexMaxPQ(int maxN, int d) {
+		lgD = lgArity(d);
+		this.d = d;
+		root = d - 1;
 		n = 0;
 		this.maxN = maxN;
-		pq = new int[maxN + 1];
+		pq = new int[maxN + root];
 		qp = new int[maxN];
 		keys = (Key[]) new Comparable[maxN];
 		for (int i = 0; i < qp.length; i++)
@@ -60,12 +79,12 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 	public void insert(int k, Key key) {
 		if (contains(k))
 			throw new IllegalArgumentException("index is already in the priority queue");
-		n++;
+		int i = root + n++;
 		//将原数组索引对应堆与堆映射
-		pq[n] = k;
-		qp[k] = n;
+		pq[i] = k;
+		qp[k] = i;
 		keys[k] = key;
-		swim(n);
+		swim(i);
 	}
 	/**
 	 * 将索引为k的元素设为key
@@ -144,9 +163,12 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 		//取出堆pq中k对应的下标
 		int index = qp[k];
 		//交换堆index与n，去掉交换过去的index(无法读取n)
-		exch(index, n--);
-		//将交换来的小元素下沉有序化
-		sink(index);
+		exch(index, root + --n);
+		//交换来的元素可能比原来的大或小，index为原来的最后一个位置时不需要有序化
+		if (index < root + n) {
+			swim(index);
+			sink(index);
+		}
 		/*
 		 * 由于堆中index(n中)任然存在，pq[index] 存在,qp[pq[index]] = index也存在，
 		 * keys[pq[index]]存在，改变的是index在sink()后变成对应另外的索引值a,pq[index] = a;
@@ -178,7 +200,7 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 	public int maxIndex() {
 		if (isEmpty())
 			throw new NoSuchElementException();
-		return pq[1];
+		return pq[root];
 	}
 
 	/**
@@ -191,17 +213,17 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 		if (isEmpty())
 			throw new NoSuchElementException();
 		//取出最小值key的索引
-		int max = pq[1];
+		int max = pq[root];
 		//交换
-		exch(1, n--);
+		exch(root, root + --n);
 		//堆下沉有序化
-		sink(1);
+		sink(root);
 		//序列映射qp[k] = N pq[n] = k;表示这个索引不存在了
 		qp[max] = -1;
 		//删除元素
 		keys[max] = null;
 		//置索引为-1，不再需要这个keys[pq[k]]即keys[-1]
-		pq[n+1] = -1;
+		pq[root + n] = -1;
 		return max;
 	}
 
@@ -235,9 +257,9 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 	 * @date 20170811212147
 	 */
 	private void swim(int k) {
-		while (k > 1 && less(k >>> 1, k)) {
-			exch(k/2, k);
-			k /= 2;
+		while (k > root && less(parent(k), k)) {
+			exch(parent(k), k);
+			k = parent(k);
 		}
 	}
 
@@ -248,10 +270,14 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 	 * @date 20170811212219
 	 */
 	private void sink(int k) {
-		while (k << 1 <= n) {
-			int j = k << 1;
-			if (j < n && less(j, j + 1))
-				j++;
+		//最后一个有子节点的节点
+		int lastParent = parent(root + n - 1);
+		while (k <= lastParent) {
+			int j = child(k), last = Math.min(j + d - 1, root + n - 1);
+			//在连续存放的子节点中取最大的一个
+			for (int i = j + 1; i <= last; i++)
+				if (less(j, i))
+					j = i;
 			if (!less(k, j))
 				break;
 			exch(k, j);
@@ -284,6 +310,35 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 		qp[pq[j]] = j;
 	}
 
+	/**
+	 * 位置k的父节点。位置k为层序中第k-root个节点
+	 * @param k
+	 * @return
+	 */
+	private int parent(int k) {
+		return (k >>> lgD) + d - 2;
+	}
+
+	/**
+	 * 位置k的第一个子节点，d个子节点从d的倍数开始连续存放
+	 * @param k
+	 * @return
+	 */
+	private int child(int k) {
+		return (k - d + 2) << lgD;
+	}
+
+	/**
+	 * 返回叉数d以2为底的对数
+	 * @param d 只能为2、4或8
+	 * @return
+	 */
+	private static int lgArity(int d) {
+		if (d != 2 && d != 4 && d != 8)
+			throw new IllegalArgumentException("arity must be 2, 4 or 8: " + d);
+		return Integer.numberOfTrailingZeros(d);
+	}
+
 	/**
 	 * 队列的字符串表示，顺序不是优先顺序排列，而是堆数组中顺序表示，只能作参考
 	 * @author Navy D
@@ -292,7 +347,7 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("[");
-		for (int i = 1; i <= n; i++) {
+		for (int i = root; i < root + n; i++) {
 
 			sb.append(pq[i] + "-" + keys[pq[i]] + ", ");
 		}
@@ -319,8 +374,8 @@ public class IndexMaxPQ<Key extends Comparable<? super Key>> implements Iterable
 		// add all elements to copy of heap
 		// takes linear time since already in heap order so no keys move
 		public HeapIterator() {
-			copy = new IndexMinPQ<Key>(pq.length - 1);
-			for (int i = 1; i <= n; i++)
+			copy = new IndexMinPQ<Key>(maxN, d);
+			for (int i = root; i < root + n; i++)
 				copy.insert(pq[i], keys[pq[i]]);
 		}
 
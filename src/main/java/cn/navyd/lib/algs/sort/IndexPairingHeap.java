@@ -0,0 +1,224 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>键为double的索引配对堆</p>
+ * 与{@link PairingHeap}相同的结构，但索引k本身就是节点的句柄：
+ * 节点的子节点、兄弟节点与键保存在以索引为下标的数组中，不为每个节点分配对象，
+ * 数组在插入更大的索引时加倍增长，不需要预先知道最大的索引
+ * <li>insert：O(1)</li>
+ * <li>decreaseKey：均摊O(1)(实际为o(lgN))，比d叉堆的上浮少很多比较，适合放松边很多的稠密图</li>
+ * <li>delMin、delete：均摊lgN</li>
+ * <p>键不能为NaN</p>
+ * @author Navy D
+ * @date 20171031143520
+ * @see DoubleIndexMinPQ
+ */
+public class IndexPairingHeap implements DoubleIndexedPQ {
+	// 没有节点
+	private static final int NIL = -1;
+	// prev[k]为ABSENT表示索引k不在堆中
+	private static final int ABSENT = -2;
+
+	// 根节点的索引
+	private int root = NIL;
+	// 堆中元素数量
+	private int n;
+	private double[] keys;
+	// 第一个子节点
+	private int[] child;
+	// 右边的兄弟节点
+	private int[] next;
+	// 左边的兄弟节点，第一个子节点时为父节点，根节点为NIL
+	private int[] prev;
+
+	/**
+	 * 初始化一个空的堆，容量为initCap，之后自动增长
+	 * @param initCap
+	 */
+	public IndexPairingHeap(int initCap) {
+		if (initCap < 0)
+			throw new IllegalArgumentException();
+		keys = new double[initCap];
+		child = new int[initCap];
+		next = new int[initCap];
+		prev = new int[initCap];
+		Arrays.fill(prev, ABSENT);
+	}
+
+	public IndexPairingHeap() {
+		this(16);
+	}
+
+	@Override
+	public void insert(int k, double key) {
+		if (k < 0)
+			throw new IndexOutOfBoundsException();
+		if (k >= prev.length)
+			resize(Math.max(k + 1, prev.length << 1));
+		if (prev[k] != ABSENT)
+			throw new IllegalArgumentException("index is already in the priority queue");
+		checkKey(key);
+		keys[k] = key;
+		child[k] = next[k] = prev[k] = NIL;
+		root = root == NIL ? k : link(root, k);
+		n++;
+	}
+
+	@Override
+	public void decreaseKey(int k, double key) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		checkKey(key);
+		if (key > keys[k])
+			throw new IllegalArgumentException("key is greater than the current key");
+		keys[k] = key;
+		if (k != root) {
+			cut(k);
+			root = link(root, k);
+		}
+	}
+
+	/**
+	 * 删除索引k和关联的键
+	 * @param k
+	 */
+	public void delete(int k) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		if (k == root) {
+			delMin();
+			return;
+		}
+		cut(k);
+		int sub = combine(child[k]);
+		if (sub != NIL)
+			root = link(root, sub);
+		prev[k] = ABSENT;
+		n--;
+	}
+
+	@Override
+	public boolean contains(int k) {
+		if (k < 0)
+			throw new IndexOutOfBoundsException();
+		return k < prev.length && prev[k] != ABSENT;
+	}
+
+	@Override
+	public double keyOf(int k) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		return keys[k];
+	}
+
+	public double min() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		return keys[root];
+	}
+
+	public int minIndex() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		return root;
+	}
+
+	@Override
+	public int delMin() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		int min = root;
+		root = combine(child[min]);
+		prev[min] = ABSENT;
+		n--;
+		return min;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * 合并两个根节点，较大的成为较小的第一个子节点，返回新的根
+	 */
+	private int link(int a, int b) {
+		if (keys[b] < keys[a]) {
+			int temp = a;
+			a = b;
+			b = temp;
+		}
+		prev[b] = a;
+		next[b] = child[a];
+		if (child[a] != NIL)
+			prev[child[a]] = b;
+		child[a] = b;
+		return a;
+	}
+
+	/**
+	 * 将节点k与其子树从兄弟链表中剪下
+	 */
+	private void cut(int k) {
+		int p = prev[k];
+		if (child[p] == k)
+			child[p] = next[k];
+		else
+			next[p] = next[k];
+		if (next[k] != NIL)
+			prev[next[k]] = p;
+		next[k] = prev[k] = NIL;
+	}
+
+	/**
+	 * two-pass合并兄弟链表first中的所有子树，返回新的根，见{@link PairingHeap}
+	 */
+	private int combine(int first) {
+		if (first == NIL)
+			return NIL;
+		int stack = NIL;
+		while (first != NIL) {
+			int a = first, b = next[a];
+			first = b == NIL ? NIL : next[b];
+			next[a] = prev[a] = NIL;
+			if (b != NIL) {
+				next[b] = prev[b] = NIL;
+				a = link(a, b);
+			}
+			next[a] = stack;
+			stack = a;
+		}
+		int result = stack;
+		stack = next[stack];
+		next[result] = NIL;
+		while (stack != NIL) {
+			int nextStack = next[stack];
+			next[stack] = NIL;
+			result = link(result, stack);
+			stack = nextStack;
+		}
+		return result;
+	}
+
+	private void resize(int capacity) {
+		int old = prev.length;
+		keys = Arrays.copyOf(keys, capacity);
+		child = Arrays.copyOf(child, capacity);
+		next = Arrays.copyOf(next, capacity);
+		prev = Arrays.copyOf(prev, capacity);
+		Arrays.fill(prev, old, capacity, ABSENT);
+	}
+
+	private static void checkKey(double key) {
+		if (Double.isNaN(key))
+			throw new IllegalArgumentException("key is NaN");
+	}
+}
@@ -3,6 +3,8 @@ package cn.navyd.lib.algs.sort;
 import java.util.Arrays; 
 import java.util.Comparator;
 import java.util.Random;
+
+import cn.navyd.lib.util.SortStats;
 /**
  * 插入排序：</br>
  * 实现：
@@ -64,6 +66,7 @@ public class Insertion {
 			}
 			// 将最后这个放到j的位置
 			a[j] = v;
+			SortStats.move(i - j);
 
 			assert isSorted(a, 0, i);
 		}
@@ -98,6 +101,7 @@ public class Insertion {
 				j--;
 			}
 			a[j] = v;
+			SortStats.move(i - j);
 
 			assert isSorted(a, 0, i, comparator);
 		}
@@ -119,6 +123,7 @@ public class Insertion {
 			int j = i;
 			for (; j != 0 && less(v, a[j-1]); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
@@ -132,10 +137,12 @@ public class Insertion {
 	 * @date 20170731194135
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) < 0;
 	}
 
 	private static <T> boolean less(T v, T w, Comparator<T> comparator) {
+		SortStats.compare();
 		return comparator.compare(v, w) < 0;
 	}
 
@@ -148,6 +155,7 @@ public class Insertion {
 	 * @date 20170731194308
 	 */
 	private static <T> void exch(T[] a, int i, int j) {
+		SortStats.exchange();
 		T temp = a[i];
 		a[i] = a[j];
 		a[j] = temp;
@@ -1,7 +1,10 @@
 package cn.navyd.lib.algs.sort;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Random;
+
+import cn.navyd.lib.util.SortStats;
 /**
  * <p>归并排序自底向上MergeBottomUp：</p>
  * 分治思想：先归并小数组，再成对的归并得到的子数组，直到归并整个数组</br>
@@ -14,16 +17,466 @@ import java.util.Random;
  * 已经排序的数组，而bu是继续比较大小相同的两个数组</p>
  *<p>
  * 该排序适合比较使用链表组织的数据</p>
+ * <p>
+ * sortNatural()是利用输入中已有顺序的自适应版本(TimSort)，对已经有序的数组只需要线性时间</p>
  *
  * 稳定性： 是
  * @author Navy D
  * @date 20170802201132
  */
 public class MergeBU {
+	// 小于该长度的数组直接使用二分插入排序
+	private static final int MIN_MERGE = 32;
+	// 进入galloping模式的初始阀值
+	private static final int MIN_GALLOP = 7;
+
 	private MergeBU() {
 
 	}
 
+	/**
+	 * 对数组a进行自适应的自然归并排序(TimSort)：
+	 * <li>从左到右找出数组中已有的升序和严格降序(反转为升序)的run</li>
+	 * <li>短的run使用二分插入排序扩展到minRun长度</li>
+	 * <li>栈中的run满足长度约束时才归并，保证归并平衡</li>
+	 * <li>归并时如果一边连续胜出就进入galloping模式，使用指数查找一次复制一段</li>
+	 * <p>
+	 * 辅助数组不超过n/2，已经有序或逆序的数组只需要n-1次比较
+	 * </p>
+	 * @param a
+	 */
+	public static <T extends Comparable<? super T>> void sortNatural(T[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		new NaturalMergeSort<>(a, null).sort();
+
+		assert isSorted(a);
+	}
+
+	/**
+	 * 对数组a使用comparator进行自适应的自然归并排序
+	 * @param a
+	 * @param comparator
+	 */
+	public static <T extends Comparable<? super T>> void sortNatural(T[] a, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (comparator == null)
+			throw new IllegalArgumentException("argument comparator is null");
+		new NaturalMergeSort<>(a, comparator).sort();
+	}
+
+	/**
+	 * 自然归并排序一次排序的状态：run栈、辅助数组与galloping阀值
+	 */
+	private static class NaturalMergeSort<T extends Comparable<? super T>> {
+		private final T[] a;
+		// 为null时使用自然顺序
+		private final Comparator<T> comparator;
+		// 辅助数组，长度不超过n/2
+		private T[] tmp;
+		private int minGallop = MIN_GALLOP;
+		// 待归并的run栈：runBase[i]开始，长度runLen[i]。满足约束时栈深度不超过log(phi)n
+		private final int[] runBase = new int[49];
+		private final int[] runLen = new int[49];
+		private int stackSize = 0;
+
+		@SuppressWarnings("unchecked")
+		NaturalMergeSort(T[] a, Comparator<T> comparator) {
+			this.a = a;
+			this.comparator = comparator;
+			int n = a.length;
+			tmp = (T[]) new Comparable[n < 2 * 256 ? n >>> 1 : 256];
+		}
+
+		void sort() {
+			int lo = 0, hi = a.length;
+			int remaining = hi - lo;
+			if (remaining < 2)
+				return;
+			// 小数组不归并
+			if (remaining < MIN_MERGE) {
+				int initRunLen = countRunAndMakeAscending(lo, hi);
+				binarySort(lo, hi, lo + initRunLen);
+				return;
+			}
+			int minRun = minRunLength(remaining);
+			do {
+				int runLen = countRunAndMakeAscending(lo, hi);
+				// 短run扩展到min(minRun, remaining)
+				if (runLen < minRun) {
+					int force = remaining <= minRun ? remaining : minRun;
+					binarySort(lo, lo + force, lo + runLen);
+					runLen = force;
+				}
+				pushRun(lo, runLen);
+				mergeCollapse();
+				lo += runLen;
+				remaining -= runLen;
+			} while (remaining != 0);
+			mergeForceCollapse();
+		}
+
+		/**
+		 * 返回从lo开始的run长度。严格降序的run会被反转为升序，非严格的降序反转将破坏稳定性
+		 */
+		private int countRunAndMakeAscending(int lo, int hi) {
+			int runHi = lo + 1;
+			if (runHi == hi)
+				return 1;
+			if (less(a[runHi++], a[lo])) {
+				while (runHi < hi && less(a[runHi], a[runHi - 1]))
+					runHi++;
+				reverse(lo, runHi);
+			} else {
+				while (runHi < hi && !less(a[runHi], a[runHi - 1]))
+					runHi++;
+			}
+			return runHi - lo;
+		}
+
+		private void reverse(int lo, int hi) {
+			hi--;
+			while (lo < hi) {
+				SortStats.exchange();
+				T t = a[lo];
+				a[lo++] = a[hi];
+				a[hi--] = t;
+			}
+		}
+
+		/**
+		 * 二分插入排序[lo..hi)，其中[lo..start)已经有序。相等元素插入在后面以保持稳定
+		 */
+		private void binarySort(int lo, int hi, int start) {
+			if (start == lo)
+				start++;
+			for (; start < hi; start++) {
+				T pivot = a[start];
+				int left = lo, right = start;
+				while (left < right) {
+					int mid = (left + right) >>> 1;
+					if (less(pivot, a[mid]))
+						right = mid;
+					else
+						left = mid + 1;
+				}
+				SortStats.move(start - left);
+				System.arraycopy(a, left, a, left + 1, start - left);
+				a[left] = pivot;
+			}
+		}
+
+		/**
+		 * 使n/minRun刚好等于或略小于2的幂，归并时更加平衡
+		 */
+		private static int minRunLength(int n) {
+			int r = 0;
+			while (n >= MIN_MERGE) {
+				r |= (n & 1);
+				n >>= 1;
+			}
+			return n + r;
+		}
+
+		private void pushRun(int base, int len) {
+			runBase[stackSize] = base;
+			runLen[stackSize] = len;
+			stackSize++;
+		}
+
+		/**
+		 * 归并栈顶的run直到满足：runLen[i-2] > runLen[i-1] + runLen[i] 且 runLen[i-1] > runLen[i]
+		 */
+		private void mergeCollapse() {
+			while (stackSize > 1) {
+				int n = stackSize - 2;
+				if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+						|| n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+					if (runLen[n - 1] < runLen[n + 1])
+						n--;
+				} else if (runLen[n] > runLen[n + 1]) {
+					break;
+				}
+				mergeAt(n);
+			}
+		}
+
+		// 归并栈中所有的run
+		private void mergeForceCollapse() {
+			while (stackSize > 1) {
+				int n = stackSize - 2;
+				if (n > 0 && runLen[n - 1] < runLen[n + 1])
+					n--;
+				mergeAt(n);
+			}
+		}
+
+		/**
+		 * 归并栈中第i与i+1个run。先用galloping去掉已经在最终位置的前后两段，再用较短的一边作为辅助数组
+		 */
+		private void mergeAt(int i) {
+			int base1 = runBase[i], len1 = runLen[i];
+			int base2 = runBase[i + 1], len2 = runLen[i + 1];
+			runLen[i] = len1 + len2;
+			if (i == stackSize - 3) {
+				runBase[i + 1] = runBase[i + 2];
+				runLen[i + 1] = runLen[i + 2];
+			}
+			stackSize--;
+
+			// run1中不大于run2第一个元素的前缀已经在最终位置
+			int k = gallopRight(a[base2], a, base1, len1, 0);
+			base1 += k;
+			len1 -= k;
+			if (len1 == 0)
+				return;
+			// run2中不小于run1最后一个元素的后缀已经在最终位置
+			len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+			if (len2 == 0)
+				return;
+
+			if (len1 <= len2)
+				mergeLo(base1, len1, base2, len2);
+			else
+				mergeHi(base1, len1, base2, len2);
+		}
+
+		/**
+		 * 从左到右归并，run1复制到辅助数组。相等时取run1的元素
+		 */
+		private void mergeLo(int base1, int len1, int base2, int len2) {
+			T[] tmp = ensureCapacity(len1);
+			System.arraycopy(a, base1, tmp, 0, len1);
+			SortStats.move(len1 + len1 + len2);
+			int c1 = 0, end1 = len1;
+			int c2 = base2, end2 = base2 + len2;
+			int dest = base1;
+			outer:
+			while (true) {
+				// 逐个比较，记录两边连续胜出的次数
+				int count1 = 0, count2 = 0;
+				do {
+					if (less(a[c2], tmp[c1])) {
+						a[dest++] = a[c2++];
+						count2++;
+						count1 = 0;
+						if (c2 == end2)
+							break outer;
+					} else {
+						a[dest++] = tmp[c1++];
+						count1++;
+						count2 = 0;
+						if (c1 == end1)
+							break outer;
+					}
+				} while ((count1 | count2) < minGallop);
+
+				// galloping：一次找出一边可以连续复制的长度
+				do {
+					count1 = gallopRight(a[c2], tmp, c1, end1 - c1, 0);
+					if (count1 != 0) {
+						System.arraycopy(tmp, c1, a, dest, count1);
+						dest += count1;
+						c1 += count1;
+						if (c1 == end1)
+							break outer;
+					}
+					a[dest++] = a[c2++];
+					if (c2 == end2)
+						break outer;
+
+					count2 = gallopLeft(tmp[c1], a, c2, end2 - c2, 0);
+					if (count2 != 0) {
+						System.arraycopy(a, c2, a, dest, count2);
+						dest += count2;
+						c2 += count2;
+						if (c2 == end2)
+							break outer;
+					}
+					a[dest++] = tmp[c1++];
+					if (c1 == end1)
+						break outer;
+					if (minGallop > 1)
+						minGallop--;
+				} while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+				// 离开galloping模式，提高再次进入的门槛
+				minGallop += 2;
+			}
+			// run2用尽时复制run1剩余的元素。run1用尽时run2剩余的元素已经在最终位置
+			if (c1 < end1)
+				System.arraycopy(tmp, c1, a, dest, end1 - c1);
+		}
+
+		/**
+		 * 从右到左归并，run2复制到辅助数组。相等时先放run2的元素
+		 */
+		private void mergeHi(int base1, int len1, int base2, int len2) {
+			T[] tmp = ensureCapacity(len2);
+			System.arraycopy(a, base2, tmp, 0, len2);
+			SortStats.move(len2 + len1 + len2);
+			int c1 = base1 + len1 - 1;
+			int c2 = len2 - 1;
+			int dest = base2 + len2 - 1;
+			outer:
+			while (true) {
+				int count1 = 0, count2 = 0;
+				do {
+					if (less(tmp[c2], a[c1])) {
+						a[dest--] = a[c1--];
+						count1++;
+						count2 = 0;
+						if (c1 < base1)
+							break outer;
+					} else {
+						a[dest--] = tmp[c2--];
+						count2++;
+						count1 = 0;
+						if (c2 < 0)
+							break outer;
+					}
+				} while ((count1 | count2) < minGallop);
+
+				do {
+					// run1中大于tmp[c2]的元素个数
+					count1 = c1 - base1 + 1 - gallopRight(tmp[c2], a, base1, c1 - base1 + 1, c1 - base1);
+					if (count1 != 0) {
+						dest -= count1;
+						c1 -= count1;
+						System.arraycopy(a, c1 + 1, a, dest + 1, count1);
+						if (c1 < base1)
+							break outer;
+					}
+					a[dest--] = tmp[c2--];
+					if (c2 < 0)
+						break outer;
+
+					// run2中不小于a[c1]的元素个数
+					count2 = c2 + 1 - gallopLeft(a[c1], tmp, 0, c2 + 1, c2);
+					if (count2 != 0) {
+						dest -= count2;
+						c2 -= count2;
+						System.arraycopy(tmp, c2 + 1, a, dest + 1, count2);
+						if (c2 < 0)
+							break outer;
+					}
+					a[dest--] = a[c1--];
+					if (c1 < base1)
+						break outer;
+					if (minGallop > 1)
+						minGallop--;
+				} while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+				minGallop += 2;
+			}
+			// run1用尽时复制run2剩余的元素
+			if (c2 >= 0)
+				System.arraycopy(tmp, 0, a, dest - c2, c2 + 1);
+		}
+
+		/**
+		 * 在有序的x[base..base+len)中从hint开始指数查找再二分查找，返回k使x[base+k-1] < key <= x[base+k]
+		 */
+		private int gallopLeft(T key, T[] x, int base, int len, int hint) {
+			int lastOfs = 0, ofs = 1;
+			if (less(x[base + hint], key)) {
+				// 向右查找直到 x[base+hint+lastOfs] < key <= x[base+hint+ofs]
+				int maxOfs = len - hint;
+				while (ofs < maxOfs && less(x[base + hint + ofs], key)) {
+					lastOfs = ofs;
+					ofs = (ofs << 1) + 1;
+					if (ofs <= 0)
+						ofs = maxOfs;
+				}
+				if (ofs > maxOfs)
+					ofs = maxOfs;
+				lastOfs += hint;
+				ofs += hint;
+			} else {
+				// 向左查找直到 x[base+hint-ofs] < key <= x[base+hint-lastOfs]
+				int maxOfs = hint + 1;
+				while (ofs < maxOfs && !less(x[base + hint - ofs], key)) {
+					lastOfs = ofs;
+					ofs = (ofs << 1) + 1;
+					if (ofs <= 0)
+						ofs = maxOfs;
+				}
+				if (ofs > maxOfs)
+					ofs = maxOfs;
+				int t = lastOfs;
+				lastOfs = hint - ofs;
+				ofs = hint - t;
+			}
+			lastOfs++;
+			while (lastOfs < ofs) {
+				int m = lastOfs + ((ofs - lastOfs) >>> 1);
+				if (less(x[base + m], key))
+					lastOfs = m + 1;
+				else
+					ofs = m;
+			}
+			return ofs;
+		}
+
+		/**
+		 * 与gallopLeft相同，但返回k使x[base+k-1] <= key < x[base+k]，即相等元素的最右边
+		 */
+		private int gallopRight(T key, T[] x, int base, int len, int hint) {
+			int lastOfs = 0, ofs = 1;
+			if (less(key, x[base + hint])) {
+				int maxOfs = hint + 1;
+				while (ofs < maxOfs && less(key, x[base + hint - ofs])) {
+					lastOfs = ofs;
+					ofs = (ofs << 1) + 1;
+					if (ofs <= 0)
+						ofs = maxOfs;
+				}
+				if (ofs > maxOfs)
+					ofs = maxOfs;
+				int t = lastOfs;
+				lastOfs = hint - ofs;
+				ofs = hint - t;
+			} else {
+				int maxOfs = len - hint;
+				while (ofs < maxOfs && !less(key, x[base + hint + ofs])) {
+					lastOfs = ofs;
+					ofs = (ofs << 1) + 1;
+					if (ofs <= 0)
+						ofs = maxOfs;
+				}
+				if (ofs > maxOfs)
+					ofs = maxOfs;
+				lastOfs += hint;
+				ofs += hint;
+			}
+			lastOfs++;
+			while (lastOfs < ofs) {
+				int m = lastOfs + ((ofs - lastOfs) >>> 1);
+				if (less(key, x[base + m]))
+					ofs = m;
+				else
+					lastOfs = m + 1;
+			}
+			return ofs;
+		}
+
+		/**
+		 * 保证辅助数组至少有minCapacity长度，按倍数增长但不超过n/2
+		 */
+		@SuppressWarnings("unchecked")
+		private T[] ensureCapacity(int minCapacity) {
+			if (tmp.length < minCapacity) {
+				int newSize = Math.max(minCapacity, Math.min(tmp.length << 1, a.length >>> 1));
+				tmp = (T[]) new Comparable[newSize];
+			}
+			return tmp;
+		}
+
+		private boolean less(T v, T w) {
+			SortStats.compare();
+			return comparator != null ? comparator.compare(v, w) < 0 : v.compareTo(w) < 0;
+		}
+	}
+
 	/**
 	 * 对数组a进行归并排序
 	 * @param a
@@ -72,10 +525,10 @@ public class MergeBU {
 		//左边数组第一个，右边数组第一个
 		int i = lo, j = mid+1;
 
-		for (int k = 0; k < a.length; k++)
-			aux[k] = a[k];
+		System.arraycopy(a, lo, aux, lo, hi - lo + 1);
+		SortStats.move(2 * (hi - lo + 1));
 		//将aux数组看做两个排序
-		for (int k = lo; k < a.length; k++) {
+		for (int k = lo; k <= hi; k++) {
 			//左边数组用尽，取右边元素
 			if (i > mid)
 				a[k] = aux[j++];
@@ -102,6 +555,7 @@ public class MergeBU {
 	 * @date 20170731194135
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo((T) w) < 0;
 	}
 
@@ -0,0 +1,213 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import cn.navyd.lib.util.SortStats;
+
+/**
+ * <p>原地稳定归并排序：只使用大小为√N的辅助数组，而不是MergeBU/MergeTD/MergeX的N</p>
+ * 实现：
+ * <li>自底向上：先对每CUTOFF个元素插入排序，再按2倍宽度两两归并</li>
+ * <li>归并前用二分查找去掉左边已经不大于右边首元素的前缀与右边已经不小于左边末元素的后缀，有序时不需要归并</li>
+ * <li>较短的一边不超过缓冲区时复制到缓冲区线性归并</li>
+ * <li>否则将较长一边从中点切开，在另一边二分查找对应位置，旋转中间两段后成为两个独立的更小归并，
+ * 直到能使用缓冲区。切分点的查找保证相等元素的相对顺序，因此是稳定的</li>
+ * <p>
+ * 时间复杂度：最坏NlgN次比较与Nlg²N次移动，缓冲区可以完成的归并为线性<br>
+ * 空间复杂度：√N的缓冲区与lgN的递归<br>
+ * 稳定性：是
+ * </p>
+ * 适合内存受限时对大数组稳定排序，吞吐量低于MergeX
+ *
+ * @author Navy D
+ * @date 20171023201518
+ */
+public class MergeInPlace {
+	// 插入排序的块大小
+	private static final int CUTOFF = 16;
+
+	private MergeInPlace() {
+	}
+
+	/**
+	 * 对数组a原地稳定排序
+	 * @param a
+	 */
+	public static <T extends Comparable<? super T>> void sort(T[] a) {
+		sort(a, null);
+	}
+
+	/**
+	 * 使用指定的顺序原地稳定排序
+	 * @param a
+	 * @param comparator 为null时使用自然顺序
+	 */
+	public static <T extends Comparable<? super T>> void sort(T[] a, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int n = a.length;
+		for (int lo = 0; lo < n; lo += CUTOFF)
+			insertion(a, lo, Math.min(lo + CUTOFF, n), comparator);
+		if (n <= CUTOFF)
+			return;
+		T[] buf = Arrays.copyOf(a, Math.max(CUTOFF, (int) Math.sqrt(n)));
+		for (int width = CUTOFF; width < n; width <<= 1)
+			for (int lo = 0; lo < n - width; lo += width << 1)
+				merge(a, lo, lo + width, Math.min(lo + (width << 1), n), buf, comparator);
+
+		assert isSorted(a, comparator);
+	}
+
+	/**
+	 * 稳定归并有序的a[lo..mid)与a[mid..hi)
+	 * @param a
+	 * @param lo
+	 * @param mid
+	 * @param hi
+	 * @param buf
+	 * @param comparator
+	 */
+	private static <T extends Comparable<? super T>> void merge(T[] a, int lo, int mid, int hi, T[] buf, Comparator<T> comparator) {
+		while (true) {
+			if (lo == mid || mid == hi || !less(a[mid], a[mid - 1], comparator))
+				return;
+			// 已经在最终位置的前缀与后缀
+			lo = upperBound(a, lo, mid, a[mid], comparator);
+			hi = lowerBound(a, mid, hi, a[mid - 1], comparator);
+			int len1 = mid - lo, len2 = hi - mid;
+			if (len1 <= len2 && len1 <= buf.length) {
+				mergeLo(a, lo, mid, hi, buf, comparator);
+				return;
+			}
+			if (len2 <= buf.length) {
+				mergeHi(a, lo, mid, hi, buf, comparator);
+				return;
+			}
+			// 左边的cut1..mid与右边的mid..cut2交换位置，相等元素中左边的仍在右边的前面
+			int cut1, cut2;
+			if (len1 >= len2) {
+				cut1 = lo + len1 / 2;
+				cut2 = lowerBound(a, mid, hi, a[cut1], comparator);
+			} else {
+				cut2 = mid + len2 / 2;
+				cut1 = upperBound(a, lo, mid, a[cut2], comparator);
+			}
+			rotate(a, cut1, mid, cut2, buf);
+			int newMid = cut1 + (cut2 - mid);
+			// 递归较短的一边，循环较长的一边，递归深度为lgN
+			if (newMid - lo <= hi - newMid) {
+				SortStats.enter();
+				merge(a, lo, cut1, newMid, buf, comparator);
+				SortStats.exit();
+				lo = newMid;
+				mid = cut2;
+			} else {
+				SortStats.enter();
+				merge(a, newMid, cut2, hi, buf, comparator);
+				SortStats.exit();
+				hi = newMid;
+				mid = cut1;
+			}
+		}
+	}
+
+	// 左边复制到缓冲区，从前向后归并
+	private static <T extends Comparable<? super T>> void mergeLo(T[] a, int lo, int mid, int hi, T[] buf, Comparator<T> comparator) {
+		int len1 = mid - lo;
+		System.arraycopy(a, lo, buf, 0, len1);
+		int i = 0, j = mid, k = lo;
+		while (i < len1 && j < hi)
+			a[k++] = less(a[j], buf[i], comparator) ? a[j++] : buf[i++];
+		System.arraycopy(buf, i, a, k, len1 - i);
+	}
+
+	// 右边复制到缓冲区，从后向前归并
+	private static <T extends Comparable<? super T>> void mergeHi(T[] a, int lo, int mid, int hi, T[] buf, Comparator<T> comparator) {
+		int len2 = hi - mid;
+		System.arraycopy(a, mid, buf, 0, len2);
+		int i = mid - 1, j = len2 - 1, k = hi - 1;
+		while (i >= lo && j >= 0)
+			a[k--] = less(buf[j], a[i], comparator) ? a[i--] : buf[j--];
+		System.arraycopy(buf, 0, a, lo, j + 1);
+	}
+
+	/**
+	 * 交换相邻的a[lo..mid)与a[mid..hi)。较短的一段能放入缓冲区时使用复制，否则三次反转
+	 */
+	private static <T> void rotate(T[] a, int lo, int mid, int hi, T[] buf) {
+		int len1 = mid - lo, len2 = hi - mid;
+		if (len1 == 0 || len2 == 0)
+			return;
+		if (len1 <= len2 && len1 <= buf.length) {
+			System.arraycopy(a, lo, buf, 0, len1);
+			System.arraycopy(a, mid, a, lo, len2);
+			System.arraycopy(buf, 0, a, lo + len2, len1);
+		} else if (len2 <= buf.length) {
+			System.arraycopy(a, mid, buf, 0, len2);
+			System.arraycopy(a, lo, a, lo + len2, len1);
+			System.arraycopy(buf, 0, a, lo, len2);
+		} else {
+			reverse(a, lo, mid);
+			reverse(a, mid, hi);
+			reverse(a, lo, hi);
+		}
+	}
+
+	private static <T> void reverse(T[] a, int lo, int hi) {
+		for (hi--; lo < hi; lo++, hi--) {
+			T t = a[lo];
+			a[lo] = a[hi];
+			a[hi] = t;
+		}
+	}
+
+	// a[lo..hi)中第一个不小于key的下标
+	private static <T extends Comparable<? super T>> int lowerBound(T[] a, int lo, int hi, T key, Comparator<T> comparator) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (less(a[mid], key, comparator))
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	// a[lo..hi)中第一个大于key的下标
+	private static <T extends Comparable<? super T>> int upperBound(T[] a, int lo, int hi, T key, Comparator<T> comparator) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (less(key, a[mid], comparator))
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo;
+	}
+
+	// 对a[lo..hi)插入排序
+	private static <T extends Comparable<? super T>> void insertion(T[] a, int lo, int hi, Comparator<T> comparator) {
+		for (int i = lo + 1; i < hi; i++) {
+			T v = a[i];
+			int j = i;
+			for (; j > lo && less(v, a[j - 1], comparator); j--)
+				a[j] = a[j - 1];
+			SortStats.move(i - j);
+			a[j] = v;
+		}
+	}
+
+	// comparator为null时使用自然顺序
+	private static <T extends Comparable<? super T>> boolean less(T v, T w, Comparator<T> comparator) {
+		SortStats.compare();
+		return comparator != null ? comparator.compare(v, w) < 0 : v.compareTo(w) < 0;
+	}
+
+	private static <T extends Comparable<? super T>> boolean isSorted(T[] a, Comparator<T> comparator) {
+		for (int i = 1; i < a.length; i++)
+			if (less(a[i], a[i - 1], comparator))
+				return false;
+		return true;
+	}
+}
@@ -2,6 +2,12 @@ package cn.navyd.lib.algs.sort;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import cn.navyd.lib.util.SortStats;
 
 
 /**
@@ -22,12 +28,18 @@ import java.util.Random;
  * 空间复杂度：N
  * </p>
  * 稳定性： 是
+ * <p>
+ * 提供indexSortByLong/indexSortByDouble：每个元素只提取一次基本类型的键，
+ * 之后键与下标在基本类型数组中一起归并，不再访问原对象
+ * </p>
  *
  * @author Navy D
  * @date 20170802173125
  */
 public class MergeTD {
 	private static final int CUTOFF = 7;
+	// 并行排序时切换到顺序排序的子数组长度
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
 
 	private MergeTD() {
 
@@ -73,8 +85,10 @@ public class MergeTD {
 		 * 2.[4,0,2,16,5,17,1]7个，必定是：[4,0] [2,16] [4,0,2,16]    [5,17][5,17,1] 最后两个数组归并
 		 * 即将数组用mid不断细分直至从两个只有一个元素的数组开始归并，（数组长度可不等）左边归并为一个大数组之后，开始右边
 		 */
+		SortStats.enter();
 		sort(a, aux, lo, mid);
 		sort(a, aux, mid+1, hi);
+		SortStats.exit();
 
 		//当数组无序就归并（由于两数组分别有序，放入merge()必须满足）
 //		if (less(a[mid + 1], a[mid])) {
@@ -121,6 +135,8 @@ public class MergeTD {
 
 		// 复制数组的值到辅助数组
 		System.arraycopy(a, lo, aux, lo, hi-lo+1);
+		// 复制到aux与归并回a
+		SortStats.move(2 * (hi - lo + 1));
 
 		//将aux数组看做两个排序
 		for (int k = lo; k <= hi; k++) {
@@ -148,6 +164,7 @@ public class MergeTD {
 			int j = i;
 			for (; j != lo && less(v, a[j - 1]); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
@@ -161,6 +178,7 @@ public class MergeTD {
 	 * @date 20170731194135
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) < 0;
 	}
 
@@ -222,8 +240,250 @@ public class MergeTD {
 
 
 
+	/*************************	基本类型键的间接排序	*****************************************/
+
+	/**
+	 * 按key提取的long键间接排序，返回下标数组index使a[index[0]], a[index[1]]...按键升序，稳定。
+	 * key对每个元素只调用一次，键缓存在long数组中，之后与下标一起归并排序，
+	 * 比较时顺序访问基本类型数组而不是解引用a中的对象调用compareTo
+	 * @param a
+	 * @param key
+	 * @return
+	 */
+	public static <T> int[] indexSortByLong(T[] a, ToLongFunction<? super T> key) {
+		return indexSort(longKeys(a, key), false);
+	}
+
+	/**
+	 * 按key提取的double键间接排序，顺序与Double.compare相同
+	 * @param a
+	 * @param key
+	 * @return
+	 * @see #indexSortByLong(Object[], ToLongFunction)
+	 */
+	public static <T> int[] indexSortByDouble(T[] a, ToDoubleFunction<? super T> key) {
+		return indexSort(doubleKeys(a, key), false);
+	}
+
+	/**
+	 * 在ForkJoinPool上并行间接排序，稳定
+	 * @param a
+	 * @param key
+	 * @return
+	 * @see #indexSortByLong(Object[], ToLongFunction)
+	 */
+	public static <T> int[] parallelIndexSortByLong(T[] a, ToLongFunction<? super T> key) {
+		return indexSort(longKeys(a, key), true);
+	}
+
+	/**
+	 * 在ForkJoinPool上并行间接排序，稳定
+	 * @param a
+	 * @param key
+	 * @return
+	 * @see #indexSortByDouble(Object[], ToDoubleFunction)
+	 */
+	public static <T> int[] parallelIndexSortByDouble(T[] a, ToDoubleFunction<? super T> key) {
+		return indexSort(doubleKeys(a, key), true);
+	}
+
+	/**
+	 * 返回使keys升序的下标数组，稳定，不改变keys
+	 * @param keys
+	 * @return
+	 */
+	public static int[] indexSort(long[] keys) {
+		if (keys == null)
+			throw new IllegalArgumentException("argument array is null");
+		return indexSort(keys.clone(), false);
+	}
+
+	/**
+	 * 返回使keys升序的下标数组，顺序与Double.compare相同，稳定，不改变keys
+	 * @param keys
+	 * @return
+	 */
+	public static int[] indexSort(double[] keys) {
+		if (keys == null)
+			throw new IllegalArgumentException("argument array is null");
+		long[] k = new long[keys.length];
+		for (int i = 0; i < k.length; i++)
+			k[i] = sortableBits(keys[i]);
+		return indexSort(k, false);
+	}
+
+	/**
+	 * 并行返回使keys升序的下标数组
+	 * @param keys
+	 * @return
+	 * @see #indexSort(long[])
+	 */
+	public static int[] parallelIndexSort(long[] keys) {
+		if (keys == null)
+			throw new IllegalArgumentException("argument array is null");
+		return indexSort(keys.clone(), true);
+	}
+
+	/**
+	 * 并行返回使keys升序的下标数组
+	 * @param keys
+	 * @return
+	 * @see #indexSort(double[])
+	 */
+	public static int[] parallelIndexSort(double[] keys) {
+		if (keys == null)
+			throw new IllegalArgumentException("argument array is null");
+		long[] k = new long[keys.length];
+		for (int i = 0; i < k.length; i++)
+			k[i] = sortableBits(keys[i]);
+		return indexSort(k, true);
+	}
+
+	private static <T> long[] longKeys(T[] a, ToLongFunction<? super T> key) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (key == null)
+			throw new IllegalArgumentException("argument key is null");
+		long[] keys = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			keys[i] = key.applyAsLong(a[i]);
+		return keys;
+	}
+
+	private static <T> long[] doubleKeys(T[] a, ToDoubleFunction<? super T> key) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (key == null)
+			throw new IllegalArgumentException("argument key is null");
+		long[] keys = new long[a.length];
+		for (int i = 0; i < a.length; i++)
+			keys[i] = sortableBits(key.applyAsDouble(a[i]));
+		return keys;
+	}
+
+	/**
+	 * 将double转换为按有符号long比较时顺序与Double.compare相同的位：
+	 * 负数翻转除符号位外的所有位，-0.0小于0.0，NaN最大
+	 * @param d
+	 * @return
+	 */
+	static long sortableBits(double d) {
+		long bits = Double.doubleToLongBits(d);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	/**
+	 * 对键keys归并排序，下标与键一起移动。keys会被改变
+	 * @param keys
+	 * @param parallel
+	 * @return
+	 */
+	private static int[] indexSort(long[] keys, boolean parallel) {
+		int n = keys.length;
+		int[] index = new int[n];
+		for (int i = 0; i < n; i++)
+			index[i] = i;
+		// 与MergeX相同，辅助数组开始时与原数组相同，每层递归交换两者的角色
+		long[] auxKeys = keys.clone();
+		int[] auxIndex = index.clone();
+		if (parallel && n > PARALLEL_THRESHOLD)
+			ForkJoinPool.commonPool().invoke(new IndexSortTask(auxKeys, auxIndex, keys, index, 0, n - 1));
+		else
+			sort(auxKeys, auxIndex, keys, index, 0, n - 1);
+
+		assert isSorted(keys);
+		return index;
+	}
+
+	/**
+	 * 将src[lo..hi]排序到dst[lo..hi]，开始时两者的内容相同
+	 */
+	private static void sort(long[] srcKeys, int[] srcIndex, long[] dstKeys, int[] dstIndex, int lo, int hi) {
+		if (hi <= lo + CUTOFF) {
+			insertion(dstKeys, dstIndex, lo, hi);
+			return;
+		}
+		int mid = lo + (hi - lo) / 2;
+		sort(dstKeys, dstIndex, srcKeys, srcIndex, lo, mid);
+		sort(dstKeys, dstIndex, srcKeys, srcIndex, mid + 1, hi);
+		merge(srcKeys, srcIndex, dstKeys, dstIndex, lo, mid, hi);
+	}
+
+	/**
+	 * 归并有序的src[lo..mid]与src[mid+1..hi]到dst，相等时取左边保持稳定。两边已经有序时直接复制
+	 */
+	private static void merge(long[] srcKeys, int[] srcIndex, long[] dstKeys, int[] dstIndex, int lo, int mid, int hi) {
+		if (srcKeys[mid] <= srcKeys[mid + 1]) {
+			System.arraycopy(srcKeys, lo, dstKeys, lo, hi - lo + 1);
+			System.arraycopy(srcIndex, lo, dstIndex, lo, hi - lo + 1);
+			return;
+		}
+		int i = lo, j = mid + 1;
+		for (int k = lo; k <= hi; k++) {
+			if (i > mid || j <= hi && srcKeys[j] < srcKeys[i]) {
+				dstKeys[k] = srcKeys[j];
+				dstIndex[k] = srcIndex[j++];
+			} else {
+				dstKeys[k] = srcKeys[i];
+				dstIndex[k] = srcIndex[i++];
+			}
+		}
+	}
+
+	private static void insertion(long[] keys, int[] index, int lo, int hi) {
+		for (int i = lo + 1; i <= hi; i++) {
+			long v = keys[i];
+			int x = index[i];
+			int j = i;
+			for (; j > lo && v < keys[j - 1]; j--) {
+				keys[j] = keys[j - 1];
+				index[j] = index[j - 1];
+			}
+			keys[j] = v;
+			index[j] = x;
+		}
+	}
+
+	/**
+	 * 并行归并排序：两半在ForkJoinPool上并行排序后顺序归并
+	 */
+	@SuppressWarnings("serial")
+	private static class IndexSortTask extends RecursiveAction {
+		private final long[] srcKeys, dstKeys;
+		private final int[] srcIndex, dstIndex;
+		private final int lo, hi;
+
+		IndexSortTask(long[] srcKeys, int[] srcIndex, long[] dstKeys, int[] dstIndex, int lo, int hi) {
+			this.srcKeys = srcKeys;
+			this.srcIndex = srcIndex;
+			this.dstKeys = dstKeys;
+			this.dstIndex = dstIndex;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo < PARALLEL_THRESHOLD) {
+				sort(srcKeys, srcIndex, dstKeys, dstIndex, lo, hi);
+				return;
+			}
+			int mid = lo + (hi - lo) / 2;
+			invokeAll(new IndexSortTask(dstKeys, dstIndex, srcKeys, srcIndex, lo, mid),
+					new IndexSortTask(dstKeys, dstIndex, srcKeys, srcIndex, mid + 1, hi));
+			merge(srcKeys, srcIndex, dstKeys, dstIndex, lo, mid, hi);
+		}
+	}
+
 	/*************************	验证	*****************************************/
 
+	private static boolean isSorted(long[] a) {
+		for (int i = 1; i < a.length; i++)
+			if (a[i] < a[i - 1])
+				return false;
+		return true;
+	}
+
 	private static <T extends Comparable<? super T>> boolean isSorted(T[] a) {
 		return isSorted(a, 0, a.length);
 	}
@@ -3,6 +3,11 @@ package cn.navyd.lib.algs.sort;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cn.navyd.lib.util.Cutoffs;
+import cn.navyd.lib.util.SortStats;
 
 /**
  * <p>归并排序的优化版本：自顶向下的归并方式</p>
@@ -11,11 +16,14 @@ import java.util.Random;
  * <li>对有序数组不进行归并merge</li>
  * <li>不在merge归并中将数组复制到辅助数组</li>
  * <li>使用java的方法提高性能如objec.clone,arrayCopy</li>
+ * <p>提供parallelSort在ForkJoinPool上并行排序，同样是稳定的</p>
  *
  */
 public class MergeX {
-	// cutoff to insertion sort
-	private static final int CUTOFF = 7;
+	// cutoff to insertion sort，可由Cutoffs调优
+	private static final int CUTOFF = Cutoffs.get(Cutoffs.MERGE, 7);
+	// 并行排序时切换到顺序排序的子数组长度
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
 
 	private MergeX() {
 	}
@@ -30,11 +38,20 @@ public class MergeX {
 		// 复制一个原始数组而不是在merge中赋值，提高性能
 		T[] aux = a.clone();
 		// 将辅助 原数组调换
-		sort(aux, a, 0, a.length - 1);
+		sort(aux, a, 0, a.length - 1, CUTOFF);
 
 		assert isSorted(a);
 	}
 
+	/**
+	 * 使用指定的切换值cutoff排序，Cutoffs通过该方法测量实际的排序代码
+	 * @param a
+	 * @param cutoff
+	 */
+	static <T extends Comparable<? super T>> void sortWithCutoff(T[] a, int cutoff) {
+		sort(a.clone(), a, 0, a.length - 1, cutoff);
+	}
+
 	/**
 	 * 递归sort和复制数组都是将数据排序到辅助数组，merge将数组到原数组
 	 *
@@ -43,16 +60,18 @@ public class MergeX {
 	 * @author Navy D
 	 * @date 20171002121315
 	 */
-	private static <T extends Comparable<? super T>>  void sort(T[] src, T[] dst, int lo, int hi) {
-		if (hi <= lo + CUTOFF) {
+	private static <T extends Comparable<? super T>>  void sort(T[] src, T[] dst, int lo, int hi, int cutoff) {
+		if (hi <= lo + cutoff) {
 			insertionSort(dst, lo, hi);
 			return;
 		}
 		int mid = lo + (hi - lo) / 2;
 		// 	 a,   aux
 		// 将数据从原数组排序到辅助数组
-		sort(dst, src, lo, mid);
-		sort(dst, src, mid + 1, hi);
+		SortStats.enter();
+		sort(dst, src, lo, mid, cutoff);
+		sort(dst, src, mid + 1, hi, cutoff);
+		SortStats.exit();
 
 		// if (!less(src[mid+1], src[mid])) {
 		// for (int i = lo; i <= hi; i++) dst[i] = src[i];
@@ -63,6 +82,7 @@ public class MergeX {
 		// src是a数组，dst是aux数组
 		if (less(src[mid], src[mid + 1])) {
 			System.arraycopy(src, lo, dst, lo, hi - lo + 1);
+			SortStats.move(hi - lo + 1);
 			return;
 		}
 		// aux, a, lo, mid, hi
@@ -83,6 +103,7 @@ public class MergeX {
 		assert isSorted(src, mid + 1, hi);
 
 		int i = lo, j = mid + 1;
+		SortStats.move(hi - lo + 1);
 		// 将输入数组排序到辅助数组
 		for (int k = lo; k <= hi; k++) {
 			if (i > mid)
@@ -105,19 +126,201 @@ public class MergeX {
 			int j = i;
 			for (; j != lo && less(v, a[j - 1]); j--)
 				a[j] = a[j - 1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
 
+	/*******************************************************************
+	 * Parallel version on ForkJoinPool.
+	 *******************************************************************/
+
+	/**
+	 * 使用ForkJoinPool.commonPool()对数组a并行升序排序。排序稳定
+	 * @param a
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a) {
+		parallelSort(a, null, PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * 使用ForkJoinPool.commonPool()对数组a按comparator并行排序。排序稳定
+	 * @param a
+	 * @param comparator
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a, Comparator<T> comparator) {
+		if (comparator == null)
+			throw new IllegalArgumentException("argument comparator is null");
+		parallelSort(a, comparator, PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * 并行归并排序：
+	 * <li>递归切分的左右两半使用fork/join并行排序</li>
+	 * <li>归并时取较长一边的中点，在另一边二分查找切分点，将一次归并切分为两个互不相关的归并并行执行</li>
+	 * <li>整个排序只复制一次辅助数组，与sort(T[])相同在a与aux间交替归并</li>
+	 * <p>
+	 * 子数组长度不超过threshold时切换到顺序的sort(src, dst, lo, hi)
+	 * </p>
+	 * @param a
+	 * @param comparator 为null时使用自然顺序
+	 * @param threshold 切换到顺序排序和顺序归并的子数组长度
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a, Comparator<T> comparator, int threshold) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (threshold < 1)
+			throw new IllegalArgumentException("threshold: " + threshold);
+		T[] aux = a.clone();
+		// 数组较小时并行没有意义
+		if (a.length <= threshold) {
+			if (comparator == null)
+				sort(aux, a, 0, a.length - 1, CUTOFF);
+			else
+				sort(aux, a, 0, a.length - 1, comparator);
+		} else
+			ForkJoinPool.commonPool().invoke(new SortTask<>(aux, a, 0, a.length - 1, comparator, threshold));
+
+		assert comparator == null ? isSorted(a) : isSorted(a, comparator);
+	}
+
+	/**
+	 * 与sort(src, dst, lo, hi)相同：src与dst在[lo..hi]中的元素相同，将排序结果放入dst
+	 */
+	@SuppressWarnings("serial")
+	private static class SortTask<T extends Comparable<? super T>> extends RecursiveAction {
+		private final T[] src, dst;
+		private final int lo, hi, threshold;
+		private final Comparator<T> comparator;
+
+		SortTask(T[] src, T[] dst, int lo, int hi, Comparator<T> comparator, int threshold) {
+			this.src = src;
+			this.dst = dst;
+			this.lo = lo;
+			this.hi = hi;
+			this.comparator = comparator;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo + 1 <= threshold) {
+				if (comparator == null)
+					sort(src, dst, lo, hi, CUTOFF);
+				else
+					sort(src, dst, lo, hi, comparator);
+				return;
+			}
+			int mid = lo + (hi - lo) / 2;
+			// 两半排序到src中
+			invokeAll(new SortTask<>(dst, src, lo, mid, comparator, threshold),
+					new SortTask<>(dst, src, mid + 1, hi, comparator, threshold));
+			// 已经有序时直接复制
+			if (!less(src[mid + 1], src[mid], comparator)) {
+				System.arraycopy(src, lo, dst, lo, hi - lo + 1);
+				return;
+			}
+			new MergeTask<>(src, dst, lo, mid, mid + 1, hi, lo, comparator, threshold).compute();
+		}
+	}
+
+	/**
+	 * 将src中有序的[lo1..hi1]与[lo2..hi2]归并到dst从k开始的位置。左边[lo1..hi1]的相等元素总在前面以保证稳定
+	 */
+	@SuppressWarnings("serial")
+	private static class MergeTask<T extends Comparable<? super T>> extends RecursiveAction {
+		private final T[] src, dst;
+		private final int lo1, hi1, lo2, hi2, k, threshold;
+		private final Comparator<T> comparator;
+
+		MergeTask(T[] src, T[] dst, int lo1, int hi1, int lo2, int hi2, int k, Comparator<T> comparator, int threshold) {
+			this.src = src;
+			this.dst = dst;
+			this.lo1 = lo1;
+			this.hi1 = hi1;
+			this.lo2 = lo2;
+			this.hi2 = hi2;
+			this.k = k;
+			this.comparator = comparator;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			int n1 = hi1 - lo1 + 1, n2 = hi2 - lo2 + 1;
+			if (n1 + n2 <= threshold) {
+				merge(src, dst, lo1, hi1, lo2, hi2, k, comparator);
+				return;
+			}
+			int m1, m2, pos;
+			if (n1 >= n2) {
+				// 左边中点，右边中小于它的元素排在它前面
+				m1 = lo1 + (n1 >>> 1);
+				m2 = lowerBound(src, lo2, hi2 + 1, src[m1], comparator);
+				pos = k + (m1 - lo1) + (m2 - lo2);
+				dst[pos] = src[m1];
+				invokeAll(new MergeTask<>(src, dst, lo1, m1 - 1, lo2, m2 - 1, k, comparator, threshold),
+						new MergeTask<>(src, dst, m1 + 1, hi1, m2, hi2, pos + 1, comparator, threshold));
+			} else {
+				// 右边中点，左边中小于等于它的元素排在它前面
+				m2 = lo2 + (n2 >>> 1);
+				m1 = upperBound(src, lo1, hi1 + 1, src[m2], comparator);
+				pos = k + (m1 - lo1) + (m2 - lo2);
+				dst[pos] = src[m2];
+				invokeAll(new MergeTask<>(src, dst, lo1, m1 - 1, lo2, m2 - 1, k, comparator, threshold),
+						new MergeTask<>(src, dst, m1, hi1, m2 + 1, hi2, pos + 1, comparator, threshold));
+			}
+		}
+	}
+
+	// 顺序归并两个任意位置的有序子数组
+	private static <T extends Comparable<? super T>> void merge(T[] src, T[] dst, int i, int hi1, int j, int hi2, int k, Comparator<T> comparator) {
+		while (i <= hi1 && j <= hi2)
+			dst[k++] = less(src[j], src[i], comparator) ? src[j++] : src[i++];
+		if (i <= hi1)
+			System.arraycopy(src, i, dst, k, hi1 - i + 1);
+		else if (j <= hi2)
+			System.arraycopy(src, j, dst, k, hi2 - j + 1);
+	}
+
+	// [lo..hi)中第一个不小于v的下标
+	private static <T extends Comparable<? super T>> int lowerBound(T[] a, int lo, int hi, T v, Comparator<T> comparator) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (less(a[mid], v, comparator))
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	// [lo..hi)中第一个大于v的下标
+	private static <T extends Comparable<? super T>> int upperBound(T[] a, int lo, int hi, T v, Comparator<T> comparator) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (less(v, a[mid], comparator))
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return lo;
+	}
+
 	/*******************************************************************
 	 * Utility methods.
 	 *******************************************************************/
 
 	private static <T extends Comparable<? super T>>  boolean less(T a, T b) {
+		SortStats.compare();
 		return a.compareTo(b) < 0;
 	}
 
-	private static <T>  boolean less(T a, T b, Comparator<T> comparator) {
+	// comparator为null时使用自然顺序
+	private static <T extends Comparable<? super T>>  boolean less(T a, T b, Comparator<T> comparator) {
+		if (comparator == null)
+			return less(a, b);
+		SortStats.compare();
 		return comparator.compare(a, b) < 0;
 	}
 
@@ -144,6 +347,7 @@ public class MergeX {
 		assert isSorted(src, mid + 1, hi, comparator);
 
 		int i = lo, j = mid + 1;
+		SortStats.move(hi - lo + 1);
 		for (int k = lo; k <= hi; k++) {
 			if (i > mid)
 				dst[k] = src[j++];
@@ -164,11 +368,14 @@ public class MergeX {
 			return;
 		}
 		int mid = lo + (hi - lo) / 2;
+		SortStats.enter();
 		sort(dst, src, lo, mid, comparator);
 		sort(dst, src, mid + 1, hi, comparator);
+		SortStats.exit();
 
 		if (less(src[mid], src[mid + 1], comparator)) {
 			System.arraycopy(src, lo, dst, lo, hi - lo + 1);
+			SortStats.move(hi - lo + 1);
 			return;
 		}
 
@@ -182,6 +389,7 @@ public class MergeX {
 			int j = i;
 			for (; j != lo && less(v, a[j - 1], comparator); j--)
 				a[j] = a[j - 1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
@@ -36,26 +36,47 @@ import java.util.Random;
  * <p>
  * 时间复杂度：插入：lgN+1    删除：2lgN
  * </p>
+ * <p>可以指定堆的叉数d为2、4或8：d叉堆的高度为log_d(N)，插入与上浮更快，
+ * 删除时每层比较d个子节点，但d个子节点在数组中连续存放，通常在同一个缓存行中。
+ * 根节点在pq[d-1]，每组子节点都从d的倍数开始，d=2时与从pq[1]开始的二叉堆相同</p>
  * @author Navy D
  * @date 20170810155728
  */
 public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key> {
-	// 优先队列保存数组，从a[1]开始
+	// 优先队列保存数组，从a[root]开始
 	private Key[] pq;
 	// 当前队列元素数量
 	private int n;
 	// 可选的比较器
 	private Comparator<Key> comparator;
+	// 堆的叉数
+	private final int d;
+	// log2(d)，父子节点的计算用移位代替除法
+	private final int lgD;
+	// 根节点的位置d-1
+	private final int root;
 
 
 	/**
 	 * 构造一个初始容量为maxN空的优先队列
 	 * @param maxN 优先队列存储的元素总数
 	 */
-	@SuppressWarnings("unchecked")
 	public MinPQ(int initCap) {
-		//队列从pq[1]开始
-		pq = (Key[])new Comparable[initCap + 1];
+		this(initCap, 2);
+	}
+
+	/**
+	 * 构造一个初始容量为initCap的空d叉堆优先队列
+	 * @param initCap
+	 * @param d 堆的叉数，只能为2、4或8
+	 */
+	@SuppressWarnings("unchecked")
+	public MinPQ(int initCap, int d) {
+		lgD = lgArity(d);
+		this.d = d;
+		root = d - 1;
+		//队列从pq[root]开始
+		pq = (Key[])new Comparable[initCap + root];
 		n = 0;
 	}
 	/**
@@ -69,16 +90,15 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	 * 将一个数组初始化为一个优先队列，初始容量为数组元素数量
 	 * @param keys
 	 */
-	@SuppressWarnings("unchecked")
 	public MinPQ(Key[] keys) {
+		this(keys.length);
 		n = keys.length;
-		pq = (Key[]) new Comparable[n+1];
 		//赋值数组元素到队列
 		for (int i = 0; i < keys.length; i++)
-			pq[i+1] = keys[i];
+			pq[i + root] = keys[i];
 
 		//将新数组构造成一个堆(堆排序一部分)
-		for (int i = n/2; i >= 1; i--)
+		for (int i = parent(root + n - 1); i >= root; i--)
 			sink(i);
 
 		assert isMinHeap();
@@ -90,7 +110,17 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	 * @param comparator 特定的比较器
 	 */
 	public MinPQ(int initCap, Comparator<Key> comparator) {
-		this(initCap);
+		this(initCap, comparator, 2);
+	}
+
+	/**
+	 * 构造一个初始容量为initCap的空d叉堆优先队列，使用指定的比较器排列
+	 * @param initCap
+	 * @param comparator
+	 * @param d 堆的叉数，只能为2、4或8
+	 */
+	public MinPQ(int initCap, Comparator<Key> comparator, int d) {
+		this(initCap, d);
 		this.comparator = comparator;
 	}
 	/**
@@ -140,8 +170,8 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	public Key min() {
 		if (isEmpty())
 			throw new NoSuchElementException();
-		//堆数据结构中根最大
-		return pq[1];
+		//堆数据结构中根最小
+		return pq[root];
 	}
 
 	/**
@@ -153,14 +183,14 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	@SuppressWarnings("unchecked")
 	private void resize(int capacity) {
 		//capacity只有两种方式，测试能过就行
-		assert capacity > n;
+		assert capacity >= n + root;
 
 		Key[] temp = (Key[]) new Comparable[capacity];
 //		复制到新数组
 //		for (int i = 1; i <= n; i++)
 //			temp[i] = pq[i];
 
-		System.arraycopy(pq, 1, temp, 1, n);
+		System.arraycopy(pq, root, temp, root, n);
 		pq = temp;
 	}
 
@@ -171,13 +201,14 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	 * @date 20170811150826
 	 */
 	public void insert(Key v) {
-		//当前元素数量刚好等于数组长度（除a[0]） 将数组扩大一倍
-		if (n == pq.length-1)
+		//当前元素数量刚好等于数组长度（除根之前的位置） 将数组扩大一倍
+		if (n + root == pq.length)
 			resize(pq.length << 1);
-		//以1开始存储元素
-		pq[++n] = v;
+		//以root开始存储元素
+		int k = root + n++;
+		pq[k] = v;
 		//放在最后一个，上浮序列化
-		swim(n);
+		swim(k);
 
 		assert isMinHeap();
 	}
@@ -192,15 +223,15 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 		if (isEmpty())
 			throw new NoSuchElementException("Priority queue underflow");
 		// 第一个为根最小
-		Key min = pq[1];
+		Key min = pq[root];
 		// 将第一个与最后一个交换，移除第一个元素
-		exch(1, n);
-		pq[n--] = null;
+		exch(root, root + n - 1);
+		pq[root + --n] = null;
 		// 将交换上来的元素下沉序列化
-		sink(1);
+		sink(root);
 		//当前队列中元素数量为数组长度的1/4
-		if (n > 0 && n == (pq.length - 1) >> 2)
-			resize(pq.length >> 1);
+		if (n > 0 && n == (pq.length - root) >> 2)
+			resize(((pq.length - root) >> 1) + root);
 
 		assert isMinHeap();
 		return min;
@@ -211,38 +242,40 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	 ***************************************************************************/
 
 	/**
-	 * 使二叉堆由下至上有序化 如果当前节点比父节点大，则交换 否则有序化完成
-	 * 复杂度：lgN比较与交换
+	 * 使二叉堆由下至上有序化 如果当前节点比父节点小，则交换 否则有序化完成
+	 * 复杂度：log_d(N)比较与交换
 	 * @param k
 	 * @author Navy D
 	 * @date 20170811151852
 	 */
 	private void swim(int k) {
-		// 子节点k比父节点k/2大进入循环
-		while (k > 1 && greater(k >> 1, k)) {
+		// 父节点比子节点k大进入循环
+		while (k > root && greater(parent(k), k)) {
 			// 交换父子节点
-			exch(k >> 1, k);
+			exch(parent(k), k);
 			// 将子节点设为父节点继续比较
-			k >>= 1;
+			k = parent(k);
 		}
 	}
 
 	/**
-	 * 使二叉堆由上至下有序化，如果当前节点比子节点中较大的一个小，则交换，否则有序化完成
-	 * 复杂度：2lgN比较,lgN交换
+	 * 使二叉堆由上至下有序化，如果当前节点比子节点中较小的一个大，则交换，否则有序化完成
+	 * 复杂度：d*log_d(N)比较,log_d(N)交换
 	 * @param k
 	 * @author Navy D
 	 * @date 20170811152052
 	 */
 	private void sink(int k) {
-		// 2*k子节点要存在
-		while (k << 1 <= n) {
-			// 左边子节点
-			int j = k << 1;
-			// 如果右子节点存在且比左子节点大就取右节点
-			if (j < n && greater(j, j + 1))
-				j++;
-			// 当前节点比子节点大时完成退出
+		// 最后一个有子节点的节点
+		int lastParent = parent(root + n - 1);
+		while (k <= lastParent) {
+			// 第一个子节点
+			int j = child(k), last = Math.min(j + d - 1, root + n - 1);
+			// 在连续存放的子节点中取最小的一个
+			for (int i = j + 1; i <= last; i++)
+				if (greater(j, i))
+					j = i;
+			// 当前节点不比子节点大时完成退出
 			if (!greater(k, j))
 				break;
 			// 交换当前节点与子节点中较大的一个
@@ -266,6 +299,35 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 		pq[j] = swap;
 	}
 
+	/**
+	 * 位置k的父节点。位置k为层序中第k-root个节点
+	 * @param k
+	 * @return
+	 */
+	private int parent(int k) {
+		return (k >>> lgD) + d - 2;
+	}
+
+	/**
+	 * 位置k的第一个子节点，d个子节点从d的倍数开始连续存放
+	 * @param k
+	 * @return
+	 */
+	private int child(int k) {
+		return (k - d + 2) << lgD;
+	}
+
+	/**
+	 * 返回叉数d以2为底的对数
+	 * @param d 只能为2、4或8
+	 * @return
+	 */
+	private static int lgArity(int d) {
+		if (d != 2 && d != 4 && d != 8)
+			throw new IllegalArgumentException("arity must be 2, 4 or 8: " + d);
+		return Integer.numberOfTrailingZeros(d);
+	}
+
 	/**
 	 * 如果从根节点开始堆有序，返回true
 	 * @return
@@ -273,7 +335,7 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	 * @date 20170811152215
 	 */
 	private boolean isMinHeap() {
-		return isMinHeap(1);
+		return isMinHeap(root);
 	}
 
 	// is subtree of pq[1..n] rooted at k a max heap?
@@ -285,20 +347,15 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 	 * @date 20170811152333
 	 */
 	private boolean isMinHeap(int k) {
-		//没有元素了
-		if (k > n)
+		//叶子节点没有子节点
+		if (k > parent(root + n - 1))
 			return true;
-		//左子节点
-		int left = 2 * k;
-		//右子节点
-		int right = 2 * k + 1;
-		//子节点存在并且大于父节点就说明堆无序，返回false
-		if (left <= n && greater(k, left))
-			return false;
-		if (right <= n && greater(k, right))
-			return false;
-		//先遍历完左节点，再右子节点
-		return isMinHeap(left) && isMinHeap(right);
+		int j = child(k), last = Math.min(j + d - 1, root + n - 1);
+		//子节点小于父节点就说明堆无序，返回false
+		for (int i = j; i <= last; i++)
+			if (greater(k, i) || !isMinHeap(i))
+				return false;
+		return true;
 	}
 
 	/**
@@ -333,10 +390,10 @@ public class MinPQ<Key extends Comparable<? super Key>> implements Iterable<Key>
 		// takes linear time since already in heap order so no keys move
 		public HeapIterator() {
 			if (comparator == null)
-				copy = new MinPQ<Key>(size());
+				copy = new MinPQ<Key>(size(), d);
 			else
-				copy = new MinPQ<Key>(size(), comparator);
-			for (int i = 1; i <= n; i++)
+				copy = new MinPQ<Key>(size(), comparator, d);
+			for (int i = root; i < root + n; i++)
 				copy.insert(pq[i]);
 		}
 
@@ -0,0 +1,148 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>MultiQueue：放松顺序的并发最小优先队列</p>
+ * 用一个锁保护一个MinPQ会让所有线程在同一个锁上排队。MultiQueue将元素分散到c*p个
+ * 各自加锁的MinPQ分片中(p为线程数)，不再保证delMin返回全局最小的键：
+ * <li>insert：随机选择一个分片，tryLock失败时换一个分片，不会阻塞</li>
+ * <li>delMin：随机选择两个分片，不加锁地比较两个分片的最小键，从较小的分片中删除。
+ * 返回的键的排名误差期望为O(c*p)，与队列大小无关</li>
+ * <li>分片数远多于线程数，两个线程同时选中同一个分片的概率很小</li>
+ * <p>所有的分片都为空时delMin返回null。size()与isEmpty()在并发修改时只是近似值</p>
+ * 使用：
+ * <pre>
+ * MultiQueue&lt;Task&gt; queue = new MultiQueue&lt;&gt;(threads, 2);
+ * // 每个工作线程
+ * Task t = queue.delMin();
+ * </pre>
+ * @author Navy D
+ * @date 20171102101633
+ * @param <Key>
+ * @see SkipListPQ
+ */
+public class MultiQueue<Key extends Comparable<? super Key>> implements ConcurrentMinPQ<Key> {
+	private final Shard<Key>[] shards;
+
+	/**
+	 * 一个加锁的MinPQ，top为分片的最小键，用于不加锁的比较
+	 */
+	private static final class Shard<Key extends Comparable<? super Key>> {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final MinPQ<Key> pq = new MinPQ<>(16, 4);
+		private volatile Key top;
+		private volatile int size;
+
+		// 在持有锁时调用，更新top与size
+		private void update() {
+			size = pq.size();
+			top = pq.isEmpty() ? null : pq.min();
+		}
+	}
+
+	/**
+	 * 使用threads*c个分片构造一个空的队列
+	 * @param threads 使用队列的线程数
+	 * @param c 每个线程的分片数，通常为2
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public MultiQueue(int threads, int c) {
+		if (threads <= 0 || c <= 0)
+			throw new IllegalArgumentException("threads and c must be positive");
+		// 至少两个分片才能在delMin中选择
+		shards = new Shard[Math.max(2, threads * c)];
+		for (int i = 0; i < shards.length; i++)
+			shards[i] = new Shard<>();
+	}
+
+	/**
+	 * 线程数为可用的处理器数量，每个线程2个分片
+	 */
+	public MultiQueue() {
+		this(Runtime.getRuntime().availableProcessors(), 2);
+	}
+
+	@Override
+	public void insert(Key key) {
+		if (key == null)
+			throw new IllegalArgumentException("argument to insert() is null");
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Shard<Key> shard;
+		do {
+			shard = shards[random.nextInt(shards.length)];
+		} while (!shard.lock.tryLock());
+		try {
+			shard.pq.insert(key);
+			shard.update();
+		} finally {
+			shard.lock.unlock();
+		}
+	}
+
+	@Override
+	public Key delMin() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		// 随机选择的分片都为空时，可能只是其他分片中还有元素，尝试几次后依次检查所有分片
+		for (int attempt = 0; attempt < shards.length; attempt++) {
+			int i = random.nextInt(shards.length), j = random.nextInt(shards.length - 1);
+			if (j >= i)
+				j++;
+			Key a = shards[i].top, b = shards[j].top;
+			if (a == null && b == null)
+				continue;
+			Shard<Key> shard = b == null || a != null && a.compareTo(b) <= 0 ? shards[i] : shards[j];
+			Key min = tryDelMin(shard);
+			if (min != null)
+				return min;
+		}
+		for (Shard<Key> shard : shards) {
+			shard.lock.lock();
+			try {
+				if (!shard.pq.isEmpty()) {
+					Key min = shard.pq.delMin();
+					shard.update();
+					return min;
+				}
+			} finally {
+				shard.lock.unlock();
+			}
+		}
+		return null;
+	}
+
+	// 分片被其他线程锁定或已经为空时返回null
+	private Key tryDelMin(Shard<Key> shard) {
+		if (!shard.lock.tryLock())
+			return null;
+		try {
+			if (shard.pq.isEmpty())
+				return null;
+			Key min = shard.pq.delMin();
+			shard.update();
+			return min;
+		} finally {
+			shard.lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (Shard<Key> shard : shards)
+			if (shard.size > 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * 所有分片的元素数量之和，并发修改时是近似值
+	 * @return
+	 */
+	public int size() {
+		int n = 0;
+		for (Shard<Key> shard : shards)
+			n += shard.size;
+		return n;
+	}
+}
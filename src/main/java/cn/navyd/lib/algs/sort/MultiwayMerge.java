@@ -0,0 +1,736 @@
+package cn.navyd.lib.algs.sort;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import cn.navyd.lib.algs.util.In;
+
+/**
+ * <p>多路归并：将k个已经有序的源归并为一个有序序列</p>
+ * 实现：
+ * <li>败者树：k个叶子为源的当前元素，内部节点记录比赛的败者，tree[0]为胜者。
+ * 取出胜者后只需要沿其叶子到根重赛一次，每个元素lgk次比较，少于IndexMinPQ的2lgk</li>
+ * <li>已读完的源视为无穷大，相等时下标小的源优先，因此归并是稳定的</li>
+ * <li>数组：同一个源连续胜出MIN_GALLOP次后，沿胜者路径找出第二名，在胜者中倍增查找不超过第二名的元素，
+ * 使用System.arraycopy整段复制。数据交错时不会进入该模式</li>
+ * <li>迭代器与In：惰性读取，只有一个源的当前元素被取出后才读取该源的下一个元素</li>
+ * <p>int, long, double有不装箱的版本；In按空白分隔读取数字，mergeLines按行读取字符串</p>
+ * 使用：
+ * <pre>
+ * int[] all = MultiwayMerge.merge(shard0, shard1, shard2);
+ * PrimitiveIterator.OfInt it = MultiwayMerge.mergeInts(new In(f0), new In(f1));
+ * </pre>
+ * @author Navy D
+ * @date 20171026101544
+ */
+public class MultiwayMerge {
+	// 同一个源连续胜出该次数后整段复制
+	private static final int MIN_GALLOP = 8;
+
+	private MultiwayMerge() {
+	}
+
+	/**
+	 * 归并有序的int数组，返回新的有序数组
+	 * @param sources
+	 * @return
+	 */
+	public static int[] merge(int[]... sources) {
+		checkSources(sources);
+		int[] out = new int[totalLength(sources)];
+		new ArrayMerger(lengths(sources)) {
+			@Override
+			boolean less(int s, int t) {
+				return sources[s][pos[s]] < sources[t][pos[t]];
+			}
+
+			@Override
+			int runEnd(int w, int s, boolean inclusive) {
+				return gallop(sources[w], pos[w], length[w], sources[s][pos[s]], inclusive);
+			}
+
+			@Override
+			void copy(int w, int from, int to, int n) {
+				if (to - from == 1)
+					out[n] = sources[w][from];
+				else
+					System.arraycopy(sources[w], from, out, n, to - from);
+			}
+		}.merge(out.length);
+		return out;
+	}
+
+	public static long[] merge(long[]... sources) {
+		checkSources(sources);
+		long[] out = new long[totalLength(sources)];
+		new ArrayMerger(lengths(sources)) {
+			@Override
+			boolean less(int s, int t) {
+				return sources[s][pos[s]] < sources[t][pos[t]];
+			}
+
+			@Override
+			int runEnd(int w, int s, boolean inclusive) {
+				return gallop(sources[w], pos[w], length[w], sources[s][pos[s]], inclusive);
+			}
+
+			@Override
+			void copy(int w, int from, int to, int n) {
+				if (to - from == 1)
+					out[n] = sources[w][from];
+				else
+					System.arraycopy(sources[w], from, out, n, to - from);
+			}
+		}.merge(out.length);
+		return out;
+	}
+
+	public static double[] merge(double[]... sources) {
+		checkSources(sources);
+		double[] out = new double[totalLength(sources)];
+		new ArrayMerger(lengths(sources)) {
+			@Override
+			boolean less(int s, int t) {
+				return sources[s][pos[s]] < sources[t][pos[t]];
+			}
+
+			@Override
+			int runEnd(int w, int s, boolean inclusive) {
+				return gallop(sources[w], pos[w], length[w], sources[s][pos[s]], inclusive);
+			}
+
+			@Override
+			void copy(int w, int from, int to, int n) {
+				if (to - from == 1)
+					out[n] = sources[w][from];
+				else
+					System.arraycopy(sources[w], from, out, n, to - from);
+			}
+		}.merge(out.length);
+		return out;
+	}
+
+	/**
+	 * 稳定地归并有序的数组，返回新的有序数组
+	 * @param sources
+	 * @return
+	 */
+	public static <T extends Comparable<? super T>> T[] merge(T[][] sources) {
+		return merge(sources, null);
+	}
+
+	/**
+	 * 使用指定的顺序稳定地归并有序的数组
+	 * @param sources
+	 * @param comparator 为null时使用自然顺序
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Comparable<? super T>> T[] merge(T[][] sources, Comparator<T> comparator) {
+		checkSources(sources);
+		T[] out = (T[]) Array.newInstance(sources.getClass().getComponentType().getComponentType(),
+				totalLength(sources));
+		new ArrayMerger(lengths(sources)) {
+			@Override
+			boolean less(int s, int t) {
+				return MultiwayMerge.less(sources[s][pos[s]], sources[t][pos[t]], comparator);
+			}
+
+			@Override
+			int runEnd(int w, int s, boolean inclusive) {
+				return gallop(sources[w], pos[w], length[w], sources[s][pos[s]], inclusive, comparator);
+			}
+
+			@Override
+			void copy(int w, int from, int to, int n) {
+				if (to - from == 1)
+					out[n] = sources[w][from];
+				else
+					System.arraycopy(sources[w], from, out, n, to - from);
+			}
+		}.merge(out.length);
+		return out;
+	}
+
+	/**
+	 * 惰性地稳定归并有序的迭代器
+	 * @param sources
+	 * @return
+	 */
+	public static <T extends Comparable<? super T>> Iterator<T> merge(List<? extends Iterator<? extends T>> sources) {
+		return merge(sources, null);
+	}
+
+	/**
+	 * 使用指定的顺序惰性地稳定归并有序的迭代器
+	 * @param sources
+	 * @param comparator 为null时使用自然顺序
+	 * @return
+	 */
+	public static <T extends Comparable<? super T>> Iterator<T> merge(List<? extends Iterator<? extends T>> sources,
+			Comparator<T> comparator) {
+		checkSources(sources);
+		return new ObjectMerger<>(sources, comparator);
+	}
+
+	public static PrimitiveIterator.OfInt mergeInts(List<? extends PrimitiveIterator.OfInt> sources) {
+		checkSources(sources);
+		return new IntMerger(sources.toArray(new PrimitiveIterator.OfInt[0]));
+	}
+
+	public static PrimitiveIterator.OfLong mergeLongs(List<? extends PrimitiveIterator.OfLong> sources) {
+		checkSources(sources);
+		return new LongMerger(sources.toArray(new PrimitiveIterator.OfLong[0]));
+	}
+
+	public static PrimitiveIterator.OfDouble mergeDoubles(List<? extends PrimitiveIterator.OfDouble> sources) {
+		checkSources(sources);
+		return new DoubleMerger(sources.toArray(new PrimitiveIterator.OfDouble[0]));
+	}
+
+	/**
+	 * 惰性地归并每个输入流中有序的int
+	 * @param sources
+	 * @return
+	 */
+	public static PrimitiveIterator.OfInt mergeInts(In... sources) {
+		checkSources(sources);
+		PrimitiveIterator.OfInt[] its = new PrimitiveIterator.OfInt[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			In in = sources[i];
+			its[i] = new PrimitiveIterator.OfInt() {
+				@Override
+				public boolean hasNext() {
+					return !in.isEmpty();
+				}
+
+				@Override
+				public int nextInt() {
+					return in.readInt();
+				}
+			};
+		}
+		return new IntMerger(its);
+	}
+
+	public static PrimitiveIterator.OfLong mergeLongs(In... sources) {
+		checkSources(sources);
+		PrimitiveIterator.OfLong[] its = new PrimitiveIterator.OfLong[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			In in = sources[i];
+			its[i] = new PrimitiveIterator.OfLong() {
+				@Override
+				public boolean hasNext() {
+					return !in.isEmpty();
+				}
+
+				@Override
+				public long nextLong() {
+					return in.readLong();
+				}
+			};
+		}
+		return new LongMerger(its);
+	}
+
+	public static PrimitiveIterator.OfDouble mergeDoubles(In... sources) {
+		checkSources(sources);
+		PrimitiveIterator.OfDouble[] its = new PrimitiveIterator.OfDouble[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			In in = sources[i];
+			its[i] = new PrimitiveIterator.OfDouble() {
+				@Override
+				public boolean hasNext() {
+					return !in.isEmpty();
+				}
+
+				@Override
+				public double nextDouble() {
+					return in.readDouble();
+				}
+			};
+		}
+		return new DoubleMerger(its);
+	}
+
+	/**
+	 * 惰性地归并每个输入流中按行有序的字符串
+	 * @param sources
+	 * @return
+	 */
+	public static Iterator<String> mergeLines(In... sources) {
+		checkSources(sources);
+		Iterator<String>[] its = newIterators(sources.length);
+		for (int i = 0; i < sources.length; i++) {
+			In in = sources[i];
+			its[i] = new Iterator<String>() {
+				@Override
+				public boolean hasNext() {
+					return in.hasNextLine();
+				}
+
+				@Override
+				public String next() {
+					return in.readLine();
+				}
+			};
+		}
+		return new ObjectMerger<>(Arrays.asList(its), null);
+	}
+
+	/**
+	 * 败者树：源的下标为叶子k..2k-1，tree[1..k)记录内部节点比赛的败者，tree[0]为胜者
+	 */
+	private abstract static class LoserTree {
+		final int k;
+		final int[] tree;
+
+		LoserTree(int k) {
+			this.k = k;
+			this.tree = new int[Math.max(k, 1)];
+		}
+
+		/**
+		 * 源s的当前元素是否小于源t的当前元素，都没有读完时调用
+		 */
+		abstract boolean less(int s, int t);
+
+		abstract boolean exhausted(int s);
+
+		/**
+		 * 源s是否先于源t输出：读完的源视为无穷大，相等时下标小的优先
+		 */
+		boolean beats(int s, int t) {
+			if (exhausted(t))
+				return !exhausted(s) || s < t;
+			if (exhausted(s))
+				return false;
+			return less(s, t) || !less(t, s) && s < t;
+		}
+
+		/**
+		 * 依次加入每个叶子：节点为空时留在该节点，否则比赛后胜者继续向上。
+		 * 每个内部节点恰好有两个子树的胜者到达，第二个到达时比赛
+		 */
+		void init() {
+			Arrays.fill(tree, -1);
+			for (int s = 0; s < k; s++) {
+				int winner = s;
+				for (int node = (s + k) >> 1; node > 0 && winner >= 0; node >>= 1) {
+					if (tree[node] < 0) {
+						tree[node] = winner;
+						winner = -1;
+					} else if (beats(tree[node], winner)) {
+						int t = tree[node];
+						tree[node] = winner;
+						winner = t;
+					}
+				}
+				if (winner >= 0)
+					tree[0] = winner;
+			}
+		}
+
+		/**
+		 * 源s的当前元素改变后从叶子到根重赛
+		 */
+		void replay(int s) {
+			int winner = s;
+			for (int node = (s + k) >> 1; node > 0; node >>= 1)
+				if (beats(tree[node], winner)) {
+					int t = tree[node];
+					tree[node] = winner;
+					winner = t;
+				}
+			tree[0] = winner;
+		}
+
+		/**
+		 * 胜者，没有源或所有源都读完时返回-1
+		 */
+		int winner() {
+			return k == 0 || exhausted(tree[0]) ? -1 : tree[0];
+		}
+
+		/**
+		 * 第二名只输给胜者，一定是胜者路径上的一个败者。没有时返回-1
+		 */
+		int runnerUp() {
+			int r = -1;
+			for (int node = (tree[0] + k) >> 1; node > 0; node >>= 1)
+				if (r < 0 || beats(tree[node], r))
+					r = tree[node];
+			return r < 0 || exhausted(r) ? -1 : r;
+		}
+	}
+
+	/**
+	 * 数组的归并：pos[s]为源s的当前下标
+	 */
+	private abstract static class ArrayMerger extends LoserTree {
+		final int[] pos;
+		final int[] length;
+
+		ArrayMerger(int[] length) {
+			super(length.length);
+			this.length = length;
+			this.pos = new int[length.length];
+			init();
+		}
+
+		/**
+		 * 源w从pos[w]开始应在源s当前元素之前输出的元素的结束下标。
+		 * inclusive为true时包括与其相等的元素
+		 */
+		abstract int runEnd(int w, int s, boolean inclusive);
+
+		/**
+		 * 将源w的[from, to)复制到输出的n处
+		 */
+		abstract void copy(int w, int from, int to, int n);
+
+		@Override
+		boolean exhausted(int s) {
+			return pos[s] == length[s];
+		}
+
+		void merge(int total) {
+			for (int n = 0, last = -1, streak = 0; n < total; ) {
+				int w = winner(), end = pos[w] + 1;
+				streak = w == last ? streak + 1 : 1;
+				last = w;
+				if (streak >= MIN_GALLOP) {
+					int s = runnerUp();
+					// 相等时下标小的源优先
+					end = s < 0 ? length[w] : runEnd(w, s, w < s);
+					streak = 0;
+				}
+				copy(w, pos[w], end, n);
+				n += end - pos[w];
+				pos[w] = end;
+				replay(w);
+			}
+		}
+	}
+
+	private static final class ObjectMerger<T extends Comparable<? super T>> extends LoserTree implements Iterator<T> {
+		private final Iterator<? extends T>[] sources;
+		private final T[] heads;
+		private final boolean[] done;
+		private final Comparator<T> comparator;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		ObjectMerger(List<? extends Iterator<? extends T>> sources, Comparator<T> comparator) {
+			super(sources.size());
+			this.sources = sources.toArray(new Iterator[0]);
+			this.heads = (T[]) new Comparable[k];
+			this.done = new boolean[k];
+			this.comparator = comparator;
+			for (int s = 0; s < k; s++)
+				advance(s);
+			init();
+		}
+
+		private void advance(int s) {
+			if (sources[s].hasNext())
+				heads[s] = sources[s].next();
+			else {
+				heads[s] = null;
+				done[s] = true;
+			}
+		}
+
+		@Override
+		boolean less(int s, int t) {
+			return MultiwayMerge.less(heads[s], heads[t], comparator);
+		}
+
+		@Override
+		boolean exhausted(int s) {
+			return done[s];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return winner() >= 0;
+		}
+
+		@Override
+		public T next() {
+			int w = winner();
+			if (w < 0)
+				throw new NoSuchElementException();
+			T item = heads[w];
+			advance(w);
+			replay(w);
+			return item;
+		}
+	}
+
+	private static final class IntMerger extends LoserTree implements PrimitiveIterator.OfInt {
+		private final PrimitiveIterator.OfInt[] sources;
+		private final int[] heads;
+		private final boolean[] done;
+
+		IntMerger(PrimitiveIterator.OfInt[] sources) {
+			super(sources.length);
+			this.sources = sources;
+			this.heads = new int[k];
+			this.done = new boolean[k];
+			for (int s = 0; s < k; s++)
+				advance(s);
+			init();
+		}
+
+		private void advance(int s) {
+			if (sources[s].hasNext())
+				heads[s] = sources[s].nextInt();
+			else
+				done[s] = true;
+		}
+
+		@Override
+		boolean less(int s, int t) {
+			return heads[s] < heads[t];
+		}
+
+		@Override
+		boolean exhausted(int s) {
+			return done[s];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return winner() >= 0;
+		}
+
+		@Override
+		public int nextInt() {
+			int w = winner();
+			if (w < 0)
+				throw new NoSuchElementException();
+			int item = heads[w];
+			advance(w);
+			replay(w);
+			return item;
+		}
+	}
+
+	private static final class LongMerger extends LoserTree implements PrimitiveIterator.OfLong {
+		private final PrimitiveIterator.OfLong[] sources;
+		private final long[] heads;
+		private final boolean[] done;
+
+		LongMerger(PrimitiveIterator.OfLong[] sources) {
+			super(sources.length);
+			this.sources = sources;
+			this.heads = new long[k];
+			this.done = new boolean[k];
+			for (int s = 0; s < k; s++)
+				advance(s);
+			init();
+		}
+
+		private void advance(int s) {
+			if (sources[s].hasNext())
+				heads[s] = sources[s].nextLong();
+			else
+				done[s] = true;
+		}
+
+		@Override
+		boolean less(int s, int t) {
+			return heads[s] < heads[t];
+		}
+
+		@Override
+		boolean exhausted(int s) {
+			return done[s];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return winner() >= 0;
+		}
+
+		@Override
+		public long nextLong() {
+			int w = winner();
+			if (w < 0)
+				throw new NoSuchElementException();
+			long item = heads[w];
+			advance(w);
+			replay(w);
+			return item;
+		}
+	}
+
+	private static final class DoubleMerger extends LoserTree implements PrimitiveIterator.OfDouble {
+		private final PrimitiveIterator.OfDouble[] sources;
+		private final double[] heads;
+		private final boolean[] done;
+
+		DoubleMerger(PrimitiveIterator.OfDouble[] sources) {
+			super(sources.length);
+			this.sources = sources;
+			this.heads = new double[k];
+			this.done = new boolean[k];
+			for (int s = 0; s < k; s++)
+				advance(s);
+			init();
+		}
+
+		private void advance(int s) {
+			if (sources[s].hasNext())
+				heads[s] = sources[s].nextDouble();
+			else
+				done[s] = true;
+		}
+
+		@Override
+		boolean less(int s, int t) {
+			return heads[s] < heads[t];
+		}
+
+		@Override
+		boolean exhausted(int s) {
+			return done[s];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return winner() >= 0;
+		}
+
+		@Override
+		public double nextDouble() {
+			int w = winner();
+			if (w < 0)
+				throw new NoSuchElementException();
+			double item = heads[w];
+			advance(w);
+			replay(w);
+			return item;
+		}
+	}
+
+	/**
+	 * a[lo]已知在key之前，倍增查找后二分查找a[lo..hi)中第一个不在key之前的下标。
+	 * inclusive为true时与key相等的元素也在key之前
+	 */
+	private static int gallop(int[] a, int lo, int hi, int key, boolean inclusive) {
+		int prev = lo, step = 1;
+		while (lo + step < hi && (inclusive ? a[lo + step] <= key : a[lo + step] < key)) {
+			prev = lo + step;
+			step <<= 1;
+		}
+		int l = prev + 1, h = Math.min(lo + step, hi);
+		while (l < h) {
+			int m = (l + h) >>> 1;
+			if (inclusive ? a[m] <= key : a[m] < key)
+				l = m + 1;
+			else
+				h = m;
+		}
+		return l;
+	}
+
+	private static int gallop(long[] a, int lo, int hi, long key, boolean inclusive) {
+		int prev = lo, step = 1;
+		while (lo + step < hi && (inclusive ? a[lo + step] <= key : a[lo + step] < key)) {
+			prev = lo + step;
+			step <<= 1;
+		}
+		int l = prev + 1, h = Math.min(lo + step, hi);
+		while (l < h) {
+			int m = (l + h) >>> 1;
+			if (inclusive ? a[m] <= key : a[m] < key)
+				l = m + 1;
+			else
+				h = m;
+		}
+		return l;
+	}
+
+	private static int gallop(double[] a, int lo, int hi, double key, boolean inclusive) {
+		int prev = lo, step = 1;
+		while (lo + step < hi && (inclusive ? !(key < a[lo + step]) : a[lo + step] < key)) {
+			prev = lo + step;
+			step <<= 1;
+		}
+		int l = prev + 1, h = Math.min(lo + step, hi);
+		while (l < h) {
+			int m = (l + h) >>> 1;
+			if (inclusive ? !(key < a[m]) : a[m] < key)
+				l = m + 1;
+			else
+				h = m;
+		}
+		return l;
+	}
+
+	private static <T extends Comparable<? super T>> int gallop(T[] a, int lo, int hi, T key, boolean inclusive,
+			Comparator<T> comparator) {
+		int prev = lo, step = 1;
+		while (lo + step < hi && (inclusive ? !less(key, a[lo + step], comparator) : less(a[lo + step], key, comparator))) {
+			prev = lo + step;
+			step <<= 1;
+		}
+		int l = prev + 1, h = Math.min(lo + step, hi);
+		while (l < h) {
+			int m = (l + h) >>> 1;
+			if (inclusive ? !less(key, a[m], comparator) : less(a[m], key, comparator))
+				l = m + 1;
+			else
+				h = m;
+		}
+		return l;
+	}
+
+	// comparator为null时使用自然顺序
+	private static <T extends Comparable<? super T>> boolean less(T v, T w, Comparator<T> comparator) {
+		return comparator != null ? comparator.compare(v, w) < 0 : v.compareTo(w) < 0;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Iterator<String>[] newIterators(int k) {
+		return new Iterator[k];
+	}
+
+	private static int[] lengths(Object[] sources) {
+		int[] length = new int[sources.length];
+		for (int i = 0; i < sources.length; i++)
+			length[i] = Array.getLength(sources[i]);
+		return length;
+	}
+
+	private static int totalLength(Object[] sources) {
+		long total = 0;
+		for (Object source : sources)
+			total += Array.getLength(source);
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("total length is too large: " + total);
+		return (int) total;
+	}
+
+	private static void checkSources(Object[] sources) {
+		if (sources == null)
+			throw new IllegalArgumentException("argument sources is null");
+		for (Object source : sources)
+			if (source == null)
+				throw new IllegalArgumentException("argument sources contains null");
+	}
+
+	private static void checkSources(List<?> sources) {
+		if (sources == null)
+			throw new IllegalArgumentException("argument sources is null");
+		for (Object source : sources)
+			if (source == null)
+				throw new IllegalArgumentException("argument sources contains null");
+	}
+}
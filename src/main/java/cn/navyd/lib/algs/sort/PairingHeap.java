@@ -0,0 +1,267 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>配对堆：基于多叉树的最小优先队列</p>
+ * 堆是一棵堆有序的多叉树，节点使用左子右兄弟的链表表示，不需要预先指定容量：
+ * <li>insert、meld：将两个根比较，较大的成为较小的第一个子节点，O(1)</li>
+ * <li>decreaseKey：将节点与其子树从父节点剪下后与根合并，均摊O(1)(实际为o(lgN))</li>
+ * <li>delMin、delete：删除根后将子树两两合并(two-pass)，均摊lgN</li>
+ * <p>insert返回节点的句柄Handle，用于之后的decreaseKey与delete。
+ * 句柄只能用于插入它的堆或合并了该堆的堆，删除之后不能再使用。
+ * 每个堆有一个所属标记Owner，句柄引用插入时堆的标记；meld时将other的标记指向当前堆的标记，
+ * 与union-find相同查找时压缩路径，meld仍然为O(1)</p>
+ * 使用：
+ * <pre>
+ * PairingHeap&lt;String&gt; heap = new PairingHeap&lt;&gt;();
+ * PairingHeap.Handle&lt;String&gt; h = heap.insert("b");
+ * heap.decreaseKey(h, "a");
+ * </pre>
+ * @author Navy D
+ * @date 20171031101248
+ * @param <Key>
+ * @see IndexPairingHeap
+ */
+public class PairingHeap<Key extends Comparable<? super Key>> {
+	// 根节点即最小的节点，堆为空时为null
+	private Handle<Key> root;
+	// 堆中元素数量
+	private int n;
+	// 当前堆的所属标记，meld之后other使用新的标记
+	private Owner owner = new Owner();
+
+	/**
+	 * 句柄所属的堆。parent不为null时表示已经合并到parent的堆中
+	 */
+	private static final class Owner {
+		private Owner parent;
+	}
+
+	/**
+	 * 堆中节点的句柄
+	 * @param <Key>
+	 */
+	public static final class Handle<Key> {
+		private Key key;
+		// 第一个子节点
+		private Handle<Key> child;
+		// 右边的兄弟节点
+		private Handle<Key> next;
+		// 左边的兄弟节点，第一个子节点时为父节点，根节点或已经删除时为null
+		private Handle<Key> prev;
+		// 插入时所在堆的标记
+		private Owner owner;
+
+		private Handle(Key key, Owner owner) {
+			this.key = key;
+			this.owner = owner;
+		}
+
+		public Key key() {
+			return key;
+		}
+	}
+
+	/**
+	 * 插入键key并返回其句柄
+	 * @param key
+	 * @return
+	 */
+	public Handle<Key> insert(Key key) {
+		if (key == null)
+			throw new IllegalArgumentException("argument to insert() is null");
+		Handle<Key> h = new Handle<>(key, owner);
+		root = root == null ? h : link(root, h);
+		n++;
+		return h;
+	}
+
+	/**
+	 * 返回最小的键
+	 * @return
+	 */
+	public Key min() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		return root.key;
+	}
+
+	/**
+	 * 删除并返回最小的键
+	 * @return
+	 */
+	public Key delMin() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		Handle<Key> min = root;
+		root = combine(min.child);
+		min.child = null;
+		n--;
+		return min.key;
+	}
+
+	/**
+	 * 将句柄h的键减小为key
+	 * @param h
+	 * @param key
+	 * @throws IllegalArgumentException key大于原来的键或句柄h属于其他的堆
+	 * @throws NoSuchElementException 句柄h已经被删除
+	 */
+	public void decreaseKey(Handle<Key> h, Key key) {
+		validate(h);
+		if (key == null)
+			throw new IllegalArgumentException("argument to decreaseKey() is null");
+		if (key.compareTo(h.key) > 0)
+			throw new IllegalArgumentException("key is greater than the current key");
+		h.key = key;
+		if (h != root) {
+			cut(h);
+			root = link(root, h);
+		}
+	}
+
+	/**
+	 * 删除句柄h的节点
+	 * @param h
+	 * @throws IllegalArgumentException 句柄h属于其他的堆
+	 * @throws NoSuchElementException 句柄h已经被删除
+	 */
+	public void delete(Handle<Key> h) {
+		validate(h);
+		if (h == root) {
+			delMin();
+			return;
+		}
+		cut(h);
+		Handle<Key> sub = combine(h.child);
+		h.child = null;
+		if (sub != null)
+			root = link(root, sub);
+		n--;
+	}
+
+	/**
+	 * 将other的所有节点合并到当前堆中，之后other为空，other的句柄可以在当前堆中使用
+	 * @param other
+	 */
+	public void meld(PairingHeap<Key> other) {
+		if (other == null)
+			throw new IllegalArgumentException("argument to meld() is null");
+		if (other == this || other.root == null)
+			return;
+		root = root == null ? other.root : link(root, other.root);
+		n += other.n;
+		other.root = null;
+		other.n = 0;
+		other.owner.parent = owner;
+		other.owner = new Owner();
+	}
+
+	/**
+	 * 如果句柄h在当前堆中且未被删除，则返回true。其他堆的句柄返回false
+	 * @param h
+	 * @return
+	 */
+	public boolean contains(Handle<Key> h) {
+		return h != null && owns(h) && isLive(h);
+	}
+
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * 合并两个根节点，较大的成为较小的第一个子节点，返回新的根
+	 */
+	private Handle<Key> link(Handle<Key> a, Handle<Key> b) {
+		if (b.key.compareTo(a.key) < 0) {
+			Handle<Key> temp = a;
+			a = b;
+			b = temp;
+		}
+		b.prev = a;
+		b.next = a.child;
+		if (a.child != null)
+			a.child.prev = b;
+		a.child = b;
+		return a;
+	}
+
+	/**
+	 * 将节点h与其子树从兄弟链表中剪下
+	 */
+	private void cut(Handle<Key> h) {
+		if (h.prev.child == h)
+			h.prev.child = h.next;
+		else
+			h.prev.next = h.next;
+		if (h.next != null)
+			h.next.prev = h.prev;
+		h.next = h.prev = null;
+	}
+
+	/**
+	 * two-pass合并兄弟链表first中的所有子树，返回新的根。
+	 * 第一遍从左到右两两合并，结果通过next压入栈中；第二遍从右到左依次合并到最后一个结果上。
+	 * 不使用递归，子节点很多时也不会栈溢出
+	 */
+	private Handle<Key> combine(Handle<Key> first) {
+		if (first == null)
+			return null;
+		Handle<Key> stack = null;
+		while (first != null) {
+			Handle<Key> a = first, b = a.next;
+			first = b == null ? null : b.next;
+			a.next = a.prev = null;
+			if (b != null) {
+				b.next = b.prev = null;
+				a = link(a, b);
+			}
+			a.next = stack;
+			stack = a;
+		}
+		Handle<Key> result = stack;
+		stack = stack.next;
+		result.next = null;
+		while (stack != null) {
+			Handle<Key> next = stack.next;
+			stack.next = null;
+			result = link(result, stack);
+			stack = next;
+		}
+		return result;
+	}
+
+	// 句柄h是否由当前堆或合并到当前堆的堆插入，同时压缩句柄到标记的路径
+	private boolean owns(Handle<Key> h) {
+		Owner top = h.owner;
+		while (top.parent != null)
+			top = top.parent;
+		for (Owner o = h.owner; o != top;) {
+			Owner next = o.parent;
+			o.parent = top;
+			o = next;
+		}
+		h.owner = top;
+		return top == owner;
+	}
+
+	// 句柄h是否未被删除，只对当前堆的句柄有意义
+	private boolean isLive(Handle<Key> h) {
+		return h == root || h.prev != null;
+	}
+
+	private void validate(Handle<Key> h) {
+		if (h == null)
+			throw new IllegalArgumentException("handle is null");
+		if (!owns(h))
+			throw new IllegalArgumentException("handle belongs to another priority queue");
+		if (!isLive(h))
+			throw new NoSuchElementException("handle is not in the priority queue");
+	}
+}
@@ -1,8 +1,17 @@
 package cn.navyd.lib.algs.sort;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cn.navyd.lib.util.Cutoffs;
+import cn.navyd.lib.util.SortStats;
+import cn.navyd.lib.util.Sorts;
 
 /**
  * 标准快速排序：<p>
@@ -13,27 +22,40 @@ import java.util.Random;
  * 然后再找一个切分点，使左小右大，如此继续
  * </p>
  * 优化：
- * <li>保持随机性：避免对于类增序数组排序这种最坏情况</li>
+ * <li>内省排序：递归深度超过2lgN时切换为堆排序，保证最坏情况NlgN，不再需要预先打乱数组</li>
  * <li>切换到快速排序：小数组使用插入排序</li>
- * <li>切分点优化：使用数组起点，中点，终点的值中等的一个下标作为切分点</li>
+ * <li>切分点优化：使用数组起点，中点，终点的值中等的一个下标作为切分点，大数组使用九取样(ninther)</li>
  * <p>
  * 对于含大量重复元素的数组排序，请使用quick3way的排序版本
  * </p>
  * <p>
  * 时间复杂度：平均2NlnN ~ 1.39NlgN的比较和1/6的交换，
- * 最多需要N^2/2比较(),partition()复杂度最坏n次比较,sort()平均n/2次比较
+ * 最坏情况由堆排序保证为NlgN,partition()复杂度最坏n次比较,sort()平均n/2次比较
  * 空间复杂度：lgN
  * </p>
  * 稳定性：否 </br>
  *
  * 提供一个使用切分点的快排查找算法select()
+ * <p>
+ * 提供双切分点的sortDualPivot()与在ForkJoinPool上并行排序的parallelSort()
+ * </p>
+ * <p>
+ * 提供基于快速选择的部分排序partialSort(), sortRange()与topK()，只排序需要的区间，
+ * 与一次切分选择多个顺序统计量的selectMany()
+ * </p>
  * @author Navy D
  * @date 20170814141602
  */
 public class Quick {
 	private static Random rand = new Random(new Random().nextLong());
-	//小数组大小为cutoff时切换到插入排序
-	private static final int CUTOFF = 15;
+	//小数组大小为cutoff时切换到插入排序，可由Cutoffs调优
+	private static final int CUTOFF = Cutoffs.get(Cutoffs.QUICK, 15);
+	// 超过该大小的子数组使用九取样选择切分点
+	private static final int NINTHER_CUTOFF = 40;
+	// 并行排序时切换到顺序排序的子数组长度
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+	// k不超过n/TOP_K_HEAP_RATIO时topK使用堆流式选择
+	private static final int TOP_K_HEAP_RATIO = 64;
 
 	private Quick() {
 
@@ -47,12 +69,20 @@ public class Quick {
 	public static <T extends Comparable<? super T>> void sort(T[] a) {
 		if (a == null)
 			throw new IllegalArgumentException("argument array is null");
-		shuffle(a);
-		sort(a, 0, a.length - 1);
+		sort(a, 0, a.length - 1, depthLimit(a.length), CUTOFF);
 
 		assert isSorted(a);
 	}
 
+	/**
+	 * 使用指定的切换值cutoff排序，Cutoffs通过该方法测量实际的排序代码
+	 * @param a
+	 * @param cutoff
+	 */
+	static <T extends Comparable<? super T>> void sortWithCutoff(T[] a, int cutoff) {
+		sort(a, 0, a.length - 1, depthLimit(a.length), cutoff);
+	}
+
 	/**
 	 * 对数组a使用指定的顺序comparator对象排序
 	 * @param a
@@ -65,8 +95,7 @@ public class Quick {
 			throw new IllegalArgumentException("argument array is null");
 		if (comparator == null)
 			throw new IllegalArgumentException("argument comparator is null");
-		shuffle(a);
-		sort(a, 0, a.length - 1, comparator);
+		sort(a, 0, a.length - 1, depthLimit(a.length), comparator);
 
 		assert isSorted(a, comparator);
 	}
@@ -78,26 +107,35 @@ public class Quick {
 	 * @param a
 	 * @param lo
 	 * @param hi
+	 * @param depth 剩余的递归深度，为0时切换到堆排序
+	 * @param cutoff 子数组长度不超过cutoff+1时使用插入排序
 	 * @author Navy D
 	 * @date 20170807213656
 	 */
-	private static <T extends Comparable<? super T>> void sort(T[] a, int lo, int hi) {
+	private static <T extends Comparable<? super T>> void sort(T[] a, int lo, int hi, int depth, int cutoff) {
 		//子数组大小为cutoff时使用插入排序
-		if (hi <= lo + CUTOFF) {
+		if (hi <= lo + cutoff) {
 			insertion(a, lo, hi);
 			return;
 		}
+		//切分点选择不佳导致递归过深，切换为堆排序
+		if (depth == 0) {
+			heapSort(a, lo, hi, null);
+			return;
+		}
 		//三取样切分：使用数组起点中点终点三点值居中的一个，以替换使用lo作为切分点
-		int m = mediumOf3(a, lo, lo + (hi - lo)/2, hi);
+		int m = pivot(a, lo, hi, null);
 		exch(a, lo, m);
 
 		//使用lo切分数组，返回新的切分点，数组左小右大
 		int j = partition(a, lo, hi);
 
 		//左边排序
-		sort(a, lo, j-1);
+		SortStats.enter();
+		sort(a, lo, j-1, depth - 1, cutoff);
 		//右边排序
-		sort(a, j+1, hi);
+		sort(a, j+1, hi, depth - 1, cutoff);
+		SortStats.exit();
 
 	}
 
@@ -106,31 +144,98 @@ public class Quick {
 	 * @param a
 	 * @param lo
 	 * @param hi
+	 * @param depth
 	 * @param comparator
 	 * @author Navy D
 	 * @date 20171001130819
 	 */
-	private static <T extends Comparable<? super T>> void sort(T[] a, int lo, int hi, Comparator<T> comparator) {
+	private static <T extends Comparable<? super T>> void sort(T[] a, int lo, int hi, int depth, Comparator<T> comparator) {
 		//子数组大小为cutoff时使用出入排序
 		if (hi <= lo + CUTOFF) {
 			insertion(a, lo, hi, comparator);
 			return;
 		}
+		if (depth == 0) {
+			heapSort(a, lo, hi, comparator);
+			return;
+		}
 
 		//三取样切分：使用数组起点中点终点三点值居中的一个，以替换使用lo作为切分点
-		int m = mediumOf3(a, lo, lo + (hi - lo)/2, hi, comparator);
+		int m = pivot(a, lo, hi, comparator);
 		exch(a, lo, m);
 
 		//使用lo切分数组，返回新的切分点，数组左小右大
 		int j = partition(a, lo, hi, comparator);
 
 		//左边排序
-		sort(a, lo, j-1, comparator);
+		SortStats.enter();
+		sort(a, lo, j-1, depth - 1, comparator);
 		//右边排序
-		sort(a, j+1, hi, comparator);
+		sort(a, j+1, hi, depth - 1, comparator);
+		SortStats.exit();
 
 	}
 
+	/**
+	 * 返回a[lo..hi]的切分点下标。小数组使用三取样，超过NINTHER_CUTOFF使用Tukey ninther
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param comparator 为null时使用自然顺序
+	 * @return
+	 */
+	private static <T extends Comparable<? super T>> int pivot(T[] a, int lo, int hi, Comparator<T> comparator) {
+		int n = hi - lo + 1, mid = lo + n / 2;
+		if (n <= NINTHER_CUTOFF)
+			return mediumOf3(a, lo, mid, hi, comparator);
+		int eps = n / 8;
+		int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps, comparator);
+		int m2 = mediumOf3(a, mid - eps, mid, mid + eps, comparator);
+		int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi, comparator);
+		return mediumOf3(a, m1, m2, m3, comparator);
+	}
+
+	/**
+	 * 内省排序允许的最大递归深度2lgN
+	 * @param n
+	 * @return
+	 */
+	private static int depthLimit(int n) {
+		return 2 * (31 - Integer.numberOfLeadingZeros(n | 1));
+	}
+
+	/**
+	 * 对a[lo..hi]堆排序，堆的根在lo
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param comparator 为null时使用自然顺序
+	 */
+	private static <T extends Comparable<? super T>> void heapSort(T[] a, int lo, int hi, Comparator<T> comparator) {
+		int n = hi - lo + 1;
+		for (int k = n / 2 - 1; k >= 0; k--)
+			sink(a, lo, k, n, comparator);
+		while (n > 1) {
+			exch(a, lo, lo + --n);
+			sink(a, lo, 0, n, comparator);
+		}
+	}
+
+	// 大顶堆a[lo..lo+n)中相对位置k下沉
+	private static <T extends Comparable<? super T>> void sink(T[] a, int lo, int k, int n, Comparator<T> comparator) {
+		T v = a[lo + k];
+		int j;
+		while ((j = 2 * k + 1) < n) {
+			if (j + 1 < n && less(comparator, a[lo + j], a[lo + j + 1]))
+				j++;
+			if (!less(comparator, v, a[lo + j]))
+				break;
+			a[lo + k] = a[lo + j];
+			k = j;
+		}
+		a[lo + k] = v;
+	}
+
 	/**
 	 * 切分数组，返回新切分点(j左边小，右边可等于大于)并使数组切分点左边小，右边大;
 	 *
@@ -214,7 +319,7 @@ public class Quick {
 		}
 	}
 	/**
-	 * 插入排序
+	 * 插入排序，不超过16个元素时使用排序网络
 	 * @param a
 	 * @param lo
 	 * @param hi
@@ -222,21 +327,31 @@ public class Quick {
 	 * @date 20170807215538
 	 */
 	private static <T extends Comparable<? super T>> void insertion(T[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
 		for (int i = lo + 1; i <= hi; i++) {
 			T v = a[i];
 			int j = i;
-			for (; j != 0 && less(v, a[j-1]); j--)
+			for (; j > lo && less(v, a[j-1]); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
 
 	private static <T extends Comparable<? super T>> void insertion(T[] a, int lo, int hi, Comparator<T> comparator) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1, comparator);
+			return;
+		}
 		for (int i = lo + 1; i <= hi; i++) {
 			T v = a[i];
 			int j = i;
-			for (; j != 0 && less(comparator, v, a[j-1]); j--)
+			for (; j > lo && less(comparator, v, a[j-1]); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
@@ -248,15 +363,11 @@ public class Quick {
 	 * @param i
 	 * @param j
 	 * @param k
+	 * @param comparator 为null时使用自然顺序
 	 * @return
 	 * @author Navy D
 	 * @date 20170807222134
 	 */
-	private static <T extends Comparable<? super T>> int mediumOf3(T[] a, int i, int j, int k) {
-		return (less(a[i], a[j]) ? (less(a[j], a[k]) ? j : less(a[i], a[k]) ? k : i)
-				: (less(a[k], a[j]) ? j : less(a[k], a[i]) ? k : i));
-	}
-
 	private static <T extends Comparable<? super T>> int mediumOf3(T[] a, int i, int j, int k, Comparator<T> comparator) {
 		return (less(comparator, a[i], a[j]) ? (less(comparator, a[j], a[k]) ? j : less(comparator, a[i], a[k]) ? k : i)
 				: (less(comparator, a[k], a[j]) ? j : less(comparator, a[k], a[i]) ? k : i));
@@ -271,6 +382,7 @@ public class Quick {
 	 * @date 20170807215642
 	 */
 	private static <T> void exch(T[] a, int i, int j) {
+		SortStats.exchange();
 		T temp = a[i];
 		a[i] = a[j];
 		a[j] = temp;
@@ -285,13 +397,23 @@ public class Quick {
 	 * @date 20170807221957
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) < 0;
 	}
 
+	// comparator为null时使用自然顺序
 	private static <T extends Comparable<? super T>> boolean less(Comparator<T> comparator, T v, T w) {
+		if (comparator == null)
+			return less(v, w);
+		SortStats.compare();
 		return comparator.compare(v, w) < 0;
 	}
 
+	private static <T extends Comparable<? super T>> boolean equal(Comparator<T> comparator, T v, T w) {
+		SortStats.compare();
+		return (comparator != null ? comparator.compare(v, w) : v.compareTo(w)) == 0;
+	}
+
 	/**
 	 * 快速选择算法：快速找到数组a有序时下标k的值
 	 * 基于切分的选择算法可以不用完全排序数组，使切分点不断接近下标k，
@@ -342,6 +464,810 @@ public class Quick {
 		return a[k];
 	}
 
+	/*************		部分排序与top-k							*******************/
+	/*******************************************************************************/
+
+	/**
+	 * 部分排序：使a[0..k)为数组中最小的k个元素并升序排列，a[k..n)的顺序不确定。
+	 * 平均N + klgk次比较，而不是完全排序的NlgN
+	 * @param a
+	 * @param k
+	 */
+	public static <T extends Comparable<? super T>> void partialSort(T[] a, int k) {
+		partialSort(a, k, null);
+	}
+
+	/**
+	 * 使用指定的顺序部分排序
+	 * @param a
+	 * @param k
+	 * @param comparator 为null时使用自然顺序
+	 */
+	public static <T extends Comparable<? super T>> void partialSort(T[] a, int k, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		sortRange(a, 0, k, comparator);
+	}
+
+	/**
+	 * 区间排序：使排序后位于[from, to)的元素按顺序放在a[from..to)，
+	 * a[0..from)不大于a[from]，a[to..n)不小于a[to-1]，但这两部分内部无序。
+	 * 先用快速选择切分出下标from与to，再只排序中间的区间
+	 * @param a
+	 * @param from 包含
+	 * @param to 不包含
+	 */
+	public static <T extends Comparable<? super T>> void sortRange(T[] a, int from, int to) {
+		sortRange(a, from, to, null);
+	}
+
+	/**
+	 * 使用指定的顺序区间排序
+	 * @param a
+	 * @param from
+	 * @param to
+	 * @param comparator 为null时使用自然顺序
+	 */
+	public static <T extends Comparable<? super T>> void sortRange(T[] a, int from, int to, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (from < 0 || to > a.length || from > to)
+			throw new IllegalArgumentException("illegal range [" + from + ", " + to + ") of length " + a.length);
+		if (from == to)
+			return;
+		int hi = a.length - 1;
+		if (from > 0)
+			select(a, 0, hi, from, comparator);
+		if (to <= hi)
+			select(a, from, hi, to, comparator);
+		sort(a, from, to - 1, depthLimit(to - from), comparator);
+
+		assert isSorted(a, from, to - 1, comparator);
+	}
+
+	/**
+	 * 返回按comparator顺序最小的k个元素组成的有序数组，不改变数组a。取最大的k个使用comparator.reversed()。
+	 * k远小于n时使用大小为k的堆扫描一遍数组，否则复制数组后部分排序
+	 * @param a
+	 * @param k
+	 * @param comparator 为null时使用自然顺序
+	 * @return
+	 */
+	public static <T extends Comparable<? super T>> T[] topK(T[] a, int k, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (k < 0 || k > a.length)
+			throw new IllegalArgumentException("k out of range: " + k);
+		if ((long) k * TOP_K_HEAP_RATIO <= a.length)
+			return topK(Arrays.asList(a), k, comparator).toArray(Arrays.copyOf(a, 0));
+		T[] b = a.clone();
+		partialSort(b, k, comparator);
+		return Arrays.copyOf(b, k);
+	}
+
+	/**
+	 * 流式top-k：使用最多k个元素的MaxPQ保存当前最小的k个元素，新元素比堆顶小时替换堆顶。
+	 * 只需要O(k)的空间，适合k远小于n或元素数量未知的情况。时间NlgK
+	 * @param items
+	 * @param k
+	 * @param comparator 为null时使用自然顺序
+	 * @return 升序的最小k个元素，元素不足k个时返回全部
+	 */
+	public static <T extends Comparable<? super T>> List<T> topK(Iterable<T> items, int k, Comparator<T> comparator) {
+		if (items == null)
+			throw new IllegalArgumentException("argument items is null");
+		if (k < 0)
+			throw new IllegalArgumentException("k is negative: " + k);
+		if (k == 0)
+			return new ArrayList<>();
+		MaxPQ<T> pq = comparator == null ? new MaxPQ<>(k + 1) : new MaxPQ<>(k + 1, comparator);
+		for (T v : items) {
+			if (pq.size() < k)
+				pq.insert(v);
+			else if (less(comparator, v, pq.max())) {
+				pq.delMax();
+				pq.insert(v);
+			}
+		}
+		List<T> top = new ArrayList<>(pq.size());
+		while (!pq.isEmpty())
+			top.add(pq.delMax());
+		Collections.reverse(top);
+		return top;
+	}
+
+	/**
+	 * 快速选择：使a[k]为a[lo..hi]排序后该下标的元素，a[lo..k)不大于a[k]，a(k..hi]不小于a[k]。
+	 * 使用与sort相同的切分点选择，超过2lgN轮切分时对剩余区间堆排序，最坏NlgN
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param k
+	 * @param comparator 为null时使用自然顺序
+	 */
+	private static <T extends Comparable<? super T>> void select(T[] a, int lo, int hi, int k, Comparator<T> comparator) {
+		int depth = depthLimit(hi - lo + 1);
+		while (hi > lo + CUTOFF) {
+			if (depth-- == 0) {
+				heapSort(a, lo, hi, comparator);
+				return;
+			}
+			exch(a, lo, pivot(a, lo, hi, comparator));
+			int j = partition(a, lo, hi, comparator);
+			if (k < j)
+				hi = j - 1;
+			else if (k > j)
+				lo = j + 1;
+			else
+				return;
+		}
+		insertion(a, lo, hi, comparator);
+	}
+
+	/*************		多个顺序统计量							*******************/
+	/*******************************************************************************/
+
+	/**
+	 * 多个顺序统计量：返回a排序后下标为ranks[i]的元素，结果与ranks一一对应，ranks可以无序或重复。
+	 * 只切分一次数组，之后只在包含所需下标的子数组中递归，q个下标约NlgQ次比较，
+	 * 而不是q次select的qN或完全排序的NlgN。可用于一次计算p50/p90/p99等分位数
+	 * @param a
+	 * @param ranks
+	 * @return
+	 */
+	public static <T extends Comparable<? super T>> T[] selectMany(T[] a, int[] ranks) {
+		return selectMany(a, ranks, null);
+	}
+
+	/**
+	 * 使用指定的顺序选择多个顺序统计量
+	 * @param a
+	 * @param ranks
+	 * @param comparator 为null时使用自然顺序
+	 * @return
+	 */
+	public static <T extends Comparable<? super T>> T[] selectMany(T[] a, int[] ranks, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int[] r = sortedRanks(ranks, a.length);
+		multiSelect(a, 0, a.length - 1, r, 0, r.length - 1, depthLimit(a.length), comparator);
+		T[] result = Arrays.copyOf(a, ranks.length);
+		for (int i = 0; i < ranks.length; i++)
+			result[i] = a[ranks[i]];
+		return result;
+	}
+
+	/**
+	 * 切分a[lo..hi]后，r[rlo..rhi]中小于切分点的下标递归左边，大于的继续右边，没有下标的子数组不再处理
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param r 升序的下标
+	 * @param rlo
+	 * @param rhi
+	 * @param depth 剩余的切分次数，为0时堆排序
+	 * @param comparator
+	 */
+	private static <T extends Comparable<? super T>> void multiSelect(T[] a, int lo, int hi, int[] r, int rlo, int rhi,
+			int depth, Comparator<T> comparator) {
+		while (rlo <= rhi) {
+			if (hi <= lo + CUTOFF) {
+				insertion(a, lo, hi, comparator);
+				return;
+			}
+			if (depth-- == 0) {
+				heapSort(a, lo, hi, comparator);
+				return;
+			}
+			exch(a, lo, pivot(a, lo, hi, comparator));
+			int j = partition(a, lo, hi, comparator);
+			// r[rlo..m)小于j，r[m..e)等于j，r[e..rhi]大于j
+			int m = lowerBound(r, rlo, rhi + 1, j), e = lowerBound(r, m, rhi + 1, j + 1);
+			multiSelect(a, lo, j - 1, r, rlo, m - 1, depth, comparator);
+			lo = j + 1;
+			rlo = e;
+		}
+	}
+
+	/**
+	 * 多个顺序统计量
+	 * @param a
+	 * @param ranks
+	 * @return
+	 * @see #selectMany(Comparable[], int[])
+	 */
+	public static int[] selectMany(int[] a, int[] ranks) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int[] r = sortedRanks(ranks, a.length);
+		multiSelect(a, 0, a.length - 1, r, 0, r.length - 1, depthLimit(a.length));
+		int[] result = new int[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			result[i] = a[ranks[i]];
+		return result;
+	}
+
+	private static void multiSelect(int[] a, int lo, int hi, int[] r, int rlo, int rhi, int depth) {
+		while (rlo <= rhi) {
+			if (hi <= lo + CUTOFF) {
+				insertion(a, lo, hi);
+				return;
+			}
+			if (depth-- == 0) {
+				heapSort(a, lo, hi);
+				return;
+			}
+			exch(a, lo, pivot(a, lo, hi));
+			int j = partition(a, lo, hi);
+			int m = lowerBound(r, rlo, rhi + 1, j), e = lowerBound(r, m, rhi + 1, j + 1);
+			multiSelect(a, lo, j - 1, r, rlo, m - 1, depth);
+			lo = j + 1;
+			rlo = e;
+		}
+	}
+
+	private static int partition(int[] a, int lo, int hi) {
+		int i = lo, j = hi + 1;
+		int v = a[lo];
+		while (true) {
+			while (a[++i] < v)
+				if (i == hi)
+					break;
+			while (v < a[--j])
+				;
+			if (i >= j)
+				break;
+			exch(a, i, j);
+		}
+		exch(a, lo, j);
+		return j;
+	}
+
+	private static int pivot(int[] a, int lo, int hi) {
+		int n = hi - lo + 1, mid = lo + n / 2;
+		if (n <= NINTHER_CUTOFF)
+			return mediumOf3(a, lo, mid, hi);
+		int eps = n / 8;
+		int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps);
+		int m2 = mediumOf3(a, mid - eps, mid, mid + eps);
+		int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi);
+		return mediumOf3(a, m1, m2, m3);
+	}
+
+	private static int mediumOf3(int[] a, int i, int j, int k) {
+		return (a[i] < a[j] ? (a[j] < a[k] ? j : a[i] < a[k] ? k : i)
+				: (a[k] < a[j] ? j : a[k] < a[i] ? k : i));
+	}
+
+	private static void insertion(int[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			int v = a[i];
+			int j = i;
+			for (; j > lo && v < a[j-1]; j--)
+				a[j] = a[j-1];
+			SortStats.move(i - j);
+			a[j] = v;
+		}
+	}
+
+	private static void heapSort(int[] a, int lo, int hi) {
+		int n = hi - lo + 1;
+		for (int k = n / 2 - 1; k >= 0; k--)
+			sink(a, lo, k, n);
+		while (n > 1) {
+			exch(a, lo, lo + --n);
+			sink(a, lo, 0, n);
+		}
+	}
+
+	private static void sink(int[] a, int lo, int k, int n) {
+		int v = a[lo + k];
+		int j;
+		while ((j = 2 * k + 1) < n) {
+			if (j + 1 < n && a[lo + j] < a[lo + j + 1])
+				j++;
+			if (!(v < a[lo + j]))
+				break;
+			a[lo + k] = a[lo + j];
+			k = j;
+		}
+		a[lo + k] = v;
+	}
+
+	private static void exch(int[] a, int i, int j) {
+		SortStats.exchange();
+		int temp = a[i];
+		a[i] = a[j];
+		a[j] = temp;
+	}
+
+	/**
+	 * 多个顺序统计量
+	 * @param a
+	 * @param ranks
+	 * @return
+	 * @see #selectMany(Comparable[], int[])
+	 */
+	public static long[] selectMany(long[] a, int[] ranks) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int[] r = sortedRanks(ranks, a.length);
+		multiSelect(a, 0, a.length - 1, r, 0, r.length - 1, depthLimit(a.length));
+		long[] result = new long[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			result[i] = a[ranks[i]];
+		return result;
+	}
+
+	private static void multiSelect(long[] a, int lo, int hi, int[] r, int rlo, int rhi, int depth) {
+		while (rlo <= rhi) {
+			if (hi <= lo + CUTOFF) {
+				insertion(a, lo, hi);
+				return;
+			}
+			if (depth-- == 0) {
+				heapSort(a, lo, hi);
+				return;
+			}
+			exch(a, lo, pivot(a, lo, hi));
+			int j = partition(a, lo, hi);
+			int m = lowerBound(r, rlo, rhi + 1, j), e = lowerBound(r, m, rhi + 1, j + 1);
+			multiSelect(a, lo, j - 1, r, rlo, m - 1, depth);
+			lo = j + 1;
+			rlo = e;
+		}
+	}
+
+	private static int partition(long[] a, int lo, int hi) {
+		int i = lo, j = hi + 1;
+		long v = a[lo];
+		while (true) {
+			while (a[++i] < v)
+				if (i == hi)
+					break;
+			while (v < a[--j])
+				;
+			if (i >= j)
+				break;
+			exch(a, i, j);
+		}
+		exch(a, lo, j);
+		return j;
+	}
+
+	private static int pivot(long[] a, int lo, int hi) {
+		int n = hi - lo + 1, mid = lo + n / 2;
+		if (n <= NINTHER_CUTOFF)
+			return mediumOf3(a, lo, mid, hi);
+		int eps = n / 8;
+		int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps);
+		int m2 = mediumOf3(a, mid - eps, mid, mid + eps);
+		int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi);
+		return mediumOf3(a, m1, m2, m3);
+	}
+
+	private static int mediumOf3(long[] a, int i, int j, int k) {
+		return (a[i] < a[j] ? (a[j] < a[k] ? j : a[i] < a[k] ? k : i)
+				: (a[k] < a[j] ? j : a[k] < a[i] ? k : i));
+	}
+
+	private static void insertion(long[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			long v = a[i];
+			int j = i;
+			for (; j > lo && v < a[j-1]; j--)
+				a[j] = a[j-1];
+			SortStats.move(i - j);
+			a[j] = v;
+		}
+	}
+
+	private static void heapSort(long[] a, int lo, int hi) {
+		int n = hi - lo + 1;
+		for (int k = n / 2 - 1; k >= 0; k--)
+			sink(a, lo, k, n);
+		while (n > 1) {
+			exch(a, lo, lo + --n);
+			sink(a, lo, 0, n);
+		}
+	}
+
+	private static void sink(long[] a, int lo, int k, int n) {
+		long v = a[lo + k];
+		int j;
+		while ((j = 2 * k + 1) < n) {
+			if (j + 1 < n && a[lo + j] < a[lo + j + 1])
+				j++;
+			if (!(v < a[lo + j]))
+				break;
+			a[lo + k] = a[lo + j];
+			k = j;
+		}
+		a[lo + k] = v;
+	}
+
+	private static void exch(long[] a, int i, int j) {
+		SortStats.exchange();
+		long temp = a[i];
+		a[i] = a[j];
+		a[j] = temp;
+	}
+
+	/**
+	 * 多个顺序统计量，不支持NaN
+	 * @param a
+	 * @param ranks
+	 * @return
+	 * @see #selectMany(Comparable[], int[])
+	 */
+	public static double[] selectMany(double[] a, int[] ranks) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int[] r = sortedRanks(ranks, a.length);
+		multiSelect(a, 0, a.length - 1, r, 0, r.length - 1, depthLimit(a.length));
+		double[] result = new double[ranks.length];
+		for (int i = 0; i < ranks.length; i++)
+			result[i] = a[ranks[i]];
+		return result;
+	}
+
+	private static void multiSelect(double[] a, int lo, int hi, int[] r, int rlo, int rhi, int depth) {
+		while (rlo <= rhi) {
+			if (hi <= lo + CUTOFF) {
+				insertion(a, lo, hi);
+				return;
+			}
+			if (depth-- == 0) {
+				heapSort(a, lo, hi);
+				return;
+			}
+			exch(a, lo, pivot(a, lo, hi));
+			int j = partition(a, lo, hi);
+			int m = lowerBound(r, rlo, rhi + 1, j), e = lowerBound(r, m, rhi + 1, j + 1);
+			multiSelect(a, lo, j - 1, r, rlo, m - 1, depth);
+			lo = j + 1;
+			rlo = e;
+		}
+	}
+
+	private static int partition(double[] a, int lo, int hi) {
+		int i = lo, j = hi + 1;
+		double v = a[lo];
+		while (true) {
+			while (a[++i] < v)
+				if (i == hi)
+					break;
+			while (v < a[--j])
+				;
+			if (i >= j)
+				break;
+			exch(a, i, j);
+		}
+		exch(a, lo, j);
+		return j;
+	}
+
+	private static int pivot(double[] a, int lo, int hi) {
+		int n = hi - lo + 1, mid = lo + n / 2;
+		if (n <= NINTHER_CUTOFF)
+			return mediumOf3(a, lo, mid, hi);
+		int eps = n / 8;
+		int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps);
+		int m2 = mediumOf3(a, mid - eps, mid, mid + eps);
+		int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi);
+		return mediumOf3(a, m1, m2, m3);
+	}
+
+	private static int mediumOf3(double[] a, int i, int j, int k) {
+		return (a[i] < a[j] ? (a[j] < a[k] ? j : a[i] < a[k] ? k : i)
+				: (a[k] < a[j] ? j : a[k] < a[i] ? k : i));
+	}
+
+	private static void insertion(double[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			double v = a[i];
+			int j = i;
+			for (; j > lo && v < a[j-1]; j--)
+				a[j] = a[j-1];
+			SortStats.move(i - j);
+			a[j] = v;
+		}
+	}
+
+	private static void heapSort(double[] a, int lo, int hi) {
+		int n = hi - lo + 1;
+		for (int k = n / 2 - 1; k >= 0; k--)
+			sink(a, lo, k, n);
+		while (n > 1) {
+			exch(a, lo, lo + --n);
+			sink(a, lo, 0, n);
+		}
+	}
+
+	private static void sink(double[] a, int lo, int k, int n) {
+		double v = a[lo + k];
+		int j;
+		while ((j = 2 * k + 1) < n) {
+			if (j + 1 < n && a[lo + j] < a[lo + j + 1])
+				j++;
+			if (!(v < a[lo + j]))
+				break;
+			a[lo + k] = a[lo + j];
+			k = j;
+		}
+		a[lo + k] = v;
+	}
+
+	private static void exch(double[] a, int i, int j) {
+		SortStats.exchange();
+		double temp = a[i];
+		a[i] = a[j];
+		a[j] = temp;
+	}
+
+	// 复制并升序排列ranks，检查每个下标都在[0, n)中
+	private static int[] sortedRanks(int[] ranks, int n) {
+		if (ranks == null)
+			throw new IllegalArgumentException("argument ranks is null");
+		for (int k : ranks)
+			if (k < 0 || k >= n)
+				throw new IllegalArgumentException("rank out of range: " + k);
+		int[] r = ranks.clone();
+		Sorts.quick(r);
+		return r;
+	}
+
+	// r[from..to)中第一个不小于key的下标
+	private static int lowerBound(int[] r, int from, int to, int key) {
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			if (r[mid] < key)
+				from = mid + 1;
+			else
+				to = mid;
+		}
+		return from;
+	}
+
+	/*************		双切分点与并行排序							*******************/
+	/*******************************************************************************/
+
+	/**
+	 * 使用双切分点(Yaroslavskiy)的快速排序对数组a升序排序
+	 * @param a
+	 */
+	public static <T extends Comparable<? super T>> void sortDualPivot(T[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		dualPivotSort(a, 0, a.length - 1, depthLimit(a.length), null);
+
+		assert isSorted(a);
+	}
+
+	/**
+	 * 使用双切分点的快速排序对数组a按comparator排序
+	 * @param a
+	 * @param comparator
+	 */
+	public static <T extends Comparable<? super T>> void sortDualPivot(T[] a, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (comparator == null)
+			throw new IllegalArgumentException("argument comparator is null");
+		dualPivotSort(a, 0, a.length - 1, depthLimit(a.length), comparator);
+
+		assert isSorted(a, comparator);
+	}
+
+	/**
+	 * 在ForkJoinPool.commonPool()上并行的双切分点快速排序，切分后的三个子数组并行排序
+	 * @param a
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		ForkJoinPool.commonPool().invoke(new DualPivotTask<>(a, 0, a.length - 1, depthLimit(a.length), null));
+
+		assert isSorted(a);
+	}
+
+	/**
+	 * 在ForkJoinPool.commonPool()上使用comparator并行排序
+	 * @param a
+	 * @param comparator
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (comparator == null)
+			throw new IllegalArgumentException("argument comparator is null");
+		ForkJoinPool.commonPool().invoke(new DualPivotTask<>(a, 0, a.length - 1, depthLimit(a.length), comparator));
+
+		assert isSorted(a, comparator);
+	}
+
+	/**
+	 * 双切分点快速排序：使用两个切分点p <= q将数组分为 < p, p..q, > q 三个部分<br>
+	 * 对于大量重复元素：p == q时中间部分全部相等，不再排序；中间部分过大时将等于p,q的元素
+	 * 移到两端，只对剩下的元素排序，与quick3way相同不会因为重复元素变慢<br>
+	 * 与sort相同使用2lgN的深度限制，超过时切换为堆排序。较小的两个部分递归排序，最大的部分在循环中继续切分，
+	 * 递归深度不超过lgN
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param depth 剩余的切分次数，为0时切换到堆排序
+	 * @param comparator 为null时使用自然顺序
+	 */
+	private static <T extends Comparable<? super T>> void dualPivotSort(T[] a, int lo, int hi, int depth, Comparator<T> comparator) {
+		while (hi > lo + CUTOFF) {
+			if (depth-- == 0) {
+				heapSort(a, lo, hi, comparator);
+				return;
+			}
+			int[] r = dualPivotRanges(a, lo, hi, comparator);
+			int k = largestRange(r);
+			SortStats.enter();
+			for (int i = 0; i < r.length; i += 2)
+				if (i != k)
+					dualPivotSort(a, r[i], r[i + 1], depth, comparator);
+			SortStats.exit();
+			lo = r[k];
+			hi = r[k + 1];
+		}
+		insertion(a, lo, hi, comparator);
+	}
+
+	/**
+	 * 切分a[lo..hi]，返回还需要排序的三个部分{lo, lt-1, 中间部分的lo, hi, gt+1, hi}。
+	 * 两个切分点相等时中间部分为空
+	 */
+	private static <T extends Comparable<? super T>> int[] dualPivotRanges(T[] a, int lo, int hi, Comparator<T> comparator) {
+		long bounds = dualPivotPartition(a, lo, hi, comparator);
+		int lt = (int) (bounds >>> 32), gt = (int) bounds;
+		int mlo = gt, mhi = gt - 1;
+		if (less(comparator, a[lt], a[gt])) {
+			bounds = squeezeMiddle(a, lo, hi, lt, gt, comparator);
+			mlo = (int) (bounds >>> 32);
+			mhi = (int) bounds;
+		}
+		return new int[] { lo, lt - 1, mlo, mhi, gt + 1, hi };
+	}
+
+	// 三个部分中最大的一个在r中的下标
+	private static int largestRange(int[] r) {
+		int k = 0;
+		for (int i = 2; i < r.length; i += 2)
+			if (r[i + 1] - r[i] > r[k + 1] - r[k])
+				k = i;
+		return k;
+	}
+
+	/**
+	 * 双切分点切分数组a[lo..hi]。返回切分点下标lt, gt，以高32位lt，低32位gt的long返回，避免创建对象<br>
+	 * 切分后a[lo..lt-1] < a[lt] <= a[lt+1..gt-1] <= a[gt] < a[gt+1..hi]
+	 * <p>
+	 * 切分点从5个等距的取样元素中取第2与第4个，不需要预先打乱数组
+	 * </p>
+	 */
+	private static <T extends Comparable<? super T>> long dualPivotPartition(T[] a, int lo, int hi, Comparator<T> comparator) {
+		int seventh = (hi - lo + 1) / 7;
+		int e3 = lo + (hi - lo) / 2;
+		int e2 = e3 - seventh, e1 = e2 - seventh;
+		int e4 = e3 + seventh, e5 = e4 + seventh;
+		// 对5个取样元素插入排序
+		sort5(a, e1, e2, e3, e4, e5, comparator);
+		exch(a, lo, e2);
+		exch(a, hi, e4);
+		T p = a[lo], q = a[hi];
+
+		// a[lo+1..lt-1] < p, a[gt+1..hi-1] > q, a[i..gt]未确定
+		int lt = lo + 1, gt = hi - 1, i = lo + 1;
+		while (i <= gt) {
+			if (less(comparator, a[i], p))
+				exch(a, lt++, i++);
+			else if (less(comparator, q, a[i]))
+				exch(a, i, gt--);
+			else
+				i++;
+		}
+		exch(a, lo, --lt);
+		exch(a, hi, ++gt);
+		return ((long) lt << 32) | (gt & 0xFFFFFFFFL);
+	}
+
+	// 使用比较交换对5个下标的元素排序
+	private static <T extends Comparable<? super T>> void sort5(T[] a, int e1, int e2, int e3, int e4, int e5, Comparator<T> comparator) {
+		compareExch(a, e1, e2, comparator);
+		compareExch(a, e4, e5, comparator);
+		compareExch(a, e3, e5, comparator);
+		compareExch(a, e3, e4, comparator);
+		compareExch(a, e1, e4, comparator);
+		compareExch(a, e1, e3, comparator);
+		compareExch(a, e2, e5, comparator);
+		compareExch(a, e2, e4, comparator);
+		compareExch(a, e2, e3, comparator);
+	}
+
+	// 如果a[j] < a[i]就交换，使a[i] <= a[j]
+	private static <T extends Comparable<? super T>> void compareExch(T[] a, int i, int j, Comparator<T> comparator) {
+		if (less(comparator, a[j], a[i]))
+			exch(a, i, j);
+	}
+
+	/**
+	 * 如果中间部分a[lt+1..gt-1]超过数组的4/7，就将等于切分点的元素分别移到中间部分的两端。
+	 * 返回中间部分剩下需要排序的范围，格式与dualPivotPartition相同
+	 */
+	private static <T extends Comparable<? super T>> long squeezeMiddle(T[] a, int lo, int hi, int lt, int gt, Comparator<T> comparator) {
+		int l = lt + 1, g = gt - 1;
+		if (g - l + 1 > (hi - lo + 1) / 7 * 4) {
+			T p = a[lt], q = a[gt];
+			int k = l;
+			while (k <= g) {
+				if (equal(comparator, a[k], p))
+					exch(a, k++, l++);
+				else if (equal(comparator, a[k], q))
+					exch(a, k, g--);
+				else
+					k++;
+			}
+		}
+		return ((long) l << 32) | (g & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * 并行的双切分点快速排序任务，子数组不超过PARALLEL_THRESHOLD时顺序排序。
+	 * 较小的两个部分fork为子任务，最大的部分在当前线程继续切分，与顺序排序共用深度限制
+	 */
+	@SuppressWarnings("serial")
+	private static class DualPivotTask<T extends Comparable<? super T>> extends RecursiveAction {
+		private final T[] a;
+		private final int lo, hi, depth;
+		private final Comparator<T> comparator;
+
+		DualPivotTask(T[] a, int lo, int hi, int depth, Comparator<T> comparator) {
+			this.a = a;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+			this.comparator = comparator;
+		}
+
+		@Override
+		protected void compute() {
+			List<DualPivotTask<T>> forked = new ArrayList<>();
+			int lo = this.lo, hi = this.hi, depth = this.depth;
+			while (hi - lo + 1 > PARALLEL_THRESHOLD && depth > 0) {
+				depth--;
+				int[] r = dualPivotRanges(a, lo, hi, comparator);
+				int k = largestRange(r);
+				for (int i = 0; i < r.length; i += 2)
+					if (i != k) {
+						DualPivotTask<T> task = new DualPivotTask<>(a, r[i], r[i + 1], depth, comparator);
+						task.fork();
+						forked.add(task);
+					}
+				lo = r[k];
+				hi = r[k + 1];
+			}
+			dualPivotSort(a, lo, hi, depth, comparator);
+			for (DualPivotTask<T> task : forked)
+				task.join();
+		}
+	}
+
 	/*************		验证方法										*******************/
 	/*******************************************************************************/
 
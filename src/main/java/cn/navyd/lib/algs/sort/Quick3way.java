@@ -3,6 +3,8 @@ package cn.navyd.lib.algs.sort;
 import java.util.Arrays;
 import java.util.Random;
 
+import cn.navyd.lib.util.SortStats;
+
 /**
  * <p>三向切分的快速排序：</p>
  * <p>相比于标准的快排，增加了对重复元素的处理，即将重复元素排在一起后跳过不对这部分排序</p>
@@ -53,14 +55,17 @@ public class Quick3way {
 			else
 				i++;
 		}
+		SortStats.enter();
 		quickSort3way(a, lo, lt - 1);
 		quickSort3way(a, gt + 1, hi);
+		SortStats.exit();
 
 		assert isSorted(a, lo, hi);
 	}
 
 	// 交换数组两个值
 	private static <T> void exch(T[] a, int i, int j) {
+		SortStats.exchange();
 		T t = a[i];
 		a[i] = a[j];
 		a[j] = t;
@@ -73,11 +78,13 @@ public class Quick3way {
 			int j = i;
 			for (; j != 0 && less(v, a[j-1]); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
 
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) < 0;
 	}
 
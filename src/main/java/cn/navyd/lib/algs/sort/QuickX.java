@@ -1,8 +1,15 @@
 package cn.navyd.lib.algs.sort;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cn.navyd.lib.util.Cutoffs;
+import cn.navyd.lib.util.SortStats;
 
 /**
  * <p>快速三向切分排序：</p>
@@ -13,15 +20,19 @@ import java.util.Random;
  * 快排算法将数组分为4个区，左右两边为等于切分点v的区，靠左为小于v的，靠右为大于v的区<p>
  * <p>该算法同时适用大量重复元素与无重复元素的情况，均提供稍好的性能，对于相应的quick sort版本</p>
  * 稳定性：否
+ * <p>parallelSort()在ForkJoinPool上并行排序三向切分后的两个子数组。
+ * 递归深度超过2lgN时切换为堆排序，并行排序没有预先打乱数组时也保证NlgN</p>
  *
  * @author Navy D
  * @date 20170814151656
  */
 public class QuickX {
-	// 切换插入排序阀值
-	private static final int INSERTION_SORT_CUTOFF = 8;
+	// 切换插入排序阀值，可由Cutoffs调优
+	private static final int INSERTION_SORT_CUTOFF = Cutoffs.get(Cutoffs.QUICK_3WAY, 8);
 	// 中等数组使用三取样切分，超过这个大小的使用ninther as partitioning element
 	private static final int MEDIAN_OF_3_CUTOFF = 40;
+	// 并行排序时切换到顺序排序的子数组长度
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
 
 	private QuickX() {
 
@@ -37,11 +48,21 @@ public class QuickX {
 		if (a == null)
 			throw new IllegalArgumentException("argument array is null");
 		shuffle(a);
-		quickSort3way(a, 0, a.length - 1);
+		quickSort3way(a, 0, a.length - 1, depthLimit(a.length), INSERTION_SORT_CUTOFF);
 
 		assert isSorted(a);
 	}
 
+	/**
+	 * 使用指定的切换值cutoff排序，Cutoffs通过该方法测量实际的排序代码
+	 * @param a
+	 * @param cutoff
+	 */
+	static <T extends Comparable<? super T>> void sortWithCutoff(T[] a, int cutoff) {
+		shuffle(a);
+		quickSort3way(a, 0, a.length - 1, depthLimit(a.length), cutoff);
+	}
+
 	/**
 	 * 对数组a使用指定的顺序comparator对象排序
 	 * @param a
@@ -55,7 +76,7 @@ public class QuickX {
 		if (comparator == null)
 			throw new IllegalArgumentException("argument comparator is null");
 		shuffle(a);
-		quickSort3way(a, 0, a.length - 1, comparator);
+		quickSort3way(a, 0, a.length - 1, depthLimit(a.length), comparator);
 
 		assert isSorted(a, comparator);
 	}
@@ -68,15 +89,23 @@ public class QuickX {
 	 * @param a
 	 * @param lo
 	 * @param hi
+	 * @param depth 剩余的递归深度，为0时切换到堆排序
+	 * @param cutoff 子数组长度不超过cutoff时使用插入排序
 	 * @author Navy D
 	 * @date 20170807232243
 	 */
-	private static <T extends Comparable<? super T>> void quickSort3way(T[] a, int lo, int hi) {
+	private static <T extends Comparable<? super T>> void quickSort3way(T[] a, int lo, int hi, int depth, int cutoff) {
 		int n = hi - lo + 1;
-		if (n <= INSERTION_SORT_CUTOFF) {
+		if (n <= cutoff) {
 			insertion(a, lo, hi);
 			return;
-		} else if (n <= MEDIAN_OF_3_CUTOFF) {
+		}
+		// 没有预先打乱(并行排序)或切分点选择不佳导致递归过深，切换为堆排序
+		if (depth == 0) {
+			heapSort(a, lo, hi, null);
+			return;
+		}
+		if (n <= MEDIAN_OF_3_CUTOFF) {
 			int m = mediumOf3(a, lo, lo + n / 2, hi);
 			exch(a, m, lo);
 		}
@@ -131,31 +160,38 @@ public class QuickX {
 		for (int k = hi; k >= q; k--)
 			exch(a, k, i++);
 		//交换后的j已经是左边小于数组的最后下标
-		quickSort3way(a, lo, j);
+		SortStats.enter();
+		quickSort3way(a, lo, j, depth - 1, cutoff);
 		//i是右边大于数组的开始下标
-		quickSort3way(a, i, hi);
+		quickSort3way(a, i, hi, depth - 1, cutoff);
+		SortStats.exit();
 
 		assert isSorted(a, lo, hi);
 	}
 
 	// 使用comparator提供的顺序排序
-	private static <T extends Comparable<? super T>> void quickSort3way(T[] a, int lo, int hi, Comparator<T> comparator) {
+	private static <T extends Comparable<? super T>> void quickSort3way(T[] a, int lo, int hi, int depth, Comparator<T> comparator) {
 		int n = hi - lo + 1;
 		if (n <= INSERTION_SORT_CUTOFF) {
 			insertion(a, lo, hi, comparator);
 			return;
-		} else if (n <= MEDIAN_OF_3_CUTOFF) {
-			int m = mediumOf3(a, lo, lo + n / 2, hi);
+		}
+		if (depth == 0) {
+			heapSort(a, lo, hi, comparator);
+			return;
+		}
+		if (n <= MEDIAN_OF_3_CUTOFF) {
+			int m = mediumOf3(a, lo, lo + n / 2, hi, comparator);
 			exch(a, m, lo);
 		}
 		// use Tukey ninther as partitioning element
 		else {
 			int eps = n / 8;
 			int mid = lo + n / 2;
-			int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps);
-			int m2 = mediumOf3(a, mid - eps, mid, mid + eps);
-			int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi);
-			int ninther = mediumOf3(a, m1, m2, m3);
+			int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps, comparator);
+			int m2 = mediumOf3(a, mid - eps, mid, mid + eps, comparator);
+			int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi, comparator);
+			int ninther = mediumOf3(a, m1, m2, m3, comparator);
 			exch(a, ninther, lo);
 		}
 		// p..i为小于v，j..q为大于v
@@ -199,14 +235,175 @@ public class QuickX {
 		for (int k = hi; k >= q; k--)
 			exch(a, k, i++);
 		//交换后的j已经是左边小于数组的最后下标
-		quickSort3way(a, lo, j, comparator);
+		SortStats.enter();
+		quickSort3way(a, lo, j, depth - 1, comparator);
 		//i是右边大于数组的开始下标
-		quickSort3way(a, i, hi, comparator);
+		quickSort3way(a, i, hi, depth - 1, comparator);
+		SortStats.exit();
 
 		assert isSorted(a, lo, hi, comparator);
 	}
 
 
+	/**
+	 * 在ForkJoinPool.commonPool()上并行排序数组a
+	 * @param a
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		ForkJoinPool.commonPool().invoke(new QuickSort3wayTask<>(a, 0, a.length - 1, depthLimit(a.length), null));
+
+		assert isSorted(a);
+	}
+
+	/**
+	 * 在ForkJoinPool.commonPool()上使用comparator并行排序数组a
+	 * @param a
+	 * @param comparator
+	 */
+	public static <T extends Comparable<? super T>> void parallelSort(T[] a, Comparator<T> comparator) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		if (comparator == null)
+			throw new IllegalArgumentException("argument comparator is null");
+		ForkJoinPool.commonPool().invoke(new QuickSort3wayTask<>(a, 0, a.length - 1, depthLimit(a.length), comparator));
+
+		assert isSorted(a, comparator);
+	}
+
+	/**
+	 * 与quickSort3way相同的三向切分，使用ninther作为切分点，不需要预先打乱数组。
+	 * 返回切分后小于数组的最后下标j与大于数组的开始下标i，以高32位j，低32位i的long返回
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param comparator 为null时使用自然顺序
+	 */
+	private static <T extends Comparable<? super T>> long partition3way(T[] a, int lo, int hi, Comparator<T> comparator) {
+		int n = hi - lo + 1;
+		int eps = n / 8;
+		int mid = lo + n / 2;
+		int m1 = mediumOf3(a, lo, lo + eps, lo + eps + eps, comparator);
+		int m2 = mediumOf3(a, mid - eps, mid, mid + eps, comparator);
+		int m3 = mediumOf3(a, hi - eps - eps, hi - eps, hi, comparator);
+		exch(a, mediumOf3(a, m1, m2, m3, comparator), lo);
+
+		int i = lo, j = hi + 1;
+		int p = lo, q = hi + 1;
+		T v = a[lo];
+		while (true) {
+			while (less(a[++i], v, comparator))
+				if (i == hi)
+					break;
+			while (less(v, a[--j], comparator))
+				;
+			if (i == j && equal(a[i], v, comparator))
+				exch(a, ++p, i);
+			if (i >= j)
+				break;
+			exch(a, i, j);
+			if (equal(a[i], v, comparator))
+				exch(a, ++p, i);
+			if (equal(a[j], v, comparator))
+				exch(a, --q, j);
+		}
+		i = j + 1;
+		for (int k = lo; k <= p; k++)
+			exch(a, k, j--);
+		for (int k = hi; k >= q; k--)
+			exch(a, k, i++);
+		return ((long) j << 32) | (i & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * 并行排序任务：子数组不超过PARALLEL_THRESHOLD时使用quickSort3way。
+	 * 切分后较小的一边fork为子任务，较大的一边在当前线程继续切分。
+	 * 并行排序没有预先打乱数组，与Quick.parallelSort相同使用2lgN的深度限制，超过时切换为堆排序
+	 */
+	@SuppressWarnings("serial")
+	private static class QuickSort3wayTask<T extends Comparable<? super T>> extends RecursiveAction {
+		private final T[] a;
+		private final int lo, hi, depth;
+		private final Comparator<T> comparator;
+
+		QuickSort3wayTask(T[] a, int lo, int hi, int depth, Comparator<T> comparator) {
+			this.a = a;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+			this.comparator = comparator;
+		}
+
+		@Override
+		protected void compute() {
+			List<QuickSort3wayTask<T>> forked = new ArrayList<>();
+			int lo = this.lo, hi = this.hi, depth = this.depth;
+			while (hi - lo + 1 > PARALLEL_THRESHOLD && depth > 0) {
+				depth--;
+				long bounds = partition3way(a, lo, hi, comparator);
+				int j = (int) (bounds >>> 32), i = (int) bounds;
+				QuickSort3wayTask<T> task;
+				if (j - lo < hi - i) {
+					task = new QuickSort3wayTask<>(a, lo, j, depth, comparator);
+					lo = i;
+				} else {
+					task = new QuickSort3wayTask<>(a, i, hi, depth, comparator);
+					hi = j;
+				}
+				task.fork();
+				forked.add(task);
+			}
+			if (comparator == null)
+				quickSort3way(a, lo, hi, depth, INSERTION_SORT_CUTOFF);
+			else
+				quickSort3way(a, lo, hi, depth, comparator);
+			for (QuickSort3wayTask<T> task : forked)
+				task.join();
+		}
+	}
+
+	/**
+	 * 内省排序允许的最大递归深度2lgN
+	 * @param n
+	 * @return
+	 */
+	private static int depthLimit(int n) {
+		return 2 * (31 - Integer.numberOfLeadingZeros(n | 1));
+	}
+
+	/**
+	 * 对a[lo..hi]堆排序，堆的根在lo
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param comparator 为null时使用自然顺序
+	 */
+	private static <T extends Comparable<? super T>> void heapSort(T[] a, int lo, int hi, Comparator<T> comparator) {
+		int n = hi - lo + 1;
+		for (int k = n / 2 - 1; k >= 0; k--)
+			sink(a, lo, k, n, comparator);
+		while (n > 1) {
+			exch(a, lo, lo + --n);
+			sink(a, lo, 0, n, comparator);
+		}
+	}
+
+	// 大顶堆a[lo..lo+n)中相对位置k下沉
+	private static <T extends Comparable<? super T>> void sink(T[] a, int lo, int k, int n, Comparator<T> comparator) {
+		T v = a[lo + k];
+		int j;
+		while ((j = 2 * k + 1) < n) {
+			if (j + 1 < n && less(a[lo + j], a[lo + j + 1], comparator))
+				j++;
+			if (!less(v, a[lo + j], comparator))
+				break;
+			a[lo + k] = a[lo + j];
+			k = j;
+		}
+		a[lo + k] = v;
+	}
+
 	/**
 	 * 如果v和w相等，就返回true
 	 * @param v
@@ -216,10 +413,14 @@ public class QuickX {
 	 * @date 20170807235235
 	 */
 	private static <T extends Comparable<? super T>> boolean equal(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) == 0;
 	}
 
 	private static <T extends Comparable<? super T>> boolean equal(T v, T w, Comparator<T> comparator) {
+		if (comparator == null)
+			return equal(v, w);
+		SortStats.compare();
 		return comparator.compare(v, w) == 0;
 	}
 
@@ -240,7 +441,7 @@ public class QuickX {
 		}
 	}
 	/**
-	 * 插入排序
+	 * 插入排序，不超过16个元素时使用排序网络
 	 * @param a
 	 * @param lo
 	 * @param hi
@@ -248,21 +449,31 @@ public class QuickX {
 	 * @date 20170807215538
 	 */
 	private static <T extends Comparable<? super T>> void insertion(T[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
 		for (int i = lo + 1; i <= hi; i++) {
 			T v = a[i];
 			int j = i;
-			for (; j != 0 && less(v, a[j-1]); j--)
+			for (; j > lo && less(v, a[j-1]); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
 
 	private static <T extends Comparable<? super T>> void insertion(T[] a, int lo, int hi, Comparator<T> comparator) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1, comparator);
+			return;
+		}
 		for (int i = lo + 1; i <= hi; i++) {
 			T v = a[i];
 			int j = i;
-			for (; j != 0 && less(v, a[j-1], comparator); j--)
+			for (; j > lo && less(v, a[j-1], comparator); j--)
 				a[j] = a[j-1];
+			SortStats.move(i - j);
 			a[j] = v;
 		}
 	}
@@ -282,6 +493,11 @@ public class QuickX {
 				: (less(a[k], a[j]) ? j : less(a[k], a[i]) ? k : i));
 	}
 
+	private static <T extends Comparable<? super T>> int mediumOf3(T[] a, int i, int j, int k, Comparator<T> comparator) {
+		return (less(a[i], a[j], comparator) ? (less(a[j], a[k], comparator) ? j : less(a[i], a[k], comparator) ? k : i)
+				: (less(a[k], a[j], comparator) ? j : less(a[k], a[i], comparator) ? k : i));
+	}
+
 	/**
 	 * 交换数组两个元素位置
 	 * @param a
@@ -291,6 +507,7 @@ public class QuickX {
 	 * @date 20170807215642
 	 */
 	private static <T> void exch(T[] a, int i, int j) {
+		SortStats.exchange();
 		T temp = a[i];
 		a[i] = a[j];
 		a[j] = temp;
@@ -305,10 +522,15 @@ public class QuickX {
 	 * @date 20170807221957
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) < 0;
 	}
 
+	// comparator为null时使用自然顺序
 	private static <T extends Comparable<? super T>> boolean less(T v, T w, Comparator<T> comparator) {
+		if (comparator == null)
+			return less(v, w);
+		SortStats.compare();
 		return comparator.compare(v, w) < 0;
 	}
 
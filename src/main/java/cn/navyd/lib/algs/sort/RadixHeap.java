@@ -0,0 +1,165 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>单调的索引基数堆：键为非负整数，插入的键不能小于最后删除的最小键</p>
+ * Dijkstra算法删除的最小距离是单调递增的，边的权值为整数时距离也是整数，可以用基数堆代替比较的堆：
+ * <li>键按与last(最后删除的最小键)最高的不同二进制位分到65个桶中，桶0为等于last的键，
+ * 桶i(i&gt;0)为第i-1位是最高不同位的键，桶中的键互相不比较</li>
+ * <li>insert、decreaseKey：计算桶号后放入桶中的双向链表，O(1)</li>
+ * <li>delMin：桶0为空时找到第一个不为空的桶，其中最小的键成为新的last，
+ * 桶中其他的键与last的最高不同位一定更低，都会移到更小的桶中。每个键最多移动64次，均摊O(lgC)</li>
+ * <p>键使用double传入以实现{@link DoubleIndexedPQ}，必须为小于2^53的非负整数</p>
+ * @author Navy D
+ * @date 20171101103816
+ * @see BucketQueue
+ */
+public class RadixHeap implements DoubleIndexedPQ {
+	private static final int NIL = -1;
+	// 不在堆中的索引的桶号
+	private static final int ABSENT = -1;
+	private static final int BUCKETS = 65;
+	// double可以精确表示的最大整数
+	private static final double MAX_KEY = 1L << 53;
+
+	private final int maxN;
+	private int n;
+	// 最后删除的最小键，所有的键都不小于last
+	private long last;
+	private final long[] keys;
+	// 索引所在的桶号，不在堆中时为ABSENT
+	private final int[] bucketOf;
+	// 桶中双向链表的前后节点
+	private final int[] next;
+	private final int[] prev;
+	// 每个桶链表的第一个索引
+	private final int[] head = new int[BUCKETS];
+
+	/**
+	 * 初始化为一个固定大小maxN的堆，索引为0..maxN-1
+	 * @param maxN
+	 */
+	public RadixHeap(int maxN) {
+		if (maxN < 0)
+			throw new IllegalArgumentException();
+		this.maxN = maxN;
+		keys = new long[maxN];
+		bucketOf = new int[maxN];
+		next = new int[maxN];
+		prev = new int[maxN];
+		Arrays.fill(bucketOf, ABSENT);
+		Arrays.fill(head, NIL);
+	}
+
+	@Override
+	public void insert(int k, double key) {
+		if (contains(k))
+			throw new IllegalArgumentException("index is already in the priority queue");
+		keys[k] = checkKey(key);
+		add(k, bucket(keys[k]));
+		n++;
+	}
+
+	@Override
+	public void decreaseKey(int k, double key) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		long x = checkKey(key);
+		if (x > keys[k])
+			throw new IllegalArgumentException("key is greater than the current key");
+		keys[k] = x;
+		int b = bucket(x);
+		if (b != bucketOf[k]) {
+			remove(k);
+			add(k, b);
+		}
+	}
+
+	@Override
+	public boolean contains(int k) {
+		if (k < 0 || k >= maxN)
+			throw new IndexOutOfBoundsException();
+		return bucketOf[k] != ABSENT;
+	}
+
+	@Override
+	public double keyOf(int k) {
+		if (!contains(k))
+			throw new NoSuchElementException("index is not in the priority queue");
+		return keys[k];
+	}
+
+	@Override
+	public int delMin() {
+		if (isEmpty())
+			throw new NoSuchElementException("Priority queue underflow");
+		if (head[0] == NIL) {
+			int b = 1;
+			while (head[b] == NIL)
+				b++;
+			// 桶b中最小的键成为新的last
+			long min = Long.MAX_VALUE;
+			for (int k = head[b]; k != NIL; k = next[k])
+				min = Math.min(min, keys[k]);
+			last = min;
+			// 重新分配桶b中的所有键
+			for (int k = head[b], nextK; k != NIL; k = nextK) {
+				nextK = next[k];
+				add(k, bucket(keys[k]));
+			}
+			head[b] = NIL;
+		}
+		int min = head[0];
+		remove(min);
+		bucketOf[min] = ABSENT;
+		n--;
+		return min;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * 键x的桶号：与last最高的不同二进制位加1
+	 */
+	private int bucket(long x) {
+		return x == last ? 0 : 64 - Long.numberOfLeadingZeros(x ^ last);
+	}
+
+	// 将索引k放到桶b链表的开头
+	private void add(int k, int b) {
+		bucketOf[k] = b;
+		prev[k] = NIL;
+		next[k] = head[b];
+		if (head[b] != NIL)
+			prev[head[b]] = k;
+		head[b] = k;
+	}
+
+	// 将索引k从所在桶的链表中删除
+	private void remove(int k) {
+		if (prev[k] != NIL)
+			next[prev[k]] = next[k];
+		else
+			head[bucketOf[k]] = next[k];
+		if (next[k] != NIL)
+			prev[next[k]] = prev[k];
+	}
+
+	private long checkKey(double key) {
+		if (!(key >= 0 && key < MAX_KEY) || key != Math.floor(key))
+			throw new IllegalArgumentException("key is not a non-negative integer: " + key);
+		if (key < last)
+			throw new IllegalArgumentException("key is less than the last deleted minimum: " + key);
+		return (long) key;
+	}
+}
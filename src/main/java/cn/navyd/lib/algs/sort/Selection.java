@@ -3,6 +3,8 @@ package cn.navyd.lib.algs.sort;
 import java.util.Arrays;
 import java.util.Random;
 
+import cn.navyd.lib.util.SortStats;
+
 /**
  * 选择排序：
  * 先找到数组中最小的元素，将其与数组一个元素交换，
@@ -45,6 +47,7 @@ public class Selection {
 	 * @date 20170731194135
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo(w) < 0;
 	}
 
@@ -57,6 +60,7 @@ public class Selection {
 	 * @date 20170731194308
 	 */
 	private static <T extends Comparable<? super T>> void exch(T[] a, int i, int j) {
+		SortStats.exchange();
 		T temp = a[i];
 		a[i] = a[j];
 		a[j] = temp;
@@ -3,6 +3,8 @@ package cn.navyd.lib.algs.sort;
 import java.util.Arrays;
 import java.util.Random;
 
+import cn.navyd.lib.util.SortStats;
+
 /**
  * 希尔排序：</br>
  * 基于插入排序的算法，对于大规模的数组，使数组任意间隔为h的元素有序
@@ -50,6 +52,7 @@ public class Shell {
 					j -= h;
 				}
 				a[j] = v;
+				SortStats.move((i - j) / h);
 			}
 			assert isHsorted(a, h);
 			h /= 3;
@@ -67,6 +70,7 @@ public class Shell {
 	 * @date 20170731194135
 	 */
 	private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+		SortStats.compare();
 		return v.compareTo((T) w) < 0;
 	}
 
@@ -0,0 +1,63 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>基于无锁跳表的并发最小优先队列，严格按顺序删除</p>
+ * 使用java.util.concurrent.ConcurrentSkipListSet，insert与delMin都是CAS实现的无锁操作，期望lgN：
+ * <li>跳表不允许重复的元素，每个键附加一个递增的序号，相同的键按插入顺序删除</li>
+ * <li>delMin为pollFirst()，所有线程都在竞争表头的第一个节点，线程很多时不如{@link MultiQueue}</li>
+ * @author Navy D
+ * @date 20171102143218
+ * @param <Key>
+ */
+public class SkipListPQ<Key extends Comparable<? super Key>> implements ConcurrentMinPQ<Key> {
+	private final ConcurrentSkipListSet<Node<Key>> set = new ConcurrentSkipListSet<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	private static final class Node<Key extends Comparable<? super Key>> implements Comparable<Node<Key>> {
+		private final Key key;
+		private final long seq;
+
+		private Node(Key key, long seq) {
+			this.key = key;
+			this.seq = seq;
+		}
+
+		@Override
+		public int compareTo(Node<Key> that) {
+			int cmp = key.compareTo(that.key);
+			return cmp != 0 ? cmp : Long.compare(seq, that.seq);
+		}
+	}
+
+	@Override
+	public void insert(Key key) {
+		if (key == null)
+			throw new IllegalArgumentException("argument to insert() is null");
+		set.add(new Node<>(key, sequence.getAndIncrement()));
+	}
+
+	@Override
+	public Key delMin() {
+		Node<Key> min = set.pollFirst();
+		return min == null ? null : min.key;
+	}
+
+	/**
+	 * 返回最小的键，队列为空时返回null
+	 * @return
+	 */
+	public Key min() {
+		// first()在其他线程删除了最后一个元素时会抛出异常，迭代器是弱一致的
+		Iterator<Node<Key>> it = set.iterator();
+		return it.hasNext() ? it.next().key : null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return set.isEmpty();
+	}
+}
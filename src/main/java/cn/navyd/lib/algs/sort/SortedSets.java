@@ -0,0 +1,624 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * <p>有序数组的集合运算：交集、并集与差集</p>
+ * 输入为严格递增的数组(集合)，可以先排序再用distinct去重得到。结果同样严格递增
+ * <li>两个数组长度相近时线性归并</li>
+ * <li>长度相差超过GALLOP_RATIO倍时，对短数组的每个元素在长数组中从上次的位置倍增查找，
+ * 比较次数为O(m lg(n/m))；并集与差集中长数组被跳过的一段使用System.arraycopy整段复制</li>
+ * <li>多路交集按长度排序后从最短的数组取候选元素，依次在其他数组中倍增查找，
+ * 不匹配时用较大的元素在最短数组中跳过</li>
+ * <li>并行：用较长数组中等距的元素将值域分为多段，二分查找两个数组中每段的边界，
+ * 在ForkJoinPool上分别计算后拼接</li>
+ * 使用：
+ * <pre>
+ * int[] ids = SortedSets.intersect(postings0, postings1, postings2);
+ * int[] all = SortedSets.parallelUnion(SortedSets.distinct(a), b);
+ * </pre>
+ * @author Navy D
+ * @date 20171027093012
+ */
+public class SortedSets {
+	// 长度相差超过该倍数时使用倍增查找
+	private static final int GALLOP_RATIO = 16;
+	// 并行计算的最小总长度
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private SortedSets() {
+	}
+
+	/**
+	 * 两个集合的交集
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static int[] intersect(int[] a, int[] b) {
+		checkSets(a, b);
+		int[] out = new int[Math.min(a.length, b.length)];
+		return trim(out, intersect(a, 0, a.length, b, 0, b.length, out, 0));
+	}
+
+	/**
+	 * 多个集合的交集，从最短的集合开始
+	 * @param sets
+	 * @return 没有集合时返回空数组
+	 */
+	public static int[] intersect(int[]... sets) {
+		checkSets(sets);
+		if (sets.length == 0)
+			return new int[0];
+		int[][] s = sets.clone();
+		Arrays.sort(s, Comparator.comparingInt(set -> set.length));
+		int[] first = s[0], pos = new int[s.length], out = new int[first.length];
+		int n = 0;
+		for (int p = 0; p < first.length; ) {
+			int key = first[p];
+			boolean match = true;
+			for (int i = 1; i < s.length; i++) {
+				pos[i] = gallop(s[i], pos[i], s[i].length, key);
+				if (pos[i] == s[i].length)
+					return trim(out, n);
+				if (s[i][pos[i]] != key) {
+					// s[i]中下一个元素之前的候选都不可能匹配
+					p = gallop(first, p + 1, first.length, s[i][pos[i]]);
+					match = false;
+					break;
+				}
+			}
+			if (match) {
+				out[n++] = key;
+				p++;
+			}
+		}
+		return trim(out, n);
+	}
+
+	/**
+	 * 两个集合的并集
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static int[] union(int[] a, int[] b) {
+		checkSets(a, b);
+		int[] out = new int[checkedSum(a.length, b.length)];
+		return trim(out, union(a, 0, a.length, b, 0, b.length, out, 0));
+	}
+
+	/**
+	 * 差集：在a中而不在b中的元素
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static int[] difference(int[] a, int[] b) {
+		checkSets(a, b);
+		int[] out = new int[a.length];
+		return trim(out, difference(a, 0, a.length, b, 0, b.length, out, 0));
+	}
+
+	/**
+	 * 按值域分段并行计算交集
+	 * @param a
+	 * @param b
+	 * @return
+	 * @see #intersect(int[], int[])
+	 */
+	public static int[] parallelIntersect(int[] a, int[] b) {
+		checkSets(a, b);
+		return parallel(a, b, SortedSets::intersect, Math::min);
+	}
+
+	/**
+	 * 按值域分段并行计算并集
+	 * @param a
+	 * @param b
+	 * @return
+	 * @see #union(int[], int[])
+	 */
+	public static int[] parallelUnion(int[] a, int[] b) {
+		checkSets(a, b);
+		checkedSum(a.length, b.length);
+		return parallel(a, b, SortedSets::union, Integer::sum);
+	}
+
+	/**
+	 * 按值域分段并行计算差集
+	 * @param a
+	 * @param b
+	 * @return
+	 * @see #difference(int[], int[])
+	 */
+	public static int[] parallelDifference(int[] a, int[] b) {
+		checkSets(a, b);
+		return parallel(a, b, SortedSets::difference, (na, nb) -> na);
+	}
+
+	/**
+	 * 有序数组中不重复的元素
+	 * @param a 升序的数组
+	 * @return 严格递增的新数组
+	 */
+	public static int[] distinct(int[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int[] out = new int[a.length];
+		int n = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (n > 0 && a[i] < out[n - 1])
+				throw new IllegalArgumentException("array is not sorted at index " + i);
+			if (n == 0 || a[i] != out[n - 1])
+				out[n++] = a[i];
+		}
+		return trim(out, n);
+	}
+
+	public static long[] intersect(long[] a, long[] b) {
+		checkSets(a, b);
+		long[] out = new long[Math.min(a.length, b.length)];
+		return trim(out, intersect(a, 0, a.length, b, 0, b.length, out, 0));
+	}
+
+	public static long[] intersect(long[]... sets) {
+		checkSets(sets);
+		if (sets.length == 0)
+			return new long[0];
+		long[][] s = sets.clone();
+		Arrays.sort(s, Comparator.comparingInt(set -> set.length));
+		long[] first = s[0], out = new long[first.length];
+		int[] pos = new int[s.length];
+		int n = 0;
+		for (int p = 0; p < first.length; ) {
+			long key = first[p];
+			boolean match = true;
+			for (int i = 1; i < s.length; i++) {
+				pos[i] = gallop(s[i], pos[i], s[i].length, key);
+				if (pos[i] == s[i].length)
+					return trim(out, n);
+				if (s[i][pos[i]] != key) {
+					p = gallop(first, p + 1, first.length, s[i][pos[i]]);
+					match = false;
+					break;
+				}
+			}
+			if (match) {
+				out[n++] = key;
+				p++;
+			}
+		}
+		return trim(out, n);
+	}
+
+	public static long[] union(long[] a, long[] b) {
+		checkSets(a, b);
+		long[] out = new long[checkedSum(a.length, b.length)];
+		return trim(out, union(a, 0, a.length, b, 0, b.length, out, 0));
+	}
+
+	public static long[] difference(long[] a, long[] b) {
+		checkSets(a, b);
+		long[] out = new long[a.length];
+		return trim(out, difference(a, 0, a.length, b, 0, b.length, out, 0));
+	}
+
+	public static long[] parallelIntersect(long[] a, long[] b) {
+		checkSets(a, b);
+		return parallel(a, b, SortedSets::intersect, Math::min);
+	}
+
+	public static long[] parallelUnion(long[] a, long[] b) {
+		checkSets(a, b);
+		checkedSum(a.length, b.length);
+		return parallel(a, b, SortedSets::union, Integer::sum);
+	}
+
+	public static long[] parallelDifference(long[] a, long[] b) {
+		checkSets(a, b);
+		return parallel(a, b, SortedSets::difference, (na, nb) -> na);
+	}
+
+	public static long[] distinct(long[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		long[] out = new long[a.length];
+		int n = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (n > 0 && a[i] < out[n - 1])
+				throw new IllegalArgumentException("array is not sorted at index " + i);
+			if (n == 0 || a[i] != out[n - 1])
+				out[n++] = a[i];
+		}
+		return trim(out, n);
+	}
+
+	/**
+	 * 计算a[alo..ahi)与b[blo..bhi)的集合运算，结果写入out[n..)，返回结果的结束下标
+	 */
+	@FunctionalInterface
+	private interface IntSetOp {
+		int apply(int[] a, int alo, int ahi, int[] b, int blo, int bhi, int[] out, int n);
+	}
+
+	@FunctionalInterface
+	private interface LongSetOp {
+		int apply(long[] a, int alo, int ahi, long[] b, int blo, int bhi, long[] out, int n);
+	}
+
+	private static int intersect(int[] a, int alo, int ahi, int[] b, int blo, int bhi, int[] out, int n) {
+		if (ahi - alo > bhi - blo)
+			return intersect(b, blo, bhi, a, alo, ahi, out, n);
+		if (skewed(ahi - alo, bhi - blo)) {
+			for (int i = alo, j = blo; i < ahi; i++) {
+				j = gallop(b, j, bhi, a[i]);
+				if (j == bhi)
+					break;
+				if (b[j] == a[i])
+					out[n++] = b[j++];
+			}
+			return n;
+		}
+		for (int i = alo, j = blo; i < ahi && j < bhi; ) {
+			if (a[i] < b[j])
+				i++;
+			else if (b[j] < a[i])
+				j++;
+			else {
+				out[n++] = a[i++];
+				j++;
+			}
+		}
+		return n;
+	}
+
+	private static int union(int[] a, int alo, int ahi, int[] b, int blo, int bhi, int[] out, int n) {
+		if (ahi - alo > bhi - blo)
+			return union(b, blo, bhi, a, alo, ahi, out, n);
+		int i = alo, j = blo;
+		if (skewed(ahi - alo, bhi - blo)) {
+			// b中小于a[i]的一段整段复制
+			for (; i < ahi; i++) {
+				int end = gallop(b, j, bhi, a[i]);
+				System.arraycopy(b, j, out, n, end - j);
+				n += end - j;
+				j = end < bhi && b[end] == a[i] ? end + 1 : end;
+				out[n++] = a[i];
+			}
+		} else {
+			while (i < ahi && j < bhi) {
+				if (a[i] < b[j])
+					out[n++] = a[i++];
+				else if (b[j] < a[i])
+					out[n++] = b[j++];
+				else {
+					out[n++] = a[i++];
+					j++;
+				}
+			}
+			System.arraycopy(a, i, out, n, ahi - i);
+			n += ahi - i;
+		}
+		System.arraycopy(b, j, out, n, bhi - j);
+		return n + bhi - j;
+	}
+
+	private static int difference(int[] a, int alo, int ahi, int[] b, int blo, int bhi, int[] out, int n) {
+		int i = alo, j = blo;
+		if (skewed(ahi - alo, bhi - blo)) {
+			// a很短：在b中查找a的每个元素
+			for (; i < ahi && j < bhi; i++) {
+				j = gallop(b, j, bhi, a[i]);
+				if (j == bhi || b[j] != a[i])
+					out[n++] = a[i];
+			}
+		} else if (skewed(bhi - blo, ahi - alo)) {
+			// b很短：a中两个b元素之间的一段整段复制
+			for (; j < bhi && i < ahi; j++) {
+				int end = gallop(a, i, ahi, b[j]);
+				System.arraycopy(a, i, out, n, end - i);
+				n += end - i;
+				i = end < ahi && a[end] == b[j] ? end + 1 : end;
+			}
+		} else {
+			while (i < ahi && j < bhi) {
+				if (a[i] < b[j])
+					out[n++] = a[i++];
+				else if (b[j] < a[i])
+					j++;
+				else {
+					i++;
+					j++;
+				}
+			}
+		}
+		System.arraycopy(a, i, out, n, ahi - i);
+		return n + ahi - i;
+	}
+
+	private static int intersect(long[] a, int alo, int ahi, long[] b, int blo, int bhi, long[] out, int n) {
+		if (ahi - alo > bhi - blo)
+			return intersect(b, blo, bhi, a, alo, ahi, out, n);
+		if (skewed(ahi - alo, bhi - blo)) {
+			for (int i = alo, j = blo; i < ahi; i++) {
+				j = gallop(b, j, bhi, a[i]);
+				if (j == bhi)
+					break;
+				if (b[j] == a[i])
+					out[n++] = b[j++];
+			}
+			return n;
+		}
+		for (int i = alo, j = blo; i < ahi && j < bhi; ) {
+			if (a[i] < b[j])
+				i++;
+			else if (b[j] < a[i])
+				j++;
+			else {
+				out[n++] = a[i++];
+				j++;
+			}
+		}
+		return n;
+	}
+
+	private static int union(long[] a, int alo, int ahi, long[] b, int blo, int bhi, long[] out, int n) {
+		if (ahi - alo > bhi - blo)
+			return union(b, blo, bhi, a, alo, ahi, out, n);
+		int i = alo, j = blo;
+		if (skewed(ahi - alo, bhi - blo)) {
+			for (; i < ahi; i++) {
+				int end = gallop(b, j, bhi, a[i]);
+				System.arraycopy(b, j, out, n, end - j);
+				n += end - j;
+				j = end < bhi && b[end] == a[i] ? end + 1 : end;
+				out[n++] = a[i];
+			}
+		} else {
+			while (i < ahi && j < bhi) {
+				if (a[i] < b[j])
+					out[n++] = a[i++];
+				else if (b[j] < a[i])
+					out[n++] = b[j++];
+				else {
+					out[n++] = a[i++];
+					j++;
+				}
+			}
+			System.arraycopy(a, i, out, n, ahi - i);
+			n += ahi - i;
+		}
+		System.arraycopy(b, j, out, n, bhi - j);
+		return n + bhi - j;
+	}
+
+	private static int difference(long[] a, int alo, int ahi, long[] b, int blo, int bhi, long[] out, int n) {
+		int i = alo, j = blo;
+		if (skewed(ahi - alo, bhi - blo)) {
+			for (; i < ahi && j < bhi; i++) {
+				j = gallop(b, j, bhi, a[i]);
+				if (j == bhi || b[j] != a[i])
+					out[n++] = a[i];
+			}
+		} else if (skewed(bhi - blo, ahi - alo)) {
+			for (; j < bhi && i < ahi; j++) {
+				int end = gallop(a, i, ahi, b[j]);
+				System.arraycopy(a, i, out, n, end - i);
+				n += end - i;
+				i = end < ahi && a[end] == b[j] ? end + 1 : end;
+			}
+		} else {
+			while (i < ahi && j < bhi) {
+				if (a[i] < b[j])
+					out[n++] = a[i++];
+				else if (b[j] < a[i])
+					j++;
+				else {
+					i++;
+					j++;
+				}
+			}
+		}
+		System.arraycopy(a, i, out, n, ahi - i);
+		return n + ahi - i;
+	}
+
+	/**
+	 * 用较长数组中等距的元素作为分割值，每段在两个数组中的边界由二分查找得到。
+	 * 每段的结果写入out中按capacity预留的位置，最后依次前移拼接
+	 * @param capacity 两段长度对应的结果的最大长度
+	 */
+	private static int[] parallel(int[] a, int[] b, IntSetOp op, IntBinaryOperator capacity) {
+		int chunks = chunks(a.length + (long) b.length);
+		int[] big = a.length >= b.length ? a : b;
+		int[] aBound = new int[chunks + 1], bBound = new int[chunks + 1], offset = new int[chunks + 1];
+		aBound[chunks] = a.length;
+		bBound[chunks] = b.length;
+		for (int c = 1; c < chunks; c++) {
+			int key = big[(int) ((long) c * big.length / chunks)];
+			aBound[c] = lowerBound(a, aBound[c - 1], a.length, key);
+			bBound[c] = lowerBound(b, bBound[c - 1], b.length, key);
+		}
+		for (int c = 0; c < chunks; c++)
+			offset[c + 1] = offset[c] + capacity.applyAsInt(aBound[c + 1] - aBound[c], bBound[c + 1] - bBound[c]);
+		int[] out = new int[offset[chunks]], end = new int[chunks];
+		forEachChunk(chunks, c -> end[c] = op.apply(a, aBound[c], aBound[c + 1], b, bBound[c], bBound[c + 1], out, offset[c]));
+		int n = end[0];
+		for (int c = 1; c < chunks; c++) {
+			System.arraycopy(out, offset[c], out, n, end[c] - offset[c]);
+			n += end[c] - offset[c];
+		}
+		return trim(out, n);
+	}
+
+	private static long[] parallel(long[] a, long[] b, LongSetOp op, IntBinaryOperator capacity) {
+		int chunks = chunks(a.length + (long) b.length);
+		long[] big = a.length >= b.length ? a : b;
+		int[] aBound = new int[chunks + 1], bBound = new int[chunks + 1], offset = new int[chunks + 1];
+		aBound[chunks] = a.length;
+		bBound[chunks] = b.length;
+		for (int c = 1; c < chunks; c++) {
+			long key = big[(int) ((long) c * big.length / chunks)];
+			aBound[c] = lowerBound(a, aBound[c - 1], a.length, key);
+			bBound[c] = lowerBound(b, bBound[c - 1], b.length, key);
+		}
+		for (int c = 0; c < chunks; c++)
+			offset[c + 1] = offset[c] + capacity.applyAsInt(aBound[c + 1] - aBound[c], bBound[c + 1] - bBound[c]);
+		long[] out = new long[offset[chunks]];
+		int[] end = new int[chunks];
+		forEachChunk(chunks, c -> end[c] = op.apply(a, aBound[c], aBound[c + 1], b, bBound[c], bBound[c + 1], out, offset[c]));
+		int n = end[0];
+		for (int c = 1; c < chunks; c++) {
+			System.arraycopy(out, offset[c], out, n, end[c] - offset[c]);
+			n += end[c] - offset[c];
+		}
+		return trim(out, n);
+	}
+
+	// 并行时值域分成的段数，总长度小于PARALLEL_THRESHOLD时为1
+	private static int chunks(long n) {
+		if (n < PARALLEL_THRESHOLD)
+			return 1;
+		return (int) Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, n / (PARALLEL_THRESHOLD / 4)));
+	}
+
+	@FunctionalInterface
+	private interface ChunkTask {
+		void run(int chunk);
+	}
+
+	private static void forEachChunk(int chunks, ChunkTask task) {
+		if (chunks == 1) {
+			task.run(0);
+			return;
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			int chunk = c;
+			tasks.add(ForkJoinTask.adapt(() -> task.run(chunk)));
+		}
+		ForkJoinTask.invokeAll(tasks);
+	}
+
+	// m个元素在n个元素中逐个倍增查找比线性归并更快
+	private static boolean skewed(int m, int n) {
+		return (long) m * GALLOP_RATIO < n;
+	}
+
+	/**
+	 * a[lo..hi)中第一个不小于key的下标，从lo开始倍增步长，再在最后一步内二分查找
+	 */
+	private static int gallop(int[] a, int lo, int hi, int key) {
+		if (lo >= hi || a[lo] >= key)
+			return lo;
+		int prev = lo, step = 1;
+		while (step < hi - lo && a[lo + step] < key) {
+			prev = lo + step;
+			step <<= 1;
+		}
+		return lowerBound(a, prev + 1, lo + Math.min(step, hi - lo), key);
+	}
+
+	private static int gallop(long[] a, int lo, int hi, long key) {
+		if (lo >= hi || a[lo] >= key)
+			return lo;
+		int prev = lo, step = 1;
+		while (step < hi - lo && a[lo + step] < key) {
+			prev = lo + step;
+			step <<= 1;
+		}
+		return lowerBound(a, prev + 1, lo + Math.min(step, hi - lo), key);
+	}
+
+	// a[lo..hi)中第一个不小于key的下标
+	private static int lowerBound(int[] a, int lo, int hi, int key) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (a[mid] < key)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private static int lowerBound(long[] a, int lo, int hi, long key) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (a[mid] < key)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	private static int[] trim(int[] a, int n) {
+		return n == a.length ? a : Arrays.copyOf(a, n);
+	}
+
+	private static long[] trim(long[] a, int n) {
+		return n == a.length ? a : Arrays.copyOf(a, n);
+	}
+
+	private static int checkedSum(int m, int n) {
+		long total = (long) m + n;
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("total length is too large: " + total);
+		return (int) total;
+	}
+
+	private static void checkSets(int[] a, int[] b) {
+		if (a == null || b == null)
+			throw new IllegalArgumentException("argument set is null");
+		assert isSet(a) && isSet(b);
+	}
+
+	private static void checkSets(long[] a, long[] b) {
+		if (a == null || b == null)
+			throw new IllegalArgumentException("argument set is null");
+		assert isSet(a) && isSet(b);
+	}
+
+	private static void checkSets(int[][] sets) {
+		if (sets == null)
+			throw new IllegalArgumentException("argument sets is null");
+		for (int[] set : sets) {
+			if (set == null)
+				throw new IllegalArgumentException("argument sets contains null");
+			assert isSet(set);
+		}
+	}
+
+	private static void checkSets(long[][] sets) {
+		if (sets == null)
+			throw new IllegalArgumentException("argument sets is null");
+		for (long[] set : sets) {
+			if (set == null)
+				throw new IllegalArgumentException("argument sets contains null");
+			assert isSet(set);
+		}
+	}
+
+	// 是否严格递增
+	private static boolean isSet(int[] a) {
+		for (int i = 1; i < a.length; i++)
+			if (a[i] <= a[i - 1])
+				return false;
+		return true;
+	}
+
+	private static boolean isSet(long[] a) {
+		for (int i = 1; i < a.length; i++)
+			if (a[i] <= a[i - 1])
+				return false;
+		return true;
+	}
+}
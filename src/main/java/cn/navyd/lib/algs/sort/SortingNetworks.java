@@ -0,0 +1,184 @@
+package cn.navyd.lib.algs.sort;
+
+import java.util.Comparator;
+
+import cn.navyd.lib.util.SortStats;
+
+/**
+ * <p>排序网络：对不超过16个元素的子数组使用固定的比较交换序列排序，替代快速排序等递归末端的插入排序</p>
+ * 实现：
+ * <li>2~12与14~16个元素使用已知比较次数最少的网络，13个元素由16个元素的网络去掉多余的通道得到</li>
+ * <li>比较器按层排列，每一对(i, j)满足i &lt; j，交换后a[i] &lt;= a[j]。比较序列与数据无关，
+ * 循环的分支总能被正确预测</li>
+ * <li>基本类型的比较交换使用min/max与条件赋值，JIT可以编译为条件传送指令，没有数据相关的分支；
+ * 对象数组只在逆序时交换</li>
+ * <li>SortStats：对象数组的每个比较器计一次比较，逆序时计一次交换；基本类型只计交换</li>
+ * <p>
+ * 稳定性：否。MergeX与MSD的字符串排序需要稳定，仍然使用插入排序
+ * </p>
+ *
+ * @author Navy D
+ * @date 20171025143020
+ */
+public class SortingNetworks {
+	// 可以排序的最大长度
+	public static final int MAX_LENGTH = 16;
+	// NETWORKS[n]为n个元素的网络，依次为每个比较器的两个下标
+	private static final int[][] NETWORKS = {
+		{},
+		{},
+		// 2个元素，1次比较
+		{ 0, 1 },
+		// 3个元素，3次比较
+		{ 0, 2, 0, 1, 1, 2 },
+		// 4个元素，5次比较
+		{ 0, 2, 1, 3, 0, 1, 2, 3, 1, 2 },
+		// 5个元素，9次比较
+		{ 0, 3, 1, 4, 0, 2, 1, 3, 0, 1, 2, 4, 1, 2, 3, 4, 2, 3 },
+		// 6个元素，12次比较
+		{ 0, 5, 1, 3, 2, 4, 1, 2, 3, 4, 0, 3, 2, 5, 0, 1, 2, 3, 4, 5, 1, 2, 3, 4 },
+		// 7个元素，16次比较
+		{ 0, 6, 2, 3, 4, 5, 0, 2, 1, 4, 3, 6, 0, 1, 2, 5, 3, 4, 1, 2, 4, 6, 2, 3, 4, 5, 1, 2, 3, 4, 5, 6 },
+		// 8个元素，19次比较
+		{
+			0, 2, 1, 3, 4, 6, 5, 7, 0, 4, 1, 5, 2, 6, 3, 7, 0, 1, 2, 3, 4, 5, 6, 7, 2, 4, 3, 5, 1, 4, 3, 6,
+			1, 2, 3, 4, 5, 6
+		},
+		// 9个元素，25次比较
+		{
+			0, 3, 1, 7, 2, 5, 4, 8, 0, 7, 2, 4, 3, 8, 5, 6, 0, 2, 1, 3, 4, 5, 7, 8, 1, 4, 3, 6, 5, 7, 0, 1,
+			2, 4, 3, 5, 6, 8, 2, 3, 4, 5, 6, 7, 1, 2, 3, 4, 5, 6
+		},
+		// 10个元素，29次比较
+		{
+			0, 8, 1, 9, 2, 7, 3, 5, 4, 6, 0, 2, 1, 4, 5, 8, 7, 9, 0, 3, 2, 4, 5, 7, 6, 9, 0, 1, 3, 6, 8, 9,
+			1, 5, 2, 3, 4, 8, 6, 7, 1, 2, 3, 5, 4, 6, 7, 8, 2, 3, 4, 5, 6, 7, 3, 4, 5, 6
+		},
+		// 11个元素，35次比较
+		{
+			0, 9, 1, 6, 2, 4, 3, 7, 5, 8, 0, 1, 3, 5, 4, 10, 6, 9, 7, 8, 1, 3, 2, 5, 4, 7, 8, 10, 0, 4, 1, 2,
+			3, 7, 5, 9, 6, 8, 0, 1, 2, 6, 4, 5, 7, 8, 9, 10, 2, 4, 3, 6, 5, 7, 8, 9, 1, 2, 3, 4, 5, 6, 7, 8,
+			2, 3, 4, 5, 6, 7
+		},
+		// 12个元素，39次比较
+		{
+			0, 8, 1, 7, 2, 6, 3, 11, 4, 10, 5, 9, 0, 1, 2, 5, 3, 4, 6, 9, 7, 8, 10, 11, 0, 2, 1, 6, 5, 10,
+			9, 11, 0, 3, 1, 2, 4, 6, 5, 7, 8, 11, 9, 10, 1, 4, 3, 5, 6, 8, 7, 10, 1, 3, 2, 5, 6, 9, 8, 10,
+			2, 3, 4, 5, 6, 7, 8, 9, 4, 6, 5, 7, 3, 4, 5, 6, 7, 8
+		},
+		// 13个元素，46次比较
+		{
+			1, 12, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4, 11, 12, 0, 1, 2, 3, 4, 5, 6, 8, 7, 9,
+			10, 11, 0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 1, 4, 2, 6,
+			5, 8, 7, 10, 2, 4, 3, 6, 9, 12, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 6, 7,
+			8, 9
+		},
+		// 14个元素，51次比较
+		{
+			0, 13, 1, 12, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4, 6, 13, 11, 12, 0, 1, 2, 3, 4, 5,
+			6, 8, 7, 9, 10, 11, 12, 13, 0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 1, 2, 3, 12, 4, 6, 5, 7, 8, 10,
+			9, 11, 1, 4, 2, 6, 5, 8, 7, 10, 9, 13, 2, 4, 3, 6, 9, 12, 11, 13, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4,
+			5, 6, 7, 8, 9, 10, 11, 12, 6, 7, 8, 9
+		},
+		// 15个元素，56次比较
+		{
+			0, 13, 1, 12, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4, 6, 13, 8, 14, 11, 12,
+			0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13, 0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 12, 14, 1, 2,
+			3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 13, 14, 1, 4, 2, 6, 5, 8, 7, 10, 9, 13, 11, 14, 2, 4, 3, 6,
+			9, 12, 11, 13, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 6, 7, 8, 9
+		},
+		// 16个元素，60次比较
+		{
+			0, 13, 1, 12, 2, 15, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4, 6, 13, 8, 14,
+			10, 15, 11, 12, 0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13, 14, 15, 0, 2, 1, 3, 4, 10, 5, 11,
+			6, 7, 8, 9, 12, 14, 13, 15, 1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 13, 14, 1, 4, 2, 6, 5, 8,
+			7, 10, 9, 13, 11, 14, 2, 4, 3, 6, 9, 12, 11, 13, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4, 5, 6, 7, 8,
+			9, 10, 11, 12, 6, 7, 8, 9
+		},
+	};
+
+	private SortingNetworks() {
+	}
+
+	/**
+	 * 对a[lo..hi)排序，hi - lo不能超过MAX_LENGTH
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 */
+	public static void sort(int[] a, int lo, int hi) {
+		int[] net = network(lo, hi, a == null ? -1 : a.length);
+		for (int k = 0; k < net.length; k += 2) {
+			int i = lo + net[k], j = lo + net[k + 1];
+			int x = a[i], y = a[j];
+			if (y < x)
+				SortStats.exchange();
+			a[i] = Math.min(x, y);
+			a[j] = Math.max(x, y);
+		}
+	}
+
+	public static void sort(long[] a, int lo, int hi) {
+		int[] net = network(lo, hi, a == null ? -1 : a.length);
+		for (int k = 0; k < net.length; k += 2) {
+			int i = lo + net[k], j = lo + net[k + 1];
+			long x = a[i], y = a[j];
+			boolean swap = y < x;
+			if (swap)
+				SortStats.exchange();
+			a[i] = swap ? y : x;
+			a[j] = swap ? x : y;
+		}
+	}
+
+	/**
+	 * 与a[i] &lt; a[j]的比较一致，不使用Math.min以免NaN覆盖其他元素
+	 */
+	public static void sort(double[] a, int lo, int hi) {
+		int[] net = network(lo, hi, a == null ? -1 : a.length);
+		for (int k = 0; k < net.length; k += 2) {
+			int i = lo + net[k], j = lo + net[k + 1];
+			double x = a[i], y = a[j];
+			boolean swap = y < x;
+			if (swap)
+				SortStats.exchange();
+			a[i] = swap ? y : x;
+			a[j] = swap ? x : y;
+		}
+	}
+
+	public static <T extends Comparable<? super T>> void sort(T[] a, int lo, int hi) {
+		sort(a, lo, hi, null);
+	}
+
+	/**
+	 * 使用指定的顺序对a[lo..hi)排序
+	 * @param a
+	 * @param lo
+	 * @param hi
+	 * @param comparator 为null时使用自然顺序
+	 */
+	public static <T extends Comparable<? super T>> void sort(T[] a, int lo, int hi, Comparator<T> comparator) {
+		int[] net = network(lo, hi, a == null ? -1 : a.length);
+		for (int k = 0; k < net.length; k += 2) {
+			int i = lo + net[k], j = lo + net[k + 1];
+			T x = a[i], y = a[j];
+			SortStats.compare();
+			if (comparator != null ? comparator.compare(y, x) < 0 : y.compareTo(x) < 0) {
+				SortStats.exchange();
+				a[i] = y;
+				a[j] = x;
+			}
+		}
+	}
+
+	private static int[] network(int lo, int hi, int length) {
+		if (length < 0)
+			throw new IllegalArgumentException("argument array is null");
+		if (lo < 0 || hi > length || lo > hi)
+			throw new IllegalArgumentException("illegal range [" + lo + ", " + hi + ") of length " + length);
+		if (hi - lo > MAX_LENGTH)
+			throw new IllegalArgumentException("range length " + (hi - lo) + " exceeds " + MAX_LENGTH);
+		return NETWORKS[hi - lo];
+	}
+}
@@ -1,7 +1,11 @@
 package cn.navyd.lib.algs.string;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * <h1>低位优先的字符串排序算法：从右到左的键索引计数法</h1>
@@ -11,18 +15,29 @@ import java.util.Random;
  * 稳定性：稳定<br>
  * 注意：<br>
  * 该算法仅适用与定长字符串。对于字符串数组中长度不一的字符串会报异常
+ * <p>同样支持定长的byte[]/char[]记录与int/long键。一次遍历统计所有字节的频率，
+ * 每轮只在原数组与一个辅助数组之间交替分配；parallelSort对大数组按块并行统计与分配</p>
  *
  * @author Navy D
  * @date 20170923203245
  */
 public class LSD {
+	private static final int BITS_PER_BYTE = 8;
+	private static final int BITS_PER_INT = 32;
+	private static final int BITS_PER_LONG = 64;
+	// 每次取一个字节作为键，基数为2^8
+	private static final int RADIX = 1 << BITS_PER_BYTE;
+	private static final int MASK = RADIX - 1;
+	// 并行排序的最小数组长度
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
 
 	private LSD() {
 
 	}
 
 	/**
-	 * 按字符串前w个字符将字符串数组排序。
+	 * 按字符串前w个字符将字符串数组排序。每个字符作为低字节与高字节两个键，
+	 * 一次遍历统计所有键的频率，所有字符串都相同的键(如ascii字符的高字节)不需要分配
 	 * @param a 要排序的字符串数组
 	 * @param w 从1开始的w个字符
 	 * @author Navy D
@@ -31,33 +46,378 @@ public class LSD {
 	public static void sort(String[] a, int w) {
 		if (a == null)
 			throw new IllegalArgumentException("argument array is null");
+		if (a.length == 0)
+			return;
 		checkLength(a);
-		int n = a.length;
-		// 扩展ascii字符集8位的基数大小
-		int R = 256;
-		// 辅助数组
-		String[] aux = new String[n];
-		// 根据第d个字符用键索引计数法排序。d为一个字符串的第d个字符
-		for (int d = w - 1; d >= 0; d--) {
-			// 计算字符串数组中每个d位字符出现的频率。使用r+1是为了方便count[r+1] += count[r];count[0]永远为0
-			int[] count = new int[R+1];
-			for (int i = 0; i < n; i++)
-				count[a[i].charAt(d) + 1]++;
-			// 将频率转化为索引，字符按从小到大排序
-			for (int r = 0; r < R; r++)
-				count[r+1] += count[r];
-			// 数据分类。将对应编号的字符串从索引下标开始
-			for (int i = 0; i < n; i++)
-				aux[count[a[i].charAt(d)]++] = a[i];
-			// 回写
-//			for (int i = 0; i < n; i++)
-//				a[i] = aux[i];
-			System.arraycopy(aux, 0, a, 0, n);
+		sort(a, 2 * w, (s, k) -> charDigit(s.charAt(w - 1 - k / 2), k), false);
+
+		assert isSorted(a);
+	}
+
+	/**
+	 * 按前w个字节(无符号)将定长记录排序，稳定
+	 * @param a
+	 * @param w
+	 */
+	public static void sort(byte[][] a, int w) {
+		checkRecords(a, w);
+		sort(a, w, (r, k) -> r[w - 1 - k] & MASK, false);
+	}
+
+	/**
+	 * 并行排序定长记录
+	 * @param a
+	 * @param w
+	 * @see #sort(byte[][], int)
+	 */
+	public static void parallelSort(byte[][] a, int w) {
+		checkRecords(a, w);
+		sort(a, w, (r, k) -> r[w - 1 - k] & MASK, a.length >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * 按前w个字符将定长记录排序，稳定。每个字符分为两个字节作为键
+	 * @param a
+	 * @param w
+	 */
+	public static void sort(char[][] a, int w) {
+		checkRecords(a, w);
+		sort(a, 2 * w, (r, k) -> charDigit(r[w - 1 - k / 2], k), false);
+	}
+
+	/**
+	 * 并行排序定长记录
+	 * @param a
+	 * @param w
+	 * @see #sort(char[][], int)
+	 */
+	public static void parallelSort(char[][] a, int w) {
+		checkRecords(a, w);
+		sort(a, 2 * w, (r, k) -> charDigit(r[w - 1 - k / 2], k), a.length >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * 将整数数组升序排序，每次取一个字节，最高字节翻转符号位以支持负数
+	 * @param a
+	 */
+	public static void sort(int[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		sort(a, false);
+	}
+
+	/**
+	 * 并行排序整数数组。数组长度超过PARALLEL_THRESHOLD时，每轮由多个块并行统计本轮的直方图，
+	 * 前缀和后得到每个块每个字节的写入起点，再并行分配
+	 * @param a
+	 */
+	public static void parallelSort(int[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		sort(a, a.length >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * 将长整数数组升序排序
+	 * @param a
+	 * @see #sort(int[])
+	 */
+	public static void sort(long[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		sort(a, false);
+	}
+
+	/**
+	 * 并行排序长整数数组
+	 * @param a
+	 * @see #parallelSort(int[])
+	 */
+	public static void parallelSort(long[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		sort(a, a.length >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * 键索引计数法：一次遍历统计所有字节的频率，之后每轮在a与aux间交替分配，
+	 * 不再每轮回写。所有键都相同的字节直接跳过
+	 * @param a
+	 * @param parallel
+	 */
+	private static void sort(int[] a, boolean parallel) {
+		int n = a.length, digits = BITS_PER_INT / BITS_PER_BYTE;
+		int[][] count;
+		if (parallel) {
+			int chunks = chunks(n);
+			int[][][] local = new int[chunks][][];
+			forEachChunk(n, chunks, (c, from, to) -> local[c] = histograms(a, from, to));
+			count = sum(local);
+		} else
+			count = histograms(a, 0, n);
+
+		int[] src = a, dst = new int[n];
+		for (int d = 0; d < digits; d++) {
+			if (trivial(count[d], n))
+				continue;
+			int shift = BITS_PER_BYTE * d;
+			if (parallel)
+				parallelScatter(src, dst, shift);
+			else {
+				int[] c = count[d];
+				for (int r = 0; r < RADIX; r++)
+					c[r + 1] += c[r];
+				for (int i = 0; i < n; i++) {
+					int v = src[i];
+					dst[c[digit(v, shift)]++] = v;
+				}
+			}
+			int[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != a)
+			System.arraycopy(src, 0, a, 0, n);
+
+		assert isSorted(a);
+	}
+
+	private static void sort(long[] a, boolean parallel) {
+		int n = a.length, digits = BITS_PER_LONG / BITS_PER_BYTE;
+		int[][] count;
+		if (parallel) {
+			int chunks = chunks(n);
+			int[][][] local = new int[chunks][][];
+			forEachChunk(n, chunks, (c, from, to) -> local[c] = histograms(a, from, to));
+			count = sum(local);
+		} else
+			count = histograms(a, 0, n);
+
+		long[] src = a, dst = new long[n];
+		for (int d = 0; d < digits; d++) {
+			if (trivial(count[d], n))
+				continue;
+			int shift = BITS_PER_BYTE * d;
+			if (parallel)
+				parallelScatter(src, dst, shift);
+			else {
+				int[] c = count[d];
+				for (int r = 0; r < RADIX; r++)
+					c[r + 1] += c[r];
+				for (int i = 0; i < n; i++) {
+					long v = src[i];
+					dst[c[digit(v, shift)]++] = v;
+				}
+			}
+			long[] t = src;
+			src = dst;
+			dst = t;
 		}
+		if (src != a)
+			System.arraycopy(src, 0, a, 0, n);
 
 		assert isSorted(a);
 	}
 
+	/**
+	 * 记录的排序：digits个字节键，digit.of(record, 0)为最低位
+	 */
+	private static <T> void sort(T[] a, int digits, Digit<T> digit, boolean parallel) {
+		int n = a.length;
+		int[][] count;
+		if (parallel) {
+			int chunks = chunks(n);
+			int[][][] local = new int[chunks][][];
+			forEachChunk(n, chunks, (c, from, to) -> local[c] = histograms(a, from, to, digits, digit));
+			count = sum(local);
+		} else
+			count = histograms(a, 0, n, digits, digit);
+
+		T[] src = a, dst = a.clone();
+		for (int k = 0; k < digits; k++) {
+			if (trivial(count[k], n))
+				continue;
+			if (parallel)
+				parallelScatter(src, dst, k, digit);
+			else {
+				int[] c = count[k];
+				for (int r = 0; r < RADIX; r++)
+					c[r + 1] += c[r];
+				for (int i = 0; i < n; i++) {
+					T v = src[i];
+					dst[c[digit.of(v, k)]++] = v;
+				}
+			}
+			T[] t = src;
+			src = dst;
+			dst = t;
+		}
+		if (src != a)
+			System.arraycopy(src, 0, a, 0, n);
+	}
+
+	// a[from..to)中每个字节的频率，count[d][r+1]为第d个字节等于r的数量
+	private static int[][] histograms(int[] a, int from, int to) {
+		int[][] count = new int[BITS_PER_INT / BITS_PER_BYTE][RADIX + 1];
+		int[] c0 = count[0], c1 = count[1], c2 = count[2], c3 = count[3];
+		for (int i = from; i < to; i++) {
+			int v = a[i] ^ Integer.MIN_VALUE;
+			c0[(v & MASK) + 1]++;
+			c1[(v >>> 8 & MASK) + 1]++;
+			c2[(v >>> 16 & MASK) + 1]++;
+			c3[(v >>> 24) + 1]++;
+		}
+		return count;
+	}
+
+	private static int[][] histograms(long[] a, int from, int to) {
+		int digits = BITS_PER_LONG / BITS_PER_BYTE;
+		int[][] count = new int[digits][RADIX + 1];
+		for (int i = from; i < to; i++) {
+			long v = a[i] ^ Long.MIN_VALUE;
+			for (int d = 0; d < digits; d++, v >>>= BITS_PER_BYTE)
+				count[d][((int) v & MASK) + 1]++;
+		}
+		return count;
+	}
+
+	private static <T> int[][] histograms(T[] a, int from, int to, int digits, Digit<T> digit) {
+		int[][] count = new int[digits][RADIX + 1];
+		for (int i = from; i < to; i++)
+			for (int k = 0; k < digits; k++)
+				count[k][digit.of(a[i], k) + 1]++;
+		return count;
+	}
+
+	// 合并每个块的直方图
+	private static int[][] sum(int[][][] local) {
+		int[][] count = local[0];
+		for (int c = 1; c < local.length; c++)
+			for (int d = 0; d < count.length; d++)
+				for (int r = 0; r <= RADIX; r++)
+					count[d][r] += local[c][d][r];
+		return count;
+	}
+
+	// 所有键的该字节都相同时不需要分配
+	private static boolean trivial(int[] count, int n) {
+		for (int r = 1; r <= RADIX; r++)
+			if (count[r] != 0)
+				return count[r] == n;
+		return true;
+	}
+
+	/**
+	 * 每个块统计本轮的直方图，转换为每个块每个字节的写入起点后并行分配，保持稳定
+	 */
+	private static void parallelScatter(int[] src, int[] dst, int shift) {
+		int n = src.length, chunks = chunks(n);
+		int[][] start = new int[chunks][RADIX];
+		forEachChunk(n, chunks, (c, from, to) -> {
+			int[] h = start[c];
+			for (int i = from; i < to; i++)
+				h[digit(src[i], shift)]++;
+		});
+		offsets(start);
+		forEachChunk(n, chunks, (c, from, to) -> {
+			int[] h = start[c];
+			for (int i = from; i < to; i++) {
+				int v = src[i];
+				dst[h[digit(v, shift)]++] = v;
+			}
+		});
+	}
+
+	private static void parallelScatter(long[] src, long[] dst, int shift) {
+		int n = src.length, chunks = chunks(n);
+		int[][] start = new int[chunks][RADIX];
+		forEachChunk(n, chunks, (c, from, to) -> {
+			int[] h = start[c];
+			for (int i = from; i < to; i++)
+				h[digit(src[i], shift)]++;
+		});
+		offsets(start);
+		forEachChunk(n, chunks, (c, from, to) -> {
+			int[] h = start[c];
+			for (int i = from; i < to; i++) {
+				long v = src[i];
+				dst[h[digit(v, shift)]++] = v;
+			}
+		});
+	}
+
+	private static <T> void parallelScatter(T[] src, T[] dst, int k, Digit<T> digit) {
+		int n = src.length, chunks = chunks(n);
+		int[][] start = new int[chunks][RADIX];
+		forEachChunk(n, chunks, (c, from, to) -> {
+			int[] h = start[c];
+			for (int i = from; i < to; i++)
+				h[digit.of(src[i], k)]++;
+		});
+		offsets(start);
+		forEachChunk(n, chunks, (c, from, to) -> {
+			int[] h = start[c];
+			for (int i = from; i < to; i++) {
+				T v = src[i];
+				dst[h[digit.of(v, k)]++] = v;
+			}
+		});
+	}
+
+	// 前缀和：块c中字节r的起点为所有小于r的字节数量加上之前的块中字节r的数量
+	private static void offsets(int[][] start) {
+		int pos = 0;
+		for (int r = 0; r < RADIX; r++)
+			for (int c = 0; c < start.length; c++) {
+				int cnt = start[c][r];
+				start[c][r] = pos;
+				pos += cnt;
+			}
+	}
+
+	// 并行时数组分成的块数
+	private static int chunks(int n) {
+		return Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, n / (PARALLEL_THRESHOLD / 4)));
+	}
+
+	// 将[0..n)分为chunks个连续的块，在ForkJoinPool上并行执行
+	private static void forEachChunk(int n, int chunks, ChunkTask task) {
+		int size = (n + chunks - 1) / chunks;
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			int chunk = c, from = c * size, to = Math.min(n, from + size);
+			tasks.add(ForkJoinTask.adapt(() -> task.run(chunk, from, to)));
+		}
+		ForkJoinTask.invokeAll(tasks);
+	}
+
+	// 翻转符号位后右移shift位的一个字节
+	private static int digit(int v, int shift) {
+		return ((v ^ Integer.MIN_VALUE) >>> shift) & MASK;
+	}
+
+	private static int digit(long v, int shift) {
+		return (int) ((v ^ Long.MIN_VALUE) >>> shift) & MASK;
+	}
+
+	// 字符的第k个字节，k为偶数时是低字节
+	private static int charDigit(char c, int k) {
+		return (k & 1) == 0 ? c & MASK : c >>> BITS_PER_BYTE;
+	}
+
+	@FunctionalInterface
+	private interface Digit<T> {
+		/**
+		 * 记录的第k个字节键，k=0为最低位
+		 */
+		int of(T record, int k);
+	}
+
+	@FunctionalInterface
+	private interface ChunkTask {
+		void run(int chunk, int from, int to);
+	}
+
 	/**
 	 * 检查字符串数组相邻字符串是否有序
 	 * @param a
@@ -72,6 +432,20 @@ public class LSD {
 		return true;
 	}
 
+	private static boolean isSorted(int[] a) {
+		for (int i = 1; i < a.length; i++)
+			if (a[i] < a[i - 1])
+				return false;
+		return true;
+	}
+
+	private static boolean isSorted(long[] a) {
+		for (int i = 1; i < a.length; i++)
+			if (a[i] < a[i - 1])
+				return false;
+		return true;
+	}
+
 	private static void checkLength(String[] a) {
 		int len = a[0].length();
 		for (int i = 1; i < a.length; i++)
@@ -79,6 +453,22 @@ public class LSD {
 				throw new IllegalArgumentException("arrays length inconformity");
 	}
 
+	private static void checkRecords(byte[][] a, int w) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		for (byte[] r : a)
+			if (r.length < w)
+				throw new IllegalArgumentException("record length less than " + w);
+	}
+
+	private static void checkRecords(char[][] a, int w) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		for (char[] r : a)
+			if (r.length < w)
+				throw new IllegalArgumentException("record length less than " + w);
+	}
+
 	static void test(char[] b, int R) {
 		Random rand = new Random();
 		for (int i = 0; i < b.length; i++) {
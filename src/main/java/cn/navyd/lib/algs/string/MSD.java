@@ -1,8 +1,15 @@
 package cn.navyd.lib.algs.string;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
+import cn.navyd.lib.algs.sort.SortingNetworks;
 import cn.navyd.lib.algs.util.In;
+import cn.navyd.lib.util.Cutoffs;
 
 /**
  * <h1>高位优先的字符串排序：采用从左到右的键索引计数法</h1>
@@ -18,6 +25,8 @@ import cn.navyd.lib.algs.util.In;
  * 对于字符串末尾使用一个r+2的计数数组标记已经结尾的字符串和计数法需要的一个位置。<br>
  * 对于小数组使用插入排序提高性能<br>
  * 该算法不适合于含大量字符相等的字符串数组
+ * <p>整数：sort(int[])与sort(long[])按字节从高到低排序，翻转符号位以支持负数，
+ * parallelSort对大数组并行统计直方图与分配</p>
  *
  * @author Navy D
  * @date 20170924152245
@@ -25,11 +34,16 @@ import cn.navyd.lib.algs.util.In;
 public class MSD {
 	private static final int BITS_PER_BYTE =   8;
     private static final int BITS_PER_INT  =  32;
+	private static final int BITS_PER_LONG =  64;
+	// 整数每次取一个字节作为键，基数为2^8
+	private static final int RADIX = 1 << BITS_PER_BYTE;
+	// 并行排序时切换到顺序排序的子数组长度
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
 
 	// 字符编码基数如：ascii扩展是2^8，共256种编码，unicode=2^16共65536中编码
 	private static int R = 1 << 8;
-	// 切换为插入排序的数组大小值
-	private static final int CUTOFF = 15;
+	// 切换为插入排序的数组大小值，可由Cutoffs调优
+	private static final int CUTOFF = Cutoffs.get(Cutoffs.MSD, 15);
 
 	private MSD() {
 
@@ -46,14 +60,23 @@ public class MSD {
 			throw new IllegalArgumentException("argument array is null");
 		int n = a.length;
 		String[] aux = new String[n];
-		sort(a, 0, n - 1, 0, aux);
+		sort(a, 0, n - 1, 0, aux, CUTOFF);
 
 		assert isSorted(a);
 	}
 
-	private static void sort(String[] a, int lo, int hi, int d, String[] aux) {
+	/**
+	 * 使用指定的切换值cutoff排序，Cutoffs通过该方法测量实际的排序代码
+	 * @param a
+	 * @param cutoff
+	 */
+	static void sortWithCutoff(String[] a, int cutoff) {
+		sort(a, 0, a.length - 1, 0, new String[a.length], cutoff);
+	}
+
+	private static void sort(String[] a, int lo, int hi, int d, String[] aux, int cutoff) {
 		// 大小为cutoff的子数组切换到插入排序
-		if (hi <= lo + CUTOFF) {
+		if (hi <= lo + cutoff) {
 			insertion(a, lo, hi, d);
 			return;
 		}
@@ -82,7 +105,7 @@ public class MSD {
 		for (int r = 0; r < R; r++)
 			// count[r]表示第d位字符相同的字符串数组递归比较下一位d+1字符
 			if (count[r] < count[r+1])
-				sort(a, lo + count[r], lo + count[r + 1] - 1, d + 1, aux);
+				sort(a, lo + count[r], lo + count[r + 1] - 1, d + 1, aux, cutoff);
 
 	}
 
@@ -157,7 +180,7 @@ public class MSD {
 	}
 
 	/**
-	 * 对一个正整数数组使用键索引计数法升序排序
+	 * 对一个整数数组使用键索引计数法升序排序，支持负整数
 	 * @param a
 	 * @author Navy D
 	 * @date 20170924211230
@@ -167,79 +190,337 @@ public class MSD {
 			throw new IllegalArgumentException("argument array is null");
 		int n = a.length;
 		int[] aux = new int[n];
-		sort(a, 0, n - 1, 0, aux);
+		sort(a, 0, n - 1, 0, aux, new int[BITS_PER_INT / BITS_PER_BYTE][RADIX + 1]);
 
 		assert isSorted(a);
 	}
 
 	/**
-	 * 将一个整型数组使用键索引计数法排序。这个整型数组不支持负整数。原因在于移位后使用一个字节作为索引标记，一旦这个最高位是1，
-	 * 这个负数就排在最大了。这个排序利用定长的键索引，不需要R+2的计数，使用255一个字节作为基数取索引。有一点不是很明白。
-	 * a[i]>>shift。当d=4时，shift=-8，即a[i]>>-8.大概只有最高字节才能起作用，搞不清这个意思
+	 * 对一个整数数组并行排序。数组长度超过PARALLEL_THRESHOLD时，每一层的分配由多个块并行完成：
+	 * 每个块统计自己的直方图，前缀和后得到每个块中每个字节的写入起点，各块再并行分配。
+	 * 分配后字节相同的子数组在ForkJoinPool上并行递归
+	 * @param a
+	 */
+	public static void parallelSort(int[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int n = a.length;
+		if (n < PARALLEL_THRESHOLD) {
+			sort(a);
+			return;
+		}
+		int[] aux = new int[n];
+		ForkJoinPool.commonPool().invoke(new IntRadixTask(a, aux, 0, n - 1, 0, false));
+
+		assert isSorted(a);
+	}
+
+	/**
+	 * 将一个整型数组使用键索引计数法排序。从最高字节开始，每次取一个字节作为索引，
+	 * 定长4个字节不需要R+2的计数。比较时翻转符号位，负数的最高字节在0x00..0x7F，正数在0x80..0xFF，
+	 * 即负数排在正数之前。
+	 * <p>counts[d]是第d层递归使用的计数数组，同一层的递归依次执行，可以复用而不是每次调用分配。
+	 * 所有键的第d个字节相同时不需要分配，直接比较下一个字节</p>
 	 *
 	 * @param a
 	 * @param lo
 	 * @param hi
 	 * @param d
-	 * @param aux
+	 * @param aux 与a使用相同的下标
+	 * @param counts
 	 * @author Navy D
 	 * @date 20170924210325
 	 */
-	private static void sort(int[] a, int lo, int hi, int d, int[] aux) {
+	private static void sort(int[] a, int lo, int hi, int d, int[] aux, int[][] counts) {
+		int digits = BITS_PER_INT / BITS_PER_BYTE;
+		for (; d < digits; d++) {
+			if (hi <= lo + CUTOFF) {
+				insertion(a, lo, hi);
+				return;
+			}
+			int[] count = counts[d];
+			Arrays.fill(count, 0);
+			int shift = BITS_PER_INT - BITS_PER_BYTE * (d + 1);
+			for (int i = lo; i <= hi; i++)
+				count[digit(a[i], shift) + 1]++;
+			// 第d个字节都相同
+			if (count[digit(a[lo], shift) + 1] == hi - lo + 1)
+				continue;
+
+			for (int r = 0; r < RADIX; r++)
+				count[r + 1] += count[r];
+			for (int i = lo; i <= hi; i++)
+				aux[lo + count[digit(a[i], shift)]++] = a[i];
+			System.arraycopy(aux, lo, a, lo, hi - lo + 1);
+
+			// 分配后count[r]是字节r的终点，也是字节r+1的起点
+			if (d + 1 < digits) {
+				for (int r = 0, start = 0; r < RADIX; start = count[r++])
+					if (count[r] - start > 1)
+						sort(a, lo + start, lo + count[r] - 1, d + 1, aux, counts);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * 对一个长整数数组使用键索引计数法升序排序，支持负整数
+	 * @param a
+	 */
+	public static void sort(long[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int n = a.length;
+		long[] aux = new long[n];
+		sort(a, 0, n - 1, 0, aux, new int[BITS_PER_LONG / BITS_PER_BYTE][RADIX + 1]);
 
-		if (hi <= lo + CUTOFF) {
-			insertion(a, lo, hi, d);
+		assert isSorted(a);
+	}
+
+	/**
+	 * 对一个长整数数组并行排序
+	 * @param a
+	 * @see #parallelSort(int[])
+	 */
+	public static void parallelSort(long[] a) {
+		if (a == null)
+			throw new IllegalArgumentException("argument array is null");
+		int n = a.length;
+		if (n < PARALLEL_THRESHOLD) {
+			sort(a);
 			return;
 		}
+		long[] aux = new long[n];
+		ForkJoinPool.commonPool().invoke(new LongRadixTask(a, aux, 0, n - 1, 0, false));
 
-		// 定长4个字节，不需要标记结尾
-		int[] count = new int[R + 1];
-		int mask = R - 1; // 0xFF;
-		// 将一个int值分为4个字节，每次取一个字节比较，d=0保留高8位,d=1保留高16位
-		int shift = BITS_PER_INT - BITS_PER_BYTE * d - BITS_PER_BYTE;
-		System.out.format("lo=%3d hi=%3d d=%3d shift=%3d\n", lo, hi, d, shift);
-		// 将整数转化为256的余数索引
-		for (int i = lo; i <= hi; i++) {
-			int c = (a[i] >> shift) & mask; // 保留低8位
-			// System.out.format("c=%d\n", c);
-			count[c + 1]++;
+		assert isSorted(a);
+	}
+
+	/**
+	 * 与{@link #sort(int[], int, int, int, int[], int[][])}相同，长整数有8个字节
+	 */
+	private static void sort(long[] a, int lo, int hi, int d, long[] aux, int[][] counts) {
+		int digits = BITS_PER_LONG / BITS_PER_BYTE;
+		for (; d < digits; d++) {
+			if (hi <= lo + CUTOFF) {
+				insertion(a, lo, hi);
+				return;
+			}
+			int[] count = counts[d];
+			Arrays.fill(count, 0);
+			int shift = BITS_PER_LONG - BITS_PER_BYTE * (d + 1);
+			for (int i = lo; i <= hi; i++)
+				count[digit(a[i], shift) + 1]++;
+			if (count[digit(a[lo], shift) + 1] == hi - lo + 1)
+				continue;
+
+			for (int r = 0; r < RADIX; r++)
+				count[r + 1] += count[r];
+			for (int i = lo; i <= hi; i++)
+				aux[lo + count[digit(a[i], shift)]++] = a[i];
+			System.arraycopy(aux, lo, a, lo, hi - lo + 1);
+
+			if (d + 1 < digits) {
+				for (int r = 0, start = 0; r < RADIX; start = count[r++])
+					if (count[r] - start > 1)
+						sort(a, lo + start, lo + count[r] - 1, d + 1, aux, counts);
+			}
+			return;
 		}
+	}
 
-		for (int r = 0; r < R; r++)
-			count[r + 1] += count[r];
+	// 翻转符号位后右移shift位的一个字节
+	private static int digit(int v, int shift) {
+		return ((v ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+	}
 
-		for (int i = lo; i <= hi; i++) {
-			int c = (a[i] >> shift) & mask;
-			aux[count[c]++] = a[i];
+	private static int digit(long v, int shift) {
+		return (int) ((v ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+	}
+
+	// 并行分配时数组分成的块数
+	private static int chunks(int n) {
+		return Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, n / (PARALLEL_THRESHOLD / 4)));
+	}
+
+	/**
+	 * 并行排序a[lo..hi]的第d个及以后的字节。fromAux为true时先将aux[lo..hi]复制回a，
+	 * 分配后每个字节的子数组作为一个子任务，由子任务各自复制回a
+	 */
+	@SuppressWarnings("serial")
+	private static class IntRadixTask extends RecursiveAction {
+		private final int[] a, aux;
+		private final int lo, hi, d;
+		private final boolean fromAux;
+
+		IntRadixTask(int[] a, int[] aux, int lo, int hi, int d, boolean fromAux) {
+			this.a = a;
+			this.aux = aux;
+			this.lo = lo;
+			this.hi = hi;
+			this.d = d;
+			this.fromAux = fromAux;
 		}
 
-		for (int i = lo; i <= hi; i++)
-			a[i] = aux[i - lo];
-		// 所有字节完成排序
-		if (d == 4)
-			return;
+		@Override
+		protected void compute() {
+			int n = hi - lo + 1, digits = BITS_PER_INT / BITS_PER_BYTE;
+			if (fromAux)
+				System.arraycopy(aux, lo, a, lo, n);
+			for (int d = this.d; d < digits && n > 1; d++) {
+				if (n < PARALLEL_THRESHOLD) {
+					sort(a, lo, hi, d, aux, new int[digits][RADIX + 1]);
+					return;
+				}
+				int shift = BITS_PER_INT - BITS_PER_BYTE * (d + 1);
+				int chunks = chunks(n), size = (n + chunks - 1) / chunks;
+				int[][] hist = new int[chunks][RADIX];
+				ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+				// 每个块统计自己的直方图
+				for (int c = 0; c < chunks; c++) {
+					int from = lo + c * size, to = Math.min(hi + 1, from + size);
+					int[] h = hist[c];
+					tasks[c] = ForkJoinTask.adapt(() -> {
+						for (int i = from; i < to; i++)
+							h[digit(a[i], shift)]++;
+					});
+				}
+				invokeAll(tasks);
+
+				// 前缀和：块c中字节r的起点为所有小于r的字节数量加上之前的块中字节r的数量
+				int[] start = new int[RADIX + 1];
+				for (int r = 0; r < RADIX; r++) {
+					int pos = lo + start[r];
+					for (int c = 0; c < chunks; c++) {
+						int cnt = hist[c][r];
+						hist[c][r] = pos;
+						pos += cnt;
+					}
+					start[r + 1] = pos - lo;
+				}
+				if (start[digit(a[lo], shift) + 1] - start[digit(a[lo], shift)] == n)
+					continue;
+
+				// 每个块并行分配到aux
+				for (int c = 0; c < chunks; c++) {
+					int from = lo + c * size, to = Math.min(hi + 1, from + size);
+					int[] h = hist[c];
+					tasks[c] = ForkJoinTask.adapt(() -> {
+						for (int i = from; i < to; i++)
+							aux[h[digit(a[i], shift)]++] = a[i];
+					});
+				}
+				invokeAll(tasks);
+
+				List<IntRadixTask> buckets = new ArrayList<>();
+				for (int r = 0; r < RADIX; r++)
+					if (start[r + 1] > start[r])
+						buckets.add(new IntRadixTask(a, aux, lo + start[r], lo + start[r + 1] - 1, d + 1, true));
+				invokeAll(buckets);
+				return;
+			}
+		}
+	}
 
-		// 现将高位非0字节排序
-		// 当一个字节有许多重复如最高8位与之后多数 分类后count[0]=23...count[1]=3;很有 可能
-		// 需要将一个数字的下一个字节继续比较直到找出一个字节不是0
-		// 如果没有这个判断，count[0]=5,那么这5个数就直接跳过，即对于字节相等的就跳过了，错误
-		if (count[0] > 0)
-			sort(a, lo, lo + count[0] - 1, d + 1, aux);
-		for (int r = 0; r < R; r++)
-			// if (count[r+1] > count[r])// 可加可不加，插入排序可以避免lo>hi
-			sort(a, lo + count[r], lo + count[r + 1] - 1, d + 1, aux);
+	@SuppressWarnings("serial")
+	private static class LongRadixTask extends RecursiveAction {
+		private final long[] a, aux;
+		private final int lo, hi, d;
+		private final boolean fromAux;
+
+		LongRadixTask(long[] a, long[] aux, int lo, int hi, int d, boolean fromAux) {
+			this.a = a;
+			this.aux = aux;
+			this.lo = lo;
+			this.hi = hi;
+			this.d = d;
+			this.fromAux = fromAux;
+		}
+
+		@Override
+		protected void compute() {
+			int n = hi - lo + 1, digits = BITS_PER_LONG / BITS_PER_BYTE;
+			if (fromAux)
+				System.arraycopy(aux, lo, a, lo, n);
+			for (int d = this.d; d < digits && n > 1; d++) {
+				if (n < PARALLEL_THRESHOLD) {
+					sort(a, lo, hi, d, aux, new int[digits][RADIX + 1]);
+					return;
+				}
+				int shift = BITS_PER_LONG - BITS_PER_BYTE * (d + 1);
+				int chunks = chunks(n), size = (n + chunks - 1) / chunks;
+				int[][] hist = new int[chunks][RADIX];
+				ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+				for (int c = 0; c < chunks; c++) {
+					int from = lo + c * size, to = Math.min(hi + 1, from + size);
+					int[] h = hist[c];
+					tasks[c] = ForkJoinTask.adapt(() -> {
+						for (int i = from; i < to; i++)
+							h[digit(a[i], shift)]++;
+					});
+				}
+				invokeAll(tasks);
+
+				int[] start = new int[RADIX + 1];
+				for (int r = 0; r < RADIX; r++) {
+					int pos = lo + start[r];
+					for (int c = 0; c < chunks; c++) {
+						int cnt = hist[c][r];
+						hist[c][r] = pos;
+						pos += cnt;
+					}
+					start[r + 1] = pos - lo;
+				}
+				if (start[digit(a[lo], shift) + 1] - start[digit(a[lo], shift)] == n)
+					continue;
+
+				for (int c = 0; c < chunks; c++) {
+					int from = lo + c * size, to = Math.min(hi + 1, from + size);
+					int[] h = hist[c];
+					tasks[c] = ForkJoinTask.adapt(() -> {
+						for (int i = from; i < to; i++)
+							aux[h[digit(a[i], shift)]++] = a[i];
+					});
+				}
+				invokeAll(tasks);
+
+				List<LongRadixTask> buckets = new ArrayList<>();
+				for (int r = 0; r < RADIX; r++)
+					if (start[r + 1] > start[r])
+						buckets.add(new LongRadixTask(a, aux, lo + start[r], lo + start[r + 1] - 1, d + 1, true));
+				invokeAll(buckets);
+				return;
+			}
+		}
 	}
 
-	private static void insertion(int[] a, int lo, int hi, int d) {
-		for (int i = lo; i <= hi; i++)
-			for (int j = i; j > lo && a[j] < a[j - 1]; j--)
-				exch(a, j, j - 1);
+	// 不超过16个元素时使用排序网络
+	private static void insertion(int[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			int v = a[i];
+			int j = i;
+			for (; j > lo && v < a[j - 1]; j--)
+				a[j] = a[j - 1];
+			a[j] = v;
+		}
 	}
 
-	private static void exch(int[] a, int i, int j) {
-		int temp = a[i];
-		a[i] = a[j];
-		a[j] = temp;
+	private static void insertion(long[] a, int lo, int hi) {
+		if (hi - lo < SortingNetworks.MAX_LENGTH) {
+			SortingNetworks.sort(a, lo, hi + 1);
+			return;
+		}
+		for (int i = lo + 1; i <= hi; i++) {
+			long v = a[i];
+			int j = i;
+			for (; j > lo && v < a[j - 1]; j--)
+				a[j] = a[j - 1];
+			a[j] = v;
+		}
 	}
 
 	private static boolean isSorted(int[] a) {
@@ -249,6 +530,13 @@ public class MSD {
 		return true;
 	}
 
+	private static boolean isSorted(long[] a) {
+		for (int i = 1; i < a.length; i++)
+			if (a[i] < a[i - 1])
+				return false;
+		return true;
+	}
+
 	public static void main(String[] args) {
 		In in = new In("../MyAlgs/algs4-data/shells.txt");
 		String[] a = in.readAllStrings();
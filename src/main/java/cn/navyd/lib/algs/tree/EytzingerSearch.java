@@ -0,0 +1,307 @@
+package cn.navyd.lib.algs.tree;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>有序数组的静态查找：Eytzinger(BFS)布局</p>
+ * 将有序数组按完全二叉树的层序重排到b[1..n]，节点k的子节点为2k与2k+1。
+ * 二分查找前几层的元素被放在数组开头，常驻缓存；节点k向下4层的16个后代连续存放在b[16k..16k+16)，
+ * 查找时访问的内存是连续递增的，硬件预取可以提前读取
+ * <li>构建：节点k在有序数组中的下标可以直接计算，O(n)且不需要递归</li>
+ * <li>查找：每层只比较一次，比较结果直接作为下一个下标的最低位(无分支)，
+ * 循环结束后k的二进制位记录了路径：1为向右。ceiling为最后一次向左的节点，即去掉末尾的1与其后的一个0</li>
+ * <li>rank由ceiling节点的层数与层内位置计算，最后一层不满时减去缺少的叶子</li>
+ * <p>数组长度需要小于2^30，以保证2k+1不溢出</p>
+ * 使用：
+ * <pre>
+ * EytzingerSearch.OfInt index = EytzingerSearch.of(sortedIds);
+ * int r = index.rank(id);
+ * </pre>
+ * @author Navy D
+ * @date 20171028151236
+ */
+public class EytzingerSearch {
+	private static final int MAX_LENGTH = (1 << 30) - 1;
+
+	private EytzingerSearch() {
+	}
+
+	/**
+	 * 使用升序的数组构建查找表，不会修改原数组
+	 * @param sorted
+	 * @return
+	 */
+	public static OfInt of(int[] sorted) {
+		return new OfInt(sorted);
+	}
+
+	public static OfLong of(long[] sorted) {
+		return new OfLong(sorted);
+	}
+
+	public static <K extends Comparable<K>> Of<K> of(K[] sorted) {
+		return new Of<>(sorted);
+	}
+
+	public static final class OfInt {
+		private final int n;
+		private final int[] b;
+
+		private OfInt(int[] sorted) {
+			n = checkLength(sorted == null ? -1 : sorted.length);
+			b = new int[n + 1];
+			for (int k = 1; k <= n; k++)
+				b[k] = sorted[rankOf(k, n)];
+			assert isSorted(this);
+		}
+
+		public int size() {
+			return n;
+		}
+
+		/**
+		 * 小于key的元素的数量
+		 * @param key
+		 * @return
+		 */
+		public int rank(int key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] < key ? 1 : 0);
+			k = ceilingNode(k);
+			return k == 0 ? n : rankOf(k, n);
+		}
+
+		public boolean contains(int key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] < key ? 1 : 0);
+			k = ceilingNode(k);
+			return k != 0 && b[k] == key;
+		}
+
+		/**
+		 * 小于等于key的最大元素
+		 * @param key
+		 * @return
+		 * @throws NoSuchElementException 所有元素都大于key
+		 */
+		public int floor(int key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] <= key ? 1 : 0);
+			k = floorNode(k);
+			if (k == 0)
+				throw new NoSuchElementException("argument to floor() is too small");
+			return b[k];
+		}
+
+		/**
+		 * 大于等于key的最小元素
+		 * @param key
+		 * @return
+		 * @throws NoSuchElementException 所有元素都小于key
+		 */
+		public int ceiling(int key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] < key ? 1 : 0);
+			k = ceilingNode(k);
+			if (k == 0)
+				throw new NoSuchElementException("argument to ceiling() is too large");
+			return b[k];
+		}
+
+		/**
+		 * 有序数组中第i个元素
+		 * @param i
+		 * @return
+		 */
+		public int select(int i) {
+			return b[nodeOf(i, n)];
+		}
+	}
+
+	public static final class OfLong {
+		private final int n;
+		private final long[] b;
+
+		private OfLong(long[] sorted) {
+			n = checkLength(sorted == null ? -1 : sorted.length);
+			b = new long[n + 1];
+			for (int k = 1; k <= n; k++)
+				b[k] = sorted[rankOf(k, n)];
+			assert isSorted(this);
+		}
+
+		public int size() {
+			return n;
+		}
+
+		public int rank(long key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] < key ? 1 : 0);
+			k = ceilingNode(k);
+			return k == 0 ? n : rankOf(k, n);
+		}
+
+		public boolean contains(long key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] < key ? 1 : 0);
+			k = ceilingNode(k);
+			return k != 0 && b[k] == key;
+		}
+
+		public long floor(long key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] <= key ? 1 : 0);
+			k = floorNode(k);
+			if (k == 0)
+				throw new NoSuchElementException("argument to floor() is too small");
+			return b[k];
+		}
+
+		public long ceiling(long key) {
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k] < key ? 1 : 0);
+			k = ceilingNode(k);
+			if (k == 0)
+				throw new NoSuchElementException("argument to ceiling() is too large");
+			return b[k];
+		}
+
+		public long select(int i) {
+			return b[nodeOf(i, n)];
+		}
+	}
+
+	/**
+	 * Comparable的查找表，floor与ceiling不存在时返回null，与符号表一致
+	 * @param <K>
+	 */
+	public static final class Of<K extends Comparable<K>> {
+		private final int n;
+		private final K[] b;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private Of(K[] sorted) {
+			n = checkLength(sorted == null ? -1 : sorted.length);
+			b = (K[]) new Comparable[n + 1];
+			for (int k = 1; k <= n; k++)
+				b[k] = sorted[rankOf(k, n)];
+			assert isSorted(this);
+		}
+
+		public int size() {
+			return n;
+		}
+
+		public int rank(K key) {
+			if (key == null)
+				throw new IllegalArgumentException("argument to rank() is null");
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k].compareTo(key) < 0 ? 1 : 0);
+			k = ceilingNode(k);
+			return k == 0 ? n : rankOf(k, n);
+		}
+
+		public boolean contains(K key) {
+			K c = ceiling(key);
+			return c != null && c.compareTo(key) == 0;
+		}
+
+		public K floor(K key) {
+			if (key == null)
+				throw new IllegalArgumentException("argument to floor() is null");
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k].compareTo(key) <= 0 ? 1 : 0);
+			k = floorNode(k);
+			return k == 0 ? null : b[k];
+		}
+
+		public K ceiling(K key) {
+			if (key == null)
+				throw new IllegalArgumentException("argument to ceiling() is null");
+			int k = 1;
+			while (k <= n)
+				k = 2 * k + (b[k].compareTo(key) < 0 ? 1 : 0);
+			k = ceilingNode(k);
+			return k == 0 ? null : b[k];
+		}
+
+		public K select(int i) {
+			return b[nodeOf(i, n)];
+		}
+	}
+
+	// 最后一次向左(末尾的1之前的0)的节点，没有时为0
+	private static int ceilingNode(int k) {
+		return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+	}
+
+	// 最后一次向右(末尾的0之前的1)的节点，没有时为0
+	private static int floorNode(int k) {
+		return k >>> (Integer.numberOfTrailingZeros(k) + 1);
+	}
+
+	/**
+	 * 节点k在有序数组中的下标。先计算在高度为h的满二叉树中的中序位置p，
+	 * 满二叉树最后一层的第j个位置的中序位置为2j，最后一层只有m个节点时减去p之前缺少的叶子
+	 */
+	private static int rankOf(int k, int n) {
+		int h = 31 - Integer.numberOfLeadingZeros(n), d = 31 - Integer.numberOfLeadingZeros(k);
+		long p = ((2L * (k - (1 << d)) + 1) << (h - d)) - 1;
+		long m = n - ((1L << h) - 1);
+		return (int) (p - Math.max(0, (p + 1) / 2 - m));
+	}
+
+	/**
+	 * rankOf的逆运算：有序数组中第i个元素的节点
+	 */
+	private static int nodeOf(int i, int n) {
+		if (i < 0 || i >= n)
+			throw new IllegalArgumentException("argument to select() is invalid: " + i);
+		int h = 31 - Integer.numberOfLeadingZeros(n);
+		long m = n - ((1L << h) - 1);
+		// 前2m个位置中最后一层的叶子都存在
+		long p = i < 2 * m ? i : 2 * i - 2 * m + 1;
+		// 中序位置p+1的末尾0的个数为节点距离最后一层的高度
+		int up = Long.numberOfTrailingZeros(p + 1);
+		return (int) ((1L << (h - up)) + (p >>> (up + 1)));
+	}
+
+	private static int checkLength(int length) {
+		if (length < 0)
+			throw new IllegalArgumentException("argument array is null");
+		if (length > MAX_LENGTH)
+			throw new IllegalArgumentException("array is too large: " + length);
+		return length;
+	}
+
+	private static boolean isSorted(OfInt index) {
+		for (int i = 1; i < index.n; i++)
+			if (index.select(i) < index.select(i - 1))
+				return false;
+		return true;
+	}
+
+	private static boolean isSorted(OfLong index) {
+		for (int i = 1; i < index.n; i++)
+			if (index.select(i) < index.select(i - 1))
+				return false;
+		return true;
+	}
+
+	private static <K extends Comparable<K>> boolean isSorted(Of<K> index) {
+		for (int i = 1; i < index.n; i++)
+			if (index.select(i).compareTo(index.select(i - 1)) < 0)
+				return false;
+		return true;
+	}
+}
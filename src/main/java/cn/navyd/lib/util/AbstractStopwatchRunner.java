@@ -18,6 +18,9 @@ public abstract class AbstractStopwatchRunner implements WatchRunner {
     protected boolean isOnlyRan;
     private Runner before;
     private Runner after;
+    // runner.run()的排序计数之和与次数
+    private SortStats sortStats;
+    private int sortRuns;
     
     protected AbstractStopwatchRunner() {
         totalTime = 0;
@@ -33,6 +36,8 @@ public abstract class AbstractStopwatchRunner implements WatchRunner {
         isStarted = true;
         // 清空runnertime
         runnerTime = 0;
+        sortStats = SortStats.ZERO;
+        sortRuns = 0;
         return this;
     }
     
@@ -118,6 +123,12 @@ public abstract class AbstractStopwatchRunner implements WatchRunner {
     public long getAvgTimeSeconds() {
         return getAvgTimeMillis() / 1000;
     }
+
+    @Override
+    public SortStats getSortStats() {
+        checkRunning();
+        return sortRuns == 0 ? SortStats.ZERO : sortStats.average(sortRuns);
+    }
     
     /**
      * 执行参数Runner.run()，同时记录方法执行时间间隔。
@@ -127,9 +138,16 @@ public abstract class AbstractStopwatchRunner implements WatchRunner {
     protected long execute(Runner run) {
         if (run == null)
             return 0;
+        boolean counted = run != before && run != after;
+        if (counted)
+            SortStats.reset();
         long period = System.currentTimeMillis();
         run.run();
         period = System.currentTimeMillis() - period;
+        if (counted) {
+            sortStats = sortStats.plus(SortStats.snapshot());
+            sortRuns++;
+        }
         String prefix = null;
         if (run == before)
             prefix = "before";
@@ -0,0 +1,211 @@
+package cn.navyd.lib.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+import cn.navyd.lib.algs.sort.MergeX;
+import cn.navyd.lib.algs.sort.Quick;
+import cn.navyd.lib.algs.sort.QuickX;
+
+/**
+ * 排序算法切换到插入排序的子数组长度。类初始化时读入一次调优后的属性文件，
+ * 文件不存在、无法读取、值不合法或由其他机器与JVM生成时使用各个类的默认值。
+ * <p>文件位置为系统属性cn.navyd.lib.cutoffs指定的路径，默认为~/.navyd-lib/cutoffs.properties。
+ * 使用calibrate()或main在当前机器与JVM上测量候选值并写入文件，之后启动的JVM生效：
+ * <pre>
+ * java cn.navyd.lib.util.Cutoffs [path]
+ * </pre>
+ * <p>测量直接调用Quick、QuickX、MergeX与MSD中以切换值为参数的sortWithCutoff，
+ * 交替运行每个候选值并取多轮中的最短时间，选择最快的值。Sorts.quick与Quick共用Quick的测量结果
+ * @author navyd
+ *
+ */
+public class Cutoffs {
+    // Sorts.quick与Quick
+    public static final String QUICK = "quick";
+    // QuickX
+    public static final String QUICK_3WAY = "quick3way";
+    // MergeX
+    public static final String MERGE = "merge";
+    // MSD
+    public static final String MSD = "msd";
+    // 指定属性文件路径的系统属性
+    public static final String PATH_PROPERTY = "cn.navyd.lib.cutoffs";
+    // 记录生成文件的机器与JVM
+    private static final String JVM_KEY = "jvm";
+    private static final int MIN_CUTOFF = 4;
+    private static final int MAX_CUTOFF = 256;
+    private static final int[] CANDIDATES = { 4, 6, 8, 12, 16, 24, 32, 48, 64 };
+    // 测量使用的数组长度
+    private static final int SAMPLE_LENGTH = 1 << 16;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final Properties TUNED = load(path());
+
+    private Cutoffs() {
+    }
+
+    /**
+     * 返回调优后的值，没有时返回defaultValue
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public static int get(String key, int defaultValue) {
+        return get(TUNED, key, defaultValue);
+    }
+
+    /**
+     * 属性文件的路径
+     * @return
+     */
+    public static Path path() {
+        String path = System.getProperty(PATH_PROPERTY);
+        return path != null ? Paths.get(path)
+                : Paths.get(System.getProperty("user.home"), ".navyd-lib", "cutoffs.properties");
+    }
+
+    /**
+     * 在当前机器与JVM上测量所有切换值，返回的属性可以使用store写入文件
+     * @return
+     */
+    public static Properties calibrate() {
+        Random random = new Random();
+        Integer[] ints = new Integer[SAMPLE_LENGTH];
+        String[] strings = new String[SAMPLE_LENGTH];
+        for (int i = 0; i < SAMPLE_LENGTH; i++) {
+            ints[i] = random.nextInt();
+            strings[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 26);
+        }
+        Properties p = new Properties();
+        p.setProperty(JVM_KEY, jvm());
+        p.setProperty(QUICK, String.valueOf(fastest(ints, kernel(Quick.class, Comparable[].class))));
+        p.setProperty(QUICK_3WAY, String.valueOf(fastest(ints, kernel(QuickX.class, Comparable[].class))));
+        p.setProperty(MERGE, String.valueOf(fastest(ints, kernel(MergeX.class, Comparable[].class))));
+        p.setProperty(MSD, String.valueOf(fastest(strings, kernel(cn.navyd.lib.algs.string.MSD.class, String[].class))));
+        return p;
+    }
+
+    /**
+     * 测量并写入path，返回写入的属性
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static Properties calibrate(Path path) throws IOException {
+        if (path == null)
+            throw new IllegalArgumentException("argument path is null");
+        Properties p = calibrate();
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            p.store(out, "insertion sort cutoffs");
+        }
+        return p;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = args.length > 0 ? Paths.get(args[0]) : path();
+        System.out.println(path + ": " + calibrate(path));
+    }
+
+    /**
+     * 读入属性文件。不存在、无法读取或由其他JVM生成时返回空属性
+     */
+    static Properties load(Path path) {
+        Properties p = new Properties();
+        if (!Files.isRegularFile(path))
+            return p;
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            p.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return new Properties();
+        }
+        String jvm = p.getProperty(JVM_KEY);
+        return jvm == null || jvm.equals(jvm()) ? p : new Properties();
+    }
+
+    static int get(Properties p, String key, int defaultValue) {
+        String value = p.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        try {
+            int cutoff = Integer.parseInt(value.trim());
+            return cutoff >= MIN_CUTOFF && cutoff <= MAX_CUTOFF ? cutoff : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String jvm() {
+        return System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version") + " "
+                + System.getProperty("os.arch") + " " + Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 每轮依次运行所有候选值，预热后记录每个候选值的最短时间，返回最短时间最小的候选值
+     */
+    private static <T> int fastest(T[] source, Kernel<T> kernel) {
+        T[] a = source.clone();
+        long[] times = new long[CANDIDATES.length];
+        Arrays.fill(times, Long.MAX_VALUE);
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++)
+            for (int c = 0; c < CANDIDATES.length; c++) {
+                System.arraycopy(source, 0, a, 0, a.length);
+                long start = System.nanoTime();
+                kernel.sort(a, CANDIDATES[c]);
+                long time = System.nanoTime() - start;
+                if (round >= WARMUP_ROUNDS)
+                    times[c] = Math.min(times[c], time);
+            }
+        int best = 0;
+        for (int c = 1; c < CANDIDATES.length; c++)
+            if (times[c] < times[best])
+                best = c;
+        return CANDIDATES[best];
+    }
+
+    @FunctionalInterface
+    private interface Kernel<T> {
+        void sort(T[] a, int cutoff);
+    }
+
+    /**
+     * 调用排序类中包级私有的sortWithCutoff(a, cutoff)，测量的是实际使用的排序代码。
+     * 排序类在其他包中，只能通过反射访问
+     */
+    private static <T> Kernel<T> kernel(Class<?> type, Class<?> arrayType) {
+        Method method;
+        try {
+            method = type.getDeclaredMethod("sortWithCutoff", arrayType, int.class);
+            method.setAccessible(true);
+        } catch (NoSuchMethodException | SecurityException e) {
+            throw new IllegalStateException("no sortWithCutoff in " + type.getName(), e);
+        }
+        return (a, cutoff) -> {
+            try {
+                method.invoke(null, a, cutoff);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        };
+    }
+}
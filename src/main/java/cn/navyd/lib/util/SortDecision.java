@@ -0,0 +1,62 @@
+package cn.navyd.lib.util;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Sorts.sort对一次排序的选择与抽样得到的输入特征，通过Sorts.setDiagnostics注册的回调获得
+ * @author Navy D
+ * @date 20171024102233
+ *
+ */
+@Getter
+@ToString
+public class SortDecision {
+    /**
+     * Sorts.sort可以选择的排序算法
+     */
+    public enum Algorithm {
+        // 小数组插入排序
+        INSERTION,
+        // 基本有序或逆序：MergeBU.sortNatural
+        NATURAL_MERGE,
+        // 内省快速排序：Quick.sort
+        QUICK,
+        // 并行双切分点快速排序：Quick.parallelSort
+        PARALLEL_QUICK,
+        // 大量重复元素：QuickX.sort
+        QUICK_3WAY,
+        // 大量重复元素并行：QuickX.parallelSort
+        PARALLEL_QUICK_3WAY,
+        // Integer键：LSD.sort
+        RADIX,
+        // Integer键并行：LSD.parallelSort
+        PARALLEL_RADIX,
+        // String键：Quick3String.sort
+        STRING_QUICK_3WAY
+    }
+
+    private final Algorithm algorithm;
+    // 数组长度
+    private final int length;
+    // 数组的元素类型
+    private final Class<?> keyType;
+    // 抽样的相邻元素中逆序的比例，未抽样时为-1
+    private final double descentRatio;
+    // 抽样的元素中与相邻元素相等的比例，未抽样时为-1
+    private final double duplicateRatio;
+    private final boolean parallel;
+    // 抽样与排序的总时间
+    private final long nanos;
+
+    SortDecision(Algorithm algorithm, int length, Class<?> keyType, double descentRatio, double duplicateRatio,
+            boolean parallel, long nanos) {
+        this.algorithm = algorithm;
+        this.length = length;
+        this.keyType = keyType;
+        this.descentRatio = descentRatio;
+        this.duplicateRatio = duplicateRatio;
+        this.parallel = parallel;
+        this.nanos = nanos;
+    }
+}
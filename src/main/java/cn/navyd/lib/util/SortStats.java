@@ -0,0 +1,135 @@
+package cn.navyd.lib.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 排序的操作计数：比较、交换、数组读写次数与递归深度
+ * <p>默认关闭，启动时加上-Dnavyd.sort.stats=true开启。ENABLED是static final常量，
+ * 关闭时JIT内联后compare()等方法为空，if (ENABLED)分支被整个消除，没有额外开销</p>
+ * 计数规则：
+ * <li>一次比较计为两次读：被比较的元素通常来自数组</li>
+ * <li>一次交换计为两次读与两次写</li>
+ * <li>归并、插入排序移动与System.arraycopy复制的每个元素计为一次读与一次写</li>
+ * <li>深度为递归的最大层数，每个线程单独计算，并行排序中fork到其他线程的子任务从0开始</li>
+ * <li>基本类型的版本直接用&lt;比较，只统计交换与移动</li>
+ * <li>开启-ea时assert中isSorted的比较也会被计入</li>
+ * <p>计数是全局的，同时运行多个排序时会合并在一起。WatchRunner在每次run之前调用reset，
+ * 之后通过getSortStats()得到平均每次run的计数</p>
+ * 使用：
+ * <pre>
+ * watch.frequency(10).start().runThenStop(() -&gt; Quick.sort(a));
+ * log.debug("stats: {}", watch.getSortStats());
+ * </pre>
+ * @author Navy D
+ * @date 20171029103518
+ */
+@Getter
+@ToString
+public class SortStats {
+    public static final boolean ENABLED = Boolean.getBoolean("navyd.sort.stats");
+    static final SortStats ZERO = new SortStats(0, 0, 0, 0, 0);
+
+    private static final LongAdder COMPARES = new LongAdder();
+    private static final LongAdder EXCHANGES = new LongAdder();
+    private static final LongAdder READS = new LongAdder();
+    private static final LongAdder WRITES = new LongAdder();
+    private static final LongAccumulator MAX_DEPTH = new LongAccumulator(Math::max, 0);
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final long compares;
+    private final long exchanges;
+    private final long reads;
+    private final long writes;
+    private final long maxDepth;
+
+    SortStats(long compares, long exchanges, long reads, long writes, long maxDepth) {
+        this.compares = compares;
+        this.exchanges = exchanges;
+        this.reads = reads;
+        this.writes = writes;
+        this.maxDepth = maxDepth;
+    }
+
+    public static void compare() {
+        if (ENABLED) {
+            COMPARES.increment();
+            READS.add(2);
+        }
+    }
+
+    public static void exchange() {
+        if (ENABLED) {
+            EXCHANGES.increment();
+            READS.add(2);
+            WRITES.add(2);
+        }
+    }
+
+    /**
+     * 移动了n个元素
+     * @param n
+     */
+    public static void move(int n) {
+        if (ENABLED) {
+            READS.add(n);
+            WRITES.add(n);
+        }
+    }
+
+    /**
+     * 进入下一层递归，与exit()成对调用
+     */
+    public static void enter() {
+        if (ENABLED)
+            MAX_DEPTH.accumulate(++DEPTH.get()[0]);
+    }
+
+    public static void exit() {
+        if (ENABLED)
+            DEPTH.get()[0]--;
+    }
+
+    /**
+     * 清空所有计数
+     */
+    public static void reset() {
+        if (ENABLED) {
+            COMPARES.reset();
+            EXCHANGES.reset();
+            READS.reset();
+            WRITES.reset();
+            MAX_DEPTH.reset();
+        }
+    }
+
+    /**
+     * 当前的计数，未开启时都为0
+     * @return
+     */
+    public static SortStats snapshot() {
+        return new SortStats(COMPARES.sum(), EXCHANGES.sum(), READS.sum(), WRITES.sum(), MAX_DEPTH.get());
+    }
+
+    /**
+     * 与另一次计数合并：次数相加，深度取最大
+     * @param other
+     * @return
+     */
+    public SortStats plus(SortStats other) {
+        return new SortStats(compares + other.compares, exchanges + other.exchanges, reads + other.reads,
+                writes + other.writes, Math.max(maxDepth, other.maxDepth));
+    }
+
+    /**
+     * 平均n次的计数，深度不变
+     * @param n
+     * @return
+     */
+    public SortStats average(int n) {
+        return new SortStats(compares / n, exchanges / n, reads / n, writes / n, maxDepth);
+    }
+}
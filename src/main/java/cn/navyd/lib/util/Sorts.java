@@ -1,48 +1,236 @@
 package cn.navyd.lib.util;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import cn.navyd.lib.algs.sort.MergeBU;
+import cn.navyd.lib.algs.sort.Quick;
+import cn.navyd.lib.algs.sort.QuickX;
+import cn.navyd.lib.algs.string.LSD;
+import cn.navyd.lib.algs.string.Quick3String;
+import cn.navyd.lib.util.SortDecision.Algorithm;
 
 public class Sorts {
     private static final Random RANDOM = new Random(new Random().nextLong());
-    // 快速排序切换插入排序数组长度
-    private static final int QUICK_CUTOFF = 15;
-    
+    // 快速排序切换插入排序数组长度，可由Cutoffs调优
+    private static final int QUICK_CUTOFF = Cutoffs.get(Cutoffs.QUICK, 15);
+    // 快速排序超过该长度时使用九取样(Tukey ninther)选择切分点，否则使用三取样
+    private static final int NINTHER_CUTOFF = 40;
+    // sort()对不超过该长度的数组使用插入排序
+    private static final int INSERTION_MAX = 32;
+    // sort()抽样的元素数量
+    private static final int SAMPLE_SIZE = 256;
+    // 抽样的逆序比例不超过该值或不小于1减该值时认为基本有序
+    private static final double PRESORTED_RATIO = 0.05;
+    // 抽样的重复比例不小于该值时使用三向切分
+    private static final double DUPLICATE_RATIO = 0.25;
+    // sort()对Integer, String数组使用基数排序的最小长度
+    private static final int RADIX_MIN = 1 << 12;
+    // sort()使用并行排序的最小长度
+    private static final int PARALLEL_MIN = 1 << 16;
+    // sort()每次选择后的回调
+    private static volatile Consumer<SortDecision> diagnostics;
+
+    /**
+     * 自适应排序：抽样估计输入的特征后选择排序算法，不保证稳定。
+     * <li>不超过32个元素：插入排序</li>
+     * <li>抽样的相邻元素基本有序或逆序：MergeBU.sortNatural，有序的段只需要线性时间</li>
+     * <li>Integer数组：键与下标合并为long后LSD基数排序；String数组：三向字符串快速排序</li>
+     * <li>抽样中重复元素多：三向切分的QuickX</li>
+     * <li>其他：内省快速排序Quick</li>
+     * <p>长度超过2^16且ForkJoinPool有多个线程时使用对应的并行版本。
+     * 每次选择通过{@link #setDiagnostics(Consumer)}报告</p>
+     * @param a
+     */
+    public static <T extends Comparable<? super T>> void sort(T[] a) {
+        sort(a, null);
+    }
+
+    /**
+     * 使用指定的顺序自适应排序
+     * @param a
+     * @param comparator 为null时使用自然顺序
+     * @see #sort(Comparable[])
+     */
+    public static <T extends Comparable<? super T>> void sort(T[] a, Comparator<T> comparator) {
+        if (a == null)
+            throw new IllegalArgumentException("argument array is null");
+        long start = System.nanoTime();
+        int n = a.length;
+        Class<?> keyType = a.getClass().getComponentType();
+        boolean parallel = n >= PARALLEL_MIN && ForkJoinPool.getCommonPoolParallelism() > 1;
+        double descents = -1, duplicates = -1;
+        Algorithm algorithm;
+        if (n <= INSERTION_MAX)
+            algorithm = Algorithm.INSERTION;
+        else if ((descents = descentRatio(a, comparator)) <= PRESORTED_RATIO || descents >= 1 - PRESORTED_RATIO)
+            algorithm = Algorithm.NATURAL_MERGE;
+        else if (comparator == null && n >= RADIX_MIN && keyType == Integer.class)
+            algorithm = parallel ? Algorithm.PARALLEL_RADIX : Algorithm.RADIX;
+        else if (comparator == null && n >= RADIX_MIN && keyType == String.class)
+            algorithm = Algorithm.STRING_QUICK_3WAY;
+        else if ((duplicates = duplicateRatio(a, comparator)) >= DUPLICATE_RATIO)
+            algorithm = parallel ? Algorithm.PARALLEL_QUICK_3WAY : Algorithm.QUICK_3WAY;
+        else
+            algorithm = parallel ? Algorithm.PARALLEL_QUICK : Algorithm.QUICK;
+
+        switch (algorithm) {
+        case INSERTION:
+            // sortNatural对小数组就是二分插入排序
+            if (comparator == null)
+                insertion(a);
+            else
+                MergeBU.sortNatural(a, comparator);
+            break;
+        case NATURAL_MERGE:
+            if (comparator == null)
+                MergeBU.sortNatural(a);
+            else
+                MergeBU.sortNatural(a, comparator);
+            break;
+        case RADIX:
+        case PARALLEL_RADIX:
+            radix((Integer[]) (Object[]) a, parallel);
+            break;
+        case STRING_QUICK_3WAY:
+            Quick3String.sort((String[]) (Object[]) a);
+            break;
+        case QUICK_3WAY:
+            if (comparator == null)
+                QuickX.sort(a);
+            else
+                QuickX.sort(a, comparator);
+            break;
+        case PARALLEL_QUICK_3WAY:
+            if (comparator == null)
+                QuickX.parallelSort(a);
+            else
+                QuickX.parallelSort(a, comparator);
+            break;
+        case PARALLEL_QUICK:
+            if (comparator == null)
+                Quick.parallelSort(a);
+            else
+                Quick.parallelSort(a, comparator);
+            break;
+        default:
+            if (comparator == null)
+                Quick.sort(a);
+            else
+                Quick.sort(a, comparator);
+        }
+
+        Consumer<SortDecision> listener = diagnostics;
+        if (listener != null)
+            listener.accept(new SortDecision(algorithm, n, keyType, descents, duplicates, parallel, System.nanoTime() - start));
+    }
+
+    /**
+     * 设置sort()每次选择算法后的回调，用于审计选择与耗时。为null时关闭
+     * @param listener
+     */
+    public static void setDiagnostics(Consumer<SortDecision> listener) {
+        diagnostics = listener;
+    }
+
+    // 等间隔抽样的相邻元素对中逆序的比例
+    private static <T extends Comparable<? super T>> double descentRatio(T[] a, Comparator<T> comparator) {
+        int pairs = Math.min(SAMPLE_SIZE, a.length - 1), step = (a.length - 1) / pairs, descents = 0;
+        for (int k = 0, i = 0; k < pairs; k++, i += step)
+            if (less(a[i + 1], a[i], comparator))
+                descents++;
+        return (double) descents / pairs;
+    }
+
+    // 等间隔抽样的元素排序后与前一个元素相等的比例
+    private static <T extends Comparable<? super T>> double duplicateRatio(T[] a, Comparator<T> comparator) {
+        int m = Math.min(SAMPLE_SIZE, a.length), step = a.length / m, equal = 0;
+        T[] sample = Arrays.copyOf(a, m);
+        for (int k = 0; k < m; k++)
+            sample[k] = a[k * step];
+        if (comparator == null)
+            insertion(sample);
+        else
+            MergeBU.sortNatural(sample, comparator);
+        for (int k = 1; k < m; k++)
+            if (!less(sample[k - 1], sample[k], comparator))
+                equal++;
+        return (double) equal / (m - 1);
+    }
+
+    /**
+     * Integer基数排序：高32位为值，低32位为下标，排序long后按下标取回原来的对象，
+     * 因此是稳定的且不会创建新的Integer。只有下标的低位字节会参与排序
+     */
+    private static void radix(Integer[] a, boolean parallel) {
+        int n = a.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = ((long) a[i] << 32) | i;
+        if (parallel)
+            LSD.parallelSort(keys);
+        else
+            LSD.sort(keys);
+        Integer[] copy = a.clone();
+        for (int i = 0; i < n; i++)
+            a[i] = copy[(int) keys[i]];
+    }
+
+    private static <T extends Comparable<? super T>> boolean less(T v, T w, Comparator<T> comparator) {
+        SortStats.compare();
+        return comparator != null ? comparator.compare(v, w) < 0 : v.compareTo(w) < 0;
+    }
+
     /**
      * 堆排序
      * @param a
      */
     public static <T extends Comparable<? super T>> void  heap(T[] a) {
-        final int len = a.length;
+        heap(a, 0, a.length);
+    }
+
+    /**
+     * 对数组a在[start..end)范围内堆排序。堆的根在start
+     * @param a
+     * @param start
+     * @param end
+     */
+    private static <T extends Comparable<? super T>> void  heap(T[] a, int start, int end) {
+        final int len = end - start;
         // 构造一个完整的大顶堆
         for (int i = (len/2)-1; i >= 0; i--)
-            sink(a, i, len);
+            sink(a, start, i, len);
         int i = len;
         // 从大顶堆中选择最大的元素下标0交换到数组最后，使得数组有序
         while (i-- > 0) {
-            exch(a, 0, i);
+            exch(a, start, start + i);
             // 交换的小元素0下沉保持堆有序
-            sink(a, 0, i);
+            sink(a, start, 0, i);
         }
     }
-    
+
     /**
-     * 对大顶堆指定位置k在[0..length)范围内下沉调整k到合适的位置。堆数组从0开始
+     * 对大顶堆指定位置k在[0..length)范围内下沉调整k到合适的位置。堆数组从start开始，k与length都相对于start
      * @param a
+     * @param start
      * @param k
      * @param length
      */
-    private static <T extends Comparable<? super T>> void  sink(T[] a, int k, int length) {
+    private static <T extends Comparable<? super T>> void  sink(T[] a, int start, int k, int length) {
         int i = k;
         // 父节点i(k)的左子节点
         while ((i = (2*i + 1)) < length) {
             // 如果存在i+1子节点，则获取较大的子节点下标
-            if (i+1 < length && less(a[i], a[i+1]))
+            if (i+1 < length && less(a[start+i], a[start+i+1]))
                 i++;
             // 如果父节点k >= 子节点中较大的一个i，满足大顶堆的定义，退出
-            if (!less(a[k], a[i]))
+            if (!less(a[start+k], a[start+i]))
                 break;
-            // 父节点 k < 大的子节点i 则交换两者 
-            exch(a, i, k);
+            // 父节点 k < 大的子节点i 则交换两者
+            exch(a, start+i, start+k);
             // 将父节点变为子节点的位置，继续向下调整
             k = i;
         }
@@ -69,22 +257,65 @@ public class Sorts {
         }
     }
     
+    /**
+     * 快速排序。使用内省排序introsort：
+     * <li>不再预先打乱数组，切分点使用三取样或九取样(ninther)选择</li>
+     * <li>递归深度超过2lgN时说明切分不均匀，对该子数组切换为堆排序，保证最坏情况为NlgN</li>
+     * @param a
+     */
     public static <T extends Comparable<? super T>> void quick(T[] a) {
-        shuffle(a);
-        quickSort(a, 0, a.length - 1);
+        quickSort(a, 0, a.length - 1, depthLimit(a.length));
     }
-    
-    private static <T extends Comparable<? super T>> void quickSort(T[] a, int lo, int hi) {
+
+    private static <T extends Comparable<? super T>> void quickSort(T[] a, int lo, int hi, int depth) {
         // 在子数组length = CUTOFF时使用插入排序
-        if (lo + QUICK_CUTOFF > hi) {
+        if (hi <= lo + QUICK_CUTOFF) {
             insertion(a, lo, hi + 1);
             return;
         }
+        // 递归过深，切换到堆排序
+        if (depth == 0) {
+            heap(a, lo, hi + 1);
+            return;
+        }
+        exch(a, lo, pivot(a, lo, hi));
         int j = partition(a, lo, hi);
-        quickSort(a, lo, j - 1);
-        quickSort(a, j + 1, hi);
+        SortStats.enter();
+        quickSort(a, lo, j - 1, depth - 1);
+        quickSort(a, j + 1, hi, depth - 1);
+        SortStats.exit();
     }
-    
+
+    /**
+     * 返回[lo..hi]中切分点的下标。长度不超过NINTHER_CUTOFF时使用三取样，否则使用九取样
+     */
+    private static <T extends Comparable<? super T>> int pivot(T[] a, int lo, int hi) {
+        int n = hi - lo + 1, mid = lo + (n >>> 1);
+        if (n <= NINTHER_CUTOFF)
+            return median3(a, lo, mid, hi);
+        int eps = n >>> 3;
+        int m1 = median3(a, lo, lo + eps, lo + eps + eps);
+        int m2 = median3(a, mid - eps, mid, mid + eps);
+        int m3 = median3(a, hi - eps - eps, hi - eps, hi);
+        return median3(a, m1, m2, m3);
+    }
+
+    // 返回下标i,j,k中元素值为中间的一个下标
+    private static <T extends Comparable<? super T>> int median3(T[] a, int i, int j, int k) {
+        return less(a[i], a[j]) ?
+                (less(a[j], a[k]) ? j : less(a[i], a[k]) ? k : i) :
+                (less(a[k], a[j]) ? j : less(a[k], a[i]) ? k : i);
+    }
+
+    /**
+     * 内省排序的最大递归深度2lgN
+     * @param n
+     * @return
+     */
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(n | 1));
+    }
+
     private static <T extends Comparable<? super T>> int partition(T[] a, int lo, int hi) {
         int i = lo, j = hi + 1;
         // 切分元素
@@ -147,6 +378,7 @@ public class Sorts {
                 while (j >= h && less(val, a[j-h]))
                     a[j] = a[j -= h];
                 a[j] = val;
+                SortStats.move((i - j) / h);
             }
             h /= 3;
         }
@@ -214,6 +446,7 @@ public class Sorts {
                 // 注意：先执行j--，再执行后面的j ===> a[j--] = a[j-1]会导致先j--再j-1越界
                 a[j--] = a[j];
             a[j] = val;
+            SortStats.move(i - j);
         }
     }
     
@@ -229,6 +462,7 @@ public class Sorts {
 //        for (int k = start; k < end; k++)
 //            aux[k] = a[k];
         System.arraycopy(a, start, aux, start, end-start);
+        SortStats.move(2 * (end - start));
         // 合并两个有序小数组为一个有序小数组
         for (int k = start; k < end; k++)
             //左边数组用尽，取右边元素
@@ -254,6 +488,7 @@ public class Sorts {
      * </ol>
      */
     private static <T extends Comparable<? super T>> void exch(T[] a, int i, int j) {
+        SortStats.exchange();
         T temp = a[i];
         a[i] = a[j];
         a[j] = temp;
@@ -266,6 +501,7 @@ public class Sorts {
      * @return
      */
     private static <T extends Comparable<? super T>> boolean less(T v, T w) {
+        SortStats.compare();
         return v.compareTo(w) < 0;
     }
     
@@ -303,4 +539,770 @@ public class Sorts {
 //    private static <T extends Comparable<? super T>> boolean less(T[] a, int i, int j) {
 //        return a[i].compareTo(a[j]) < 0;
 //    }
+    
+    /*************************************************************************
+     * int[]原始类型版本。避免装箱、间接访问与compareTo的虚调用
+     *************************************************************************/
+    
+    /**
+     * 堆排序
+     * @param a
+     */
+    public static void heap(int[] a) {
+        heap(a, 0, a.length);
+    }
+
+    private static void heap(int[] a, int start, int end) {
+        final int len = end - start;
+        for (int i = (len/2)-1; i >= 0; i--)
+            sink(a, start, i, len);
+        int i = len;
+        while (i-- > 0) {
+            exch(a, start, start + i);
+            sink(a, start, 0, i);
+        }
+    }
+
+    /**
+     * 对大顶堆指定位置k在[0..length)范围内下沉调整k到合适的位置。堆数组从start开始，k与length都相对于start
+     * <p>使用移位代替交换：先保存k的值，子节点上移后再将该值放入最终位置
+     * @param a
+     * @param start
+     * @param k
+     * @param length
+     */
+    private static void sink(int[] a, int start, int k, int length) {
+        int v = a[start+k];
+        int i;
+        while ((i = (2*k + 1)) < length) {
+            if (i+1 < length && a[start+i] < a[start+i+1])
+                i++;
+            if (v >= a[start+i])
+                break;
+            a[start+k] = a[start+i];
+            k = i;
+        }
+        a[start+k] = v;
+    }
+    
+    /**
+     * 随机打乱整个数组
+     * @param a
+     */
+    public static void shuffle(int[] a) {
+        shuffle(a, 0, a.length);
+    }
+    
+    /**
+     * 随机打乱数组a在[start..end)范围的元素
+     * @param a
+     * @param start
+     * @param end
+     */
+    public static void shuffle(int[] a, int start, int end) {
+        for (int i = start; i < end; i++) {
+            int r = i + RANDOM.nextInt(end-i);
+            exch(a, i, r);
+        }
+    }
+    
+    /**
+     * 内省排序，与quick(T[])相同
+     * @param a
+     */
+    public static void quick(int[] a) {
+        quickSort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    private static void quickSort(int[] a, int lo, int hi, int depth) {
+        if (hi <= lo + QUICK_CUTOFF) {
+            insertion(a, lo, hi + 1);
+            return;
+        }
+        if (depth == 0) {
+            heap(a, lo, hi + 1);
+            return;
+        }
+        exch(a, lo, pivot(a, lo, hi));
+        int j = partition(a, lo, hi);
+        SortStats.enter();
+        quickSort(a, lo, j - 1, depth - 1);
+        quickSort(a, j + 1, hi, depth - 1);
+        SortStats.exit();
+    }
+
+    private static int pivot(int[] a, int lo, int hi) {
+        int n = hi - lo + 1, mid = lo + (n >>> 1);
+        if (n <= NINTHER_CUTOFF)
+            return median3(a, lo, mid, hi);
+        int eps = n >>> 3;
+        int m1 = median3(a, lo, lo + eps, lo + eps + eps);
+        int m2 = median3(a, mid - eps, mid, mid + eps);
+        int m3 = median3(a, hi - eps - eps, hi - eps, hi);
+        return median3(a, m1, m2, m3);
+    }
+
+    private static int median3(int[] a, int i, int j, int k) {
+        return a[i] < a[j] ?
+                (a[j] < a[k] ? j : a[i] < a[k] ? k : i) :
+                (a[k] < a[j] ? j : a[k] < a[i] ? k : i);
+    }
+
+    private static int partition(int[] a, int lo, int hi) {
+        int i = lo, j = hi + 1;
+        int v = a[i];
+        while (true) {
+            while (a[++i] < v)
+                if (i >= hi)
+                    break;
+            while (v < a[--j])
+                ;
+            if (i >= j)
+                break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+    
+    /**
+     * 归并排序
+     * @param a
+     */
+    public static void merger(int[] a) {
+        final int len = a.length;
+        int[] aux = new int[len];
+        for (int sz = 1; sz < len; sz += sz) {
+            int n = len - sz;
+            for (int lo = 0; lo < n; lo += sz*2) {
+                int end = Math.min(lo + sz*2, len);
+                merg(a, aux, lo, lo + sz - 1, end);
+            }
+        }
+    }
+    
+    /**
+     * 希尔排序。改进的插入排序
+     * @param a
+     */
+    public static void shell(int[] a) {
+        int len = a.length, h = 1;
+        while (h < len / 3) h = 3 * h + 1;
+        while (h > 0) {
+            for (int i = h; i < len; i++) {
+                int val = a[i];
+                int j = i;
+                while (j >= h && val < a[j-h])
+                    a[j] = a[j -= h];
+                a[j] = val;
+            }
+            h /= 3;
+        }
+    }
+    
+    /**
+     * 插入排序
+     * @param a
+     */
+    public static void insertion(int[] a) {
+        insertion(a, 0, a.length);
+    }
+    
+    /**
+     * 选择排序。
+     * @param a
+     */
+    public static void selection(int[] a) {
+        for (int i = 0; i < a.length; i++) {
+            int min = i;
+            for (int j = i + 1; j < a.length; j++)
+                if (a[j] < a[min])
+                    min = j;
+            exch(a, i, min);
+        }
+    }
+    
+    /**
+     * 如果数组元素是顺序递增的，则返回true
+     * @param a
+     * @return
+     */
+    public static boolean isSorted(int[] a) {
+        return isSorted(a, 0, a.length);
+    }
+    
+    public static boolean isSorted(int[] a, int start, int end) {
+        for (int i = start + 1; i < end; i++)
+            if (a[i] < a[i-1])
+                return false;
+        return true;
+    }
+    
+    /**
+     * 对数组a在指定范围start..end内使用插入排序
+     * @param a
+     * @param start
+     * @param end
+     */
+    private static void insertion(int[] a, int start, int end) {
+        if (start >= a.length)
+            return;
+        exch(a, minIndex(a, start, end), start);
+        for (int i = start + 1; i < end; i++) {
+            int val = a[i];
+            int j = i;
+            while (val < a[j-1])
+                a[j--] = a[j];
+            a[j] = val;
+        }
+    }
+    
+    /**
+     * 归并两个有序小数组lo..mid, mid+1..end为一个有序数组lo..end，不包括end
+     */
+    private static void merg(int[] a, int[] aux, int start, int mid, int end) {
+        if (a[mid] <= a[mid+1])
+            return;
+        int i = start, j = mid + 1;
+        System.arraycopy(a, start, aux, start, end-start);
+        SortStats.move(2 * (end - start));
+        for (int k = start; k < end; k++)
+            if (i > mid)
+                a[k] = aux[j++];
+            else if (j >= end)
+                a[k] = aux[i++];
+            else if (aux[j] < aux[i])
+                a[k] = aux[j++];
+            else
+                a[k] = aux[i++];
+    }
+    
+    private static void exch(int[] a, int i, int j) {
+        SortStats.exchange();
+        int temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+    
+    /**
+     * 从数组范围[start..end)查找最小的下标。不包括end
+     */
+    private static int minIndex(int[] a, int start, int end) {
+        int minIndex = start;
+        for (int i = start; i < end; i++)
+            if (a[i] < a[minIndex])
+                minIndex = i;
+        return minIndex;
+    }
+    
+    /*************************************************************************
+     * long[]原始类型版本。避免装箱、间接访问与compareTo的虚调用
+     *************************************************************************/
+    
+    /**
+     * 堆排序
+     * @param a
+     */
+    public static void heap(long[] a) {
+        heap(a, 0, a.length);
+    }
+
+    private static void heap(long[] a, int start, int end) {
+        final int len = end - start;
+        for (int i = (len/2)-1; i >= 0; i--)
+            sink(a, start, i, len);
+        int i = len;
+        while (i-- > 0) {
+            exch(a, start, start + i);
+            sink(a, start, 0, i);
+        }
+    }
+
+    /**
+     * 对大顶堆指定位置k在[0..length)范围内下沉调整k到合适的位置。堆数组从start开始，k与length都相对于start
+     * <p>使用移位代替交换：先保存k的值，子节点上移后再将该值放入最终位置
+     * @param a
+     * @param start
+     * @param k
+     * @param length
+     */
+    private static void sink(long[] a, int start, int k, int length) {
+        long v = a[start+k];
+        int i;
+        while ((i = (2*k + 1)) < length) {
+            if (i+1 < length && a[start+i] < a[start+i+1])
+                i++;
+            if (v >= a[start+i])
+                break;
+            a[start+k] = a[start+i];
+            k = i;
+        }
+        a[start+k] = v;
+    }
+    
+    /**
+     * 随机打乱整个数组
+     * @param a
+     */
+    public static void shuffle(long[] a) {
+        shuffle(a, 0, a.length);
+    }
+    
+    /**
+     * 随机打乱数组a在[start..end)范围的元素
+     * @param a
+     * @param start
+     * @param end
+     */
+    public static void shuffle(long[] a, int start, int end) {
+        for (int i = start; i < end; i++) {
+            int r = i + RANDOM.nextInt(end-i);
+            exch(a, i, r);
+        }
+    }
+    
+    /**
+     * 内省排序，与quick(T[])相同
+     * @param a
+     */
+    public static void quick(long[] a) {
+        quickSort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    private static void quickSort(long[] a, int lo, int hi, int depth) {
+        if (hi <= lo + QUICK_CUTOFF) {
+            insertion(a, lo, hi + 1);
+            return;
+        }
+        if (depth == 0) {
+            heap(a, lo, hi + 1);
+            return;
+        }
+        exch(a, lo, pivot(a, lo, hi));
+        int j = partition(a, lo, hi);
+        SortStats.enter();
+        quickSort(a, lo, j - 1, depth - 1);
+        quickSort(a, j + 1, hi, depth - 1);
+        SortStats.exit();
+    }
+
+    private static int pivot(long[] a, int lo, int hi) {
+        int n = hi - lo + 1, mid = lo + (n >>> 1);
+        if (n <= NINTHER_CUTOFF)
+            return median3(a, lo, mid, hi);
+        int eps = n >>> 3;
+        int m1 = median3(a, lo, lo + eps, lo + eps + eps);
+        int m2 = median3(a, mid - eps, mid, mid + eps);
+        int m3 = median3(a, hi - eps - eps, hi - eps, hi);
+        return median3(a, m1, m2, m3);
+    }
+
+    private static int median3(long[] a, int i, int j, int k) {
+        return a[i] < a[j] ?
+                (a[j] < a[k] ? j : a[i] < a[k] ? k : i) :
+                (a[k] < a[j] ? j : a[k] < a[i] ? k : i);
+    }
+
+    private static int partition(long[] a, int lo, int hi) {
+        int i = lo, j = hi + 1;
+        long v = a[i];
+        while (true) {
+            while (a[++i] < v)
+                if (i >= hi)
+                    break;
+            while (v < a[--j])
+                ;
+            if (i >= j)
+                break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+    
+    /**
+     * 归并排序
+     * @param a
+     */
+    public static void merger(long[] a) {
+        final int len = a.length;
+        long[] aux = new long[len];
+        for (int sz = 1; sz < len; sz += sz) {
+            int n = len - sz;
+            for (int lo = 0; lo < n; lo += sz*2) {
+                int end = Math.min(lo + sz*2, len);
+                merg(a, aux, lo, lo + sz - 1, end);
+            }
+        }
+    }
+    
+    /**
+     * 希尔排序。改进的插入排序
+     * @param a
+     */
+    public static void shell(long[] a) {
+        int len = a.length, h = 1;
+        while (h < len / 3) h = 3 * h + 1;
+        while (h > 0) {
+            for (int i = h; i < len; i++) {
+                long val = a[i];
+                int j = i;
+                while (j >= h && val < a[j-h])
+                    a[j] = a[j -= h];
+                a[j] = val;
+            }
+            h /= 3;
+        }
+    }
+    
+    /**
+     * 插入排序
+     * @param a
+     */
+    public static void insertion(long[] a) {
+        insertion(a, 0, a.length);
+    }
+    
+    /**
+     * 选择排序。
+     * @param a
+     */
+    public static void selection(long[] a) {
+        for (int i = 0; i < a.length; i++) {
+            int min = i;
+            for (int j = i + 1; j < a.length; j++)
+                if (a[j] < a[min])
+                    min = j;
+            exch(a, i, min);
+        }
+    }
+    
+    /**
+     * 如果数组元素是顺序递增的，则返回true
+     * @param a
+     * @return
+     */
+    public static boolean isSorted(long[] a) {
+        return isSorted(a, 0, a.length);
+    }
+    
+    public static boolean isSorted(long[] a, int start, int end) {
+        for (int i = start + 1; i < end; i++)
+            if (a[i] < a[i-1])
+                return false;
+        return true;
+    }
+    
+    /**
+     * 对数组a在指定范围start..end内使用插入排序
+     * @param a
+     * @param start
+     * @param end
+     */
+    private static void insertion(long[] a, int start, int end) {
+        if (start >= a.length)
+            return;
+        exch(a, minIndex(a, start, end), start);
+        for (int i = start + 1; i < end; i++) {
+            long val = a[i];
+            int j = i;
+            while (val < a[j-1])
+                a[j--] = a[j];
+            a[j] = val;
+        }
+    }
+    
+    /**
+     * 归并两个有序小数组lo..mid, mid+1..end为一个有序数组lo..end，不包括end
+     */
+    private static void merg(long[] a, long[] aux, int start, int mid, int end) {
+        if (a[mid] <= a[mid+1])
+            return;
+        int i = start, j = mid + 1;
+        System.arraycopy(a, start, aux, start, end-start);
+        SortStats.move(2 * (end - start));
+        for (int k = start; k < end; k++)
+            if (i > mid)
+                a[k] = aux[j++];
+            else if (j >= end)
+                a[k] = aux[i++];
+            else if (aux[j] < aux[i])
+                a[k] = aux[j++];
+            else
+                a[k] = aux[i++];
+    }
+    
+    private static void exch(long[] a, int i, int j) {
+        SortStats.exchange();
+        long temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+    
+    /**
+     * 从数组范围[start..end)查找最小的下标。不包括end
+     */
+    private static int minIndex(long[] a, int start, int end) {
+        int minIndex = start;
+        for (int i = start; i < end; i++)
+            if (a[i] < a[minIndex])
+                minIndex = i;
+        return minIndex;
+    }
+    
+    /*************************************************************************
+     * double[]原始类型版本。避免装箱、间接访问与compareTo的虚调用
+     * 注意：使用运算符比较，不支持NaN，含NaN时结果的顺序不确定
+     *************************************************************************/
+    
+    /**
+     * 堆排序
+     * @param a
+     */
+    public static void heap(double[] a) {
+        heap(a, 0, a.length);
+    }
+
+    private static void heap(double[] a, int start, int end) {
+        final int len = end - start;
+        for (int i = (len/2)-1; i >= 0; i--)
+            sink(a, start, i, len);
+        int i = len;
+        while (i-- > 0) {
+            exch(a, start, start + i);
+            sink(a, start, 0, i);
+        }
+    }
+
+    /**
+     * 对大顶堆指定位置k在[0..length)范围内下沉调整k到合适的位置。堆数组从start开始，k与length都相对于start
+     * <p>使用移位代替交换：先保存k的值，子节点上移后再将该值放入最终位置
+     * @param a
+     * @param start
+     * @param k
+     * @param length
+     */
+    private static void sink(double[] a, int start, int k, int length) {
+        double v = a[start+k];
+        int i;
+        while ((i = (2*k + 1)) < length) {
+            if (i+1 < length && a[start+i] < a[start+i+1])
+                i++;
+            if (v >= a[start+i])
+                break;
+            a[start+k] = a[start+i];
+            k = i;
+        }
+        a[start+k] = v;
+    }
+    
+    /**
+     * 随机打乱整个数组
+     * @param a
+     */
+    public static void shuffle(double[] a) {
+        shuffle(a, 0, a.length);
+    }
+    
+    /**
+     * 随机打乱数组a在[start..end)范围的元素
+     * @param a
+     * @param start
+     * @param end
+     */
+    public static void shuffle(double[] a, int start, int end) {
+        for (int i = start; i < end; i++) {
+            int r = i + RANDOM.nextInt(end-i);
+            exch(a, i, r);
+        }
+    }
+    
+    /**
+     * 内省排序，与quick(T[])相同
+     * @param a
+     */
+    public static void quick(double[] a) {
+        quickSort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    private static void quickSort(double[] a, int lo, int hi, int depth) {
+        if (hi <= lo + QUICK_CUTOFF) {
+            insertion(a, lo, hi + 1);
+            return;
+        }
+        if (depth == 0) {
+            heap(a, lo, hi + 1);
+            return;
+        }
+        exch(a, lo, pivot(a, lo, hi));
+        int j = partition(a, lo, hi);
+        SortStats.enter();
+        quickSort(a, lo, j - 1, depth - 1);
+        quickSort(a, j + 1, hi, depth - 1);
+        SortStats.exit();
+    }
+
+    private static int pivot(double[] a, int lo, int hi) {
+        int n = hi - lo + 1, mid = lo + (n >>> 1);
+        if (n <= NINTHER_CUTOFF)
+            return median3(a, lo, mid, hi);
+        int eps = n >>> 3;
+        int m1 = median3(a, lo, lo + eps, lo + eps + eps);
+        int m2 = median3(a, mid - eps, mid, mid + eps);
+        int m3 = median3(a, hi - eps - eps, hi - eps, hi);
+        return median3(a, m1, m2, m3);
+    }
+
+    private static int median3(double[] a, int i, int j, int k) {
+        return a[i] < a[j] ?
+                (a[j] < a[k] ? j : a[i] < a[k] ? k : i) :
+                (a[k] < a[j] ? j : a[k] < a[i] ? k : i);
+    }
+
+    private static int partition(double[] a, int lo, int hi) {
+        int i = lo, j = hi + 1;
+        double v = a[i];
+        while (true) {
+            while (a[++i] < v)
+                if (i >= hi)
+                    break;
+            while (v < a[--j])
+                ;
+            if (i >= j)
+                break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+    
+    /**
+     * 归并排序
+     * @param a
+     */
+    public static void merger(double[] a) {
+        final int len = a.length;
+        double[] aux = new double[len];
+        for (int sz = 1; sz < len; sz += sz) {
+            int n = len - sz;
+            for (int lo = 0; lo < n; lo += sz*2) {
+                int end = Math.min(lo + sz*2, len);
+                merg(a, aux, lo, lo + sz - 1, end);
+            }
+        }
+    }
+    
+    /**
+     * 希尔排序。改进的插入排序
+     * @param a
+     */
+    public static void shell(double[] a) {
+        int len = a.length, h = 1;
+        while (h < len / 3) h = 3 * h + 1;
+        while (h > 0) {
+            for (int i = h; i < len; i++) {
+                double val = a[i];
+                int j = i;
+                while (j >= h && val < a[j-h])
+                    a[j] = a[j -= h];
+                a[j] = val;
+            }
+            h /= 3;
+        }
+    }
+    
+    /**
+     * 插入排序
+     * @param a
+     */
+    public static void insertion(double[] a) {
+        insertion(a, 0, a.length);
+    }
+    
+    /**
+     * 选择排序。
+     * @param a
+     */
+    public static void selection(double[] a) {
+        for (int i = 0; i < a.length; i++) {
+            int min = i;
+            for (int j = i + 1; j < a.length; j++)
+                if (a[j] < a[min])
+                    min = j;
+            exch(a, i, min);
+        }
+    }
+    
+    /**
+     * 如果数组元素是顺序递增的，则返回true
+     * @param a
+     * @return
+     */
+    public static boolean isSorted(double[] a) {
+        return isSorted(a, 0, a.length);
+    }
+    
+    public static boolean isSorted(double[] a, int start, int end) {
+        for (int i = start + 1; i < end; i++)
+            if (a[i] < a[i-1])
+                return false;
+        return true;
+    }
+    
+    /**
+     * 对数组a在指定范围start..end内使用插入排序
+     * @param a
+     * @param start
+     * @param end
+     */
+    private static void insertion(double[] a, int start, int end) {
+        if (start >= a.length)
+            return;
+        exch(a, minIndex(a, start, end), start);
+        for (int i = start + 1; i < end; i++) {
+            double val = a[i];
+            int j = i;
+            while (val < a[j-1])
+                a[j--] = a[j];
+            a[j] = val;
+        }
+    }
+    
+    /**
+     * 归并两个有序小数组lo..mid, mid+1..end为一个有序数组lo..end，不包括end
+     */
+    private static void merg(double[] a, double[] aux, int start, int mid, int end) {
+        if (a[mid] <= a[mid+1])
+            return;
+        int i = start, j = mid + 1;
+        System.arraycopy(a, start, aux, start, end-start);
+        SortStats.move(2 * (end - start));
+        for (int k = start; k < end; k++)
+            if (i > mid)
+                a[k] = aux[j++];
+            else if (j >= end)
+                a[k] = aux[i++];
+            else if (aux[j] < aux[i])
+                a[k] = aux[j++];
+            else
+                a[k] = aux[i++];
+    }
+    
+    private static void exch(double[] a, int i, int j) {
+        SortStats.exchange();
+        double temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+    
+    /**
+     * 从数组范围[start..end)查找最小的下标。不包括end
+     */
+    private static int minIndex(double[] a, int start, int end) {
+        int minIndex = start;
+        for (int i = start; i < end; i++)
+            if (a[i] < a[minIndex])
+                minIndex = i;
+        return minIndex;
+    }
 }
@@ -55,6 +55,13 @@ public interface WatchRunner extends Stopwatch {
     
     long getAvgTimeSeconds();
     
+    /**
+     * 获取平均每次runner.run()的排序操作计数，不包括before与after。需要用-Dnavyd.sort.stats=true开启SortStats，否则都为0
+     * @return
+     * @see SortStats
+     */
+    SortStats getSortStats();
+    
     @FunctionalInterface
     public static interface Runner {
         void run();
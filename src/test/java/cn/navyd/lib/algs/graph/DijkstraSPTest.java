@@ -0,0 +1,110 @@
+package cn.navyd.lib.algs.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.algs.sort.BucketQueue;
+import cn.navyd.lib.algs.sort.DoubleIndexMinPQ;
+import cn.navyd.lib.algs.sort.IndexPairingHeap;
+import cn.navyd.lib.algs.sort.RadixHeap;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DijkstraSPTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 3;
+    private EdgeWeightedDigraph g;
+
+    private EdgeWeightedDigraph randomDigraph(int v, int e) {
+        EdgeWeightedDigraph g = new EdgeWeightedDigraph(v);
+        for (int i = 0; i < e; i++)
+            g.addEdge(new DirectedEdge(random.nextInt(v), random.nextInt(v), random.nextDouble()));
+        return g;
+    }
+
+    private EdgeWeightedDigraph randomIntDigraph(int v, int e, int maxWeight) {
+        EdgeWeightedDigraph g = new EdgeWeightedDigraph(v);
+        for (int i = 0; i < e; i++)
+            g.addEdge(new DirectedEdge(random.nextInt(v), random.nextInt(v), random.nextInt(maxWeight + 1)));
+        return g;
+    }
+
+    private void assertSameDistances(ShortestPath expected, DijkstraSP sp, int v) {
+        for (int w = 0; w < v; w++) {
+            assertEquals(expected.hasPathTo(w), sp.hasPathTo(w));
+            if (sp.hasPathTo(w))
+                assertEquals(expected.distTo(w), sp.distTo(w), 1e-9);
+        }
+    }
+
+    /**
+     * 不同的优先队列与BellmanFordSP的最短距离相同
+     */
+    @Test
+    public void priorityQueuesTest() {
+        for (int i = 0; i < 10; i++) {
+            int v = 500;
+            EdgeWeightedDigraph g = randomDigraph(v, v * (i + 1));
+            BellmanFordSP expected = new BellmanFordSP(g, 0);
+            assertSameDistances(expected, new DijkstraSP(g, 0), v);
+            assertSameDistances(expected, new DijkstraSP(g, 0, new DoubleIndexMinPQ(v)), v);
+            assertSameDistances(expected, new DijkstraSP(g, 0, new IndexPairingHeap()), v);
+        }
+    }
+
+    /**
+     * 整数权值时默认使用桶队列或基数堆，与BellmanFordSP的最短距离相同
+     */
+    @Test
+    public void integerWeightsTest() {
+        int v = 500;
+        for (int maxWeight : new int[] { 0, 1, 10, 1000, 1 << 20 }) {
+            EdgeWeightedDigraph g = randomIntDigraph(v, v * 5, maxWeight);
+            int c = g.maxIntegerWeight();
+            assertTrue(c >= 0 && c <= maxWeight);
+            assertTrue(DijkstraSP.priorityQueue(g) instanceof BucketQueue == c <= 1 << 10);
+            BellmanFordSP expected = new BellmanFordSP(g, 0);
+            assertSameDistances(expected, new DijkstraSP(g, 0), v);
+            assertSameDistances(expected, new DijkstraSP(g, 0, new RadixHeap(v)), v);
+            assertSameDistances(expected, new DijkstraSP(g, 0, new BucketQueue(v, c)), v);
+        }
+        assertTrue(DijkstraSP.priorityQueue(randomDigraph(10, 20)) instanceof DoubleIndexMinPQ);
+    }
+
+    /**
+     * 道路网络的行驶秒数：权值为较小的整数
+     */
+    @Test
+    public void integerWeightsPerformanceTest() {
+        int v = 200000, e = 2000000;
+        for (int maxWeight : new int[] { 100, 100000 }) {
+            g = randomIntDigraph(v, e, maxWeight);
+            watch.frequency(freq).start().runThenStop(() -> new DijkstraSP(g, 0, new DoubleIndexMinPQ(v, 4)));
+            log.debug("C={} 4-ary heap ms: {}", maxWeight, watch.getAvgTimeMillis());
+            watch.frequency(freq).start().runThenStop(() -> new DijkstraSP(g, 0, new RadixHeap(v)));
+            log.debug("C={} radix heap ms: {}", maxWeight, watch.getAvgTimeMillis());
+            watch.frequency(freq).start().runThenStop(() -> new DijkstraSP(g, 0, new BucketQueue(v, maxWeight)));
+            log.debug("C={} bucket queue ms: {}", maxWeight, watch.getAvgTimeMillis());
+        }
+    }
+
+    /**
+     * 稠密图中放松边的次数远多于delMin
+     */
+    @Test
+    public void densePerformanceTest() {
+        int v = 5000, e = 2000000;
+        g = randomDigraph(v, e);
+        watch.frequency(freq).start().runThenStop(() -> new DijkstraSP(g, 0));
+        log.debug("4-ary heap ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq).start().runThenStop(() -> new DijkstraSP(g, 0, new IndexPairingHeap(v)));
+        log.debug("pairing heap ms: {}", watch.getAvgTimeMillis());
+    }
+}
@@ -0,0 +1,49 @@
+package cn.navyd.lib.algs.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.algs.sort.BucketQueue;
+import cn.navyd.lib.algs.sort.IndexPairingHeap;
+
+public class PrimMSTTest {
+    private Random random = new Random(47);
+
+    /**
+     * 非连通图生成最小生成森林，不同的优先队列与KruskalMST的权值相同
+     */
+    @Test
+    public void forestTest() {
+        for (int i = 0; i < 10; i++) {
+            int v = 400;
+            EdgeWeightedGraph g = new EdgeWeightedGraph(v);
+            // 两个不连通的部分
+            for (int j = 0; j < v * (i + 1); j++) {
+                int offset = random.nextBoolean() ? 0 : v / 2;
+                g.addEdge(new Edge(offset + random.nextInt(v / 2), offset + random.nextInt(v / 2), random.nextDouble()));
+            }
+            double expected = new KruskalMST(g).weight();
+            assertEquals(expected, new PrimMST(g).weight(), 1e-9);
+            assertEquals(expected, new PrimMST(g, new IndexPairingHeap()).weight(), 1e-9);
+        }
+    }
+
+    /**
+     * 整数权值时默认使用桶队列，键可以小于最后删除的键
+     */
+    @Test
+    public void integerWeightsTest() {
+        int v = 500;
+        for (int maxWeight : new int[] { 0, 3, 100 }) {
+            EdgeWeightedGraph g = new EdgeWeightedGraph(v);
+            for (int j = 0; j < v * 5; j++)
+                g.addEdge(new Edge(random.nextInt(v), random.nextInt(v), random.nextInt(maxWeight + 1)));
+            assertTrue(PrimMST.priorityQueue(g) instanceof BucketQueue);
+            assertEquals(new KruskalMST(g).weight(), new PrimMST(g).weight(), 0);
+        }
+    }
+}
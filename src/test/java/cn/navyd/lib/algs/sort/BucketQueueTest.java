@@ -0,0 +1,73 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BucketQueueTest {
+    private Random random = new Random(47);
+
+    /**
+     * 与Dijkstra相同的使用方式：键在[最后删除的键, 最后删除的键+C]中
+     */
+    @Test
+    public void slidingWindowTest() {
+        int maxN = 2000, c = 100;
+        BucketQueue queue = new BucketQueue(maxN, c);
+        DoubleIndexMinPQ expected = new DoubleIndexMinPQ(maxN);
+        long last = 0;
+        for (int i = 0; i < 100000; i++) {
+            int k = random.nextInt(maxN);
+            long key = last + random.nextInt(c + 1);
+            if (!expected.contains(k)) {
+                queue.insert(k, key);
+                expected.insert(k, key);
+            } else if (key < expected.keyOf(k)) {
+                queue.decreaseKey(k, key);
+                expected.decreaseKey(k, key);
+            } else if (!expected.isEmpty()) {
+                double min = expected.min();
+                int m = queue.delMin();
+                assertEquals(min, expected.keyOf(m), 0);
+                expected.delete(m);
+                last = (long) min;
+            }
+            assertEquals(expected.size(), queue.size());
+        }
+    }
+
+    /**
+     * 与Prim相同的使用方式：键都在[0, C]中，可以小于最后删除的键
+     */
+    @Test
+    public void boundedKeysTest() {
+        int maxN = 2000, c = 50;
+        BucketQueue queue = new BucketQueue(maxN, c);
+        DoubleIndexMinPQ expected = new DoubleIndexMinPQ(maxN);
+        for (int i = 0; i < 100000; i++) {
+            int k = random.nextInt(maxN), key = random.nextInt(c + 1);
+            if (!expected.contains(k)) {
+                queue.insert(k, key);
+                expected.insert(k, key);
+            } else if (key < expected.keyOf(k)) {
+                queue.decreaseKey(k, key);
+                expected.decreaseKey(k, key);
+            } else if (!expected.isEmpty()) {
+                double min = expected.min();
+                int m = queue.delMin();
+                assertEquals(min, expected.keyOf(m), 0);
+                expected.delete(m);
+            }
+            assertEquals(expected.size(), queue.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outOfRangeTest() {
+        BucketQueue queue = new BucketQueue(2, 10);
+        queue.insert(0, 5);
+        queue.insert(1, 16);
+    }
+}
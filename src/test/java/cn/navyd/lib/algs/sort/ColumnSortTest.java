@@ -0,0 +1,102 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ColumnSortTest {
+    private Random random = new Random(47);
+    private long[] time;
+    private double[] price;
+    private int[] volume;
+    private String[] symbol;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setColumns(int len) {
+        time = new long[len];
+        price = new double[len];
+        volume = new int[len];
+        symbol = new String[len];
+        for (int i = 0; i < len; i++) {
+            time[i] = random.nextInt(len / 10);
+            price[i] = random.nextInt(100) / 4.0 - 10;
+            volume[i] = i;
+            symbol[i] = "S" + i;
+        }
+    }
+
+    /**
+     * 按time, price字典序排序，volume记录原来的行号
+     */
+    @Test
+    public void sortTest() {
+        watch.frequency(freq)
+                .before(() -> setColumns(1000000))
+                .after(() -> {
+                    for (int i = 1; i < time.length; i++) {
+                        int c = time[i - 1] != time[i] ? Long.compare(time[i - 1], time[i])
+                                : Double.compare(price[i - 1], price[i]);
+                        // 键相同时保持原来的顺序
+                        assertTrue(c < 0 || c == 0 && volume[i - 1] < volume[i]);
+                        assertEquals("S" + volume[i], symbol[i]);
+                    }
+                })
+                .start()
+                .runThenStop(() -> ColumnSort.by(time).thenBy(price).with(volume).with(symbol).sort());
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void orderTest() {
+        setColumns(100000);
+        int[] keys = new int[time.length];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = random.nextInt(50) - 25;
+        Integer[] expected = IntStream.range(0, keys.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(expected, Comparator.<Integer>comparingInt(i -> keys[i])
+                .thenComparingDouble(i -> price[i])
+                .thenComparingLong(i -> time[i]));
+        int[] e = Arrays.stream(expected).mapToInt(Integer::intValue).toArray();
+        long[] t = time.clone();
+        int[] perm = ColumnSort.by(keys).thenBy(price).thenBy(time).order();
+        assertArrayEquals(e, perm);
+        // order不改变列
+        assertArrayEquals(t, time);
+
+        long[] sorted = new long[time.length];
+        ColumnSort.permute(perm, time, sorted);
+        for (int i = 0; i < perm.length; i++)
+            assertEquals(time[e[i]], sorted[i]);
+    }
+
+    /**
+     * 同一个数组同时作为键列与数据列时只重排一次
+     */
+    @Test
+    public void sameArrayTest() {
+        int[] k = { 3, 1, 2, 0 };
+        ColumnSort.by(k).with(k).sort();
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, k);
+
+        int[] a = { 2, 1, 2, 1 };
+        long[] b = { 5, 8, 7, 6 };
+        int[] c = { 0, 1, 2, 3 };
+        ColumnSort.by(a).thenBy(b).thenBy(a).with(b).with(c).with(c).sort();
+        assertArrayEquals(new int[] { 1, 1, 2, 2 }, a);
+        assertArrayEquals(new long[] { 6, 8, 5, 7 }, b);
+        assertArrayEquals(new int[] { 3, 1, 0, 2 }, c);
+    }
+}
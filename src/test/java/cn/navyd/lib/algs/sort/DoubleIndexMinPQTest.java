@@ -0,0 +1,141 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class DoubleIndexMinPQTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 3;
+    private double[] keys;
+
+    /**
+     * 随机的insert, changeKey, delete, delMin与逐个查找最小值的结果比较
+     */
+    @Test
+    public void randomOperationsTest() {
+        int maxN = 1000;
+        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(maxN);
+        LongIndexMinPQ lpq = new LongIndexMinPQ(maxN);
+        // 不在队列中的索引为NaN
+        double[] expected = new double[maxN];
+        Arrays.fill(expected, Double.NaN);
+        int size = 0;
+        for (int i = 0; i < 100000; i++) {
+            int k = random.nextInt(maxN);
+            double key = random.nextInt(10000);
+            boolean contains = !Double.isNaN(expected[k]);
+            switch (random.nextInt(4)) {
+            case 0:
+                if (!contains) {
+                    pq.insert(k, key);
+                    lpq.insert(k, (long) key);
+                    expected[k] = key;
+                    size++;
+                }
+                break;
+            case 1:
+                if (contains) {
+                    pq.changeKey(k, key);
+                    lpq.changeKey(k, (long) key);
+                    expected[k] = key;
+                }
+                break;
+            case 2:
+                if (contains) {
+                    pq.delete(k);
+                    lpq.delete(k);
+                    expected[k] = Double.NaN;
+                    size--;
+                }
+                break;
+            default:
+                if (size > 0) {
+                    double min = Arrays.stream(expected).filter(v -> !Double.isNaN(v)).min().getAsDouble();
+                    assertEquals(min, pq.min(), 0);
+                    assertEquals((long) min, lpq.min());
+                    // 键相同时两个队列的索引可能不同
+                    int dk = pq.delMin(), lk = lpq.delMin();
+                    assertEquals(min, expected[dk], 0);
+                    assertEquals(min, expected[lk], 0);
+                    if (dk != lk) {
+                        pq.insert(dk, min);
+                        pq.delete(lk);
+                    }
+                    expected[lk] = Double.NaN;
+                    size--;
+                }
+            }
+            assertEquals(size, pq.size());
+            assertEquals(size, lpq.size());
+            assertEquals(!Double.isNaN(expected[k]), pq.contains(k));
+            assertEquals(!Double.isNaN(expected[k]), lpq.contains(k));
+            if (pq.contains(k)) {
+                assertEquals(expected[k], pq.keyOf(k), 0);
+                assertEquals((long) expected[k], lpq.keyOf(k));
+            }
+        }
+        double last = Double.NEGATIVE_INFINITY;
+        for (int k : pq) {
+            assertTrue(pq.keyOf(k) >= last);
+            last = pq.keyOf(k);
+        }
+        last = Double.NEGATIVE_INFINITY;
+        while (!pq.isEmpty()) {
+            double min = pq.min();
+            assertTrue(min >= last);
+            last = min;
+            assertFalse(pq.contains(pq.delMin()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nanKeyTest() {
+        new DoubleIndexMinPQ(1).insert(0, Double.NaN);
+    }
+
+    /**
+     * 与Dijkstra相同的使用方式：大量的changeKey与delMin
+     */
+    @Test
+    public void performanceTest() {
+        int n = 1000000;
+        watch.frequency(freq)
+                .before(() -> keys = random.doubles(n).toArray())
+                .start()
+                .runThenStop(() -> {
+                    DoubleIndexMinPQ pq = new DoubleIndexMinPQ(n);
+                    for (int i = 0; i < n; i++)
+                        pq.insert(i, keys[i]);
+                    for (int i = 0; i < n; i++)
+                        pq.changeKey(i, keys[i] / 2);
+                    while (!pq.isEmpty())
+                        pq.delMin();
+                });
+        log.debug("double ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq)
+                .before(() -> keys = random.doubles(n).toArray())
+                .start()
+                .runThenStop(() -> {
+                    IndexMinPQ<Double> pq = new IndexMinPQ<>(n);
+                    for (int i = 0; i < n; i++)
+                        pq.insert(i, keys[i]);
+                    for (int i = 0; i < n; i++)
+                        pq.changeKey(i, keys[i] / 2);
+                    while (!pq.isEmpty())
+                        pq.delMin();
+                });
+        log.debug("boxed ms: {}", watch.getAvgTimeMillis());
+    }
+}
@@ -0,0 +1,141 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cn.navyd.lib.algs.util.In;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ExternalSortTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+    private int[] a;
+
+    public void setIntFile(Path path, int len) throws IOException {
+        a = new int[len];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            for (int i = 0; i < len; i++) {
+                a[i] = random.nextInt();
+                out.writeInt(a[i]);
+            }
+        }
+    }
+
+    /**
+     * 4MB内存预算，8路归并，2个排序线程：块多于fanIn时需要多趟归并
+     */
+    @Test
+    public void sortIntsTest() throws IOException {
+        Path in = folder.newFile().toPath(), out = folder.newFile().toPath();
+        ExternalSort sorter = ExternalSort.of()
+                .memory(4 << 20)
+                .fanIn(8)
+                .threads(2)
+                .tempDirectory(folder.getRoot().toPath());
+        watch.frequency(freq)
+                .before(() -> {
+                    try {
+                        setIntFile(in, 5000000);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .after(() -> {
+                    Arrays.sort(a);
+                    try {
+                        assertArrayEquals(a, readInts(out, a.length));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .start()
+                .runThenStop(() -> {
+                    try {
+                        sorter.sortInts(in, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+        // 临时有序段都已删除
+        assertEquals(2, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void sortDoublesTest() throws IOException {
+        int len = 100000;
+        double[] b = new double[len];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < len; i++) {
+            b[i] = random.nextGaussian() * 1000;
+            text.append(b[i]).append(i % 10 == 9 ? '\n' : ' ');
+        }
+        File in = folder.newFile();
+        Files.write(in.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        Path out = folder.newFile().toPath();
+        ExternalSort.of().memory(64 << 10).fanIn(3).sortDoubles(new In(in), out);
+
+        Arrays.sort(b);
+        double[] sorted = new double[len];
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(out))) {
+            for (int i = 0; i < len; i++)
+                sorted[i] = input.readDouble();
+            assertEquals(-1, input.read());
+        }
+        assertArrayEquals(b, sorted, 0);
+    }
+
+    @Test
+    public void sortStringsTest() throws IOException {
+        int len = 50000;
+        List<String> lines = new ArrayList<>(len);
+        for (int i = 0; i < len; i++) {
+            char[] s = new char[random.nextInt(20)];
+            for (int j = 0; j < s.length; j++)
+                s[j] = (char) ('a' + random.nextInt(4));
+            lines.add(new String(s));
+        }
+        Path in = folder.newFile().toPath(), out = folder.newFile().toPath();
+        Files.write(in, lines, StandardCharsets.UTF_8);
+        ExternalSort.of().memory(64 << 10).fanIn(4).threads(3).sortStrings(in, out);
+
+        String[] expected = lines.toArray(new String[0]);
+        Arrays.sort(expected);
+        assertArrayEquals(expected, Files.readAllLines(out, StandardCharsets.UTF_8).toArray(new String[0]));
+    }
+
+    private static int[] readInts(Path path, int len) throws IOException {
+        int[] b = new int[len];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            for (int i = 0; i < len; i++)
+                b[i] = in.readInt();
+            assertEquals(-1, in.read());
+        }
+        return b;
+    }
+}
@@ -0,0 +1,186 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class HeapArityTest {
+    private static final int[] ARITIES = { 2, 4, 8 };
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 3;
+    private Integer[] a;
+    private double[] keys;
+    // 每个顶点的入边数，decrease-key的次数约为n*degree
+    private int degree = 8;
+
+    /**
+     * 所有叉数的MinPQ与MaxPQ都按顺序取出元素
+     */
+    @Test
+    public void minMaxPQTest() {
+        for (int d : ARITIES) {
+            for (int n : new int[] { 0, 1, 7, 8, 9, 1000 }) {
+                Integer[] keys = random.ints(n, 0, 500).boxed().toArray(Integer[]::new);
+                Integer[] sorted = keys.clone();
+                Arrays.sort(sorted);
+                Integer[] reversed = sorted.clone();
+                Arrays.sort(reversed, Comparator.reverseOrder());
+
+                MinPQ<Integer> min = new MinPQ<>(1, d);
+                MaxPQ<Integer> max = new MaxPQ<>(1, d);
+                MinPQ<Integer> reverse = new MinPQ<>(1, Comparator.<Integer>reverseOrder(), d);
+                for (Integer key : keys) {
+                    min.insert(key);
+                    max.insert(key);
+                    reverse.insert(key);
+                }
+                assertEquals(n, min.size());
+                int i = 0;
+                for (Integer key : min)
+                    assertEquals(sorted[i++], key);
+                assertArrayEquals(sorted, drain(min));
+                assertArrayEquals(reversed, drain(max));
+                assertArrayEquals(reversed, drain(reverse));
+            }
+        }
+    }
+
+    private Integer[] drain(MinPQ<Integer> pq) {
+        Integer[] a = new Integer[pq.size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = pq.delMin();
+        return a;
+    }
+
+    private Integer[] drain(MaxPQ<Integer> pq) {
+        Integer[] a = new Integer[pq.size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = pq.delMax();
+        return a;
+    }
+
+    /**
+     * 所有叉数的索引优先队列在随机的insert, changeKey, delete后按顺序取出元素
+     */
+    @Test
+    public void indexPQTest() {
+        int maxN = 1000;
+        for (int d : ARITIES) {
+            IndexMinPQ<Integer> min = new IndexMinPQ<>(maxN, d);
+            IndexMaxPQ<Integer> max = new IndexMaxPQ<>(maxN, d);
+            DoubleIndexMinPQ dmin = new DoubleIndexMinPQ(maxN, d);
+            LongIndexMinPQ lmin = new LongIndexMinPQ(maxN, d);
+            Integer[] expected = new Integer[maxN];
+            for (int i = 0; i < 20000; i++) {
+                int k = random.nextInt(maxN), key = random.nextInt(100000);
+                if (expected[k] == null) {
+                    min.insert(k, key);
+                    max.insert(k, key);
+                    dmin.insert(k, key);
+                    lmin.insert(k, key);
+                    expected[k] = key;
+                } else if (random.nextBoolean()) {
+                    min.changeKey(k, key);
+                    max.changeKey(k, key);
+                    dmin.changeKey(k, key);
+                    lmin.changeKey(k, key);
+                    expected[k] = key;
+                } else {
+                    min.delete(k);
+                    max.delete(k);
+                    dmin.delete(k);
+                    lmin.delete(k);
+                    expected[k] = null;
+                }
+            }
+            int[] sorted = Arrays.stream(expected).filter(v -> v != null).mapToInt(Integer::intValue).sorted().toArray();
+            assertEquals(sorted.length, min.size());
+            for (int i = 0; i < sorted.length; i++) {
+                assertEquals(sorted[i], (int) min.min());
+                assertEquals(sorted[sorted.length - 1 - i], (int) max.max());
+                assertEquals(sorted[i], dmin.min(), 0);
+                assertEquals(sorted[i], lmin.min());
+                min.delMin();
+                max.delMax();
+                dmin.delMin();
+                lmin.delMin();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalArityTest() {
+        new IndexMinPQ<Integer>(10, 3);
+    }
+
+    /**
+     * 先插入再全部删除：d越大堆越矮，但sink每层需要比较d个子节点。
+     * MinPQ每次操作都会assert整个堆有序，开启-ea时无法测量，这里使用索引优先队列
+     */
+    @Test
+    public void delMinPerformanceTest() {
+        int n = 1000000;
+        for (int d : ARITIES) {
+            watch.frequency(freq)
+                    .before(() -> a = random.ints(n).boxed().toArray(Integer[]::new))
+                    .start()
+                    .runThenStop(() -> {
+                        IndexMinPQ<Integer> pq = new IndexMinPQ<>(n, d);
+                        for (int i = 0; i < n; i++)
+                            pq.insert(i, a[i]);
+                        while (!pq.isEmpty())
+                            pq.delMin();
+                    });
+            log.debug("IndexMinPQ d={} ms: {}", d, watch.getAvgTimeMillis());
+            watch.frequency(freq)
+                    .before(() -> keys = random.doubles(n).toArray())
+                    .start()
+                    .runThenStop(() -> {
+                        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(n, d);
+                        for (int i = 0; i < n; i++)
+                            pq.insert(i, keys[i]);
+                        while (!pq.isEmpty())
+                            pq.delMin();
+                    });
+            log.debug("DoubleIndexMinPQ d={} ms: {}", d, watch.getAvgTimeMillis());
+        }
+    }
+
+    /**
+     * 与Dijkstra相同的使用方式：每个顶点delMin一次，键减小degree次，swim只需要log_d(N)次比较
+     */
+    @Test
+    public void decreaseKeyPerformanceTest() {
+        int n = 300000;
+        for (int d : ARITIES) {
+            watch.frequency(freq)
+                    .before(() -> keys = random.doubles(n * degree).toArray())
+                    .start()
+                    .runThenStop(() -> {
+                        DoubleIndexMinPQ pq = new DoubleIndexMinPQ(n, d);
+                        for (int i = 0; i < n; i++)
+                            pq.insert(i, 1 + keys[i]);
+                        for (int i = 0, j = 0; !pq.isEmpty(); i++) {
+                            for (int e = 0; e < degree && !pq.isEmpty(); e++, j++) {
+                                int k = (int) (keys[j] * n);
+                                if (pq.contains(k) && keys[j] < pq.keyOf(k))
+                                    pq.changeKey(k, keys[j]);
+                            }
+                            pq.delMin();
+                        }
+                    });
+            log.debug("DoubleIndexMinPQ d={} ms: {}", d, watch.getAvgTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.Sorts;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MergeBUTest {
+    private Random random = new Random(47);
+    private Integer[] a;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setArray() {
+        int len = 5000000;
+        a = new Integer[len];
+        for (int i = 0; i < len; i++)
+            a[i] = random.nextInt(len*10);
+    }
+
+    /**
+     * 有序数组中随机交换1%的元素，并反转其中一段
+     */
+    public void setPartiallySortedArray() {
+        int len = 5000000;
+        a = new Integer[len];
+        for (int i = 0; i < len; i++)
+            a[i] = i;
+        for (int k = 0; k < len / 100; k++) {
+            int i = random.nextInt(len), j = random.nextInt(len);
+            Integer t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+        for (int i = len / 4, j = len / 2; i < j; i++, j--) {
+            Integer t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    @Test
+    public void sortTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeBU.sort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void sortNaturalTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeBU.sortNatural(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void partiallySortedTest() {
+        watch.frequency(freq)
+                .before(() -> setPartiallySortedArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeX.sort(a));
+        log.debug("mergeX ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq)
+                .before(() -> setPartiallySortedArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeBU.sortNatural(a));
+        log.debug("natural ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void sortedTest() {
+        int len = 100000;
+        Integer[] b = new Integer[len];
+        for (int i = 0; i < len; i++)
+            b[i] = i;
+        int[] compares = new int[1];
+        Comparator<Integer> counting = (x, y) -> {
+            compares[0]++;
+            return x.compareTo(y);
+        };
+        MergeBU.sortNatural(b, counting);
+        assertEquals(len - 1, compares[0]);
+
+        // 严格降序也只需要一次反转
+        compares[0] = 0;
+        MergeBU.sortNatural(b, counting.reversed());
+        assertEquals(len - 1, compares[0]);
+        assertEquals(len - 1, (int) b[0]);
+    }
+
+    @Test
+    public void stableTest() {
+        int len = 200000;
+        // 高位为键，低位为原始顺序。分段有序以触发galloping
+        Long[] b = new Long[len];
+        for (int i = 0; i < len; i++) {
+            long key = (i / 1000) % 2 == 0 ? random.nextInt(50) : (i % 1000) / 20;
+            b[i] = (key << 32) | i;
+        }
+        Long[] expected = b.clone();
+        Arrays.sort(expected);
+        MergeBU.sortNatural(b, (x, y) -> Long.compare(x >>> 32, y >>> 32));
+        assertArrayEquals(expected, b);
+    }
+}
@@ -0,0 +1,72 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.Sorts;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MergeInPlaceTest {
+    private Random random = new Random(47);
+    private Integer[] a;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setArray() {
+        int len = 5000000;
+        a = new Integer[len];
+        for (int i = 0; i < len; i++)
+            a[i] = random.nextInt(len * 10);
+    }
+
+    /**
+     * 与MergeX比较吞吐量
+     */
+    @Test
+    public void sortTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeX.sort(a));
+        log.debug("mergeX ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeInPlace.sort(a));
+        log.debug("in place ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void stableTest() {
+        for (int len : new int[] { 0, 1, 17, 1000, 300000 }) {
+            Long[] b = new Long[len];
+            for (int i = 0; i < len; i++)
+                b[i] = ((long) random.nextInt(100) << 32) | i;
+            Long[] expected = b.clone();
+            Arrays.sort(expected);
+            MergeInPlace.sort(b, (x, y) -> Long.compare(x >>> 32, y >>> 32));
+            assertArrayEquals(expected, b);
+        }
+    }
+
+    @Test
+    public void comparatorTest() {
+        setArray();
+        Integer[] b = Arrays.copyOf(a, 200000);
+        Integer[] expected = b.clone();
+        Arrays.sort(expected, Comparator.reverseOrder());
+        MergeInPlace.sort(b, Comparator.reverseOrder());
+        assertArrayEquals(expected, b);
+    }
+}
@@ -0,0 +1,108 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MergeTDTest {
+    private Random random = new Random(47);
+    private Row[] rows;
+    private int[] index;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setRows(int len, int bound) {
+        rows = new Row[len];
+        for (int i = 0; i < len; i++)
+            rows[i] = new Row(random.nextInt(bound), random.nextGaussian());
+    }
+
+    @Test
+    public void indexSortTest() {
+        watch.frequency(freq)
+                .before(() -> setRows(1000000, 10000000))
+                .after(() -> assertTrue(isSorted(rows, index)))
+                .start()
+                .runThenStop(() -> index = MergeTD.indexSort(rows));
+        log.debug("compareTo ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq)
+                .before(() -> setRows(1000000, 10000000))
+                .after(() -> assertTrue(isSorted(rows, index)))
+                .start()
+                .runThenStop(() -> index = MergeTD.indexSortByLong(rows, r -> r.id));
+        log.debug("long key ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq)
+                .before(() -> setRows(1000000, 10000000))
+                .after(() -> assertTrue(isSorted(rows, index)))
+                .start()
+                .runThenStop(() -> index = MergeTD.parallelIndexSortByLong(rows, r -> r.id));
+        log.debug("parallel long key ms: {}", watch.getAvgTimeMillis());
+    }
+
+    /**
+     * 键相同的元素保持原来的下标顺序
+     */
+    @Test
+    public void stableTest() {
+        setRows(200000, 100);
+        Integer[] expected = IntStream.range(0, rows.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(expected, Comparator.comparingLong(i -> rows[i].id));
+        int[] e = Arrays.stream(expected).mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(e, MergeTD.indexSortByLong(rows, r -> r.id));
+        assertArrayEquals(e, MergeTD.parallelIndexSortByLong(rows, r -> r.id));
+        long[] keys = Arrays.stream(rows).mapToLong(r -> r.id).toArray();
+        assertArrayEquals(e, MergeTD.indexSort(keys));
+    }
+
+    @Test
+    public void doubleKeyTest() {
+        setRows(100000, 100);
+        rows[0].score = Double.NaN;
+        rows[1].score = -0.0;
+        rows[2].score = 0.0;
+        rows[3].score = Double.NEGATIVE_INFINITY;
+        rows[4].score = -0.0;
+        Integer[] expected = IntStream.range(0, rows.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(expected, (i, j) -> Double.compare(rows[i].score, rows[j].score));
+        int[] e = Arrays.stream(expected).mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(e, MergeTD.indexSortByDouble(rows, r -> r.score));
+        assertArrayEquals(e, MergeTD.parallelIndexSortByDouble(rows, r -> r.score));
+    }
+
+    private static boolean isSorted(Row[] rows, int[] index) {
+        for (int i = 1; i < index.length; i++)
+            if (rows[index[i]].id < rows[index[i - 1]].id
+                    || rows[index[i]].id == rows[index[i - 1]].id && index[i] < index[i - 1])
+                return false;
+        return true;
+    }
+
+    private static class Row implements Comparable<Row> {
+        private final long id;
+        private double score;
+        // 模拟较大的记录
+        @SuppressWarnings("unused")
+        private final long[] payload = new long[4];
+
+        Row(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Row o) {
+            return Long.compare(id, o.id);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.Sorts;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MergeXTest {
+    private Random random = new Random(47);
+    private Integer[] a;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setArray() {
+        int len = 5000000;
+        a = new Integer[len];
+        for (int i = 0; i < len; i++)
+            a[i] = random.nextInt(len*10);
+    }
+
+    @Test
+    public void sortTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeX.sort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void parallelSortTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> MergeX.parallelSort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void parallelSortStableTest() {
+        int len = 100000;
+        // 高位为键，低位为原始顺序
+        Long[] b = new Long[len];
+        for (int i = 0; i < len; i++)
+            b[i] = ((long) random.nextInt(100) << 32) | i;
+        Long[] expected = b.clone();
+        Arrays.sort(expected);
+        Comparator<Long> byKey = (x, y) -> Long.compare(x >>> 32, y >>> 32);
+        // 较小的threshold使归并也并行切分
+        MergeX.parallelSort(b, byKey, 64);
+        assertArrayEquals(expected, b);
+    }
+}
@@ -0,0 +1,191 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MultiQueueTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 2;
+    private ConcurrentMinPQ<Integer> queue;
+
+    /**
+     * 用一个锁保护MinPQ，作为比较的基准
+     */
+    private static class LockedMinPQ implements ConcurrentMinPQ<Integer> {
+        private final MinPQ<Integer> pq = new MinPQ<>();
+
+        @Override
+        public synchronized void insert(Integer key) {
+            pq.insert(key);
+        }
+
+        @Override
+        public synchronized Integer delMin() {
+            return pq.isEmpty() ? null : pq.delMin();
+        }
+
+        @Override
+        public synchronized boolean isEmpty() {
+            return pq.isEmpty();
+        }
+    }
+
+    /**
+     * 在threads个线程中同时运行task，等待所有线程结束
+     */
+    private void runConcurrently(int threads, Runnable task) {
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++)
+            new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 多个线程同时插入与删除，所有插入的键都被删除且只删除一次
+     */
+    @Test
+    public void concurrentTest() {
+        List<Supplier<ConcurrentMinPQ<Integer>>> queues = new ArrayList<>();
+        queues.add(() -> new MultiQueue<>(4, 2));
+        queues.add(SkipListPQ::new);
+        int threads = 4, perThread = 5000;
+        for (Supplier<ConcurrentMinPQ<Integer>> supplier : queues) {
+            ConcurrentMinPQ<Integer> queue = supplier.get();
+            ConcurrentLinkedQueue<Integer> removed = new ConcurrentLinkedQueue<>();
+            int[] next = { 0 };
+            runConcurrently(threads, () -> {
+                int base;
+                synchronized (next) {
+                    base = next[0];
+                    next[0] += perThread;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    queue.insert(base + i);
+                    if ((i & 1) == 1)
+                        removed.add(queue.delMin());
+                }
+            });
+            Integer key;
+            while ((key = queue.delMin()) != null)
+                removed.add(key);
+            assertTrue(queue.isEmpty());
+            List<Integer> sorted = removed.stream().sorted().collect(Collectors.toList());
+            assertEquals(IntStream.range(0, threads * perThread).boxed().collect(Collectors.toList()), sorted);
+        }
+    }
+
+    @Test
+    public void skipListOrderTest() {
+        SkipListPQ<Integer> pq = new SkipListPQ<>();
+        int[] keys = random.ints(10000, 0, 100).toArray();
+        for (int key : keys)
+            pq.insert(key);
+        Arrays.sort(keys);
+        for (int key : keys) {
+            assertEquals(key, (int) pq.min());
+            assertEquals(key, (int) pq.delMin());
+        }
+        assertNull(pq.delMin());
+    }
+
+    /**
+     * 排名误差：交替delMin与insert，delMin返回的键在队列中的排名(比它小的键的数量)。
+     * 使用树状数组记录队列中的键，键是互不相同的随机排列
+     */
+    private double rankError(ConcurrentMinPQ<Integer> queue, int n, int ops) {
+        List<Integer> keys = IntStream.range(0, n + ops).boxed().collect(Collectors.toList());
+        Collections.shuffle(keys, random);
+        int[] tree = new int[n + ops + 1];
+        for (int i = 0; i < n; i++) {
+            queue.insert(keys.get(i));
+            add(tree, keys.get(i), 1);
+        }
+        long errors = 0;
+        for (int i = 0; i < ops; i++) {
+            int min = queue.delMin();
+            add(tree, min, -1);
+            errors += prefixSum(tree, min);
+            queue.insert(keys.get(n + i));
+            add(tree, keys.get(n + i), 1);
+        }
+        return (double) errors / ops;
+    }
+
+    private void add(int[] tree, int key, int delta) {
+        for (int i = key + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    // 小于key的键的数量
+    private int prefixSum(int[] tree, int key) {
+        int sum = 0;
+        for (int i = key; i > 0; i -= i & -i)
+            sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * 吞吐量与排名误差：分片越多竞争越少，但排名误差越大。
+     * 队列中保持n个键，每个线程交替delMin与insert。MinPQ在-ea时每次操作都检查整个堆，n不能太大
+     */
+    @Test
+    public void throughputVersusRankErrorTest() {
+        int n = 10000, ops = 20000;
+        for (int threads : new int[] { 1, 2, 4 }) {
+            List<Supplier<ConcurrentMinPQ<Integer>>> queues = new ArrayList<>();
+            queues.add(LockedMinPQ::new);
+            queues.add(() -> new MultiQueue<>(threads, 2));
+            queues.add(SkipListPQ::new);
+            for (Supplier<ConcurrentMinPQ<Integer>> supplier : queues) {
+                watch.frequency(freq)
+                        .before(() -> {
+                            queue = supplier.get();
+                            for (int i = 0; i < n; i++)
+                                queue.insert(random.nextInt());
+                        })
+                        .start()
+                        .runThenStop(() -> runConcurrently(threads, () -> {
+                            for (int i = 0; i < ops; i++)
+                                queue.insert(queue.delMin() + 1);
+                        }));
+                double rankError = rankError(supplier.get(), n, ops);
+                log.debug("{} threads={} ops/ms: {} rank error: {}", queue.getClass().getSimpleName(), threads,
+                        threads * ops / Math.max(1, watch.getAvgTimeMillis()), rankError);
+            }
+        }
+    }
+}
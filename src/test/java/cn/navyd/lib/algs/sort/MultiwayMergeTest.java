@@ -0,0 +1,150 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cn.navyd.lib.algs.util.In;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MultiwayMergeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+    private int[][] shards;
+    private int[] merged;
+
+    /**
+     * 64个分片，其中一个分片占一半的元素且与其他分片的值域只有少量重叠
+     */
+    public void setShards() {
+        int k = 64, len = 5000000;
+        shards = new int[k][];
+        shards[0] = sortedInts(len / 2, 0, len);
+        for (int i = 1; i < k; i++)
+            shards[i] = sortedInts(len / 2 / (k - 1), len - 1000, Integer.MAX_VALUE);
+    }
+
+    private int[] sortedInts(int n, int from, int to) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++)
+            a[i] = from + random.nextInt(to - from);
+        Arrays.sort(a);
+        return a;
+    }
+
+    @Test
+    public void mergeIntsTest() {
+        watch.frequency(freq)
+                .before(() -> setShards())
+                .after(() -> {
+                    int[] expected = Arrays.stream(shards).flatMapToInt(Arrays::stream).sorted().toArray();
+                    assertArrayEquals(expected, merged);
+                })
+                .start()
+                .runThenStop(() -> merged = MultiwayMerge.merge(shards));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void mergePrimitiveArraysTest() {
+        for (int k = 0; k <= 9; k++) {
+            long[][] ls = new long[k][];
+            double[][] ds = new double[k][];
+            for (int i = 0; i < k; i++) {
+                int n = random.nextInt(3) == 0 ? 0 : random.nextInt(200);
+                ls[i] = random.longs(n, -50, 50).sorted().toArray();
+                ds[i] = random.doubles(n).map(d -> Math.floor(d * 20)).sorted().toArray();
+            }
+            assertArrayEquals(Arrays.stream(ls).flatMapToLong(Arrays::stream).sorted().toArray(), MultiwayMerge.merge(ls));
+            assertArrayEquals(Arrays.stream(ds).flatMapToDouble(Arrays::stream).sorted().toArray(), MultiwayMerge.merge(ds), 0);
+        }
+    }
+
+    /**
+     * 键相等时按源的顺序输出，整段复制也保持稳定
+     */
+    @Test
+    public void stableTest() {
+        int k = 5;
+        Long[][] sources = new Long[k][];
+        List<Long> all = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            int n = 1000 + random.nextInt(1000);
+            long[] keys = random.longs(n, 0, i == 2 ? 10 : 100).sorted().toArray();
+            sources[i] = new Long[n];
+            for (int j = 0; j < n; j++) {
+                // 高位为键，低位为源与源内的位置
+                sources[i][j] = keys[j] << 32 | (long) i << 16 | j;
+                all.add(sources[i][j]);
+            }
+        }
+        Comparator<Long> byKey = Comparator.comparingLong(v -> v >>> 32);
+        Long[] expected = all.toArray(new Long[0]);
+        Arrays.sort(expected);
+        assertArrayEquals(expected, MultiwayMerge.merge(sources, byKey));
+
+        List<Iterator<Long>> its = new ArrayList<>();
+        for (Long[] source : sources)
+            its.add(Arrays.asList(source).iterator());
+        Iterator<Long> it = MultiwayMerge.merge(its, byKey);
+        for (Long v : expected)
+            assertEquals(v, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * 每个源只在其当前元素被取出后才读取下一个
+     */
+    @Test
+    public void lazyTest() {
+        int[] pulled = new int[1];
+        List<PrimitiveIterator.OfInt> sources = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            sources.add(IntStream.iterate(i, v -> v + 3).limit(1000).peek(v -> pulled[0]++).iterator());
+        PrimitiveIterator.OfInt it = MultiwayMerge.mergeInts(sources);
+        for (int v = 0; v < 10; v++)
+            assertEquals(v, it.nextInt());
+        assertEquals(13, pulled[0]);
+    }
+
+    @Test
+    public void mergeInTest() throws IOException {
+        File a = folder.newFile(), b = folder.newFile(), c = folder.newFile();
+        Files.write(a.toPath(), Arrays.asList("1 4 4", "9"), StandardCharsets.UTF_8);
+        Files.write(b.toPath(), Arrays.asList("2 3 10 11"), StandardCharsets.UTF_8);
+        PrimitiveIterator.OfInt ints = MultiwayMerge.mergeInts(new In(a), new In(b), new In(c));
+        int[] expected = { 1, 2, 3, 4, 4, 9, 10, 11 };
+        for (int v : expected)
+            assertEquals(v, ints.nextInt());
+        assertFalse(ints.hasNext());
+
+        Files.write(a.toPath(), Arrays.asList("apple", "cherry"), StandardCharsets.UTF_8);
+        Files.write(b.toPath(), Arrays.asList("banana", "date"), StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        MultiwayMerge.mergeLines(new In(a), new In(b), new In(c)).forEachRemaining(lines::add);
+        assertEquals(Arrays.asList("apple", "banana", "cherry", "date"), lines);
+    }
+}
@@ -0,0 +1,200 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class PairingHeapTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 3;
+    private double[] keys;
+
+    /**
+     * 随机的insert, decreaseKey, delete, meld, delMin与PriorityQueue的结果比较
+     */
+    @Test
+    public void pairingHeapTest() {
+        PairingHeap<Integer> heap = new PairingHeap<>();
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        List<PairingHeap.Handle<Integer>> handles = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            int op = random.nextInt(10);
+            if (op < 4 || handles.isEmpty()) {
+                int key = random.nextInt(100000);
+                handles.add(heap.insert(key));
+                expected.add(key);
+            } else if (op < 6) {
+                PairingHeap.Handle<Integer> h = handles.get(random.nextInt(handles.size()));
+                if (!heap.contains(h))
+                    continue;
+                int key = h.key() - random.nextInt(1000);
+                expected.remove(h.key());
+                expected.add(key);
+                heap.decreaseKey(h, key);
+                assertEquals(key, (int) h.key());
+            } else if (op < 7) {
+                PairingHeap.Handle<Integer> h = handles.get(random.nextInt(handles.size()));
+                if (!heap.contains(h))
+                    continue;
+                expected.remove(h.key());
+                heap.delete(h);
+                assertFalse(heap.contains(h));
+            } else if (op < 8) {
+                PairingHeap<Integer> other = new PairingHeap<>();
+                for (int j = random.nextInt(10); j > 0; j--) {
+                    int key = random.nextInt(100000);
+                    handles.add(other.insert(key));
+                    expected.add(key);
+                }
+                heap.meld(other);
+                assertTrue(other.isEmpty());
+            } else if (!heap.isEmpty()) {
+                assertEquals(expected.poll(), heap.delMin());
+            }
+            assertEquals(expected.size(), heap.size());
+            if (!expected.isEmpty())
+                assertEquals(expected.peek(), heap.min());
+        }
+        while (!heap.isEmpty())
+            assertEquals(expected.poll(), heap.delMin());
+        assertTrue(expected.isEmpty());
+    }
+
+    /**
+     * 随机的insert, decreaseKey, delete, delMin与逐个查找最小值的结果比较，索引超过初始容量时自动增长
+     */
+    @Test
+    public void indexPairingHeapTest() {
+        int maxN = 2000;
+        IndexPairingHeap heap = new IndexPairingHeap(1);
+        double[] expected = new double[maxN];
+        Arrays.fill(expected, Double.NaN);
+        int size = 0;
+        for (int i = 0; i < 100000; i++) {
+            int k = random.nextInt(maxN);
+            boolean contains = !Double.isNaN(expected[k]);
+            assertEquals(contains, heap.contains(k));
+            switch (random.nextInt(4)) {
+            case 0:
+                if (!contains) {
+                    expected[k] = random.nextInt(10000);
+                    heap.insert(k, expected[k]);
+                    size++;
+                }
+                break;
+            case 1:
+                if (contains) {
+                    expected[k] -= random.nextInt(100);
+                    heap.decreaseKey(k, expected[k]);
+                }
+                break;
+            case 2:
+                if (contains) {
+                    heap.delete(k);
+                    expected[k] = Double.NaN;
+                    size--;
+                }
+                break;
+            default:
+                if (size > 0) {
+                    double min = Arrays.stream(expected).filter(v -> !Double.isNaN(v)).min().getAsDouble();
+                    assertEquals(min, heap.min(), 0);
+                    int m = heap.delMin();
+                    assertEquals(min, expected[m], 0);
+                    expected[m] = Double.NaN;
+                    size--;
+                }
+            }
+            assertEquals(size, heap.size());
+        }
+    }
+
+    /**
+     * 其他堆的句柄不能使用，meld之后other的句柄属于当前堆，other可以继续插入新的句柄
+     */
+    @Test
+    public void foreignHandleTest() {
+        PairingHeap<Integer> a = new PairingHeap<>(), b = new PairingHeap<>(), c = new PairingHeap<>();
+        PairingHeap.Handle<Integer> ha = a.insert(5);
+        PairingHeap.Handle<Integer> hb = b.insert(7);
+        b.insert(9);
+        assertFalse(a.contains(hb));
+        try {
+            a.decreaseKey(hb, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            a.delete(hb);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(1, a.size());
+        assertEquals(2, b.size());
+        assertEquals(7, (int) b.min());
+
+        a.meld(b);
+        assertTrue(a.contains(hb));
+        assertFalse(b.contains(hb));
+        PairingHeap.Handle<Integer> hb2 = b.insert(1);
+        assertFalse(a.contains(hb2));
+        c.meld(a);
+        assertTrue(c.contains(ha) && c.contains(hb));
+        assertFalse(a.contains(ha));
+        c.decreaseKey(hb, 2);
+        c.delete(ha);
+        assertEquals(2, (int) c.delMin());
+        assertEquals(9, (int) c.delMin());
+        assertTrue(c.isEmpty());
+        assertEquals(1, (int) b.delMin());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void increaseKeyTest() {
+        IndexPairingHeap heap = new IndexPairingHeap();
+        heap.insert(3, 1.0);
+        heap.decreaseKey(3, 2.0);
+    }
+
+    /**
+     * 与Dijkstra相同的使用方式：每次delMin之间有多次decreaseKey
+     */
+    @Test
+    public void decreaseKeyPerformanceTest() {
+        int n = 300000, degree = 8;
+        DoubleIndexedPQ[] pqs = { new DoubleIndexMinPQ(n, 4), new IndexPairingHeap(n) };
+        for (DoubleIndexedPQ pq : pqs) {
+            watch.frequency(freq)
+                    .before(() -> keys = random.doubles(n * degree).toArray())
+                    .start()
+                    .runThenStop(() -> {
+                        for (int i = 0; i < n; i++)
+                            pq.insert(i, 1 + keys[i]);
+                        for (int j = 0; !pq.isEmpty();) {
+                            for (int e = 0; e < degree; e++, j++) {
+                                int k = (int) (keys[j] * n);
+                                if (pq.contains(k) && keys[j] < pq.keyOf(k))
+                                    pq.decreaseKey(k, keys[j]);
+                            }
+                            pq.delMin();
+                        }
+                    });
+            log.debug("{} ms: {}", pq.getClass().getSimpleName(), watch.getAvgTimeMillis());
+        }
+    }
+}
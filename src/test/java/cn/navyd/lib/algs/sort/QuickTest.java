@@ -0,0 +1,265 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.Sorts;
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class QuickTest {
+    private Random random = new Random(47);
+    private Integer[] a;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setArray() {
+        setArray(5000000, 50000000);
+    }
+
+    /**
+     * 元素取值范围为[0..bound)，bound较小时含大量重复元素
+     */
+    public void setArray(int len, int bound) {
+        a = new Integer[len];
+        for (int i = 0; i < len; i++)
+            a[i] = random.nextInt(bound);
+    }
+
+    @Test
+    public void sortTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> Quick.sort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void sortDualPivotTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> Quick.sortDualPivot(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void parallelSortTest() {
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> Quick.parallelSort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void duplicatesTest() {
+        watch.frequency(freq)
+                .before(() -> setArray(5000000, 10))
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> Quick.parallelSort(a));
+        log.debug("parallel ms: {}", watch.getAvgTimeMillis());
+        watch.frequency(freq)
+                .before(() -> setArray(5000000, 10))
+                .after(() -> assertTrue(Sorts.isSorted(a)))
+                .start()
+                .runThenStop(() -> QuickX.parallelSort(a));
+        log.debug("quickX parallel ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void comparatorTest() {
+        setArray(100000, 1000);
+        Integer[] expected = a.clone();
+        Arrays.sort(expected, Comparator.reverseOrder());
+        Integer[] b = a.clone();
+        Quick.sortDualPivot(b, Comparator.reverseOrder());
+        assertArrayEquals(expected, b);
+        b = a.clone();
+        Quick.parallelSort(b, Comparator.reverseOrder());
+        assertArrayEquals(expected, b);
+        b = a.clone();
+        QuickX.parallelSort(b, Comparator.reverseOrder());
+        assertArrayEquals(expected, b);
+    }
+
+    @Test
+    public void partialSortTest() {
+        int k = 1000;
+        watch.frequency(freq)
+                .before(() -> setArray())
+                .after(() -> {
+                    Integer[] expected = a.clone();
+                    Arrays.sort(expected);
+                    assertArrayEquals(Arrays.copyOf(expected, k), Arrays.copyOf(a, k));
+                })
+                .start()
+                .runThenStop(() -> Quick.partialSort(a, k));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void sortRangeTest() {
+        setArray(200000, 5000);
+        Integer[] expected = a.clone();
+        Arrays.sort(expected, Comparator.reverseOrder());
+        int from = 1000, to = 2000;
+        Quick.sortRange(a, from, to, Comparator.reverseOrder());
+        assertArrayEquals(Arrays.copyOfRange(expected, from, to), Arrays.copyOfRange(a, from, to));
+        for (int i = 0; i < from; i++)
+            assertTrue(a[i] >= a[from]);
+        for (int i = to; i < a.length; i++)
+            assertTrue(a[i] <= a[to - 1]);
+
+        Quick.sortRange(a, 0, a.length);
+        assertTrue(Sorts.isSorted(a));
+    }
+
+    @Test
+    public void topKTest() {
+        setArray(200000, 1000000);
+        Integer[] b = a.clone();
+        Integer[] expected = a.clone();
+        Arrays.sort(expected);
+        // 堆与部分排序两种实现
+        for (int k : new int[] { 0, 10, 3000, 100000 })
+            assertArrayEquals(Arrays.copyOf(expected, k), Quick.topK(a, k, null));
+        assertArrayEquals(b, a);
+        Arrays.sort(expected, Comparator.reverseOrder());
+        assertArrayEquals(Arrays.copyOf(expected, 50),
+                Quick.topK(Arrays.asList(a), 50, Comparator.<Integer>reverseOrder()).toArray());
+    }
+
+    @Test
+    public void selectManyTest() {
+        int n = 5000000;
+        int[] ranks = { n / 2, n * 9 / 10, n * 99 / 100, n * 999 / 1000, 0, n - 1, n / 2 };
+        Integer[][] result = new Integer[1][];
+        watch.frequency(freq)
+                .before(() -> setArray(n, n * 10))
+                .after(() -> {
+                    Integer[] expected = a.clone();
+                    Arrays.sort(expected);
+                    for (int i = 0; i < ranks.length; i++)
+                        assertEquals(expected[ranks[i]], result[0][i]);
+                })
+                .start()
+                .runThenStop(() -> result[0] = Quick.selectMany(a, ranks));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void selectManyPrimitiveTest() {
+        int n = 100000;
+        int[] ranks = { 99999, 0, 500, 500, 50000, 12345, 99990 };
+        int[] ia = new int[n];
+        long[] la = new long[n];
+        double[] da = new double[n];
+        for (int i = 0; i < n; i++) {
+            ia[i] = random.nextInt(1000) - 500;
+            la[i] = random.nextLong();
+            da[i] = random.nextGaussian();
+        }
+        int[] is = ia.clone();
+        long[] ls = la.clone();
+        double[] ds = da.clone();
+        Arrays.sort(is);
+        Arrays.sort(ls);
+        Arrays.sort(ds);
+        int[] ir = Quick.selectMany(ia, ranks);
+        long[] lr = Quick.selectMany(la, ranks);
+        double[] dr = Quick.selectMany(da, ranks);
+        for (int i = 0; i < ranks.length; i++) {
+            assertEquals(is[ranks[i]], ir[i]);
+            assertEquals(ls[ranks[i]], lr[i]);
+            assertEquals(ds[ranks[i]], dr[i], 0);
+        }
+    }
+
+    /**
+     * 使用McIlroy的antiqsort比较器构造最坏输入，内省排序的比较次数应该保持在NlgN级别。
+     * 双切分点与并行排序、QuickX的并行三向切分使用相同的深度限制
+     */
+    @Test
+    public void adversaryTest() {
+        int n = 100000;
+        double nlgn = n * (Math.log(n) / Math.log(2));
+        Map<String, BiConsumer<Integer[], Comparator<Integer>>> sorts = new LinkedHashMap<>();
+        sorts.put("sort", Quick::sort);
+        sorts.put("sortDualPivot", Quick::sortDualPivot);
+        sorts.put("parallelSort", Quick::parallelSort);
+        sorts.put("QuickX.parallelSort", QuickX::parallelSort);
+        sorts.forEach((name, sort) -> {
+            AntiQuicksort adversary = new AntiQuicksort(n);
+            Integer[] b = new Integer[n];
+            for (int i = 0; i < n; i++)
+                b[i] = i;
+            sort.accept(b, adversary);
+            log.debug("{} compares: {}, NlgN: {}", name, adversary.compares, (long) nlgn);
+            assertTrue(adversary.compares < 10 * nlgn);
+            for (int i = 1; i < n; i++)
+                assertTrue(adversary.val[b[i - 1]] <= adversary.val[b[i]]);
+        });
+
+        // 记录比较器给出的值作为固定输入，使用自然顺序的并行排序
+        AntiQuicksort adversary = new AntiQuicksort(n);
+        Integer[] b = new Integer[n];
+        for (int i = 0; i < n; i++)
+            b[i] = i;
+        QuickX.parallelSort(b, adversary);
+        Long[] fixed = new Long[n];
+        for (int i = 0; i < n; i++)
+            fixed[i] = (long) adversary.val[i];
+        QuickX.parallelSort(fixed);
+        assertTrue(Sorts.isSorted(fixed));
+    }
+
+    /**
+     * 比较时才决定元素的大小，使快速排序总是选中最差的切分点。并行排序时多个线程同时比较，需要同步
+     */
+    private static class AntiQuicksort implements Comparator<Integer> {
+        private final int[] val;
+        private final int gas;
+        private int solid = 0, candidate = 0;
+        private long compares = 0;
+
+        AntiQuicksort(int n) {
+            val = new int[n];
+            gas = n - 1;
+            Arrays.fill(val, gas);
+        }
+
+        @Override
+        public synchronized int compare(Integer x, Integer y) {
+            compares++;
+            if (val[x] == gas && val[y] == gas) {
+                if (x == candidate)
+                    val[x] = solid++;
+                else
+                    val[y] = solid++;
+            }
+            if (val[x] == gas)
+                candidate = x;
+            else if (val[y] == gas)
+                candidate = y;
+            return Integer.compare(val[x], val[y]);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RadixHeapTest {
+    private Random random = new Random(47);
+
+    /**
+     * 与Dijkstra相同的单调使用方式：插入与减小的键都不小于最后删除的最小键，与DoubleIndexMinPQ的结果比较
+     */
+    @Test
+    public void monotoneTest() {
+        int maxN = 2000;
+        RadixHeap heap = new RadixHeap(maxN);
+        DoubleIndexMinPQ expected = new DoubleIndexMinPQ(maxN);
+        long last = 0;
+        for (int i = 0; i < 100000; i++) {
+            int k = random.nextInt(maxN);
+            long key = last + random.nextInt(random.nextBoolean() ? 100 : 1 << 20);
+            if (!expected.contains(k)) {
+                heap.insert(k, key);
+                expected.insert(k, key);
+            } else if (key < expected.keyOf(k)) {
+                heap.decreaseKey(k, key);
+                expected.decreaseKey(k, key);
+            } else if (!expected.isEmpty()) {
+                double min = expected.min();
+                int m = heap.delMin();
+                assertEquals(min, expected.keyOf(m), 0);
+                expected.delete(m);
+                assertTrue(min >= last);
+                last = (long) min;
+            }
+            assertEquals(expected.size(), heap.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonMonotoneTest() {
+        RadixHeap heap = new RadixHeap(2);
+        heap.insert(0, 10);
+        heap.delMin();
+        heap.insert(1, 9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fractionalKeyTest() {
+        new RadixHeap(1).insert(0, 0.5);
+    }
+}
@@ -0,0 +1,118 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class SortedSetsTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+    private int[] small, large, result;
+
+    private int[] randomSet(int n, int bound) {
+        return SortedSets.distinct(random.ints(n, 0, bound).sorted().toArray());
+    }
+
+    private TreeSet<Integer> toSet(int[] a) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int v : a)
+            set.add(v);
+        return set;
+    }
+
+    private int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 长度相近与相差很大的情况都与TreeSet的结果比较
+     */
+    @Test
+    public void setOperationsTest() {
+        int[][] sizes = { { 0, 100 }, { 1000, 1200 }, { 50, 100000 }, { 100000, 30 } };
+        for (int[] size : sizes) {
+            int[] a = randomSet(size[0], 200000), b = randomSet(size[1], 200000);
+            TreeSet<Integer> and = toSet(a), or = toSet(a), minus = toSet(a);
+            and.retainAll(toSet(b));
+            or.addAll(toSet(b));
+            minus.removeAll(toSet(b));
+            assertArrayEquals(toArray(and), SortedSets.intersect(a, b));
+            assertArrayEquals(toArray(or), SortedSets.union(a, b));
+            assertArrayEquals(toArray(minus), SortedSets.difference(a, b));
+
+            long[] la = Arrays.stream(a).asLongStream().map(v -> v - 100000).toArray();
+            long[] lb = Arrays.stream(b).asLongStream().map(v -> v - 100000).toArray();
+            assertArrayEquals(toArray(and), toInts(SortedSets.intersect(la, lb)));
+            assertArrayEquals(toArray(or), toInts(SortedSets.union(la, lb)));
+            assertArrayEquals(toArray(minus), toInts(SortedSets.difference(la, lb)));
+        }
+    }
+
+    private int[] toInts(long[] a) {
+        return LongStream.of(a).mapToInt(v -> (int) (v + 100000)).toArray();
+    }
+
+    @Test
+    public void multiwayIntersectTest() {
+        int[][] sets = new int[6][];
+        TreeSet<Integer> expected = null;
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = randomSet(i == 3 ? 500 : 50000, 100000);
+            if (expected == null)
+                expected = toSet(sets[i]);
+            else
+                expected.retainAll(toSet(sets[i]));
+        }
+        assertArrayEquals(toArray(expected), SortedSets.intersect(sets));
+        long[][] ls = Arrays.stream(sets).map(s -> Arrays.stream(s).asLongStream().toArray()).toArray(long[][]::new);
+        assertArrayEquals(toArray(expected), Arrays.stream(SortedSets.intersect(ls)).mapToInt(v -> (int) v).toArray());
+        assertArrayEquals(new int[0], SortedSets.intersect(new int[0][]));
+    }
+
+    @Test
+    public void parallelTest() {
+        int[] a = randomSet(3000000, 10000000), b = randomSet(2000000, 10000000), c = randomSet(5000, 10000000);
+        assertArrayEquals(SortedSets.intersect(a, b), SortedSets.parallelIntersect(a, b));
+        assertArrayEquals(SortedSets.union(a, b), SortedSets.parallelUnion(a, b));
+        assertArrayEquals(SortedSets.difference(a, b), SortedSets.parallelDifference(a, b));
+        assertArrayEquals(SortedSets.difference(c, a), SortedSets.parallelDifference(c, a));
+        assertArrayEquals(SortedSets.union(a, c), SortedSets.parallelUnion(a, c));
+
+        long[] la = IntStream.of(a).asLongStream().map(v -> v * 3_000_000_000L).toArray();
+        long[] lb = IntStream.of(b).asLongStream().map(v -> v * 3_000_000_000L).toArray();
+        assertArrayEquals(SortedSets.intersect(la, lb), SortedSets.parallelIntersect(la, lb));
+        assertArrayEquals(SortedSets.union(la, lb), SortedSets.parallelUnion(la, lb));
+        assertArrayEquals(SortedSets.difference(lb, la), SortedSets.parallelDifference(lb, la));
+    }
+
+    /**
+     * 短列表与长列表求交集，倍增查找只需要O(m lg(n/m))次比较
+     */
+    @Test
+    public void skewedIntersectTest() {
+        watch.frequency(freq)
+                .before(() -> {
+                    small = randomSet(1000, 100000000);
+                    large = randomSet(10000000, 100000000);
+                })
+                .after(() -> {
+                    int[] expected = IntStream.of(small).filter(v -> Arrays.binarySearch(large, v) >= 0).toArray();
+                    assertArrayEquals(expected, result);
+                })
+                .start()
+                .runThenStop(() -> result = SortedSets.intersect(small, large));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+}
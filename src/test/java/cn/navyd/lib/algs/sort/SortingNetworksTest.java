@@ -0,0 +1,73 @@
+package cn.navyd.lib.algs.sort;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.Sorts;
+
+public class SortingNetworksTest {
+    private Random random = new Random(47);
+
+    /**
+     * 0-1原则：网络能排序所有0-1序列时能排序任意序列
+     */
+    @Test
+    public void zeroOneTest() {
+        for (int n = 0; n <= SortingNetworks.MAX_LENGTH; n++) {
+            int[] a = new int[n + 2];
+            for (int bits = 0; bits < 1 << n; bits++) {
+                a[0] = 2;
+                a[n + 1] = -1;
+                for (int k = 0; k < n; k++)
+                    a[k + 1] = bits >>> k & 1;
+                SortingNetworks.sort(a, 1, n + 1);
+                for (int k = 1; k < n; k++)
+                    assertTrue(n + ": " + Arrays.toString(a), a[k] <= a[k + 1]);
+                // 范围外的元素不变
+                assertTrue(a[0] == 2 && a[n + 1] == -1);
+            }
+        }
+    }
+
+    @Test
+    public void sortTest() {
+        for (int n = 0; n <= SortingNetworks.MAX_LENGTH; n++) {
+            for (int round = 0; round < 100; round++) {
+                long[] la = new long[n];
+                double[] da = new double[n];
+                Integer[] oa = new Integer[n];
+                for (int i = 0; i < n; i++) {
+                    la[i] = random.nextLong();
+                    da[i] = random.nextInt(5) - 2.5;
+                    oa[i] = random.nextInt(10);
+                }
+                long[] lb = la.clone();
+                double[] db = da.clone();
+                Integer[] ob = oa.clone();
+                Arrays.sort(lb);
+                Arrays.sort(db);
+                SortingNetworks.sort(la, 0, n);
+                SortingNetworks.sort(da, 0, n);
+                assertArrayEquals(lb, la);
+                assertArrayEquals(db, da, 0);
+
+                SortingNetworks.sort(oa, 0, n, Comparator.reverseOrder());
+                Arrays.sort(ob, Comparator.reverseOrder());
+                assertArrayEquals(ob, oa);
+                SortingNetworks.sort(oa, 0, n);
+                assertTrue(Sorts.isSorted(oa));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooLongTest() {
+        SortingNetworks.sort(new int[20], 0, SortingNetworks.MAX_LENGTH + 1);
+    }
+}
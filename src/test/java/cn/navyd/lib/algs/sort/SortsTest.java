@@ -1,13 +1,22 @@
 package cn.navyd.lib.algs.sort;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
+import cn.navyd.lib.util.SortDecision;
+import cn.navyd.lib.util.SortDecision.Algorithm;
 import cn.navyd.lib.util.Sorts;
 import cn.navyd.lib.util.StrictWatchRunner;
 import cn.navyd.lib.util.WatchRunner;
@@ -17,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 public class SortsTest {
     private Random random = new Random(47);
     private Integer[] a;
+    private int[] ia;
     private WatchRunner watch = StrictWatchRunner.of();
     private int freq = 1;
     
@@ -29,6 +39,15 @@ public class SortsTest {
         assertFalse(Sorts.isSorted(a));
     }
 
+    public void setIntArray() {
+        int len = 5000000;
+        ia = new int[len];
+        for (int i = 0; i < len; i++)
+            ia[i] = random.nextInt(len*10);
+        
+        assertFalse(Sorts.isSorted(ia));
+    }
+
     public void exchTest() {
         int a = 2, b = 5;
         log.debug("before exch. a: {}, b: {}", a, b);
@@ -107,4 +126,180 @@ public class SortsTest {
                 .runThenStop(() -> Sorts.heap(a));
         log.debug("ms: {}", watch.getAvgTimeMillis());
     }
+    
+    @Test
+    public void mergerIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertTrue(Sorts.isSorted(ia)))
+                .start()
+                .runThenStop(() -> Sorts.merger(ia));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+    
+    @Test
+    public void quickIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertTrue(Sorts.isSorted(ia)))
+                .start()
+                .runThenStop(() -> Sorts.quick(ia));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+    
+    @Test
+    public void heapIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertTrue(Sorts.isSorted(ia)))
+                .start()
+                .runThenStop(() -> Sorts.heap(ia));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+    
+    @Test
+    public void shellIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertTrue(Sorts.isSorted(ia)))
+                .start()
+                .runThenStop(() -> Sorts.shell(ia));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+    
+    @Test
+    public void primitiveTest() {
+        int len = 10000;
+        long[] la = new long[len];
+        double[] da = new double[len];
+        for (int i = 0; i < len; i++) {
+            la[i] = random.nextLong();
+            da[i] = random.nextDouble() - 0.5;
+        }
+        long[] lb = la.clone();
+        double[] db = da.clone();
+        Arrays.sort(lb);
+        Arrays.sort(db);
+        
+        Sorts.quick(la);
+        Sorts.quick(da);
+        assertArrayEquals(lb, la);
+        assertArrayEquals(db, da, 0);
+        Sorts.shuffle(la);
+        Sorts.shuffle(da);
+        Sorts.merger(la);
+        Sorts.merger(da);
+        assertArrayEquals(lb, la);
+        assertArrayEquals(db, da, 0);
+        Sorts.shuffle(la);
+        Sorts.shuffle(da);
+        Sorts.heap(la);
+        Sorts.heap(da);
+        assertArrayEquals(lb, la);
+        assertArrayEquals(db, da, 0);
+        Sorts.shuffle(la);
+        Sorts.shuffle(da);
+        Sorts.shell(la);
+        Sorts.insertion(da);
+        assertArrayEquals(lb, la);
+        assertArrayEquals(db, da, 0);
+    }
+
+    @Test
+    public void sortTest() {
+        List<SortDecision> decisions = new ArrayList<>();
+        Sorts.setDiagnostics(decisions::add);
+        try {
+            watch.frequency(freq)
+                    .before(() -> setArray())
+                    .after(() -> assertTrue(Sorts.isSorted(a)))
+                    .start()
+                    .runThenStop(() -> Sorts.sort(a));
+            log.debug("ms: {}, {}", watch.getAvgTimeMillis(), decisions);
+        } finally {
+            Sorts.setDiagnostics(null);
+        }
+    }
+
+    /**
+     * 不同输入的选择与结果。长度超过2^16，公共ForkJoinPool有多个线程时选择并行版本
+     */
+    @Test
+    public void sortDecisionTest() {
+        List<SortDecision> decisions = new ArrayList<>();
+        Sorts.setDiagnostics(decisions::add);
+        boolean parallel = ForkJoinPool.getCommonPoolParallelism() > 1;
+        try {
+            int len = 100000;
+            Integer[] b = new Integer[len];
+            for (int i = 0; i < len; i++)
+                b[i] = random.nextInt();
+            assertSorted(b, null);
+            assertEquals(parallel ? Algorithm.PARALLEL_RADIX : Algorithm.RADIX, decisions.get(0).getAlgorithm());
+
+            // 已排序的数组再降序排列
+            assertSorted(b, Comparator.<Integer>reverseOrder());
+            assertEquals(Algorithm.NATURAL_MERGE, decisions.get(1).getAlgorithm());
+
+            Double[] d = new Double[len];
+            for (int i = 0; i < len; i++)
+                d[i] = (double) random.nextInt(10);
+            assertSorted(d, null);
+            assertEquals(parallel ? Algorithm.PARALLEL_QUICK_3WAY : Algorithm.QUICK_3WAY, decisions.get(2).getAlgorithm());
+            assertTrue(decisions.get(2).getDuplicateRatio() > 0.9);
+
+            for (int i = 0; i < len; i++)
+                d[i] = random.nextGaussian();
+            assertSorted(d, null);
+            assertEquals(parallel ? Algorithm.PARALLEL_QUICK : Algorithm.QUICK, decisions.get(3).getAlgorithm());
+
+            String[] s = new String[len];
+            for (int i = 0; i < len; i++)
+                s[i] = Integer.toString(random.nextInt(), 36);
+            assertSorted(s, null);
+            assertEquals(Algorithm.STRING_QUICK_3WAY, decisions.get(4).getAlgorithm());
+
+            assertSorted(Arrays.copyOf(s, 20), null);
+            assertEquals(Algorithm.INSERTION, decisions.get(5).getAlgorithm());
+            assertSorted(new String[0], Comparator.<String>reverseOrder());
+            assertEquals(Algorithm.INSERTION, decisions.get(6).getAlgorithm());
+            log.debug("{}", decisions);
+        } finally {
+            Sorts.setDiagnostics(null);
+        }
+    }
+
+    /**
+     * 重复元素多的大数组使用三向切分，多线程时为QuickX.parallelSort。
+     * 输入中一半为相同的值，另一半是已排序的段与逆序的段，没有预先打乱时容易得到不均匀的切分
+     */
+    @Test
+    public void duplicatesDecisionTest() {
+        List<SortDecision> decisions = new ArrayList<>();
+        Sorts.setDiagnostics(decisions::add);
+        try {
+            int len = 1 << 18;
+            Long[] b = new Long[len];
+            for (int i = 0; i < len; i++)
+                b[i] = i % 2 == 0 ? 0L : (i / 1000) % 2 == 0 ? i : len - i;
+            assertSorted(b, null);
+            assertSorted(b.clone(), Comparator.<Long>reverseOrder());
+            Algorithm expected = ForkJoinPool.getCommonPoolParallelism() > 1 ? Algorithm.PARALLEL_QUICK_3WAY
+                    : Algorithm.QUICK_3WAY;
+            for (SortDecision decision : decisions) {
+                assertEquals(expected, decision.getAlgorithm());
+                assertTrue(decision.getDuplicateRatio() >= 0.25);
+            }
+            log.debug("{}", decisions);
+        } finally {
+            Sorts.setDiagnostics(null);
+        }
+    }
+
+    private static <T extends Comparable<? super T>> void assertSorted(T[] b, Comparator<T> comparator) {
+        T[] expected = b.clone();
+        Arrays.sort(expected, comparator);
+        Sorts.sort(b, comparator);
+        assertArrayEquals(expected, b);
+    }
 }
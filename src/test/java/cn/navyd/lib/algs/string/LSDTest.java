@@ -0,0 +1,119 @@
+package cn.navyd.lib.algs.string;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class LSDTest {
+    private Random random = new Random(47);
+    private int[] a;
+    private int[] expected;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setIntArray() {
+        int len = 5000000;
+        a = new int[len];
+        for (int i = 0; i < len; i++)
+            a[i] = random.nextInt();
+        expected = a.clone();
+        Arrays.sort(expected);
+    }
+
+    @Test
+    public void sortIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertArrayEquals(expected, a))
+                .start()
+                .runThenStop(() -> LSD.sort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void parallelSortIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertArrayEquals(expected, a))
+                .start()
+                .runThenStop(() -> LSD.parallelSort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void sortLongTest() {
+        int len = 1000000;
+        long[] b = new long[len];
+        for (int i = 0; i < len; i++)
+            b[i] = i % 3 == 0 ? random.nextLong() : random.nextInt(1000) - 500;
+        long[] c = b.clone();
+        long[] sorted = b.clone();
+        Arrays.sort(sorted);
+        LSD.sort(b);
+        assertArrayEquals(sorted, b);
+        LSD.parallelSort(c);
+        assertArrayEquals(sorted, c);
+    }
+
+    /**
+     * 只按前w个字节排序，之后的字节记录原始顺序以检查稳定性
+     */
+    @Test
+    public void sortRecordsTest() {
+        int len = 300000, w = 6;
+        byte[][] b = new byte[len][];
+        for (int i = 0; i < len; i++) {
+            byte[] r = new byte[w + 4];
+            for (int j = 0; j < w; j++)
+                r[j] = (byte) random.nextInt(j < 3 ? 2 : 256);
+            r[w] = (byte) (i >>> 24);
+            r[w + 1] = (byte) (i >>> 16);
+            r[w + 2] = (byte) (i >>> 8);
+            r[w + 3] = (byte) i;
+            b[i] = r;
+        }
+        Comparator<byte[]> byKey = (x, y) -> {
+            for (int j = 0; j < w; j++)
+                if (x[j] != y[j])
+                    return Integer.compare(x[j] & 0xFF, y[j] & 0xFF);
+            return 0;
+        };
+        byte[][] sorted = b.clone();
+        Arrays.sort(sorted, byKey);
+        byte[][] c = b.clone();
+        LSD.sort(b, w);
+        assertArrayEquals(sorted, b);
+        LSD.parallelSort(c, w);
+        assertArrayEquals(sorted, c);
+    }
+
+    @Test
+    public void sortCharsTest() {
+        int len = 100000, w = 4;
+        char[][] b = new char[len][];
+        String[] s = new String[len];
+        for (int i = 0; i < len; i++) {
+            char[] r = new char[w];
+            for (int j = 0; j < w; j++)
+                r[j] = (char) (random.nextBoolean() ? 'a' + random.nextInt(26) : 0x4e00 + random.nextInt(64));
+            b[i] = r;
+            s[i] = new String(r);
+        }
+        String[] sorted = s.clone();
+        Arrays.sort(sorted);
+        LSD.sort(s, w);
+        assertArrayEquals(sorted, s);
+        LSD.sort(b, w);
+        for (int i = 0; i < len; i++)
+            assertArrayEquals(sorted[i].toCharArray(), b[i]);
+    }
+}
@@ -0,0 +1,92 @@
+package cn.navyd.lib.algs.string;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MSDTest {
+    private Random random = new Random(47);
+    private int[] a;
+    private int[] expected;
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+
+    public void setIntArray() {
+        int len = 5000000;
+        a = new int[len];
+        for (int i = 0; i < len; i++)
+            a[i] = random.nextInt();
+        expected = a.clone();
+        Arrays.sort(expected);
+    }
+
+    @Test
+    public void sortIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertArrayEquals(expected, a))
+                .start()
+                .runThenStop(() -> MSD.sort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    @Test
+    public void parallelSortIntTest() {
+        watch.frequency(freq)
+                .before(() -> setIntArray())
+                .after(() -> assertArrayEquals(expected, a))
+                .start()
+                .runThenStop(() -> MSD.parallelSort(a));
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+
+    /**
+     * 负数、极值与高位字节全部相同的键
+     */
+    @Test
+    public void negativeAndSkipTest() {
+        int len = 200000;
+        int[] b = new int[len];
+        for (int i = 0; i < len; i++)
+            b[i] = random.nextInt(2000) - 1000;
+        b[0] = Integer.MIN_VALUE;
+        b[1] = Integer.MAX_VALUE;
+        int[] c = b.clone();
+        int[] sorted = b.clone();
+        Arrays.sort(sorted);
+        MSD.sort(b);
+        assertArrayEquals(sorted, b);
+        MSD.parallelSort(c);
+        assertArrayEquals(sorted, c);
+
+        for (int i = 0; i < len; i++)
+            b[i] = 0x12345600 | random.nextInt(256);
+        sorted = b.clone();
+        Arrays.sort(sorted);
+        MSD.parallelSort(b);
+        assertArrayEquals(sorted, b);
+    }
+
+    @Test
+    public void sortLongTest() {
+        int len = 1000000;
+        long[] b = new long[len];
+        for (int i = 0; i < len; i++)
+            b[i] = i % 3 == 0 ? random.nextLong() : random.nextInt(1000) - 500;
+        long[] c = b.clone();
+        long[] sorted = b.clone();
+        Arrays.sort(sorted);
+        MSD.sort(b);
+        assertArrayEquals(sorted, b);
+        MSD.parallelSort(c);
+        assertArrayEquals(sorted, c);
+    }
+}
@@ -0,0 +1,109 @@
+package cn.navyd.lib.algs.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.navyd.lib.util.StrictWatchRunner;
+import cn.navyd.lib.util.WatchRunner;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class EytzingerSearchTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private int freq = 1;
+    private int[] sorted, keys;
+    private long sum;
+
+    // 第一个不小于key的下标
+    private int lowerBound(int[] a, int key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * 每种长度(包括最后一层不满的情况)都与有序数组上的二分查找比较
+     */
+    @Test
+    public void intTest() {
+        for (int n = 0; n <= 300; n++) {
+            int[] a = random.ints(n, 0, 2 * n + 1).sorted().toArray();
+            EytzingerSearch.OfInt index = EytzingerSearch.of(a);
+            assertEquals(n, index.size());
+            for (int i = 0; i < n; i++)
+                assertEquals(a[i], index.select(i));
+            for (int key = -1; key <= 2 * n + 1; key++) {
+                int r = lowerBound(a, key), f = lowerBound(a, key + 1) - 1;
+                assertEquals(r, index.rank(key));
+                assertEquals(r < n && a[r] == key, index.contains(key));
+                if (r < n)
+                    assertEquals(a[r], index.ceiling(key));
+                if (f >= 0)
+                    assertEquals(a[f], index.floor(key));
+            }
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void floorTooSmallTest() {
+        EytzingerSearch.of(new long[] { 3, 5 }).floor(2);
+    }
+
+    @Test
+    public void longAndComparableTest() {
+        long[] a = random.longs(1000, Long.MIN_VALUE / 2, Long.MAX_VALUE / 2).sorted().toArray();
+        String[] s = Arrays.stream(a).mapToObj(v -> String.format("%020d", v + Long.MAX_VALUE / 2)).toArray(String[]::new);
+        EytzingerSearch.OfLong index = EytzingerSearch.of(a);
+        EytzingerSearch.Of<String> strings = EytzingerSearch.of(s);
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(i, index.rank(a[i]));
+            assertEquals(a[i], index.floor(a[i] + 1));
+            assertEquals(a[i], index.ceiling(a[i] - 1));
+            assertEquals(i, strings.rank(s[i]));
+            assertTrue(strings.contains(s[i]));
+            assertEquals(s[i], strings.ceiling(s[i].substring(0, 19)));
+        }
+        assertFalse(index.contains(a[0] - 1));
+        assertNull(strings.floor(""));
+        assertNull(strings.ceiling("a"));
+    }
+
+    /**
+     * 大数组上的随机查找
+     */
+    @Test
+    public void rankTest() {
+        watch.frequency(freq)
+                .before(() -> {
+                    sorted = random.ints(1 << 22).sorted().toArray();
+                    keys = random.ints(1 << 20).toArray();
+                })
+                .start()
+                .runThenStop(() -> {
+                    EytzingerSearch.OfInt index = EytzingerSearch.of(sorted);
+                    sum = 0;
+                    for (int key : keys)
+                        sum += index.rank(key);
+                });
+        long expected = 0;
+        for (int key : keys)
+            expected += lowerBound(sorted, key);
+        assertEquals(expected, sum);
+        log.debug("ms: {}", watch.getAvgTimeMillis());
+    }
+}
@@ -0,0 +1,55 @@
+package cn.navyd.lib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class CutoffsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void calibrateTest() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("tuned").resolve("cutoffs.properties");
+        long start = System.currentTimeMillis();
+        Properties written = Cutoffs.calibrate(path);
+        log.debug("ms: {}, {}", System.currentTimeMillis() - start, written);
+
+        Properties loaded = Cutoffs.load(path);
+        assertEquals(written, loaded);
+        for (String key : Arrays.asList(Cutoffs.QUICK, Cutoffs.QUICK_3WAY, Cutoffs.MERGE, Cutoffs.MSD)) {
+            int cutoff = Cutoffs.get(loaded, key, -1);
+            assertTrue(key + "=" + cutoff, cutoff >= 4 && cutoff <= 64);
+        }
+    }
+
+    @Test
+    public void loadTest() throws IOException {
+        Path path = folder.newFile().toPath();
+        // 手写的文件没有jvm记录，不合法的值使用默认值
+        Files.write(path, Arrays.asList("quick = 24", "merge=2", "msd=x"), StandardCharsets.UTF_8);
+        Properties p = Cutoffs.load(path);
+        assertEquals(24, Cutoffs.get(p, Cutoffs.QUICK, 15));
+        assertEquals(7, Cutoffs.get(p, Cutoffs.MERGE, 7));
+        assertEquals(15, Cutoffs.get(p, Cutoffs.MSD, 15));
+        assertEquals(8, Cutoffs.get(p, Cutoffs.QUICK_3WAY, 8));
+
+        // 其他JVM生成的文件被忽略
+        Files.write(path, Arrays.asList("jvm=other", "quick=24"), StandardCharsets.UTF_8);
+        assertEquals(15, Cutoffs.get(Cutoffs.load(path), Cutoffs.QUICK, 15));
+        assertTrue(Cutoffs.load(folder.getRoot().toPath().resolve("missing")).isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package cn.navyd.lib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import cn.navyd.lib.algs.sort.MergeBU;
+import cn.navyd.lib.algs.sort.MergeX;
+import cn.navyd.lib.algs.sort.Quick;
+import cn.navyd.lib.algs.sort.QuickX;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 使用-Dnavyd.sort.stats=true运行时检查计数，否则检查计数都为0。
+ * mvn test会在单独的JVM中开启计数再运行一次，见pom.xml中的sort-stats
+ */
+@Slf4j
+public class SortStatsTest {
+    private Random random = new Random(47);
+    private WatchRunner watch = StrictWatchRunner.of();
+    private Integer[] a;
+
+    private void setArray(int n) {
+        a = new Integer[n];
+        for (int i = 0; i < n; i++)
+            a[i] = random.nextInt();
+    }
+
+    @Test
+    public void quickTest() {
+        int n = 1 << 16;
+        watch.frequency(3)
+                .before(() -> setArray(n))
+                .start()
+                .runThenStop(() -> Quick.sort(a));
+        SortStats stats = watch.getSortStats();
+        log.debug("stats: {}", stats);
+        if (!SortStats.ENABLED) {
+            assertEquals(0, stats.getCompares());
+            assertEquals(0, stats.getMaxDepth());
+            return;
+        }
+        double lg = Math.log(n) / Math.log(2);
+        // 开启-ea时isSorted的比较也会计入
+        assertTrue(stats.getCompares() > n * lg / 2);
+        assertTrue(stats.getExchanges() > 0 && stats.getExchanges() < n * lg);
+        assertTrue(stats.getReads() >= 2 * stats.getCompares());
+        // 内省排序的深度不超过2lgN
+        assertTrue(stats.getMaxDepth() > lg / 2 && stats.getMaxDepth() <= 2 * lg);
+    }
+
+    @Test
+    public void mergeTest() {
+        int n = 1 << 16;
+        watch.frequency(1)
+                .before(() -> setArray(n))
+                .start()
+                .runThenStop(() -> MergeX.sort(a));
+        SortStats stats = watch.getSortStats();
+        log.debug("stats: {}", stats);
+        if (!SortStats.ENABLED) {
+            assertEquals(0, stats.getWrites());
+            return;
+        }
+        double lg = Math.log(n) / Math.log(2);
+        assertEquals(0, stats.getExchanges());
+        assertTrue(stats.getCompares() > n * (lg - 4) / 2);
+        assertTrue(stats.getWrites() > n * (lg - 4));
+        assertEquals(Math.round(lg) - 3, stats.getMaxDepth());
+    }
+
+    /**
+     * 比较次数与比较器实际被调用的次数相同，包括排序网络、TimSort的gallop与-ea时的isSorted。
+     * 输入为随机数组与由有序片段组成的数组
+     */
+    @Test
+    public void comparesTest() {
+        int n = 100000;
+        Map<String, BiConsumer<Integer[], Comparator<Integer>>> sorts = new LinkedHashMap<>();
+        sorts.put("Quick.sort", Quick::sort);
+        sorts.put("Quick.sortDualPivot", Quick::sortDualPivot);
+        sorts.put("QuickX.sort", QuickX::sort);
+        sorts.put("MergeX.sort", MergeX::sort);
+        sorts.put("MergeBU.sortNatural", MergeBU::sortNatural);
+        sorts.put("Sorts.sort", Sorts::sort);
+        long[] calls = new long[1];
+        Comparator<Integer> counting = (v, w) -> {
+            calls[0]++;
+            return v.compareTo(w);
+        };
+        sorts.forEach((name, sort) -> {
+            for (boolean runs : new boolean[] { false, true }) {
+                setArray(n);
+                if (runs)
+                    for (int lo = 0; lo < n; lo += 5000)
+                        Arrays.sort(a, lo, Math.min(n, lo + random.nextInt(5000) + 1));
+                calls[0] = 0;
+                SortStats.reset();
+                sort.accept(a, counting);
+                long compares = SortStats.snapshot().getCompares();
+                log.debug("{} runs={} compares: {}, comparator calls: {}", name, runs, compares, calls[0]);
+                assertEquals(name, SortStats.ENABLED ? calls[0] : 0, compares);
+            }
+        });
+    }
+}